@@ -0,0 +1,73 @@
+package edu.iu.jrsalata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures generating the object code of every statement of a workload,
+ * which is mostly ExtendedStatement.assemble for SIC/XE programs.
+ *
+ * A statement keeps its object code once it is assembled, so pass 1 is run again before
+ * every operation. That setup is not measured, but JMH has to time each operation on its own,
+ * so only workloads large enough to take well over a millisecond are used.
+ * The bytes allocated that the GC profiler reports include the setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssembleBenchmark {
+
+    /**
+     * The name of the workload to assemble
+     */
+    @Param({ "synthetic-10000", "synthetic-100000" })
+    public String workload;
+
+    /**
+     * The statements of every control section, after relocation
+     */
+    private List<Statement> statements;
+
+    /**
+     * Runs pass 1 and relocates the statements, so none of them is assembled yet.
+     */
+    @Setup(Level.Invocation)
+    public void setup() {
+        this.statements = new ArrayList<>();
+        for (AbstractStatementBuilder builder : Workload.get(this.workload).passOne()) {
+            this.statements.addAll(builder.getStatements());
+        }
+    }
+
+    /**
+     * Assembles every statement.
+     *
+     * @return the total length of the object code in half-bytes
+     * @throws InvalidAssemblyFileException if a statement cannot be assembled
+     */
+    @Benchmark
+    public int assemble() throws InvalidAssemblyFileException {
+        int length = 0;
+        for (Statement statement : this.statements) {
+            length += statement.assembleCode();
+        }
+        return length;
+    }
+}
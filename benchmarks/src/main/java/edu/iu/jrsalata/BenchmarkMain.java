@@ -0,0 +1,84 @@
+package edu.iu.jrsalata;
+
+import java.util.Collection;
+import java.util.Locale;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The BenchmarkMain class runs the benchmarks with the GC profiler and then reports
+ * the throughput of every benchmark that runs over a workload in lines per second,
+ * along with the bytes allocated for each line.
+ *
+ * It takes the same arguments as the JMH command line, so a regular expression selects
+ * the benchmarks to run, like {@code java -jar target/benchmarks.jar PassOne}.
+ */
+public final class BenchmarkMain {
+
+    /**
+     * The name of the secondary result the GC profiler gives the bytes allocated per operation
+     */
+    static final String ALLOCATED = "gc.alloc.rate.norm";
+
+    /**
+     * Only used through main.
+     */
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the selected benchmarks and prints the summary.
+     *
+     * @param args JMH command line arguments
+     * @throws CommandLineOptionException if the arguments are not valid
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println();
+        System.out.println("Per line:");
+        System.out.printf(Locale.ROOT, "%-45s %-18s %14s %14s%n", "Benchmark", "Workload", "lines/s", "bytes/line");
+        for (RunResult result : results) {
+            BenchmarkParams params = result.getParams();
+            String workload = params.getParam("workload");
+            if (workload == null) {
+                continue;
+            }
+
+            // every operation of these benchmarks runs over the whole workload
+            int lines = Workload.get(workload).getLineCount();
+            double linesPerSecond = result.getPrimaryResult().getScore() * lines;
+            Result allocated = result.getSecondaryResults().get(ALLOCATED);
+            double bytesPerLine = allocated == null ? Double.NaN : allocated.getScore() / lines;
+
+            System.out.printf(Locale.ROOT, "%-45s %-18s %14.0f %14.1f%n",
+                    shortName(params.getBenchmark()), workload, linesPerSecond, bytesPerLine);
+        }
+    }
+
+    /**
+     * Removes the package from the name of a benchmark.
+     *
+     * @param benchmark the full name of the benchmark method
+     * @return the class and method name
+     */
+    private static String shortName(String benchmark) {
+        int method = benchmark.lastIndexOf('.');
+        int type = benchmark.lastIndexOf('.', method - 1);
+        return benchmark.substring(type + 1);
+    }
+}
@@ -0,0 +1,155 @@
+package edu.iu.jrsalata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures evaluating the operand of a statement, as pass 1 does for every operand.
+ * Each operation evaluates one operand from a mix of plain symbols, numbers, and expressions.
+ *
+ * The compiled expressions of the operands are also evaluated on their own, both natively and
+ * with exp4j, the way expressions were evaluated before the native evaluator.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    /**
+     * The number of operands in each invocation
+     */
+    static final int BATCH = 1024;
+
+    /**
+     * The number of symbols the operands refer to
+     */
+    static final int SYMBOLS = 256;
+
+    /**
+     * The builder the operands are evaluated in
+     */
+    private StatementBuilder builder;
+
+    /**
+     * The operands to evaluate
+     */
+    private String[] operands;
+
+    /**
+     * The expressions to evaluate on their own
+     */
+    private CompiledExpression[] compiled;
+
+    /**
+     * The exp4j version of each compiled expression
+     */
+    private Exp4jExpression[] exp4j;
+
+    /**
+     * The value of each slot of each compiled expression
+     */
+    private int[][] values;
+
+    /**
+     * Defines the symbols and creates the operands.
+     *
+     * @throws InvalidAssemblyFileException if the symbols cannot be defined
+     */
+    @Setup
+    public void setup() throws InvalidAssemblyFileException {
+        this.builder = new StatementBuilder(new SymbolContext());
+        this.builder.processStatement("PROG\tSTART\t0");
+        for (int i = 0; i < SYMBOLS; i++) {
+            this.builder.processStatement("S" + i + "\tWORD\t" + i);
+        }
+
+        this.operands = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            int a = i % SYMBOLS;
+            int b = (i * 31 + 7) % SYMBOLS;
+            this.operands[i] = switch (i % 6) {
+                case 0 -> "S" + a;
+                case 1 -> "#" + i;
+                case 2 -> "S" + a + "+" + (i % 16);
+                case 3 -> "S" + a + "-S" + b;
+                case 4 -> "#S" + a + "-S" + b;
+                default -> "S" + a + "-" + (i % 8) + ",X";
+            };
+        }
+
+        this.compiled = new CompiledExpression[BATCH];
+        this.exp4j = new Exp4jExpression[BATCH];
+        this.values = new int[BATCH][];
+        for (int i = 0; i < BATCH; i++) {
+            int a = i % SYMBOLS;
+            int b = (i * 31 + 7) % SYMBOLS;
+            String source = switch (i % 4) {
+                case 0 -> "S" + a + "+" + (i % 16);
+                case 1 -> "S" + a + "-S" + b;
+                case 2 -> "(S" + a + "-S" + b + ")/3+*";
+                default -> "S" + a + "*2-S" + b + "*" + (i % 8);
+            };
+            this.compiled[i] = new CompiledExpression(source);
+            this.exp4j[i] = new Exp4jExpression(this.compiled[i]);
+            this.values[i] = new int[this.compiled[i].getOperandCount()];
+            for (int j = 0; j < this.values[i].length; j++) {
+                this.values[i][j] = (i + j * 7) % SYMBOLS * 3;
+            }
+        }
+    }
+
+    /**
+     * Evaluates every operand.
+     *
+     * @param blackhole consumes the evaluated operands
+     * @throws InvalidAssemblyFileException if an operand is not valid
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void evaluateExpression(Blackhole blackhole) throws InvalidAssemblyFileException {
+        for (String operand : this.operands) {
+            blackhole.consume(this.builder.evaluateExpression(operand));
+        }
+    }
+
+    /**
+     * Evaluates every compiled expression natively with integer math.
+     *
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void evaluateCompiled(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(this.compiled[i].evaluate(this.values[i], 4096));
+        }
+    }
+
+    /**
+     * Evaluates every compiled expression with exp4j.
+     *
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void evaluateExp4j(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(this.exp4j[i].evaluate(this.values[i], 4096));
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package edu.iu.jrsalata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the HexNum arithmetic and formatting that every statement goes through.
+ * Each operation works on one of a fixed set of values.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HexNumBenchmark {
+
+    /**
+     * The number of values used by each invocation
+     */
+    static final int BATCH = 1024;
+
+    /**
+     * Location counters spread over the whole address space
+     */
+    private HexNum[] values;
+
+    /**
+     * Sizes of statements to add to the location counters
+     */
+    private HexNum[] sizes;
+
+    /**
+     * Reused to format the values, like a text record is
+     */
+    private StringBuilder record;
+
+    /**
+     * Creates the values.
+     */
+    @Setup
+    public void setup() {
+        this.values = new HexNum[BATCH];
+        this.sizes = new HexNum[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            this.values[i] = new HexNum(i * 1021 & 0xFFFFF);
+            this.sizes[i] = HexNum.valueOf(1 + i % 4);
+        }
+        this.record = new StringBuilder(80);
+    }
+
+    /**
+     * Adds a statement size to a location counter, as pass 1 does for every statement.
+     *
+     * @param blackhole consumes the sums
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void add(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(this.values[i].add(this.sizes[i]));
+        }
+    }
+
+    /**
+     * Subtracts two addresses, as a displacement is calculated.
+     *
+     * @param blackhole consumes the differences
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void subtract(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(this.values[i].subtract(this.values[BATCH - 1 - i]));
+        }
+    }
+
+    /**
+     * Formats an address as six hex digits into a reused record.
+     *
+     * @param blackhole consumes the length of the record
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void appendTo(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            this.record.setLength(0);
+            blackhole.consume(this.values[i].appendTo(this.record, 6).length());
+        }
+    }
+
+    /**
+     * Formats an address as a new String of six hex digits.
+     *
+     * @param blackhole consumes the strings
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void toStringDigits(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            blackhole.consume(this.values[i].toString(6));
+        }
+    }
+}
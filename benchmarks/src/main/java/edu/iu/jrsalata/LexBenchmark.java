@@ -0,0 +1,80 @@
+package edu.iu.jrsalata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures splitting every line of a workload into its fields.
+ * Each operation lexes the whole workload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexBenchmark {
+
+    /**
+     * The name of the workload to lex
+     */
+    @Param({ "testAsm1", "testAsm2", "testAsm3", "testAsm4", "testAsm5", "testAsm6", "synthetic-100000" })
+    public String workload;
+
+    /**
+     * The lines of the workload
+     */
+    private String[] lines;
+
+    /**
+     * The SourceLine that is reused for every line, like a builder does
+     */
+    private SourceLine source;
+
+    /**
+     * Loads the workload.
+     */
+    @Setup
+    public void setup() {
+        this.lines = Workload.get(this.workload).getLines();
+        this.source = new SourceLine();
+    }
+
+    /**
+     * Splits every line with Utility.splitLine, which creates a String for each field.
+     *
+     * @param blackhole consumes the fields
+     */
+    @Benchmark
+    public void splitLine(Blackhole blackhole) {
+        for (String line : this.lines) {
+            blackhole.consume(Utility.splitLine(line));
+        }
+    }
+
+    /**
+     * Lexes every line with a reused SourceLine, the way the builders read a file.
+     *
+     * @param blackhole consumes the field count and mnemonic of each line
+     */
+    @Benchmark
+    public void sourceLine(Blackhole blackhole) {
+        for (String line : this.lines) {
+            SourceLine lexed = this.source.lex(line);
+            blackhole.consume(lexed.getFieldCount());
+            blackhole.consume(lexed.getMnemonic());
+        }
+    }
+}
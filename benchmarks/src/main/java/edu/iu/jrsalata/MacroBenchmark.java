@@ -0,0 +1,148 @@
+package edu.iu.jrsalata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures expanding a macro invocation.
+ * The macro is RDBUFF from macroExample.asm. The expansion benchmarks are one invocation each,
+ * and the builder benchmarks give a StatementBuilder {@link #INVOCATIONS} invocations,
+ * either through the macro or by processing the text of each expanded line.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MacroBenchmark {
+
+    /**
+     * The body of the macro
+     */
+    static final String[] DEFINITION = {
+        "CLEAR\tX",
+        "CLEAR\tA",
+        "CLEAR\tS",
+        "+LDT\t#4096",
+        "TD\t=X'&INDEV'",
+        "JEQ\t*-3",
+        "RD\t=X'&INDEV'",
+        "COMPR\tA,S",
+        "JEQ\t*+11",
+        "STCH\t&BUFADR,X",
+        "TIXR\tT",
+        "JLT\t*-19",
+        "STX\t&RECLTH",
+    };
+
+    /**
+     * The arguments of the invocation
+     */
+    static final String[] ARGS = { "F1", "BUFFER", "LENGTH" };
+
+    /**
+     * The invocation as a line of source
+     */
+    static final String INVOCATION = "RDBUFF\tF1,BUFFER,LENGTH";
+
+    /**
+     * The number of invocations each builder benchmark processes
+     */
+    static final int INVOCATIONS = 100;
+
+    /**
+     * The defined macro
+     */
+    private MacroProcessor processor;
+
+    /**
+     * Defines the macro.
+     */
+    @Setup
+    public void setup() {
+        this.processor = new MacroProcessor(new String[] { "&INDEV", "&BUFADR", "&RECLTH" });
+        for (String line : DEFINITION) {
+            this.processor.addLine(line);
+        }
+        this.processor.finish();
+    }
+
+    /**
+     * Creates a builder that knows the macro and has started its section.
+     *
+     * @return the builder
+     * @throws InvalidAssemblyFileException if the section cannot be started
+     */
+    private StatementBuilder startBuilder() throws InvalidAssemblyFileException {
+        SymbolContext symbols = new SymbolContext();
+        symbols.addMacro("RDBUFF", this.processor);
+        StatementBuilder builder = new StatementBuilder(symbols);
+        builder.processStatement("COPY\tSTART\t0");
+        return builder;
+    }
+
+    /**
+     * Expands the macro into lines of text.
+     *
+     * @return the expanded lines
+     * @throws InvalidAssemblyFileException if the arguments do not match the parameters
+     */
+    @Benchmark
+    public Object getLines() throws InvalidAssemblyFileException {
+        return this.processor.getLines(ARGS);
+    }
+
+    /**
+     * Expands the macro into lines with their fields, as the builder does.
+     *
+     * @return the expanded lines
+     * @throws InvalidAssemblyFileException if the arguments do not match the parameters
+     */
+    @Benchmark
+    public Object getStatements() throws InvalidAssemblyFileException {
+        return this.processor.getStatements(ARGS);
+    }
+
+    /**
+     * Processes the invocations through the macro, as a source file does.
+     *
+     * @return the builder
+     * @throws InvalidAssemblyFileException if a line cannot be processed
+     */
+    @Benchmark
+    public Object processInvocations() throws InvalidAssemblyFileException {
+        StatementBuilder builder = startBuilder();
+        for (int i = 0; i < INVOCATIONS; i++) {
+            builder.processStatement(INVOCATION);
+        }
+        return builder;
+    }
+
+    /**
+     * Processes the text of each expanded line of the invocations, which lexes every line again.
+     *
+     * @return the builder
+     * @throws InvalidAssemblyFileException if a line cannot be processed
+     */
+    @Benchmark
+    public Object processExpandedText() throws InvalidAssemblyFileException {
+        StatementBuilder builder = startBuilder();
+        for (int i = 0; i < INVOCATIONS; i++) {
+            for (String line : this.processor.getLines(ARGS)) {
+                builder.processStatement(line);
+            }
+        }
+        return builder;
+    }
+}
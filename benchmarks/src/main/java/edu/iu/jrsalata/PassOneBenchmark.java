@@ -0,0 +1,59 @@
+package edu.iu.jrsalata;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures pass 1: reading a workload and giving every line to StatementBuilder.processStatement,
+ * including control sections, macro expansion, literals, and expressions.
+ * Each operation reads the whole workload into a new symbol context.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PassOneBenchmark {
+
+    /**
+     * The name of the workload to read
+     */
+    @Param({ "testAsm1", "testAsm2", "testAsm3", "testAsm4", "testAsm5", "testAsm6", "synthetic-100000" })
+    public String workload;
+
+    /**
+     * The workload
+     */
+    private Workload program;
+
+    /**
+     * Loads the workload.
+     */
+    @Setup
+    public void setup() {
+        this.program = Workload.get(this.workload);
+    }
+
+    /**
+     * Runs pass 1 over the workload.
+     *
+     * @return the builder of each control section
+     */
+    @Benchmark
+    public Queue<AbstractStatementBuilder> processStatement() {
+        return this.program.passOne();
+    }
+}
@@ -0,0 +1,121 @@
+package edu.iu.jrsalata;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures symbol lookups through SymTable, for symbols that are defined and ones that are not.
+ * Each operation is a single lookup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymTableBenchmark {
+
+    /**
+     * The number of lookups in each invocation
+     */
+    static final int BATCH = 1024;
+
+    /**
+     * The control section the symbols are defined in
+     */
+    static final String SECTION = "PROG";
+
+    /**
+     * The number of symbols defined in the table
+     */
+    @Param({ "100", "100000" })
+    public int symbols;
+
+    /**
+     * Names of defined symbols to look up
+     */
+    private String[] defined;
+
+    /**
+     * Names of symbols that are not defined, like numbers that look like symbols
+     */
+    private String[] missing;
+
+    /**
+     * Fills the table with symbols.
+     */
+    @Setup
+    public void setup() {
+        SymTable.clear();
+        for (int i = 0; i < this.symbols; i++) {
+            SymTable.addSymbol("S" + i, HexNum.valueOf(i * 3), "", SECTION);
+        }
+        this.defined = new String[BATCH];
+        this.missing = new String[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            this.defined[i] = "S" + (i * 7919 % this.symbols);
+            this.missing[i] = Integer.toString(i);
+        }
+    }
+
+    /**
+     * Clears the table for the next benchmark.
+     */
+    @TearDown
+    public void tearDown() {
+        SymTable.clear();
+    }
+
+    /**
+     * Looks up symbols that are defined.
+     *
+     * @param blackhole consumes the addresses
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void getSymbol(Blackhole blackhole) {
+        for (String symbol : this.defined) {
+            blackhole.consume(SymTable.getSymbol(symbol, SECTION));
+        }
+    }
+
+    /**
+     * Looks up operands that are not symbols, as every numeric operand is.
+     *
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void getMissingSymbol(Blackhole blackhole) {
+        for (String symbol : this.missing) {
+            blackhole.consume(SymTable.getSymbol(symbol, SECTION));
+        }
+    }
+
+    /**
+     * Checks if symbols are defined, as a label is before it is added.
+     *
+     * @param blackhole consumes the results
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void containsSymbol(Blackhole blackhole) {
+        for (String symbol : this.defined) {
+            blackhole.consume(SymTable.containsSymbol(symbol, SECTION));
+        }
+    }
+}
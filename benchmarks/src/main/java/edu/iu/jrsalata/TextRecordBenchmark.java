@@ -0,0 +1,97 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures ObjectWriter.writeTextRecords: grouping the object code of every statement
+ * into text records and writing them with the modification records.
+ *
+ * The statements are assembled once before the benchmark, since a statement keeps its
+ * object code, so this measures writing the records and not generating the code.
+ * The records are written to a Writer that discards them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextRecordBenchmark {
+
+    /**
+     * The name of the workload to write
+     */
+    @Param({ "testAsm1", "testAsm2", "testAsm3", "testAsm4", "testAsm5", "testAsm6", "synthetic-100000" })
+    public String workload;
+
+    /**
+     * The builder of every control section
+     */
+    private List<AbstractStatementBuilder> builders;
+
+    /**
+     * The assembled statements of each control section, in the same order as the builders
+     */
+    private List<List<Statement>> statements;
+
+    /**
+     * The writer that writes the records
+     */
+    private ObjectWriter writer;
+
+    /**
+     * Discards everything written to it
+     */
+    private Writer output;
+
+    /**
+     * Runs pass 1 and assembles every statement.
+     *
+     * @throws InvalidAssemblyFileException if a statement cannot be assembled
+     */
+    @Setup
+    public void setup() throws InvalidAssemblyFileException {
+        this.builders = new ArrayList<>(Workload.get(this.workload).passOne());
+        this.statements = new ArrayList<>();
+        for (AbstractStatementBuilder builder : this.builders) {
+            List<Statement> section = new ArrayList<>(builder.getStatements());
+            for (Statement statement : section) {
+                statement.assembleCode();
+            }
+            this.statements.add(section);
+        }
+        this.writer = new ObjectWriter();
+        this.output = Writer.nullWriter();
+    }
+
+    /**
+     * Writes the text and modification records of every control section.
+     *
+     * @throws InvalidAssemblyFileException if a statement cannot be assembled
+     * @throws IOException if an I/O error occurs
+     */
+    @Benchmark
+    public void writeTextRecords() throws InvalidAssemblyFileException, IOException {
+        for (int i = 0; i < this.builders.size(); i++) {
+            this.writer.writeTextRecords(this.output, new ArrayDeque<>(this.statements.get(i)),
+                    this.builders.get(i), null);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package edu.iu.jrsalata;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.script.ScriptException;
+
+/**
+ * The Workload class holds an assembly program that the benchmarks run over.
+ *
+ * A workload is named either after one of the bundled test programs, like "testAsm1",
+ * or as "synthetic-n" for a generated SIC/XE program of about n lines.
+ * Workloads are created once per name and shared, since they are never modified.
+ */
+public final class Workload {
+
+    /**
+     * Every workload that has been loaded, by name
+     */
+    private static final ConcurrentHashMap<String, Workload> WORKLOADS = new ConcurrentHashMap<>();
+
+    /**
+     * Prefix of the names of generated workloads
+     */
+    static final String SYNTHETIC = "synthetic-";
+
+    /**
+     * The name of the workload
+     */
+    private final String name;
+
+    /**
+     * The source of the program
+     */
+    private final String source;
+
+    /**
+     * The lines of the program
+     */
+    private final String[] lines;
+
+    /**
+     * The source of the program as bytes, as it would be read from a file
+     */
+    private final byte[] bytes;
+
+    /**
+     * Constructs a new Workload.
+     *
+     * @param name the name of the workload
+     * @param source the source of the program
+     */
+    private Workload(String name, String source) {
+        this.name = name;
+        this.source = source;
+        this.lines = source.split("\n");
+        this.bytes = source.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Retrieves a workload by name, loading or generating it the first time.
+     *
+     * @param name a bundled program like "testAsm1", or "synthetic-n" for a generated program
+     * @return the workload
+     * @throws IllegalArgumentException if there is no workload with the name
+     */
+    public static Workload get(String name) {
+        return WORKLOADS.computeIfAbsent(name, Workload::load);
+    }
+
+    /**
+     * Loads a bundled program or generates a synthetic one.
+     *
+     * @param name the name of the workload
+     * @return the new workload
+     */
+    private static Workload load(String name) {
+        if (name.startsWith(SYNTHETIC)) {
+            return new Workload(name, synthetic(Integer.parseInt(name.substring(SYNTHETIC.length()))));
+        }
+        try (InputStream in = Workload.class.getResourceAsStream("/" + name + ".asm")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown workload: " + name);
+            }
+            return new Workload(name, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generates a SIC/XE program of about the given number of lines.
+     *
+     * The program mixes every kind of statement the assembler handles: data labels, program blocks,
+     * literals, macro invocations, and a control section for every 25000 lines, which define and
+     * refer to each other's words. The seed is fixed, so every run measures the same program.
+     *
+     * @param lines the number of lines to generate
+     * @return the source of the program
+     */
+    static String synthetic(int lines) {
+        SourceGenerator generator = new SourceGenerator();
+        generator.setLines(lines);
+        generator.setLabels(lines / 8);
+        generator.setSections(Math.max(1, lines / 25000));
+        generator.setBlocks(2);
+        generator.setLiterals(lines / 100);
+        generator.setMacros(8);
+        generator.setExternalReferences(4);
+        return generator.generate();
+    }
+
+    /**
+     * Runs pass 1 over the workload in its own symbol context.
+     *
+     * @return the builder of each control section
+     * @throws IllegalStateException if the workload does not assemble
+     */
+    public Queue<AbstractStatementBuilder> passOne() {
+        try {
+            AbstractStatementBuilderBuilder builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+            builderBuilder.execute(newInputStream());
+            return builderBuilder.getBuilders();
+        } catch (InvalidAssemblyFileException | ScriptException | IOException e) {
+            throw new IllegalStateException("Workload " + this.name + " does not assemble", e);
+        }
+    }
+
+    /**
+     * Opens the source of the workload as a stream.
+     *
+     * @return a stream of the source's bytes
+     */
+    public InputStream newInputStream() {
+        return new ByteArrayInputStream(this.bytes);
+    }
+
+    /**
+     * Retrieves the name of the workload.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Retrieves the source of the program.
+     *
+     * @return the source
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Retrieves the lines of the program.
+     * The array is shared, so it should not be modified.
+     *
+     * @return each line of the program
+     */
+    public String[] getLines() {
+        return this.lines;
+    }
+
+    /**
+     * Retrieves the number of lines in the program.
+     *
+     * @return the number of lines
+     */
+    public int getLineCount() {
+        return this.lines.length;
+    }
+}
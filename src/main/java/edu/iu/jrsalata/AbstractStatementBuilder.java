@@ -1,29 +1,35 @@
 // AbstractStatementBuilder.java
 package edu.iu.jrsalata;
 
-import java.io.InputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
-import java.util.Scanner;
-import java.util.logging.Level;
+import java.util.Set;
 import java.util.logging.Logger;
 
 import javax.script.ScriptException;
 
-import net.objecthunter.exp4j.Expression;
-import net.objecthunter.exp4j.ExpressionBuilder;
-import net.objecthunter.exp4j.ValidationResult;
-
 
 /**
  * The AbstractStatementBuilder is an abstract class that handles most of the logic when it comes to creating concrete StatementBuilders
  * 
  * Since most of the logic regarding assembler directives is the same,
  * most of it is stored in this class.
+ *
+ * A builder can also stream its text records while the section is still being read.
+ * Statements are then written as soon as every statement before them can be assembled, and
+ * only the statements from the first forward reference onwards are held in memory.
+ * Once a section uses program blocks or starts at an address other than 0, symbols are not
+ * final until the section ends, so the rest of its statements are held and written at the end.
  */
 public abstract class AbstractStatementBuilder {
     
@@ -32,6 +38,11 @@ public abstract class AbstractStatementBuilder {
      */
     static final String DEFAULT_BLOCK = "DEFAULT";
 
+    /**
+     * Name of the block that symbols defined by absolute expressions are placed in
+     */
+    static final String ABSOLUTE_BLOCK = "ABSOLUTE";
+
     /**
      * Standard logger for info and error messages
      */
@@ -70,13 +81,20 @@ public abstract class AbstractStatementBuilder {
      * externalDefinitions refers to any label that may be accessed
      * in a separate control section
      */
-    protected Queue<String> externalDefinitions = new LinkedList<>();
+    protected Queue<String> externalDefinitions = new ArrayDeque<>();
 
     /**
      * externalReferences refers to labels in this control section
      * that are accessed in a separate section
      */
-    protected Queue<String> externalReferences = new LinkedList<>();
+    protected Queue<String> externalReferences = new ArrayDeque<>();
+
+    /**
+     * externalReferenceSet holds the same labels as externalReferences
+     * so that every instruction can check for an external reference without scanning the queue,
+     * which is emptied when the refer records are written
+     */
+    protected final Set<String> externalReferenceSet = new HashSet<>();
 
     /**
      * with every external reference, we need a new modification record
@@ -88,29 +106,58 @@ public abstract class AbstractStatementBuilder {
      * literals are values that are hard coded in like =X'05'
      * These need to be placed in a literal pool later, hence why they are stored here
      */
-    protected Queue<DirectiveStatement> literals = new LinkedList<>();
+    protected Queue<DirectiveStatement> literals = new ArrayDeque<>();
 
     /**
      * statements is the queue that is returned to the client
      * Each of them contains a statement that has appropriate info
      * on its location, args, and values so it can be assembled
      */
-    protected Queue<Statement> statements = new LinkedList<>();
+    protected Queue<Statement> statements = new ArrayDeque<>();
 
     /**
-     * instructionTable is a map that holds each of the assembler instructions
+     * instructionSet holds each of the assembler instructions and registers
+     * It is loaded once and shared by every builder
      */
-    protected final HashMap<String, HexNum> instructionTable;
+    protected final InstructionSet instructionSet;
 
     /**
-     * formatTable is a map that holds the format of each instruction
+     * expressions holds the compiled form of recently used expressions
+     * It is shared by every builder of the symbol context so each expression is only parsed once
      */
-    protected final HashMap<String, Format> formatTable;
+    protected final ExpressionCache expressions;
 
-    /** 
-     * registerTable is a map that holds each valid register
+    /**
+     * sourceLine splits each statement into its fields
+     * It is reused for every statement so lexing does not create any objects
+     */
+    protected final SourceLine sourceLine = new SourceLine();
+
+    /**
+     * Holds the object code of every statement of this control section
      */
-    protected final HashMap<String, HexNum> registerTable;
+    protected final ObjectCodeBuffer codeBuffer = new ObjectCodeBuffer();
+
+    /**
+     * streamedRecords groups the statements that have already been written into text records,
+     * or is null if the builder does not stream its statements
+     */
+    protected TextRecordWriter streamedRecords;
+
+    /**
+     * streamedText holds the text records written while the section is read
+     */
+    protected StringWriter streamedText;
+
+    /**
+     * streamedListing holds the listing of the streamed statements, or is null if there is no listing
+     */
+    protected StringWriter streamedListing;
+
+    /**
+     * metrics measures the phases of this control section, or is null if they are not measured
+     */
+    protected SectionMetrics metrics;
 
     /**
      * locctrTable holds the location counter of each program block
@@ -128,13 +175,35 @@ public abstract class AbstractStatementBuilder {
      */
     protected final LinkedHashMap<String, HexNum> startTable;
 
+    /**
+     * symbols is the symbol context this builder defines and resolves its symbols in
+     * It is handed to every statement the builder creates
+     */
+    protected final SymbolContext symbols;
+
+    /**
+     * macros holds the macros this builder can expand, or is null to expand the macros
+     * defined in the symbol context so far
+     */
+    protected Map<String, MacroProcessorInterface> macros;
+
     /**
      * Default constructor that initializes each variable
+     * Symbols are stored in the shared context behind SymTable
      */
     protected AbstractStatementBuilder() {
-        this.instructionTable = new HashMap<>();
-        this.formatTable = new HashMap<>();
-        this.registerTable = new HashMap<>();
+        this(SymTable.getContext());
+    }
+
+    /**
+     * Constructor that initializes each variable and stores symbols in the given context
+     *
+     * @param symbols the symbol context to define and resolve symbols in
+     */
+    protected AbstractStatementBuilder(SymbolContext symbols) {
+        this.symbols = symbols;
+        this.instructionSet = InstructionSet.getInstance();
+        this.expressions = symbols.getExpressions();
         this.name = "";
         this.lineNum = 0;
         this.block = DEFAULT_BLOCK;
@@ -142,12 +211,8 @@ public abstract class AbstractStatementBuilder {
         this.startTable = new LinkedHashMap<>();
 
         // add the default values to locctrTable and startTable
-        this.locctrTable.put(DEFAULT_BLOCK, new HexNum(0));
-        this.startTable.put(DEFAULT_BLOCK, new HexNum(0));
-
-        // we store instructions and registers externally so we load them here
-        loadInstructions("/instructions.txt");
-        loadRegisters("/registers.txt");
+        this.locctrTable.put(DEFAULT_BLOCK, new HexNum());
+        this.startTable.put(DEFAULT_BLOCK, new HexNum());
     }
 
     /**
@@ -224,6 +289,10 @@ public abstract class AbstractStatementBuilder {
      * @return a queue of statements.
      */
     public Queue<Statement> getStatements() {
+        if (this.metrics != null) {
+            this.metrics.start(Phase.RELOCATION);
+        }
+        int relocated = 0;
 
         // calculate the length and relative start of each block
         HexNum total = new HexNum();
@@ -248,7 +317,7 @@ public abstract class AbstractStatementBuilder {
         // instead of relative to the start of their individual block
         String symbolBlock;
         HexNum blockStart;
-        for (String currentSymbol : SymTable.getKeys(this.name)) {
+        for (String currentSymbol : this.symbols.getKeys(this.name)) {
 
             // check if the currentSymbol is absolute first
             // since the value doesn't depend on a program block, we don't need to modify it
@@ -256,19 +325,35 @@ public abstract class AbstractStatementBuilder {
                 continue;
             }
             // first get the value of the symbol
-            tmp = SymTable.getSymbol(currentSymbol, this.name);
+            tmp = this.symbols.getSharedSymbol(currentSymbol, this.name);
 
             // then get the block of the symbol
-            symbolBlock = SymTable.getBlock(currentSymbol, this.name);
+            symbolBlock = this.symbols.getBlock(currentSymbol, this.name);
 
             // then get the start of the block
             blockStart = this.getStart(symbolBlock);
 
             // then add the two values
-            tmp = tmp.add(blockStart);
+            tmp = HexNum.valueOf(tmp.getDec() + blockStart.getDec());
 
             // place the new value in the symbol table
-            SymTable.addSymbol(currentSymbol, tmp, this.block, this.name);
+            this.symbols.addSymbol(currentSymbol, tmp, this.block, this.name);
+            relocated++;
+        }
+
+        // the statements were given the locctr of their own block as well,
+        // so move them the same way so PC relative displacements and
+        // modification records use their address in the program
+        if (this.startTable.size() > 1 || this.getStart(DEFAULT_BLOCK).getDec() != 0) {
+            for (Statement statement : this.statements) {
+                if (statement instanceof BaseStatement baseStatement) {
+                    blockStart = this.getStart(statement.getBlock());
+                    baseStatement.setLocation(new HexNum(baseStatement.getLocation().getDec() + blockStart.getDec()));
+                }
+            }
+        }
+        if (this.metrics != null) {
+            this.metrics.stop(Phase.RELOCATION, relocated);
         }
         return this.statements;
     }
@@ -293,6 +378,110 @@ public abstract class AbstractStatementBuilder {
         this.name = name;
     }
 
+    /**
+     * Retrieves the symbol context this builder stores its symbols in.
+     *
+     * @return the SymbolContext of this builder
+     */
+    public SymbolContext getSymbolContext() {
+        return this.symbols;
+    }
+
+    /**
+     * Sets the macros this builder can expand. A section processed on another thread is given
+     * the finished macros that were defined before each of its lines, so it expands the same
+     * macros as a section processed while the file is read.
+     *
+     * @param macros the macros to expand, or null to expand the macros of the symbol context
+     */
+    public void setMacros(Map<String, MacroProcessorInterface> macros) {
+        this.macros = macros;
+    }
+
+    /**
+     * Finds a macro this builder can expand.
+     *
+     * @param name the name of the macro
+     * @return the macro, or null if there is no macro with the name
+     */
+    protected MacroProcessorInterface findMacro(String name) {
+        if (this.macros == null) {
+            return this.symbols.getMacro(name);
+        }
+        return this.macros.get(name);
+    }
+
+    /**
+     * Retrieves the SourceLine this builder lexes statements with.
+     * A line lexed with it before it is passed to processStatement is not lexed again.
+     *
+     * @return the SourceLine of this builder
+     */
+    public SourceLine getSourceLine() {
+        return this.sourceLine;
+    }
+
+    /**
+     * Turns on streaming, so statements are written into text records while the section is read.
+     * This must be called before the first statement is processed.
+     *
+     * @param listing true if the streamed statements should also be listed
+     */
+    public void setStreaming(boolean listing) {
+        this.streamedText = new StringWriter();
+        this.streamedListing = listing ? new StringWriter() : null;
+        this.streamedRecords = new TextRecordWriter(this, this.streamedText, this.streamedListing);
+    }
+
+    /**
+     * Sets the metrics that measure the phases of this control section.
+     *
+     * @param metrics the metrics of the section, or null to stop measuring
+     */
+    public void setMetrics(SectionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Retrieves the metrics that measure the phases of this control section.
+     *
+     * @return the metrics of the section, or null if they are not measured
+     */
+    public SectionMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Retrieves the text records the builder streamed, so the rest of the statements can be added to them.
+     *
+     * @return the TextRecordWriter of the streamed statements, or null if the builder does not stream
+     */
+    public TextRecordWriter getStreamedRecords() {
+        return this.streamedRecords;
+    }
+
+    /**
+     * Writes the streamed text records and listing, then clears them.
+     * Nothing is written if the builder does not stream.
+     *
+     * @param fileWriter the Writer to write the text records to
+     * @param debugWriter the Writer to write the listing to, or null to skip the listing
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeStreamedOutput(Writer fileWriter, Writer debugWriter) throws IOException {
+        if (this.streamedText == null) {
+            return;
+        }
+        fileWriter.append(this.streamedText.getBuffer());
+        this.streamedText.getBuffer().setLength(0);
+        if (this.streamedListing != null) {
+            if (debugWriter != null) {
+                debugWriter.append(this.streamedListing.getBuffer());
+            }
+            this.streamedListing.getBuffer().setLength(0);
+        }
+    }
+
     /**
      * Retrieves the queue of external definitions.
      *
@@ -311,6 +500,16 @@ public abstract class AbstractStatementBuilder {
         return this.externalReferences;
     }
 
+    /**
+     * Checks if a label was declared with EXTREF.
+     *
+     * @param label the label to check, padded like the labels of EXTREF
+     * @return true if the label is an external reference
+     */
+    public boolean isExternalReference(String label) {
+        return this.externalReferenceSet.contains(label);
+    }
+
     /**
      * Retrieves the list of reference modifications.
      *
@@ -354,100 +553,6 @@ public abstract class AbstractStatementBuilder {
 
     }
 
-    /**
-     * Loads the instruction set from a specified file and populates the instruction
-     * and format tables.
-     * <p>
-     * The file should contain lines in the format: Mnemonic, Format, Opcode.
-     * Each line is split into parts where the first part is the mnemonic, the second
-     * part is the format, and the third part is the opcode.
-     * <p>
-     * The method reads the file from within the JAR using {@link Class#getResourceAsStream(String)}.
-     * <p>
-     * The format is mapped to an enum {@link Format} and stored in the format table.
-     * The opcode is converted to a {@link HexNum} and stored in the instruction table.
-     * <p>
-     * If an unexpected format is encountered, it defaults to {@link Format#ASM} and logs a warning.
-     * If the file cannot be found or read, it logs a warning with the filename.
-     *
-     * @param filename the name of the file containing the instruction set
-     */
-    protected final void loadInstructions(String filename) {
-        // add all of the opcodes to the table
-        try {
-
-            // Credit to https://github.com/cppcoders/SIC-XE-Assembler for the convenient
-            // txt file
-            // Format is: Mnemonic, Format, Opcode
-            // Credit to
-            // https://stackoverflow.com/questions/20389255/reading-a-resource-file-from-within-jar
-            // for reading files within a jar
-            InputStream file = getClass().getResourceAsStream(filename);
-
-            try ( 
-                    Scanner sc = new Scanner(file)) {
-                while (sc.hasNextLine()) {
-                    String currentLine = sc.nextLine();
-                    String[] parts = currentLine.split("\\s+");
-
-                    // add the opcode and format to their respective tables
-                    this.instructionTable.put(parts[0], new HexNum(parts[2], NumSystem.HEX));
-
-                    // add the format to the format table
-                    Format newFormat;
-                    switch (parts[1]) {
-                        case "1" -> newFormat = Format.ONE;
-                        case "2" -> newFormat = Format.TWO;
-                        case "3" -> newFormat = Format.THREE;
-                        case "SIC" -> newFormat = Format.SIC;
-                        case "ASM" -> newFormat = Format.ASM;
-                        default -> {
-                            newFormat = Format.ASM;
-                            logger.log(Level.WARNING, "Error: Unexpected format '{}' in instructions.txt", parts[1]);
-                        }
-                    }
-
-                    this.formatTable.put(parts[0], newFormat);
-                }
-                // close the scanner
-            }
-        } catch (Exception e) {
-            logger.log(Level.WARNING, "Error: Could not find {}", filename);
-            logger.warning(e.getMessage());
-        }
-    }
-
-    /**
-     * Loads the registers from the specified file and adds them to the register table.
-     * The file should contain register names and their corresponding hexadecimal values
-     * separated by whitespace on each line.
-     * 
-     * The file is expected to be in the format: Register letter, Hex Value
-     * 
-     * It is very similar in steps to loadInstructions
-     * @see loadInstructions
-     *
-     * @param filename the name of the file containing the register data
-     */
-    protected final void loadRegisters(String filename) {
-        // add all of the registers to the table
-
-        InputStream file = getClass().getResourceAsStream(filename);
-
-        try ( 
-                Scanner sc = new Scanner(file)) {
-            while (sc.hasNextLine()) {
-                String currentLine = sc.nextLine();
-                String[] parts = currentLine.split("\\s+");
-                HexNum reg = new HexNum(parts[1], NumSystem.HEX);
-                this.registerTable.put(parts[0], reg);
-            }
-        } catch (Exception e) {
-            logger.log(Level.WARNING, "Error: Could not find {}", filename);
-            logger.warning(e.getMessage());
-        }
-    }
-
     /**
      * Splits an assembly statement into its constituent parts: mnemonic, arguments, and label.
      *
@@ -457,40 +562,63 @@ public abstract class AbstractStatementBuilder {
      */
     protected String[] splitStatement(String statement) throws InvalidAssemblyFileException {
 
-        String[] parts = Utility.splitLine(statement);
+        // lex the statement, unless it was already lexed when it was read
+        SourceLine source = this.sourceLine.lex(statement);
         String mnemonic = "";
         String args = "";
         String label = "";
 
-        switch (parts.length) {
-            case 1 -> mnemonic = parts[0];
+        switch (source.getFieldCount()) {
+            case 0 -> {
+                // nothing to do for empty lines
+            }
+            case 1 -> mnemonic = source.getField(0);
             case 2 -> {
-                mnemonic = parts[0];
-                args = parts[1];
+                mnemonic = source.getField(0);
+                args = source.getField(1);
             }
             case 3 -> {
-                label = parts[0];
-                mnemonic = parts[1];
-                args = parts[2];
-                handleLabels(label, mnemonic, args);
+                label = source.getField(0);
+                mnemonic = source.getField(1);
+                args = source.getField(2);
             }
             default -> // throw an exception if we have more than 3 arguments
                 throw new InvalidAssemblyFileException(lineNum, "Invalid Number of Arguments");
         }
 
+        args = bindFields(label, mnemonic, args);
+        return new String[] { mnemonic, args, label };
+    }
+
+    /**
+     * Handles the label and literal of a statement whose fields are known.
+     * This is the part of splitStatement that comes after lexing, and is used on its own
+     * for the lines of a macro, whose fields were found when it was defined.
+     *
+     * @param label the label of the statement, or an empty string if it has none
+     * @param mnemonic the mnemonic of the statement
+     * @param args the operand of the statement, or an empty string if it has none
+     * @return the operand, without the '=' of a literal
+     * @throws InvalidAssemblyFileException if the label is a duplicate or the literal is not valid
+     */
+    protected String bindFields(String label, String mnemonic, String args) throws InvalidAssemblyFileException {
+        if (!label.isEmpty()) {
+            handleLabels(label, mnemonic, args);
+        }
+
         // check for the '=' character meaning it is a literal value
         // and then handle the needed logic for it
         if (!args.isEmpty() && args.charAt(0) == '=') {
             args = args.substring(1);
             handleLiteral(args);
         }
-        return new String[] { mnemonic, args, label };
+        return args;
     }
 
     /**
-     * Handles the modification of an external reference in the assembly code.
-     * If the part is an external reference, it sets the value to 0 and adds a
-     * modification record because the value is not known at assembly time.
+     * Adds a modification record for an external reference in the assembly code.
+     * The value of an external reference is not known at assembly time, so it is
+     * assembled as 0 and the loader adds or subtracts its value later.
      * 
      * Format of Modification records:
      * Modification Records (Revised)
@@ -500,15 +628,10 @@ public abstract class AbstractStatementBuilder {
      * Col. 10. Modification flag (+ or -)
      * Col. 11-16. External symbol whose value is to be added or subtracted from the indicated field
      *
-     * @param copyArgs the a copy of the provided arguments, which may include a sign
-     *                 indicating addition or subtraction.
+     * @param sign     '-' if the value of the reference is subtracted, '+' otherwise
      * @param part     the label of the code that is an external reference.
-     * @return the modified copyArgs with the external reference handled.
      */
-    protected String handleModification(String copyArgs, String part) {
-        // if the part is an external reference, we need to set the value to 0 and add a
-        // modification record
-        // this is because the value is not known at assembly time
+    protected void addModification(char sign, String part) {
         StringBuilder modification = new StringBuilder();
         modification.append("M");
         modification.append(this.getLocctr().toString(6));
@@ -517,70 +640,152 @@ public abstract class AbstractStatementBuilder {
         modification.append("06");
 
         // then we add if we are adding or subtracting its value
-        char sign = copyArgs.charAt(0) == '-' ? '-' : '+';
         modification.append(sign);
-        copyArgs = copyArgs.length() < 0 ? copyArgs.substring(1) : copyArgs;
 
         // then append the external reference
         modification.append(part);
 
         // append it to the external reference
         this.referenceModifications.add(modification.toString());
-        return copyArgs;
+    }
+
+    /**
+     * Finds the value of each symbol of a compiled expression.
+     * Symbols are replaced with their value, and external references are replaced
+     * with 0 after adding a modification record for them.
+     *
+     * @param compiled the expression whose symbols are found
+     * @param values   filled with the value of each symbol
+     * @param relative filled with true for each symbol that is relative, may be null if not needed
+     * @throws InvalidAssemblyFileException if a symbol is not defined or an external reference
+     */
+    protected void bindExpression(CompiledExpression compiled, int[] values, boolean[] relative)
+            throws InvalidAssemblyFileException {
+        for (int i = 0; i < compiled.getOperandCount(); i++) {
+            HexNum value = this.symbols.getSharedSymbol(compiled.getKey(i), this.name);
+            if (value != null) {
+                values[i] = value.getDec();
+
+                // symbols defined by absolute expressions are kept in the ABSOLUTE block
+                if (relative != null) {
+                    relative[i] = !ABSOLUTE_BLOCK.equals(this.symbols.getBlock(compiled.getKey(i), this.name));
+                }
+            } else if (isExternalReference(compiled.getOperand(i))) {
+                addModification(compiled.getSign(i), compiled.getOperand(i));
+                values[i] = 0;
+                if (relative != null) {
+                    relative[i] = true;
+                }
+            } else {
+                StringBuilder msg = new StringBuilder("Undefined symbol '");
+                msg.append(compiled.getOperand(i));
+                msg.append("' in expression: ");
+                msg.append(compiled.getSource());
+                throw new InvalidAssemblyFileException(lineNum, msg.toString());
+            }
+        }
+    }
+
+    /**
+     * Runs a compiled expression with the values of its symbols and the current location counter.
+     *
+     * @param compiled the expression to evaluate
+     * @param values   the value of each symbol
+     * @return the result of the expression
+     * @throws InvalidAssemblyFileException if the expression is not valid or divides by zero
+     */
+    private int runExpression(CompiledExpression compiled, int[] values) throws InvalidAssemblyFileException {
+        if (!compiled.isValid()) {
+            StringBuilder msg = new StringBuilder("Invalid expression '");
+            msg.append(compiled.getSource());
+            msg.append("': ");
+            msg.append(compiled.getError());
+            throw new InvalidAssemblyFileException(lineNum, msg.toString());
+        }
+        try {
+            return compiled.evaluate(values, this.getLocctr(this.block).getDec());
+        } catch (ArithmeticException e) {
+            StringBuilder msg = new StringBuilder("Division by zero in expression: ");
+            msg.append(compiled.getSource());
+            throw new InvalidAssemblyFileException(lineNum, msg.toString());
+        }
+    }
+
+    /**
+     * Commits the flight recorder event of an evaluated expression if it is recorded.
+     *
+     * @param event the event started before the expression was compiled
+     * @param compiled the expression
+     * @param result the value of the expression
+     */
+    private void commitExpression(ExpressionEvent event, CompiledExpression compiled, int result) {
+        if (event.shouldCommit()) {
+            event.section = getName().trim();
+            event.line = lineNum;
+            event.expression = compiled.getSource();
+            event.result = result;
+            event.commit();
+        }
     }
 
     /**
      * Evaluates a mathematical expression represented as a string.
      * The expression can contain symbols that are either defined in the symbol table
-     * or are external references. Symbols in the expression are replaced with their
-     * corresponding values before evaluation.
+     * or are external references, and * for the current location counter.
+     * The expression is compiled once and cached, and the value of each symbol is
+     * bound to it before evaluation.
+     *
+     * Any # or @ prefix and ,X suffix are kept around the result, and
+     * character and hex constants are never evaluated.
      *
      * @param args The string representation of the mathematical expression to evaluate.
-     * @return The evaluated result as a string if the expression is valid and contains
-     *         more than one part; otherwise, returns the original string.
+     * @return The evaluated result as a string if args contains an expression;
+     *         otherwise, returns the original string.
+     * @throws InvalidAssemblyFileException if the expression is not valid or contains an undefined symbol
      */
-    protected String evaluateExpression(String args) {
-        Expression expression;
-        ValidationResult expressionResults;
-        int result;
-        String[] parts = args.split("[+\\-*/]");
-        String copyArgs = args;
+    protected String evaluateExpression(String args) throws InvalidAssemblyFileException {
 
-        // if there are no parts, return the original string
-        // since that will represent the value of the expression
-        if (parts.length < 2) {
+        // constants like C'EOF' may contain operators but are not expressions
+        if (args.indexOf('\'') >= 0) {
             return args;
         }
-        for (String part : parts) {
-            if (SymTable.containsSymbol(part, this.name)) {
-                args = args.replace(part, Integer.toString(SymTable.getSymbol(part, this.name).getDec()));
-            } else if (this.externalReferences.contains(part)) {
-                copyArgs = handleModification(copyArgs, part);
-                args = args.replace(part, "0");
-
-            }
 
-            // now we remove the first word from our copy args in order
-            // to find the next sign for modification symbols, if necessary
-            copyArgs = copyArgs.trim().replace(part, "");
+        ExpressionEvent event = new ExpressionEvent();
+        event.begin();
 
+        // only the part between the addressing prefix and the index register is evaluated
+        int start = 0;
+        int end = args.length();
+        if (end > 0 && (args.charAt(0) == '#' || args.charAt(0) == '@')) {
+            start = 1;
+        }
+        if (end - start > 2 && args.startsWith(",X", end - 2)) {
+            end -= 2;
         }
 
-        // build and validate the produced expression
-        expression = new ExpressionBuilder(args).build();
-        expressionResults = expression.validate();
+        CompiledExpression compiled = this.expressions.get(args.substring(start, end));
 
-        if (expressionResults.isValid()) {
-            // note that we are type casting as int because we require a whole number
-            result = (int) expression.evaluate();
-            return Integer.toString(result);
+        // if there is nothing to evaluate, return the original string
+        // since that will represent the value of the expression
+        if (!compiled.isExpression()) {
+            return args;
         }
-        return args;
+
+        int[] values = new int[compiled.getOperandCount()];
+        bindExpression(compiled, values, null);
+        int result = runExpression(compiled, values);
+        commitExpression(event, compiled, result);
+
+        StringBuilder evaluated = new StringBuilder(args.length() + 8);
+        evaluated.append(args, 0, start);
+        evaluated.append(result);
+        evaluated.append(args, end, args.length());
+        return evaluated.toString();
 
     }
 
     /**
-     * Handles the evaluation of an expression, replacing symbols with their decimal values,
+     * Handles the evaluation of an expression, replacing symbols with their values,
      * and determining if the expression is absolute or relative. The result is stored in the
      * symbol table and returned as a HexNum object.
      * 
@@ -591,52 +796,32 @@ public abstract class AbstractStatementBuilder {
      * @param label The label associated with the expression.
      * @param args The expression to be evaluated, potentially containing symbols and operators.
      * @return The evaluated expression as a HexNum object.
+     * @throws InvalidAssemblyFileException if the expression is not valid or contains an undefined symbol
      */
-    protected HexNum handleExpression(String label, String args) {
-
-        // first split the string based on each section based on regex
-        // the regex splits each section by the operators +, -, *, /
-        // this allows us to replace the defined symbols with our values
-        String[] parts = args.split("[+\\-*/]");
-        String copyArgs = args;
-        boolean isAbsolute = true;
-        for (String part : parts) {
-            // if the part is a symbol, replace it with the decimal value as we need to do
-            // math in base 10
-            if (SymTable.containsSymbol(part, this.name)) {
-                args = args.replace(part, Integer.toString(SymTable.getSymbol(part, this.name).getDec()));
-            } else if (this.externalReferences.contains(part)) {
-                copyArgs = handleModification(copyArgs, part);
-                args = args.replace(part, "0");
+    protected HexNum handleExpression(String label, String args) throws InvalidAssemblyFileException {
 
-            } else {
-                isAbsolute = false;
-            }
-
-            // now we remove the first word from our copy args in order
-            // to find the next sign for modification symbols, if necessary
-            copyArgs = copyArgs.trim().replace(part, "");
-        }
+        ExpressionEvent event = new ExpressionEvent();
+        event.begin();
 
-        // now that we have replaced all of the symbols with their values, we can
-        // evaluate the expression
-        // credit to
-        // https://www.baeldung.com/java-evaluate-math-expression-string
-        // for guide on the library we are using
-        Expression expression = new ExpressionBuilder(args).build();
+        // the compiled expression has already split args into its terms
+        // so we only need to find the value of each symbol
+        CompiledExpression compiled = this.expressions.get(args);
+        int[] values = new int[compiled.getOperandCount()];
+        boolean[] relative = new boolean[compiled.getOperandCount()];
+        bindExpression(compiled, values, relative);
 
-        // note that we are type casting as int because we require a whole number
-        int result = (int) expression.evaluate();
-        HexNum hexResult = new HexNum(Integer.toString(result), NumSystem.DEC);
+        int result = runExpression(compiled, values);
+        commitExpression(event, compiled, result);
+        HexNum hexResult = new HexNum(result);
 
-        // add the symbol to the absoluteExpressions list if there are no hard-coded values
+        // add the symbol to the absoluteExpressions list if the relative terms cancel out
         // this means that the value is always absolute at the time of assembly
         // we need this for program block control
-        if (isAbsolute) {
+        if (compiled.isAbsolute(relative)) {
             this.absoluteExpressions.add(label);
-            SymTable.addSymbol(label, hexResult, "ABSOLUTE", this.name);
+            this.symbols.addSymbol(label, hexResult, ABSOLUTE_BLOCK, this.name);
         } else {
-            SymTable.addSymbol(label, hexResult, this.block, this.name);
+            this.symbols.addSymbol(label, hexResult, this.block, this.name);
         }
 
         // evaluate the expression and return it as a string
@@ -665,9 +850,9 @@ public abstract class AbstractStatementBuilder {
             throws InvalidAssemblyFileException {
 
         label = Utility.lengthCheck(label);
-        if (!SymTable.containsSymbol(label, this.name) && (!mnemonic.equals("EQU") || args.equals("*"))) {
-            SymTable.addSymbol(label, this.getLocctr(this.block), this.block, this.name);
-        } else if (!SymTable.containsSymbol(label, this.name) && mnemonic.equals("EQU")) {
+        if (!this.symbols.containsSymbol(label, this.name) && (!mnemonic.equals("EQU") || args.equals("*"))) {
+            this.symbols.addSymbol(label, this.getLocctr(this.block), this.block, this.name);
+        } else if (!this.symbols.containsSymbol(label, this.name) && mnemonic.equals("EQU")) {
 
             // since args can potentially be an expression, we need to evaluate it before
             // adding it to the table
@@ -744,7 +929,15 @@ public abstract class AbstractStatementBuilder {
                 // since each section is 4 bits
                 int newLength = (int) args.length() / 2;
                 statement.setSize(new HexNum(newLength));
-                // set the object code to the arg
+                // set the object code to the arg, which must only be hex digits
+                for (int i = 0; i < args.length(); i++) {
+                    if (Character.digit(args.charAt(i), 16) < 0) {
+                        StringBuilder msg = new StringBuilder("Invalid BYTE argument: X'");
+                        msg.append(args);
+                        msg.append("'");
+                        throw new InvalidAssemblyFileException(lineNum, msg.toString());
+                    }
+                }
                 statement.setObjCode(args);
             }
             default -> {
@@ -761,20 +954,30 @@ public abstract class AbstractStatementBuilder {
      * For each literal, it checks if the literal's directive is already present in the
      * symbol table. If not, it adds the directive to the symbol table, adds the statement
      * to the current list of statements, and updates the location counter.
+     *
+     * @throws InvalidAssemblyFileException if a streamed statement cannot be assembled
      */
-    protected void assembleLiterals() {
+    protected void assembleLiterals() throws InvalidAssemblyFileException {
+        if (this.metrics != null) {
+            this.metrics.start(Phase.LITERALS);
+        }
+        int placed = 0;
         DirectiveStatement tmpLiteral;
         // loop to assemble each unique literal and add it to our SymTable for other
         // statements to use
         while (!this.literals.isEmpty()) {
             tmpLiteral = this.literals.poll();
-            if (!SymTable.containsSymbol(tmpLiteral.getDirective(), this.name)) {
+            if (!this.symbols.containsSymbol(tmpLiteral.getDirective(), this.name)) {
                 this.line = tmpLiteral.getDirective();
-                SymTable.addSymbol(tmpLiteral.getDirective(), this.getLocctr(), this.block, this.name);
+                this.symbols.addSymbol(tmpLiteral.getDirective(), this.getLocctr(), this.block, this.name);
                 this.addStatement(tmpLiteral);
                 this.addLocctr(this.block, tmpLiteral.getSize());
+                placed++;
             }
         }
+        if (this.metrics != null) {
+            this.metrics.stop(Phase.LITERALS, placed);
+        }
     }
 
     /**
@@ -797,7 +1000,7 @@ public abstract class AbstractStatementBuilder {
         args = evaluateExpression(args);
         switch (mnemonic) {
             case "START" -> {
-                this.addLocctr(DEFAULT_BLOCK, new HexNum(0));
+                this.addLocctr(DEFAULT_BLOCK, HexNum.valueOf(0));
                 this.setStart(DEFAULT_BLOCK, new HexNum(args, NumSystem.HEX));
             }
             case "END" -> // handle any remaining literals
@@ -827,8 +1030,8 @@ public abstract class AbstractStatementBuilder {
                     args = DEFAULT_BLOCK;
                 }
 
-                this.locctrTable.putIfAbsent(args, new HexNum(0));
-                this.startTable.putIfAbsent(args, new HexNum(0));
+                this.locctrTable.putIfAbsent(args, new HexNum());
+                this.startTable.putIfAbsent(args, new HexNum());
 
                 // set the current block to the provided args
                 this.block = args;
@@ -847,6 +1050,7 @@ public abstract class AbstractStatementBuilder {
                 for (String ref : refList) {
                     ref = Utility.lengthCheck(ref);
                     this.externalReferences.add(ref);
+                    this.externalReferenceSet.add(ref);
                 }
             }
             default -> {
@@ -860,20 +1064,85 @@ public abstract class AbstractStatementBuilder {
 
     /**
      * Adds a statement to the list of statements.
-     * If the provided statement is not null, it sets the block and control section
-     * of the statement to the current block and name, respectively, and then adds
+     * If the provided statement is not null, it sets the block, control section, symbol context,
+     * and code buffer of the statement to the ones of this builder, and then adds
      * the statement to the list of statements.
      * 
      * Use this method to add new statements to the queue as it handles necessary data
+     * When the builder streams, every statement that can now be assembled is written.
      *
      * @param statement the statement to be added. If null, the method does nothing.
+     * @throws InvalidAssemblyFileException if a streamed statement cannot be assembled
      */
-    protected void addStatement(Statement statement) {
+    protected void addStatement(Statement statement) throws InvalidAssemblyFileException {
         if (statement != null) {
             statement.setBlock(this.block);
             statement.setControlSection(this.name);
             statement.setLine(this.line);
+            statement.setSymbolContext(this.symbols);
+            statement.setCodeBuffer(this.codeBuffer);
             this.statements.add(statement);
+            if (this.streamedRecords != null) {
+                streamResolved();
+            }
+        }
+    }
+
+    /**
+     * Writes statements from the front of the queue into the streamed text records
+     * until one of them refers to a symbol that is not defined yet.
+     * Statements are written in order, so the records are the same as if they were written at the end.
+     *
+     * @throws InvalidAssemblyFileException if a statement cannot be assembled
+     */
+    protected void streamResolved() throws InvalidAssemblyFileException {
+
+        // symbols of other program blocks, or of a section that does not start at 0,
+        // are moved when the section ends, so nothing can be assembled before then
+        if (this.startTable.size() > 1 || this.getStart(DEFAULT_BLOCK).getDec() != 0) {
+            return;
+        }
+
+        // only measure when there is something to write, since this is checked for every statement
+        if (this.statements.isEmpty() || !this.statements.peek().isResolved()) {
+            return;
+        }
+        if (this.metrics != null) {
+            this.metrics.start(Phase.TEXT_RECORDS);
+        }
+        int written = 0;
+        try {
+            do {
+                this.streamedRecords.add(this.statements.poll());
+                written++;
+            } while (!this.statements.isEmpty() && this.statements.peek().isResolved());
+        } catch (IOException e) {
+            // the records are written to memory, which does not fail
+            throw new UncheckedIOException(e);
+        } finally {
+            if (this.metrics != null) {
+                this.metrics.stop(Phase.TEXT_RECORDS, written);
+            }
+        }
+    }
+
+    /**
+     * Commits the flight recorder event of a processed statement if it is recorded.
+     * Concrete builders start a {@link StatementEvent} before processing each statement
+     * and call this once it has been added.
+     *
+     * @param event the event started before the statement was processed
+     * @param mnemonic the mnemonic of the statement
+     * @param format the format of the instruction
+     */
+    protected void commitStatement(StatementEvent event, String mnemonic, Format format) {
+        if (event.shouldCommit()) {
+            event.section = getName().trim();
+            event.line = lineNum;
+            event.source = this.line;
+            event.mnemonic = mnemonic;
+            event.format = format.name();
+            event.commit();
         }
     }
 
@@ -1,13 +1,19 @@
 package edu.iu.jrsalata;
 
-import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.LinkedList;
+import java.nio.charset.Charset;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 
 import javax.script.ScriptException;
@@ -24,6 +30,10 @@ import javax.script.ScriptException;
  * 
  * <p>It supports both SIC and non-SIC builders, handles macro definitions, and manages
  * control sections within the input file.</p>
+ *
+ * <p>Control sections only refer to each other through EXTDEF and EXTREF, so when an executor
+ * is set, the file is split into sections as it is read and the first pass of each section runs
+ * on the executor. The builders are still returned in source order.</p>
  * 
  * @see AbstractStatementBuilderBuilderInterface
  * @see AbstractStatementBuilder
@@ -32,7 +42,8 @@ import javax.script.ScriptException;
  * @see MacroProcessorInterface
  * @see InvalidAssemblyFileException
  * @see ScriptException
- * @see FileNotFoundException
+ * @see SourceReader
+ * @see MappedSourceReader
  */
 public class AbstractStatementBuilderBuilder implements AbstractStatementBuilderBuilderInterface {
 
@@ -57,19 +68,59 @@ public class AbstractStatementBuilderBuilder implements AbstractStatementBuilder
      */
     protected String inputFile;
 
+    /**
+     * stores the symbol context shared by every builder created for the input
+     */
+    protected final SymbolContext symbols;
+
+    /**
+     * runs the first pass of each control section, or null to run them on the calling thread
+     */
+    protected ExecutorService executor;
+
+    /**
+     * true if each builder streams its text records while its section is read
+     */
+    protected boolean streaming;
+
+    /**
+     * true if streaming builders also list their statements
+     */
+    protected boolean streamedListing;
+
+    /**
+     * measures the phases of every control section, or null if they are not measured
+     */
+    protected AssemblyMetrics metrics;
+
     /**
      * Constructs a new AbstractStatementBuilderBuilder with default values.
      * 
      * <p>
      * This constructor initializes the input file name to "input.asm" and 
-     * initializes the builder queue as an empty LinkedList.
+     * initializes the builder queue as an empty ArrayDeque.
+     * Symbols and macros are stored in the shared context behind SymTable.
      * </p>
      */
     public AbstractStatementBuilderBuilder() {
+        this(SymTable.getContext());
+    }
+
+    /**
+     * Constructs a new AbstractStatementBuilderBuilder that stores symbols and macros in the given context.
+     *
+     * <p>
+     * Giving each assembly its own context allows several inputs to be assembled at the same time.
+     * </p>
+     *
+     * @param symbols the symbol context used by every created builder
+     */
+    public AbstractStatementBuilderBuilder(SymbolContext symbols) {
 
         // initialize file names to defaults
         this.inputFile = "input.asm";
-        this.builderQueue = new LinkedList<>();
+        this.builderQueue = new ArrayDeque<>();
+        this.symbols = symbols;
 
     }
 
@@ -83,6 +134,41 @@ public class AbstractStatementBuilderBuilder implements AbstractStatementBuilder
         this.inputFile = fileName;
     }
 
+    /**
+     * Sets the executor that runs the first pass of each control section.
+     * The executor is not shut down by this class.
+     *
+     * @param executor the executor to use, or null to process every section on the calling thread
+     */
+    @Override
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets whether each builder streams its text records while its section is read,
+     * holding only the statements after a forward reference instead of the whole section.
+     *
+     * @param streaming true to stream the text records
+     * @param listing true if the streamed statements should also be listed
+     */
+    @Override
+    public void setStreaming(boolean streaming, boolean listing) {
+        this.streaming = streaming;
+        this.streamedListing = listing;
+    }
+
+    /**
+     * Sets the metrics that measure the phases of every control section.
+     * Each builder is given the metrics of its own section as it is created.
+     *
+     * @param metrics the metrics of the assembly, or null to not measure it
+     */
+    @Override
+    public void setMetrics(AssemblyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     /**
      * Retrieves the queue of AbstractStatementBuilder instances.
      *
@@ -96,31 +182,25 @@ public class AbstractStatementBuilderBuilder implements AbstractStatementBuilder
     /**
      * Executes the process of reading an input file, selecting the appropriate
      * builder, and processing the file to populate the builder queue.
+     * The file is read a single time.
      *
      * @throws InvalidAssemblyFileException if the assembly file is invalid.
-     * @throws FileNotFoundException if the input file is not found.
+     * @throws IOException if the input file cannot be read.
      * @throws ScriptException if there is an error in the script execution.
      */
     @Override
-    public void execute() throws InvalidAssemblyFileException, FileNotFoundException, ScriptException {
-        
-        // Read the file and create a new scanner for it
-        File file = new File(this.inputFile);
-        Scanner sc = new Scanner(file);
-
-        // grab the necessary builder from choseBuilder
-        AbstractStatementBuilder builder = choseBuilder(sc);
-        sc = new Scanner(file);
+    public void execute() throws InvalidAssemblyFileException, IOException, ScriptException {
 
-        // now read the entire input file
-        this.builderQueue = fileInput(sc, builder);
-
-        // close the open Scanner
-        sc.close();
+        // map the file so that lines are decoded straight into each builder's SourceLine,
+        // reading it once instead of scanning it again for its statements
+        try (SourceReader reader = MappedSourceReader.open(Path.of(this.inputFile), Charset.defaultCharset())) {
+            this.builderQueue = fileInput(reader);
+        }
     }
 
     /**
      * Executes the process of reading and parsing an assembly file.
+     * A stream cannot be mapped, so it is read through a buffer a single time and closed afterwards.
      *
      * @param file the InputStream of the assembly file to be processed
      * @throws InvalidAssemblyFileException if the assembly file is invalid
@@ -131,42 +211,42 @@ public class AbstractStatementBuilderBuilder implements AbstractStatementBuilder
     public void execute(InputStream file)
             throws InvalidAssemblyFileException, ScriptException, IOException {
 
-        // Since scanning consumes an InputStream, we will have to use a
-        // BufferedInputStream in order for it to be reusable
-        BufferedInputStream bufferedFile = new BufferedInputStream(file);
-
-        // mark the starting location of the bufferedFile
-        bufferedFile.mark(Integer.MAX_VALUE);
-
-        Scanner sc = new Scanner(bufferedFile);
-        AbstractStatementBuilder builder = choseBuilder(sc);
-
-        // reset the buffer
-        bufferedFile.reset();
-        sc = new Scanner(bufferedFile);
-
-        this.builderQueue = fileInput(sc, builder);
-
-        sc.close();
+        // the first line is read through the same reader as the rest of the file,
+        // so there is no need to buffer the stream in order to rewind it
+        try (SourceReader reader = new BufferedSourceReader(file)) {
+            this.builderQueue = fileInput(reader);
+        }
     }
 
     /**
-     * Processes the input from a Scanner and builds a queue of AbstractStatementBuilder objects.
+     * Processes the input from a SourceReader and builds a queue of AbstractStatementBuilder objects.
      * 
-     * This method reads lines from the provided Scanner, processes them, and constructs 
-     * AbstractStatementBuilder objects based on the input. It handles control sections (CSECT) 
-     * and macro definitions (MACRO, MEND) within the input.
+     * This method reads the first line to choose the builder, then processes it along with
+     * every other line of the input, and constructs AbstractStatementBuilder objects based
+     * on the input. It handles control sections (CSECT) and macro definitions (MACRO, MEND)
+     * within the input.
      * 
-     * @param sc the Scanner to read input from
-     * @param builder the initial AbstractStatementBuilder to use for processing
+     * @param reader the SourceReader to read input from
      * @return a Queue of AbstractStatementBuilder objects representing the processed input
      * @throws InvalidAssemblyFileException if the input file contains invalid assembly code
      * @throws ScriptException if there is an error in processing a script
+     * @throws IOException if an I/O error occurs
      */
-    protected Queue<AbstractStatementBuilder> fileInput(Scanner sc, AbstractStatementBuilder builder)
-            throws InvalidAssemblyFileException, ScriptException {
+    protected Queue<AbstractStatementBuilder> fileInput(SourceReader reader)
+            throws InvalidAssemblyFileException, ScriptException, IOException {
+
+        // each finished section, in source order
+        List<Future<AbstractStatementBuilder>> sections = new ArrayList<>();
+
+        // with an executor, the lines of the current section are held until the section ends,
+        // each with the finished macros that were defined before it
+        List<String> sectionLines = this.executor == null ? null : new ArrayList<>();
+        List<Map<String, MacroProcessorInterface>> sectionMacros = this.executor == null ? null : new ArrayList<>();
 
-        Queue<AbstractStatementBuilder> queue = new LinkedList<>();
+        // the first line decides which builder to use, and is then processed like any other line
+        SourceLine first = new SourceLine();
+        boolean hasLine = reader.readLine(first);
+        AbstractStatementBuilder builder = prepareBuilder(choseBuilder(hasLine ? first.getContent() : null));
 
         // since we want to be able to keep the type of builder consistent, check if the
         // builder passed is an instance of the SIC builder
@@ -174,31 +254,46 @@ public class AbstractStatementBuilderBuilder implements AbstractStatementBuilder
 
         // since we will handle macro definitions here,
         // we will use a boolean to control its definition
+        // a macro is only added to the symbols once its MEND is read, so it is never seen half defined
         boolean processingMacro = false;
         MacroProcessorInterface macroProcessor = new MacroProcessor();
+        String macroName = "";
 
         // line holds the current line in the file
         String line;
 
-        while (sc.hasNextLine()) {
-            line = sc.nextLine();
-            line = Utility.cleanLine(line);
+        // every line after the first is read straight into the builder's SourceLine,
+        // so it is not lexed again when the builder processes it.
+        // Held sections are lexed by their own thread, so lines are then read into first instead
+        for (SourceLine source = first; hasLine;
+                source = sectionLines == null ? builder.getSourceLine() : first,
+                hasLine = readLine(reader, source, builder)) {
+
+            line = source.getContent();
 
             // check if we are at the beginning of a control section
             // in order to create a new builder to handle it
-            if (line.contains("CSECT")) {
-                queue.add(builder);
-                builder = isSIC ? new SicStatementBuilder() : new StatementBuilder();
-
-                // handle setting the new name of the builder
-                String[] parts = Utility.splitLine(line);
-                builder.setName(parts[0]);
+            if (source.isDirective("CSECT")) {
+                String name = source.getField(0);
+                sections.add(finishSection(builder, sectionLines, sectionMacros));
+                sectionLines = this.executor == null ? null : new ArrayList<>();
+                sectionMacros = this.executor == null ? null : new ArrayList<>();
+                builder = prepareBuilder(isSIC ? new SicStatementBuilder(this.symbols) : new StatementBuilder(this.symbols));
+
+                // handle setting the new name of the builder, padded like the label of START
+                // so that its symbols are found under the name the object writer uses
+                builder.setName(Utility.lengthCheck(name));
                 continue;
-            } else if (line.contains("MACRO")) {
+            } else if (source.isDirective("MACRO")) {
                 processingMacro = true;
                 macroProcessor = handleMacroCreation(line);
+                macroName = source.getField(0);
                 continue;
-            } else if (line.contains("MEND")) {
+            } else if (source.isDirective("MEND")) {
+                if (processingMacro) {
+                    macroProcessor.finish();
+                    this.symbols.addMacro(macroName, macroProcessor);
+                }
                 processingMacro = false;
                 continue;
             }
@@ -207,13 +302,138 @@ public class AbstractStatementBuilderBuilder implements AbstractStatementBuilder
             // everything else to the builder
             if (processingMacro) {
                 macroProcessor.addLine(line);
+            } else if (sectionLines != null) {
+                sectionLines.add(line);
+                sectionMacros.add(this.symbols.getMacros());
             } else {
-                builder.processStatement(line);
+                processStatement(builder, line);
+            }
+        }
+
+        // add the finished builder, then wait for every section in source order
+        sections.add(finishSection(builder, sectionLines, sectionMacros));
+        return collectSections(sections);
+    }
+
+    /**
+     * Finishes the first pass of a control section.
+     * If the section's lines were held, they are processed on the executor;
+     * otherwise they have already been processed and the builder is returned as is.
+     *
+     * @param builder the builder of the section
+     * @param lines the held lines of the section, or null if they were already processed
+     * @param macros the macros defined before each held line, or null if the lines were already processed
+     * @return a Future holding the builder once all of its lines are processed
+     */
+    protected Future<AbstractStatementBuilder> finishSection(AbstractStatementBuilder builder, List<String> lines,
+            List<Map<String, MacroProcessorInterface>> macros) {
+        if (lines == null) {
+            return CompletableFuture.completedFuture(builder);
+        }
+        return this.executor.submit(() -> {
+            SectionMetrics sectionMetrics = builder.getMetrics();
+            if (sectionMetrics != null) {
+                sectionMetrics.start(Phase.PASS_ONE);
             }
+            try {
+                for (int i = 0; i < lines.size(); i++) {
+                    builder.setMacros(macros.get(i));
+                    builder.processStatement(lines.get(i));
+                }
+            } finally {
+                if (sectionMetrics != null) {
+                    sectionMetrics.stop(Phase.PASS_ONE, lines.size());
+                }
+            }
+            return builder;
+        });
+    }
+
+    /**
+     * Reads the next line into a SourceLine, measuring it as lexing of the current section.
+     *
+     * @param reader the SourceReader to read from
+     * @param source the SourceLine to read the line into
+     * @param builder the builder of the current section
+     * @return true if a line was read, false at the end of the input
+     * @throws IOException if an I/O error occurs
+     */
+    protected boolean readLine(SourceReader reader, SourceLine source, AbstractStatementBuilder builder)
+            throws IOException {
+        SectionMetrics sectionMetrics = builder.getMetrics();
+        if (sectionMetrics == null) {
+            return reader.readLine(source);
+        }
+        sectionMetrics.start(Phase.LEX);
+        boolean hasLine = false;
+        try {
+            hasLine = reader.readLine(source);
+        } finally {
+            sectionMetrics.stop(Phase.LEX, hasLine ? 1 : 0);
+        }
+        return hasLine;
+    }
+
+    /**
+     * Processes a statement on the calling thread, measuring it as the first pass of its section.
+     *
+     * @param builder the builder of the section
+     * @param line the statement to process
+     * @throws InvalidAssemblyFileException if the statement is invalid
+     * @throws ScriptException if there is an error in processing a script
+     */
+    protected void processStatement(AbstractStatementBuilder builder, String line)
+            throws InvalidAssemblyFileException, ScriptException {
+        SectionMetrics sectionMetrics = builder.getMetrics();
+        if (sectionMetrics == null) {
+            builder.processStatement(line);
+            return;
+        }
+        sectionMetrics.start(Phase.PASS_ONE);
+        try {
+            builder.processStatement(line);
+        } finally {
+            sectionMetrics.stop(Phase.PASS_ONE, 1);
         }
+    }
+
+    /**
+     * Waits for the first pass of every control section and queues the builders in source order.
+     * If a section fails, the sections after it are cancelled and its error is thrown,
+     * so the first error in the source is the one that is reported.
+     *
+     * @param sections the finished sections in source order
+     * @return a Queue of the builders of each section
+     * @throws InvalidAssemblyFileException if a section contains invalid assembly code
+     * @throws ScriptException if there is an error in processing a script
+     * @throws IOException if the thread is interrupted while waiting
+     */
+    protected Queue<AbstractStatementBuilder> collectSections(List<Future<AbstractStatementBuilder>> sections)
+            throws InvalidAssemblyFileException, ScriptException, IOException {
 
-        // add the finished builder to the queue
-        queue.add(builder);
+        Queue<AbstractStatementBuilder> queue = new ArrayDeque<>();
+        try {
+            for (Future<AbstractStatementBuilder> section : sections) {
+                queue.add(section.get());
+            }
+        } catch (InterruptedException e) {
+            sections.forEach(section -> section.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while assembling control sections");
+        } catch (ExecutionException e) {
+            sections.forEach(section -> section.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof InvalidAssemblyFileException invalid) {
+                throw invalid;
+            } else if (cause instanceof ScriptException script) {
+                throw script;
+            } else if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException(cause);
+        }
         return queue;
     }
 
@@ -237,37 +457,47 @@ public class AbstractStatementBuilderBuilder implements AbstractStatementBuilder
         // create an array of each parameter defined with the macro
         String[] params = parts[2].split(",");
 
-        // now create a processor with those params and store it for future use
-        MacroProcessorInterface processor = new MacroProcessor(params);
-        SymTable.addMacro(parts[0], processor);
+        // now create a processor with those params, which is stored once its definition is finished
+        return new MacroProcessor(params);
 
-        return processor;
+    }
 
+    /**
+     * Prepares a new builder before any statement is given to it, turning on streaming
+     * and adding its section to the metrics if they are set.
+     *
+     * @param builder the new builder
+     * @return the given builder
+     */
+    protected AbstractStatementBuilder prepareBuilder(AbstractStatementBuilder builder) {
+        if (this.streaming) {
+            builder.setStreaming(this.streamedListing);
+        }
+        if (this.metrics != null) {
+            builder.setMetrics(this.metrics.addSection(builder));
+        }
+        return builder;
     }
 
     /**
-     * Chooses the appropriate statement builder based on the input from the scanner.
-     * If the first line of the input matches the SIC_FLAG, a SicStatementBuilder is chosen.
+     * Chooses the appropriate statement builder based on the first line of the input.
+     * If the first line matches the SIC_FLAG, a SicStatementBuilder is chosen.
      * Otherwise, a default StatementBuilder is used.
      *
-     * @param sc the Scanner object used to read the input
+     * @param firstLine the first line of the input, or null if the input is empty
      * @return an instance of AbstractStatementBuilder, either a StatementBuilder or SicStatementBuilder
      */
-    protected AbstractStatementBuilder choseBuilder(Scanner sc) {
-        AbstractStatementBuilder builder = new StatementBuilder();
+    protected AbstractStatementBuilder choseBuilder(String firstLine) {
 
-        try {
-
-            String firstLine = sc.nextLine();
-
-            // compare with the sicFlag defined above
-            if (firstLine.strip().equals(SIC_FLAG)) {
-                builder = new SicStatementBuilder();
-            }
+        if (firstLine == null) {
+            LOGGER.severe("No line found");
+            return new StatementBuilder(this.symbols);
+        }
 
-        } catch (Exception e) {
-            LOGGER.severe(e.getMessage());
+        // compare with the sicFlag defined above
+        if (firstLine.strip().equals(SIC_FLAG)) {
+            return new SicStatementBuilder(this.symbols);
         }
-        return builder;
+        return new StatementBuilder(this.symbols);
     }
 }
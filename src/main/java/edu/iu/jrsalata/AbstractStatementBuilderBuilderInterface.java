@@ -3,6 +3,7 @@ package edu.iu.jrsalata;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
 
 import javax.script.ScriptException;
 
@@ -45,4 +46,26 @@ public interface AbstractStatementBuilderBuilderInterface {
      */
     public void setInputFile(String filename);
 
+    /**
+     * Sets the executor that runs the first pass of each control section.
+     *
+     * @param executor the executor to use, or null to process every section on the calling thread.
+     */
+    public void setExecutor(ExecutorService executor);
+
+    /**
+     * Sets whether each builder streams its text records while its section is read.
+     *
+     * @param streaming true to stream the text records
+     * @param listing true if the streamed statements should also be listed
+     */
+    public void setStreaming(boolean streaming, boolean listing);
+
+    /**
+     * Sets the metrics that measure the phases of every control section.
+     *
+     * @param metrics the metrics of the assembly, or null to not measure it
+     */
+    public void setMetrics(AssemblyMetrics metrics);
+
 }
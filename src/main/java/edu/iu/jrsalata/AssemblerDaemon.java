@@ -0,0 +1,321 @@
+package edu.iu.jrsalata;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import javax.script.ScriptException;
+
+/**
+ * The AssemblerDaemon class keeps an assembler running and assembles the requests it is sent
+ * over a Unix domain socket or a loopback TCP port.
+ *
+ * Starting a JVM and loading the instruction set takes longer than assembling a small program,
+ * so a daemon saves that time for every program after the first, and its code stays compiled by the JIT.
+ * Each request is an {@link Assembly} with its own {@link SymbolContext}, run on its own thread,
+ * so requests are assembled at the same time. The control sections of every request are read and
+ * written on one shared executor.
+ *
+ * A request is a list of options, one on each line, ended by an empty line:
+ * <ul>
+ *   <li>{@code input <path>} - assemble the file at the path instead of the source after the options</li>
+ *   <li>{@code output <path>} - write the object file to the path instead of sending it back</li>
+ *   <li>{@code listing} - write the listing next to the output file</li>
+ *   <li>{@code stream} - stream the text records while each section is read</li>
+ *   <li>{@code binary} - write the output file in the binary object format</li>
+ *   <li>{@code metrics} - measure each phase and write the report next to the output file</li>
+ * </ul>
+ * Without an input path, the source follows the empty line and ends with the connection's input.
+ * Paths are relative to the working directory of the daemon. The listing, binary format,
+ * and metrics report can only be written to an output file.
+ *
+ * The daemon does not authenticate its clients. A client that can give paths can have the daemon read
+ * any file it can read and create or truncate any file it can write, so paths are only accepted over
+ * a Unix domain socket, which is protected by nothing but the permissions of its file. The socket is
+ * created readable and writable by its owner only, and it must be kept in a directory other users
+ * cannot replace it in. Over TCP, which any user of the machine can connect to on the loopback
+ * address, a request can only send its source and get the object file back.
+ *
+ * The daemon answers with "OK" on its own line, followed by the object file if it was not written
+ * to an output file, or with "ERROR" and a description of the problem on a single line.
+ * It then closes the connection.
+ */
+public class AssemblerDaemon implements Closeable {
+
+    /**
+     * Logger for the daemon
+     */
+    static final Logger logger = Logger.getLogger(AssemblerDaemon.class.getName());
+
+    /**
+     * Address used when no address is given, a Unix domain socket in the working directory
+     */
+    public static final String DEFAULT_ADDRESS = "assembler.sock";
+
+    /**
+     * Longest time to wait for running requests when the daemon is closed
+     */
+    static final long CLOSE_TIMEOUT_SECONDS = 30;
+
+    /**
+     * Address the daemon listens on
+     */
+    private final SocketAddress address;
+
+    /**
+     * Whether requests can read and write files, which is only allowed over a Unix domain socket
+     */
+    private final boolean filesAllowed;
+
+    /**
+     * Runs each request on its own thread
+     */
+    private final ExecutorService requests;
+
+    /**
+     * Reads and writes the control sections of every request
+     */
+    private final ExecutorService sections;
+
+    /**
+     * Accepts connections, or null if the daemon is not bound
+     */
+    private ServerSocketChannel server;
+
+    /**
+     * Constructs a new AssemblerDaemon.
+     *
+     * @param address the address to listen on, either a {@link UnixDomainSocketAddress}
+     *                or an {@link InetSocketAddress}
+     */
+    public AssemblerDaemon(SocketAddress address) {
+        this.address = address;
+        this.filesAllowed = address instanceof UnixDomainSocketAddress;
+        this.requests = Executors.newCachedThreadPool();
+        this.sections = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Finds the address described on the command line. A number is a TCP port on the loopback
+     * address, and anything else is the path of a Unix domain socket.
+     *
+     * @param address the port or path
+     * @return the address to listen on
+     */
+    public static SocketAddress parseAddress(String address) {
+        if (!address.isEmpty() && address.chars().allMatch(Character::isDigit)) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        }
+        return UnixDomainSocketAddress.of(address);
+    }
+
+    /**
+     * Starts listening on the address. The instruction set is loaded here, so the first request
+     * does not have to wait for it. A Unix domain socket is made readable and writable by its owner only.
+     *
+     * @return the address the daemon is listening on, which has the chosen port if port 0 was given
+     * @throws IOException if the address cannot be bound, such as when the socket file already exists
+     */
+    public SocketAddress bind() throws IOException {
+        InstructionSet.getInstance();
+        this.server = this.address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        this.server.bind(this.address);
+        if (this.address instanceof UnixDomainSocketAddress socket) {
+            try {
+                Files.setPosixFilePermissions(socket.getPath(),
+                        EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+            } catch (UnsupportedOperationException e) {
+                logger.warning("The permissions of the socket file could not be restricted");
+            }
+        }
+        return this.server.getLocalAddress();
+    }
+
+    /**
+     * Accepts connections and assembles their requests until the daemon is closed.
+     *
+     * @throws IOException if a connection cannot be accepted
+     */
+    public void serve() throws IOException {
+        while (true) {
+            SocketChannel client;
+            try {
+                client = this.server.accept();
+            } catch (ClosedChannelException e) {
+                // the daemon was closed while it was waiting
+                return;
+            }
+
+            try {
+                this.requests.execute(() -> answer(client));
+            } catch (RejectedExecutionException e) {
+                client.close();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections, waits for the running requests, and removes the socket file.
+     *
+     * @throws IOException if the socket cannot be closed or removed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (this.server != null) {
+                this.server.close();
+            }
+            this.requests.shutdown();
+            if (!this.requests.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                logger.warning("Requests were still running when the daemon was closed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.requests.shutdownNow();
+            this.sections.shutdownNow();
+            if (this.server != null && this.address instanceof UnixDomainSocketAddress socket) {
+                Files.deleteIfExists(socket.getPath());
+            }
+        }
+    }
+
+    /**
+     * Assembles the request of a connection and sends back the answer.
+     *
+     * @param client the connection
+     */
+    private void answer(SocketChannel client) {
+        try (client) {
+            InputStream in = new BufferedInputStream(Channels.newInputStream(client));
+            String answer;
+            try {
+                answer = "OK\n" + assemble(in);
+            } catch (InvalidAssemblyFileException | ScriptException | IOException | RuntimeException e) {
+                // the problem is sent back on one line, since it is the last line of the answer.
+                // Assembly errors describe themselves, while anything else needs its type,
+                // such as an IOException whose message is only the path of the file
+                String message = e instanceof InvalidAssemblyFileException || e instanceof IllegalArgumentException
+                        ? e.getMessage() : e.toString();
+                answer = "ERROR " + message.replace('\n', ' ') + "\n";
+            }
+
+            OutputStream out = Channels.newOutputStream(client);
+            out.write(answer.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            logger.warning("Could not answer a request: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the options and source of a request and assembles it.
+     *
+     * @param in the request
+     * @return the object file, or an empty string if it was written to an output file
+     * @throws InvalidAssemblyFileException if the source is not valid
+     * @throws ScriptException if an expression cannot be evaluated
+     * @throws IOException if the request cannot be read or a file cannot be read or written
+     */
+    private String assemble(InputStream in) throws InvalidAssemblyFileException, ScriptException, IOException {
+        Assembly assembly = new Assembly();
+        String inputFile = null;
+        String outputFile = null;
+        boolean fileOnly = false;
+
+        String option = readLine(in);
+        while (!option.isEmpty()) {
+            int space = option.indexOf(' ');
+            String name = space < 0 ? option : option.substring(0, space);
+            String value = space < 0 ? "" : option.substring(space + 1).strip();
+            if (!this.filesAllowed && (name.equals("input") || name.equals("output"))) {
+                throw new IllegalArgumentException("Files can only be given over a Unix domain socket");
+            }
+            switch (name) {
+                case "input" -> inputFile = value;
+                case "output" -> outputFile = value;
+                case "listing" -> {
+                    assembly.setListing(true);
+                    fileOnly = true;
+                }
+                case "stream" -> assembly.setStreaming(true);
+                case "binary" -> {
+                    assembly.setFormat(ObjectFormat.BINARY);
+                    fileOnly = true;
+                }
+                case "metrics" -> {
+                    assembly.setMetrics(true);
+                    fileOnly = true;
+                }
+                default -> throw new IllegalArgumentException("Unknown option '" + name + "'");
+            }
+            option = readLine(in);
+        }
+
+        if (outputFile == null && fileOnly) {
+            throw new IllegalArgumentException("The listing, binary format, and metrics need an output file");
+        }
+
+        // the whole source is read before it is assembled, since reading it closes its stream
+        if (inputFile != null) {
+            assembly.setInputFile(inputFile);
+        } else {
+            assembly.setInput(new ByteArrayInputStream(in.readAllBytes()));
+        }
+
+        StringWriter objectCode = null;
+        if (outputFile != null) {
+            assembly.setOutputFile(outputFile);
+        } else {
+            objectCode = new StringWriter();
+            assembly.setOutput(objectCode);
+        }
+
+        assembly.execute(this.sections);
+        return objectCode == null ? "" : objectCode.toString();
+    }
+
+    /**
+     * Reads one line of a request, without its line ending.
+     * Only the bytes of the line are read, so the source after the options is left in the stream.
+     *
+     * @param in the request
+     * @return the line, or an empty string if the request has ended
+     * @throws IOException if the request cannot be read
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b = in.read();
+        while (b != -1 && b != '\n') {
+            line.write(b);
+            b = in.read();
+        }
+        return line.toString(StandardCharsets.UTF_8).strip();
+    }
+}
@@ -0,0 +1,215 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+
+import javax.script.ScriptException;
+
+/**
+ * The Assembly class assembles one source file into one object file, with the options that
+ * can be given on the command line.
+ *
+ * Every assembly has its own {@link SymbolContext} and {@link ExpressionCache}, so several assemblies
+ * can run at the same time in one JVM. They share the {@link InstructionSet}, which is loaded
+ * once and never changed by an assembly.
+ *
+ * The source is read from the input file unless a stream is given with {@link #setInput(InputStream)},
+ * and the object file is written to the output file unless a Writer is given with
+ * {@link #setOutput(Writer)}.
+ */
+public class Assembly {
+
+    /**
+     * Name of the source file
+     */
+    protected String inputFile = "input.asm";
+
+    /**
+     * Source to read instead of the input file, or null to read the file
+     */
+    protected InputStream input;
+
+    /**
+     * Name of the object file
+     */
+    protected String outputFile = "output.obj";
+
+    /**
+     * Writer to write the object code to instead of the output file, or null to write the file
+     */
+    protected Writer output;
+
+    /**
+     * Whether the listing is written next to the object file
+     */
+    protected boolean listing;
+
+    /**
+     * Whether text records are written while each section is read
+     */
+    protected boolean streaming;
+
+    /**
+     * Format of the object file
+     */
+    protected ObjectFormat format = ObjectFormat.TEXT;
+
+    /**
+     * Whether the time and allocation of each phase are measured
+     */
+    protected boolean measured;
+
+    /**
+     * Metrics of the last execution, or null if they were not measured
+     */
+    protected AssemblyMetrics metrics;
+
+    /**
+     * Sets the name of the source file. It is "input.asm" by default.
+     *
+     * @param inputFile the name of the source file
+     */
+    public void setInputFile(String inputFile) {
+        this.inputFile = inputFile;
+    }
+
+    /**
+     * Sets a stream to read the source from instead of the input file.
+     * The stream is closed once it has been read.
+     *
+     * @param input the source, or null to read the input file
+     */
+    public void setInput(InputStream input) {
+        this.input = input;
+    }
+
+    /**
+     * Sets the name of the object file. It is "output.obj" by default.
+     * The listing and metrics report are named after it.
+     *
+     * @param outputFile the name of the object file
+     */
+    public void setOutputFile(String outputFile) {
+        this.outputFile = outputFile;
+    }
+
+    /**
+     * Sets a Writer to write the object code to instead of the output file.
+     * The object code is written as text records and the Writer is closed once it is written.
+     *
+     * @param output the Writer, or null to write the output file
+     */
+    public void setOutput(Writer output) {
+        this.output = output;
+    }
+
+    /**
+     * Sets whether the listing is written to the output file with ".txt" added.
+     *
+     * @param listing true to write the listing
+     */
+    public void setListing(boolean listing) {
+        this.listing = listing;
+    }
+
+    /**
+     * Sets whether text records are written while each section is read, which only holds
+     * forward references in memory. Streamed sections are read in order on the calling thread.
+     * A binary object file holds each section until it is finished anyway, so it is never streamed.
+     *
+     * @param streaming true to stream the text records
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Sets the format of the object file. Text records are written by default.
+     *
+     * @param format the format of the object file
+     */
+    public void setFormat(ObjectFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets whether the time and allocation of each phase of each section are measured.
+     * The report is written to the output file with ".metrics.json" added. When a Writer is
+     * given with {@link #setOutput(Writer)}, no file is written and the report is only
+     * available from {@link #getMetrics()}.
+     *
+     * @param measured true to measure the assembly
+     */
+    public void setMetrics(boolean measured) {
+        this.measured = measured;
+    }
+
+    /**
+     * Retrieves the metrics of the last execution.
+     *
+     * @return the metrics, or null if they were not measured
+     */
+    public AssemblyMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Assembles the source and writes the object file.
+     *
+     * @param executor the executor that reads and writes each control section
+     * @throws InvalidAssemblyFileException if the source is not valid
+     * @throws ScriptException if an expression cannot be evaluated
+     * @throws IOException if an I/O error occurs while reading the source or writing the object file
+     */
+    public void execute(ExecutorService executor) throws InvalidAssemblyFileException, ScriptException, IOException {
+
+        // create a new builderBuilder to handle all file IO and building
+        AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+        builderBuilder.setInputFile(this.inputFile);
+
+        // text records can be written while each section is read, holding only forward references.
+        // Sections read on the executor hold all of their lines first, so streaming reads them in order
+        boolean streamed = this.streaming && this.format == ObjectFormat.TEXT;
+        builderBuilder.setStreaming(streamed, this.listing);
+        builderBuilder.setExecutor(streamed ? null : executor);
+
+        // the time and allocation of each phase of each section are measured when asked for
+        this.metrics = this.measured ? new AssemblyMetrics() : null;
+        builderBuilder.setMetrics(this.metrics);
+
+        // execute the builderBuilder
+        if (this.input != null) {
+            builderBuilder.execute(this.input);
+        } else {
+            builderBuilder.execute();
+        }
+
+        // grab each of the builder queues
+        Queue<AbstractStatementBuilder> queue = builderBuilder.getBuilders();
+
+        // the writer keeps the object file open until every section is written
+        try (ObjectWriterInterface writer = new ObjectWriter()) {
+            writer.setFileName(this.outputFile);
+            writer.setListing(this.listing);
+            writer.setFormat(this.format);
+            if (this.output != null) {
+                writer.setOutput(this.output);
+            }
+
+            // write every control section and link them into the object file in order
+            writer.execute(queue, executor);
+        }
+
+        // the report is written next to the object file and published through JMX and JFR
+        if (this.metrics != null) {
+            this.metrics.finish();
+            if (this.output == null) {
+                this.metrics.writeJson(Path.of(this.outputFile + ".metrics.json"));
+            }
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * The AssemblyMetrics class collects the {@link SectionMetrics} of every control section of
+ * one assembly, from reading the source to writing the object file.
+ *
+ * Metrics are only collected when an AssemblyMetrics is given to the
+ * {@link AbstractStatementBuilderBuilder}, which gives each builder its section's metrics.
+ * The phases are then measured by the builders and by the {@link ObjectWriter}.
+ * Once the object file is written, {@link #finish()} ends the assembly: the totals are added to
+ * the {@link AssemblyStatistics} published through JMX, and a {@link PhaseEvent} is committed to
+ * the JDK Flight Recorder for every phase of every section.
+ * The metrics can also be written as a JSON report with {@link #writeJson(Writer)}.
+ *
+ * Sections are added by the thread reading the source, and are only read once the assembly is done.
+ */
+public class AssemblyMetrics {
+
+    /**
+     * The metrics of each control section, in source order
+     */
+    private final List<SectionMetrics> sections = new ArrayList<>();
+
+    /**
+     * Time the assembly started
+     */
+    private final long startNanos;
+
+    /**
+     * Time the assembly took, or -1 if it has not finished
+     */
+    private long totalNanos = -1;
+
+    /**
+     * Constructs a new AssemblyMetrics, starting the clock of the assembly.
+     */
+    public AssemblyMetrics() {
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Adds a control section to the assembly.
+     *
+     * @param builder the builder of the section
+     * @return the metrics of the section
+     */
+    public SectionMetrics addSection(AbstractStatementBuilder builder) {
+        SectionMetrics section = new SectionMetrics(builder);
+        this.sections.add(section);
+        return section;
+    }
+
+    /**
+     * Retrieves the metrics of every control section.
+     *
+     * @return the metrics of each section, in source order
+     */
+    public List<SectionMetrics> getSections() {
+        return Collections.unmodifiableList(this.sections);
+    }
+
+    /**
+     * Adds up a counter of a phase over every control section.
+     *
+     * @param phase the phase
+     * @param counter the counter of each section, like {@link SectionMetrics#getNanos(Phase)}
+     * @return the total of the counter
+     */
+    public long getTotal(Phase phase, ToLongBiFunction<SectionMetrics, Phase> counter) {
+        long total = 0;
+        for (SectionMetrics section : this.sections) {
+            total += counter.applyAsLong(section, phase);
+        }
+        return total;
+    }
+
+    /**
+     * Retrieves the time the whole assembly took.
+     *
+     * @return the time in nanoseconds, or the time so far if the assembly has not finished
+     */
+    public long getTotalNanos() {
+        return this.totalNanos < 0 ? System.nanoTime() - this.startNanos : this.totalNanos;
+    }
+
+    /**
+     * Ends the assembly, adding its totals to the {@link AssemblyStatistics} and
+     * committing a {@link PhaseEvent} for every phase of every control section.
+     * Calling it again does nothing.
+     */
+    public void finish() {
+        if (this.totalNanos >= 0) {
+            return;
+        }
+        this.totalNanos = System.nanoTime() - this.startNanos;
+
+        for (SectionMetrics section : this.sections) {
+            for (Phase phase : Phase.values()) {
+                PhaseEvent event = new PhaseEvent();
+                if (event.shouldCommit()) {
+                    event.section = section.getName();
+                    event.phase = phase.getLabel();
+                    event.count = section.getCount(phase);
+                    event.time = section.getNanos(phase);
+                    event.allocated = section.getAllocatedBytes(phase);
+                    event.commit();
+                }
+            }
+        }
+        AssemblyStatistics.getInstance().add(this, toJson());
+    }
+
+    /**
+     * Writes the metrics as a JSON report.
+     *
+     * The report holds the time of the whole assembly in "nanos", then the "count", "nanos", and
+     * "allocatedBytes" of each phase of each section under "sections", and added up under "totals".
+     *
+     * @param out the Writer to write the report to
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeJson(Writer out) throws IOException {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\n  \"nanos\": ").append(getTotalNanos()).append(",\n  \"sections\": [");
+        for (int i = 0; i < this.sections.size(); i++) {
+            SectionMetrics section = this.sections.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append("    {\n      \"name\": ");
+            appendString(json, section.getName());
+            json.append(",\n      \"phases\": {");
+            for (Phase phase : Phase.values()) {
+                appendPhase(json, "        ", phase, section.getCount(phase), section.getNanos(phase),
+                        section.getAllocatedBytes(phase));
+            }
+            json.append("\n      }\n    }");
+        }
+        json.append(this.sections.isEmpty() ? "],\n" : "\n  ],\n").append("  \"totals\": {");
+        for (Phase phase : Phase.values()) {
+            appendPhase(json, "    ", phase, getTotal(phase, SectionMetrics::getCount),
+                    getTotal(phase, SectionMetrics::getNanos), getTotal(phase, SectionMetrics::getAllocatedBytes));
+        }
+        json.append("\n  }\n}\n");
+        out.write(json.toString());
+    }
+
+    /**
+     * Writes the JSON report to a file, replacing it if it exists.
+     *
+     * @param file the path of the report
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeJson(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writeJson(out);
+        }
+    }
+
+    /**
+     * Creates the JSON report.
+     *
+     * @return the report
+     */
+    public String toJson() {
+        StringWriter json = new StringWriter();
+        try {
+            writeJson(json);
+        } catch (IOException e) {
+            // a StringWriter never throws
+            throw new UncheckedIOException(e);
+        }
+        return json.toString();
+    }
+
+    /**
+     * Appends the counters of a phase as a JSON member, after a comma if it is not the first phase.
+     *
+     * @param json the report being built
+     * @param indent the indentation of the member
+     * @param phase the phase
+     * @param count the items the phase handled
+     * @param nanos the time spent in the phase
+     * @param bytes the bytes allocated in the phase
+     */
+    private static void appendPhase(StringBuilder json, String indent, Phase phase, long count, long nanos,
+            long bytes) {
+        json.append(phase.ordinal() == 0 ? "\n" : ",\n").append(indent);
+        appendString(json, phase.getLabel());
+        json.append(": { \"count\": ").append(count)
+                .append(", \"nanos\": ").append(nanos)
+                .append(", \"allocatedBytes\": ").append(bytes).append(" }");
+    }
+
+    /**
+     * Appends a JSON string, escaping the characters that have to be escaped.
+     *
+     * @param json the report being built
+     * @param value the string to append
+     */
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append("\\u");
+                HexNum.appendHex(json, c, 4);
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
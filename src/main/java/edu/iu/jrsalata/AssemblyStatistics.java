@@ -0,0 +1,191 @@
+package edu.iu.jrsalata;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * The AssemblyStatistics class adds up the metrics of every assembly in the JVM and publishes
+ * them through JMX as {@value #OBJECT_NAME}, so they can be watched with any JMX client.
+ *
+ * There is one shared instance, which is registered the first time it is used.
+ * Assemblies can finish at the same time, so the totals are updated atomically.
+ *
+ * @see AssemblyMetrics
+ */
+public class AssemblyStatistics implements AssemblyStatisticsMXBean {
+
+    /**
+     * The name the statistics are registered under
+     */
+    public static final String OBJECT_NAME = "edu.iu.jrsalata:type=AssemblyStatistics";
+
+    /**
+     * Standard logger for this class
+     */
+    static final Logger logger = Logger.getLogger(AssemblyStatistics.class.getName());
+
+    /**
+     * Number of assemblies that finished
+     */
+    private final AtomicLong assemblies = new AtomicLong();
+
+    /**
+     * Total items of each phase, by ordinal
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(Phase.values().length);
+
+    /**
+     * Total nanoseconds of each phase, by ordinal
+     */
+    private final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+
+    /**
+     * Total allocated bytes of each phase, by ordinal
+     */
+    private final AtomicLongArray bytes = new AtomicLongArray(Phase.values().length);
+
+    /**
+     * The report of the assembly that finished last
+     */
+    private volatile String lastReport = "";
+
+    /**
+     * Holds the shared instance so that it is only created and registered when it is first used
+     */
+    private static final class Holder {
+        private static final AssemblyStatistics INSTANCE = register(new AssemblyStatistics());
+    }
+
+    /**
+     * Retrieves the statistics shared by every assembly.
+     *
+     * @return the shared AssemblyStatistics
+     */
+    public static AssemblyStatistics getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server.
+     * The statistics are still collected if they cannot be registered.
+     *
+     * @param statistics the statistics to register
+     * @return the given statistics
+     */
+    private static AssemblyStatistics register(AssemblyStatistics statistics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(statistics, name);
+            }
+        } catch (JMException e) {
+            logger.warning("Could not register " + OBJECT_NAME + ": " + e.getMessage());
+        }
+        return statistics;
+    }
+
+    /**
+     * Adds the metrics of a finished assembly to the totals.
+     *
+     * @param metrics the metrics of the assembly
+     * @param report the JSON report of the assembly
+     */
+    public void add(AssemblyMetrics metrics, String report) {
+        for (SectionMetrics section : metrics.getSections()) {
+            for (Phase phase : Phase.values()) {
+                this.counts.addAndGet(phase.ordinal(), section.getCount(phase));
+                this.nanos.addAndGet(phase.ordinal(), section.getNanos(phase));
+                this.bytes.addAndGet(phase.ordinal(), section.getAllocatedBytes(phase));
+            }
+        }
+        this.assemblies.incrementAndGet();
+        this.lastReport = report;
+    }
+
+    /**
+     * Retrieves the number of assemblies that finished with metrics.
+     *
+     * @return the number of assemblies
+     */
+    @Override
+    public long getAssemblies() {
+        return this.assemblies.get();
+    }
+
+    /**
+     * Retrieves the number of items each phase handled.
+     *
+     * @return the count of each phase
+     */
+    @Override
+    public Map<String, Long> getPhaseCounts() {
+        return byPhase(this.counts);
+    }
+
+    /**
+     * Retrieves the time spent in each phase.
+     *
+     * @return the nanoseconds of each phase
+     */
+    @Override
+    public Map<String, Long> getPhaseNanos() {
+        return byPhase(this.nanos);
+    }
+
+    /**
+     * Retrieves the bytes allocated in each phase.
+     *
+     * @return the allocated bytes of each phase
+     */
+    @Override
+    public Map<String, Long> getPhaseAllocatedBytes() {
+        return byPhase(this.bytes);
+    }
+
+    /**
+     * Retrieves the JSON report of the assembly that finished last.
+     *
+     * @return the report, or an empty string if no assembly has finished
+     */
+    @Override
+    public String getLastReport() {
+        return this.lastReport;
+    }
+
+    /**
+     * Sets every total back to 0.
+     */
+    @Override
+    public void reset() {
+        for (Phase phase : Phase.values()) {
+            this.counts.set(phase.ordinal(), 0);
+            this.nanos.set(phase.ordinal(), 0);
+            this.bytes.set(phase.ordinal(), 0);
+        }
+        this.assemblies.set(0);
+        this.lastReport = "";
+    }
+
+    /**
+     * Copies a total of every phase into a map, in the order of the phases.
+     *
+     * @param totals the totals by ordinal
+     * @return the totals by the name of the phase
+     */
+    private static Map<String, Long> byPhase(AtomicLongArray totals) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (Phase phase : Phase.values()) {
+            map.put(phase.getLabel(), totals.get(phase.ordinal()));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,50 @@
+package edu.iu.jrsalata;
+
+import java.util.Map;
+
+/**
+ * Management interface of {@link AssemblyStatistics}, which adds up the metrics of every
+ * assembly in the JVM. Each map is keyed by the name of the phase, like "passOne".
+ */
+public interface AssemblyStatisticsMXBean {
+
+    /**
+     * Retrieves the number of assemblies that finished with metrics.
+     *
+     * @return the number of assemblies
+     */
+    public long getAssemblies();
+
+    /**
+     * Retrieves the number of items each phase handled.
+     *
+     * @return the count of each phase
+     */
+    public Map<String, Long> getPhaseCounts();
+
+    /**
+     * Retrieves the time spent in each phase.
+     *
+     * @return the nanoseconds of each phase
+     */
+    public Map<String, Long> getPhaseNanos();
+
+    /**
+     * Retrieves the bytes allocated in each phase.
+     *
+     * @return the allocated bytes of each phase
+     */
+    public Map<String, Long> getPhaseAllocatedBytes();
+
+    /**
+     * Retrieves the JSON report of the assembly that finished last.
+     *
+     * @return the report, or an empty string if no assembly has finished
+     */
+    public String getLastReport();
+
+    /**
+     * Sets every total back to 0.
+     */
+    public void reset();
+}
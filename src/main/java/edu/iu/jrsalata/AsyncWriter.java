@@ -0,0 +1,280 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The AsyncWriter class hands everything written to it to a background thread that writes it
+ * to another Writer.
+ *
+ * Characters are collected into chunks, and each full chunk is put on a bounded queue that the
+ * background thread takes from, so the writing thread only waits when the queue is full.
+ * An error from the background thread is thrown by the next call that hands off a chunk,
+ * or by {@link #close()}.
+ *
+ * An AsyncWriter is not thread safe; only one thread should write to it.
+ *
+ * @see ObjectWriter
+ */
+public class AsyncWriter extends Writer {
+
+    /**
+     * The number of characters collected before a chunk is handed off
+     */
+    static final int CHUNK_SIZE = 8 << 10;
+
+    /**
+     * The number of chunks that can wait to be written
+     */
+    static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Tells the background thread to flush the Writer
+     */
+    private static final String FLUSH = new String("flush");
+
+    /**
+     * Tells the background thread to close the Writer and stop
+     */
+    private static final String CLOSE = new String("close");
+
+    /**
+     * The Writer the background thread writes to
+     */
+    private final Writer out;
+
+    /**
+     * Chunks waiting to be written
+     */
+    private final BlockingQueue<String> chunks;
+
+    /**
+     * Collects characters until a chunk is full
+     */
+    private final StringBuilder chunk;
+
+    /**
+     * The thread that writes each chunk
+     */
+    private final Thread thread;
+
+    /**
+     * The first error from the background thread, or null if there has been none
+     */
+    private volatile IOException failure;
+
+    /**
+     * true once the writer has been closed
+     */
+    private boolean closed;
+
+    /**
+     * Constructs a new AsyncWriter with the default queue capacity and starts its thread.
+     *
+     * @param out the Writer to write to
+     * @param name the name of the background thread
+     */
+    public AsyncWriter(Writer out, String name) {
+        this(out, name, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new AsyncWriter and starts its thread.
+     *
+     * @param out the Writer to write to
+     * @param name the name of the background thread
+     * @param capacity the number of chunks that can wait to be written
+     */
+    public AsyncWriter(Writer out, String name, int capacity) {
+        this.out = out;
+        this.chunks = new ArrayBlockingQueue<>(capacity);
+        this.chunk = new StringBuilder(CHUNK_SIZE);
+        this.thread = new Thread(this::drain, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Writes a single character.
+     *
+     * @param c the character to write
+     * @throws IOException if the writer is closed or the background thread failed
+     */
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        this.chunk.append((char) c);
+        if (this.chunk.length() >= CHUNK_SIZE) {
+            handOff();
+        }
+    }
+
+    /**
+     * Writes part of a character array.
+     *
+     * @param chars the characters to write
+     * @param offset the index of the first character
+     * @param length the number of characters to write
+     * @throws IOException if the writer is closed or the background thread failed
+     */
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        ensureOpen();
+        this.chunk.append(chars, offset, length);
+        if (this.chunk.length() >= CHUNK_SIZE) {
+            handOff();
+        }
+    }
+
+    /**
+     * Writes part of a String.
+     *
+     * @param str the String to write
+     * @param offset the index of the first character
+     * @param length the number of characters to write
+     * @throws IOException if the writer is closed or the background thread failed
+     */
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+        ensureOpen();
+        this.chunk.append(str, offset, offset + length);
+        if (this.chunk.length() >= CHUNK_SIZE) {
+            handOff();
+        }
+    }
+
+    /**
+     * Appends a sequence of characters without creating a String for it.
+     *
+     * @param csq the characters to append
+     * @return this AsyncWriter
+     * @throws IOException if the writer is closed or the background thread failed
+     */
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        ensureOpen();
+        this.chunk.append(csq);
+        if (this.chunk.length() >= CHUNK_SIZE) {
+            handOff();
+        }
+        return this;
+    }
+
+    /**
+     * Hands off everything written so far and asks the background thread to flush the Writer.
+     * This does not wait for the characters to be written; {@link #close()} does.
+     *
+     * @throws IOException if the writer is closed or the background thread failed
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        handOff();
+        put(FLUSH);
+    }
+
+    /**
+     * Hands off everything written so far, waits for the background thread to write it,
+     * and closes the Writer.
+     *
+     * @throws IOException if the background thread failed or was interrupted
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            handOff();
+        } finally {
+            put(CLOSE);
+            try {
+                this.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing " + this.thread.getName());
+            }
+        }
+        if (this.failure != null) {
+            throw this.failure;
+        }
+    }
+
+    /**
+     * Puts the current chunk on the queue if it has any characters.
+     *
+     * @throws IOException if the background thread failed or was interrupted
+     */
+    private void handOff() throws IOException {
+        if (this.failure != null) {
+            throw this.failure;
+        }
+        if (this.chunk.length() > 0) {
+            put(this.chunk.toString());
+            this.chunk.setLength(0);
+        }
+    }
+
+    /**
+     * Puts an item on the queue, waiting for room if it is full.
+     *
+     * @param item the chunk or signal to put on the queue
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    private void put(String item) throws InterruptedIOException {
+        try {
+            this.chunks.put(item);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing to " + this.thread.getName());
+        }
+    }
+
+    /**
+     * Writes every chunk on the queue until it is told to close.
+     * After an error the remaining chunks are discarded, so the writing thread never waits forever.
+     */
+    private void drain() {
+        while (true) {
+            String item;
+            try {
+                item = this.chunks.take();
+            } catch (InterruptedException e) {
+                this.failure = new InterruptedIOException(this.thread.getName() + " was interrupted");
+                return;
+            }
+
+            try {
+                if (item == CLOSE) {
+                    this.out.close();
+                    return;
+                } else if (this.failure != null) {
+                    continue;
+                } else if (item == FLUSH) {
+                    this.out.flush();
+                } else {
+                    this.out.write(item);
+                }
+            } catch (IOException e) {
+                if (this.failure == null) {
+                    this.failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that the writer has not been closed.
+     *
+     * @throws IOException if the writer is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("Writer is closed");
+        }
+    }
+}
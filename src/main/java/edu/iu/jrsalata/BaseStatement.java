@@ -32,8 +32,8 @@ public abstract class BaseStatement extends Statement {
      * object with the format value.
      */
     protected BaseStatement() {
-        this.location = new HexNum();
-        this.opcode = new HexNum();
+        this.location = new HexNum(0);
+        this.opcode = new HexNum(0);
         this.format = 1;
         this.size = new HexNum(this.format);
     }
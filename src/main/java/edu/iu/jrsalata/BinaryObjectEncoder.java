@@ -0,0 +1,438 @@
+package edu.iu.jrsalata;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The BinaryObjectEncoder class writes control sections in the binary object format.
+ *
+ * The binary format holds the same information as the text records, without hex text to parse.
+ * Numbers are big endian and names are a length byte followed by ASCII. A file is the magic
+ * bytes "SICO" and a version byte, followed by one section per control section:
+ *
+ * - u32 length of the rest of the section
+ * - name, u32 start address, u32 length of the program (the H record)
+ * - u16 symbol count, then each name: every symbol the section defines or refers to
+ * - u16 define record count, then for each record a u8 entry count and entries of
+ *   u16 symbol index and u32 address
+ * - u16 refer record count, then for each record a u8 entry count and u16 symbol indexes
+ * - u32 text record count, then for each record a u32 address, a u8 length in half-bytes,
+ *   and the raw code bytes, with an odd length leaving the low half of the last byte empty
+ * - u32 modification count, then for each a u32 address, a u8 length in half-bytes,
+ *   a u8 flag that is 0, '+', or '-', and a u16 symbol index if the flag is not 0
+ * - u8 1 and a u32 start address if the E record has one, otherwise u8 0
+ *
+ * The records are given to the encoder by the {@link ObjectWriter} as they are built, with the
+ * object code of each text record taken straight from the code buffer of its statements, so no
+ * hex text is created. Each section is written once its end record is given. Record boundaries
+ * are kept, so {@link BinaryObjectReader} writes back exactly the same text as the text format.
+ *
+ * A BinaryObjectEncoder is not thread safe.
+ */
+public class BinaryObjectEncoder implements Closeable, Flushable {
+
+    /**
+     * The bytes every binary object file starts with
+     */
+    static final byte[] MAGIC = { 'S', 'I', 'C', 'O' };
+
+    /**
+     * The version of the format written after the magic bytes
+     */
+    static final int VERSION = 1;
+
+    /**
+     * The stream the binary object file is written to
+     */
+    private final DataOutputStream out;
+
+    /**
+     * Index of every symbol of the current section
+     */
+    private final Map<String, Integer> symbolIndex;
+
+    /**
+     * Symbols of the current section in index order
+     */
+    private final List<String> symbols;
+
+    /**
+     * Define records of the current section, after their counts
+     */
+    private final ByteArrayOutputStream defines;
+
+    /**
+     * Refer records of the current section, after their counts
+     */
+    private final ByteArrayOutputStream refers;
+
+    /**
+     * Text records of the current section, after their counts
+     */
+    private final ByteArrayOutputStream texts;
+
+    /**
+     * Modifications of the current section, after their counts
+     */
+    private final ByteArrayOutputStream modifications;
+
+    /**
+     * Holds each section until it is written
+     */
+    private final ByteArrayOutputStream section;
+
+    /**
+     * Name of the current section, or null before it is started
+     */
+    private String name;
+
+    /**
+     * Start address of the current section
+     */
+    private int start;
+
+    /**
+     * Length of the current section
+     */
+    private int length;
+
+    /**
+     * Number of define records in the current section
+     */
+    private int defineCount;
+
+    /**
+     * Number of refer records in the current section
+     */
+    private int referCount;
+
+    /**
+     * Number of text records in the current section
+     */
+    private int textCount;
+
+    /**
+     * Number of modification records in the current section
+     */
+    private int modificationCount;
+
+    /**
+     * Constructs a new BinaryObjectEncoder.
+     *
+     * @param out the stream to write the binary object file to
+     * @param newFile true if the magic bytes should be written first, false to add to an existing file
+     * @throws IOException if the magic bytes cannot be written
+     */
+    public BinaryObjectEncoder(OutputStream out, boolean newFile) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.symbolIndex = new HashMap<>();
+        this.symbols = new ArrayList<>();
+        this.defines = new ByteArrayOutputStream();
+        this.refers = new ByteArrayOutputStream();
+        this.texts = new ByteArrayOutputStream();
+        this.modifications = new ByteArrayOutputStream();
+        this.section = new ByteArrayOutputStream();
+        if (newFile) {
+            this.out.write(MAGIC);
+            this.out.writeByte(VERSION);
+        }
+    }
+
+    /**
+     * Opens a BinaryObjectEncoder for a file, creating the file if needed.
+     *
+     * @param file the path of the file
+     * @param append true to add sections to the end of the file, false to replace its contents
+     * @return a BinaryObjectEncoder for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static BinaryObjectEncoder open(Path file, boolean append) throws IOException {
+        FileChannel channel = append
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream stream = new BufferedOutputStream(Channels.newOutputStream(channel),
+                ChannelWriter.DEFAULT_BUFFER_SIZE);
+        return new BinaryObjectEncoder(stream, !append || channel.size() == 0);
+    }
+
+    /**
+     * Starts a section with the fields of its header record.
+     *
+     * @param name the name of the section
+     * @param start the starting address of the section
+     * @param length the length of the section
+     */
+    public void startSection(String name, int start, int length) {
+        this.name = name.toUpperCase();
+        this.start = start;
+        this.length = length;
+    }
+
+    /**
+     * Adds a define record to the current section.
+     *
+     * @param names the name of each symbol the record defines
+     * @param addresses the address of each symbol, in the same order
+     * @throws IOException if no section is started
+     */
+    public void addDefine(List<String> names, int[] addresses) throws IOException {
+        checkSection();
+        this.defines.write(names.size());
+        DataOutputStream data = new DataOutputStream(this.defines);
+        for (int i = 0; i < names.size(); i++) {
+            data.writeShort(symbol(names.get(i)));
+            data.writeInt(addresses[i]);
+        }
+        this.defineCount++;
+    }
+
+    /**
+     * Adds a refer record to the current section.
+     *
+     * @param names the name of each symbol the record refers to
+     * @throws IOException if no section is started
+     */
+    public void addRefer(List<String> names) throws IOException {
+        checkSection();
+        this.refers.write(names.size());
+        DataOutputStream data = new DataOutputStream(this.refers);
+        for (String symbol : names) {
+            data.writeShort(symbol(symbol));
+        }
+        this.referCount++;
+    }
+
+    /**
+     * Adds a text record to the current section, copying the object code of its statements
+     * from their code buffers. Code of an odd length is packed against the code after it.
+     *
+     * @param address the starting address of the record
+     * @param statements the statements of the record, which are already assembled
+     * @param nibbles the length of the object code of the record in half-bytes
+     * @throws IOException if no section is started
+     */
+    public void addText(int address, List<Statement> statements, int nibbles) throws IOException {
+        checkSection();
+        DataOutputStream data = new DataOutputStream(this.texts);
+        data.writeInt(address);
+        data.writeByte(nibbles);
+
+        // the high half of a byte waiting for its low half, or -1 if the code is byte aligned
+        int pending = -1;
+        for (Statement statement : statements) {
+            ObjectCodeBuffer code = statement.getCodeBuffer();
+            int offset = statement.getCodeOffset();
+            int count = statement.getCodeLength();
+            int i = 0;
+
+            // aligned code is copied a byte at a time
+            if (pending < 0) {
+                for (; i + 1 < count; i += 2) {
+                    this.texts.write(code.getByte(offset + i / 2));
+                }
+            }
+            for (; i < count; i++) {
+                int nibble = code.getNibble(offset, i);
+                if (pending < 0) {
+                    pending = nibble;
+                } else {
+                    this.texts.write(pending << 4 | nibble);
+                    pending = -1;
+                }
+            }
+        }
+        if (pending >= 0) {
+            this.texts.write(pending << 4);
+        }
+        this.textCount++;
+    }
+
+    /**
+     * Adds a modification record to the current section.
+     * The modification is given the way builders and statements record it: 'M', the address
+     * in 6 hex digits, the length in half-bytes in 2 hex digits, and then an optional flag
+     * followed by the name of a symbol.
+     *
+     * @param modification the modification
+     * @throws IOException if no section is started or the modification is not valid
+     */
+    public void addModification(CharSequence modification) throws IOException {
+        checkSection();
+        try {
+            DataOutputStream data = new DataOutputStream(this.modifications);
+            data.writeInt(parseHex(modification, 1, 6));
+            data.writeByte(parseHex(modification, 7, 2));
+            if (modification.length() > 9) {
+                data.writeByte(modification.charAt(9));
+                data.writeShort(symbol(modification.subSequence(10, modification.length()).toString()));
+            } else {
+                data.writeByte(0);
+            }
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            throw new IOException("Invalid modification record: " + modification, e);
+        }
+        this.modificationCount++;
+    }
+
+    /**
+     * Ends the current section with the fields of its end record, writes it to the stream,
+     * and resets the encoder for the next section.
+     *
+     * @param hasStart true if the end record has a starting address
+     * @param endStart the starting address of the end record
+     * @throws IOException if no section is started or an I/O error occurs
+     */
+    public void endSection(boolean hasStart, int endStart) throws IOException {
+        checkSection();
+        this.section.reset();
+        DataOutputStream data = new DataOutputStream(this.section);
+        writeName(data, this.name);
+        data.writeInt(this.start);
+        data.writeInt(this.length);
+
+        data.writeShort(this.symbols.size());
+        for (String symbol : this.symbols) {
+            writeName(data, symbol);
+        }
+        data.writeShort(this.defineCount);
+        this.defines.writeTo(data);
+        data.writeShort(this.referCount);
+        this.refers.writeTo(data);
+        data.writeInt(this.textCount);
+        this.texts.writeTo(data);
+        data.writeInt(this.modificationCount);
+        this.modifications.writeTo(data);
+
+        data.writeBoolean(hasStart);
+        if (hasStart) {
+            data.writeInt(endStart);
+        }
+
+        this.out.writeInt(this.section.size());
+        this.section.writeTo(this.out);
+
+        // reset everything for the next section
+        this.name = null;
+        this.symbolIndex.clear();
+        this.symbols.clear();
+        this.defines.reset();
+        this.refers.reset();
+        this.texts.reset();
+        this.modifications.reset();
+        this.defineCount = 0;
+        this.referCount = 0;
+        this.textCount = 0;
+        this.modificationCount = 0;
+    }
+
+    /**
+     * Writes sections that another BinaryObjectEncoder wrote without the magic bytes,
+     * such as a section encoded on its own thread.
+     *
+     * @param sections the encoded sections
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeSections(byte[] sections) throws IOException {
+        this.out.write(sections);
+    }
+
+    /**
+     * Writes every finished section to the stream and flushes it.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    /**
+     * Flushes and closes the stream.
+     * A section that was started but not ended is dropped.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        this.out.close();
+    }
+
+    /**
+     * Throws an exception if no section is started.
+     *
+     * @throws IOException if no section is started
+     */
+    private void checkSection() throws IOException {
+        if (this.name == null) {
+            throw new IOException("Object record before header record");
+        }
+    }
+
+    /**
+     * Finds the index of a symbol in the current section, adding it if it is new.
+     * Names are kept in upper case, like the text records.
+     *
+     * @param name the name of the symbol
+     * @return the index of the symbol
+     */
+    private int symbol(String name) {
+        String symbol = name.toUpperCase();
+        Integer index = this.symbolIndex.get(symbol);
+        if (index == null) {
+            index = this.symbols.size();
+            this.symbolIndex.put(symbol, index);
+            this.symbols.add(symbol);
+        }
+        return index;
+    }
+
+    /**
+     * Writes a name as its length followed by its ASCII characters.
+     *
+     * @param data the stream to write to
+     * @param name the name to write
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeName(DataOutputStream data, String name) throws IOException {
+        byte[] bytes = name.getBytes(StandardCharsets.US_ASCII);
+        data.writeByte(bytes.length);
+        data.write(bytes);
+    }
+
+    /**
+     * Parses part of a record as hex.
+     *
+     * @param record the record to parse
+     * @param offset the index of the first digit
+     * @param digits the number of digits
+     * @return the value of the digits
+     * @throws NumberFormatException if a character is not a hex digit
+     */
+    private static int parseHex(CharSequence record, int offset, int digits) {
+        int value = 0;
+        for (int i = offset; i < offset + digits; i++) {
+            int digit = Character.digit(record.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex digit '" + record.charAt(i) + "'");
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,205 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The BinaryObjectReader class reads an object file written in the binary object format
+ * and writes it back as text records.
+ *
+ * Files are memory mapped and read straight from the mapped bytes, one section at a time.
+ * The format is described by {@link BinaryObjectEncoder}; the text written for a section is
+ * exactly the text that was encoded.
+ */
+public class BinaryObjectReader {
+
+    /**
+     * The bytes of the binary object file, positioned at the next section
+     */
+    private final ByteBuffer bytes;
+
+    /**
+     * Constructs a new BinaryObjectReader for the bytes of a binary object file.
+     *
+     * @param bytes the bytes of the file, starting at the magic bytes
+     * @throws IOException if the bytes are not a binary object file of a supported version
+     */
+    public BinaryObjectReader(ByteBuffer bytes) throws IOException {
+        this.bytes = bytes.duplicate();
+        byte[] magic = new byte[BinaryObjectEncoder.MAGIC.length];
+        if (this.bytes.remaining() < magic.length + 1) {
+            throw new IOException("Not a binary object file");
+        }
+        this.bytes.get(magic);
+        if (!Arrays.equals(magic, BinaryObjectEncoder.MAGIC)) {
+            throw new IOException("Not a binary object file");
+        }
+        int version = this.bytes.get();
+        if (version != BinaryObjectEncoder.VERSION) {
+            throw new IOException("Unsupported binary object version: " + version);
+        }
+    }
+
+    /**
+     * Opens a BinaryObjectReader that reads a file by mapping it into memory.
+     *
+     * @param file the path of the binary object file
+     * @return a BinaryObjectReader for the file
+     * @throws IOException if the file cannot be read or is not a binary object file
+     */
+    public static BinaryObjectReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryObjectReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Checks if there is another section to read.
+     *
+     * @return true if a section remains
+     */
+    public boolean hasNextSection() {
+        return this.bytes.hasRemaining();
+    }
+
+    /**
+     * Writes the next section as text records, one record per line.
+     *
+     * @param out the Writer to write the records to
+     * @throws IOException if the section is not valid or an I/O error occurs
+     */
+    public void writeNextSection(Writer out) throws IOException {
+        try {
+            int length = this.bytes.getInt();
+            ByteBuffer section = this.bytes.slice();
+            section.limit(length);
+            this.bytes.position(this.bytes.position() + length);
+            writeSection(section, out);
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Invalid binary object section", e);
+        }
+    }
+
+    /**
+     * Writes every remaining section as text records.
+     *
+     * @param out the Writer to write the records to
+     * @throws IOException if a section is not valid or an I/O error occurs
+     */
+    public void writeText(Writer out) throws IOException {
+        while (hasNextSection()) {
+            writeNextSection(out);
+        }
+    }
+
+    /**
+     * Writes the records of one section.
+     *
+     * @param section the bytes of the section after its length
+     * @param out the Writer to write the records to
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeSection(ByteBuffer section, Writer out) throws IOException {
+        StringBuilder record = new StringBuilder(80);
+
+        // header record
+        record.append('H').append(readName(section));
+        HexNum.appendHex(record, section.getInt(), 6);
+        HexNum.appendHex(record, section.getInt(), 6);
+        writeRecord(out, record);
+
+        String[] symbols = new String[section.getShort() & 0xFFFF];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = readName(section);
+        }
+
+        // define records
+        int count = section.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            record.append('D');
+            int entries = section.get() & 0xFF;
+            for (int j = 0; j < entries; j++) {
+                record.append(symbols[section.getShort() & 0xFFFF]);
+                HexNum.appendHex(record, section.getInt(), 6);
+            }
+            writeRecord(out, record);
+        }
+
+        // refer records
+        count = section.getShort() & 0xFFFF;
+        for (int i = 0; i < count; i++) {
+            record.append('R');
+            int entries = section.get() & 0xFF;
+            for (int j = 0; j < entries; j++) {
+                record.append(symbols[section.getShort() & 0xFFFF]);
+            }
+            writeRecord(out, record);
+        }
+
+        // text records
+        count = section.getInt();
+        for (int i = 0; i < count; i++) {
+            record.append('T');
+            HexNum.appendHex(record, section.getInt(), 6);
+            int nibbles = section.get() & 0xFF;
+            HexNum.appendHex(record, (nibbles + 1) / 2, 2);
+            for (int j = 0; j < nibbles; j += 2) {
+                int b = section.get() & 0xFF;
+                HexNum.appendHex(record, j + 1 < nibbles ? b : b >>> 4, j + 1 < nibbles ? 2 : 1);
+            }
+            writeRecord(out, record);
+        }
+
+        // modification records
+        count = section.getInt();
+        for (int i = 0; i < count; i++) {
+            record.append('M');
+            HexNum.appendHex(record, section.getInt(), 6);
+            HexNum.appendHex(record, section.get() & 0xFF, 2);
+            int flag = section.get();
+            if (flag != 0) {
+                record.append((char) flag).append(symbols[section.getShort() & 0xFFFF]);
+            }
+            writeRecord(out, record);
+        }
+
+        // end record
+        record.append('E');
+        if (section.get() != 0) {
+            HexNum.appendHex(record, section.getInt(), 6);
+        }
+        writeRecord(out, record);
+    }
+
+    /**
+     * Writes a record followed by a newline and clears it for the next record.
+     *
+     * @param out the Writer to write to
+     * @param record the record to write
+     * @throws IOException if an I/O error occurs
+     */
+    private static void writeRecord(Writer out, StringBuilder record) throws IOException {
+        record.append('\n');
+        out.append(record);
+        record.setLength(0);
+    }
+
+    /**
+     * Reads a name written as its length followed by its ASCII characters.
+     *
+     * @param section the bytes to read from
+     * @return the name
+     */
+    private static String readName(ByteBuffer section) {
+        byte[] name = new byte[section.get() & 0xFF];
+        section.get(name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,96 @@
+package edu.iu.jrsalata;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The BufferedSourceReader class reads an assembly source through a BufferedReader.
+ * Only a small buffer is held in memory, so the source is streamed instead of being
+ * loaded all at once.
+ *
+ * @see SourceReader
+ */
+public class BufferedSourceReader implements SourceReader {
+
+    /**
+     * The reader lines are read from
+     */
+    private final BufferedReader reader;
+
+    /**
+     * Number of lines read so far
+     */
+    private int lineNumber;
+
+    /**
+     * Constructs a new BufferedSourceReader that reads from the given reader.
+     *
+     * @param reader the reader holding the source
+     */
+    public BufferedSourceReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+    }
+
+    /**
+     * Constructs a new BufferedSourceReader that reads from the given stream
+     * using the default charset, like Scanner does.
+     *
+     * @param stream the stream holding the source
+     */
+    public BufferedSourceReader(InputStream stream) {
+        this(new InputStreamReader(stream, Charset.defaultCharset()));
+    }
+
+    /**
+     * Constructs a new BufferedSourceReader that reads the given file
+     * using the default charset, like Scanner does.
+     * Bytes that are not valid in the charset are replaced instead of stopping the read.
+     *
+     * @param file the path of the source file
+     * @throws IOException if the file cannot be opened
+     */
+    public BufferedSourceReader(Path file) throws IOException {
+        this(Files.newInputStream(file));
+    }
+
+    /**
+     * Reads the next line of the source.
+     *
+     * @return the next line, or null if the end of the source has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public String readLine() throws IOException {
+        String line = this.reader.readLine();
+        if (line != null) {
+            this.lineNumber++;
+        }
+        return line;
+    }
+
+    /**
+     * Retrieves the number of lines that have been read so far.
+     *
+     * @return the number of lines read
+     */
+    @Override
+    public int getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * Closes the underlying reader.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+}
@@ -0,0 +1,258 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The ChannelWriter class writes characters to a FileChannel through a single direct buffer.
+ *
+ * Characters are encoded into the buffer as they are written, and the buffer is only written
+ * to the channel when it is full or the writer is flushed, so many small writes become a few
+ * large ones. ASCII characters are copied into the buffer directly when the charset allows it;
+ * anything else goes through the charset's encoder.
+ *
+ * A ChannelWriter is not thread safe.
+ *
+ * @see ObjectWriter
+ */
+public class ChannelWriter extends Writer {
+
+    /**
+     * The number of bytes held before they are written to the channel
+     */
+    static final int DEFAULT_BUFFER_SIZE = 64 << 10;
+
+    /**
+     * The channel the bytes are written to
+     */
+    private final FileChannel channel;
+
+    /**
+     * Holds encoded bytes until they are written to the channel
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Encodes characters that can not be copied directly
+     */
+    private final CharsetEncoder encoder;
+
+    /**
+     * true if ASCII characters are encoded as the same single byte
+     */
+    private final boolean ascii;
+
+    /**
+     * true once the writer has been closed
+     */
+    private boolean closed;
+
+    /**
+     * Constructs a new ChannelWriter with the default buffer size.
+     *
+     * @param channel the channel to write to
+     * @param charset the charset to encode characters with
+     */
+    public ChannelWriter(FileChannel channel, Charset charset) {
+        this(channel, charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Constructs a new ChannelWriter.
+     *
+     * @param channel the channel to write to
+     * @param charset the charset to encode characters with
+     * @param bufferSize the number of bytes held before they are written to the channel
+     */
+    public ChannelWriter(FileChannel channel, Charset charset, int bufferSize) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.ascii = MappedSourceReader.isAsciiCompatible(charset);
+
+        // the buffer must hold at least one encoded character
+        int size = Math.max(bufferSize, (int) Math.ceil(this.encoder.maxBytesPerChar()) * 2);
+        this.buffer = ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * Opens a ChannelWriter for a file with the default charset, creating the file if needed.
+     *
+     * @param file the path of the file
+     * @param append true to add to the end of the file, false to replace its contents
+     * @return a ChannelWriter for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static ChannelWriter open(Path file, boolean append) throws IOException {
+        FileChannel channel = append
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND)
+                : FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        return new ChannelWriter(channel, Charset.defaultCharset());
+    }
+
+    /**
+     * Writes a single character.
+     *
+     * @param c the character to write
+     * @throws IOException if the writer is closed or an I/O error occurs
+     */
+    @Override
+    public void write(int c) throws IOException {
+        ensureOpen();
+        if (this.ascii && c < 0x80) {
+            if (!this.buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            this.buffer.put((byte) c);
+        } else {
+            encode(CharBuffer.wrap(new char[] { (char) c }));
+        }
+    }
+
+    /**
+     * Writes part of a character array.
+     *
+     * @param chars the characters to write
+     * @param offset the index of the first character
+     * @param length the number of characters to write
+     * @throws IOException if the writer is closed or an I/O error occurs
+     */
+    @Override
+    public void write(char[] chars, int offset, int length) throws IOException {
+        ensureOpen();
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            if (this.ascii && chars[i] < 0x80) {
+                if (!this.buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+                this.buffer.put((byte) chars[i++]);
+            } else {
+                // encode the whole run of characters that can not be copied
+                int start = i;
+                while (i < end && (!this.ascii || chars[i] >= 0x80)) {
+                    i++;
+                }
+                encode(CharBuffer.wrap(chars, start, i - start));
+            }
+        }
+    }
+
+    /**
+     * Writes part of a String.
+     *
+     * @param str the String to write
+     * @param offset the index of the first character
+     * @param length the number of characters to write
+     * @throws IOException if the writer is closed or an I/O error occurs
+     */
+    @Override
+    public void write(String str, int offset, int length) throws IOException {
+        ensureOpen();
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            char c = str.charAt(i);
+            if (this.ascii && c < 0x80) {
+                if (!this.buffer.hasRemaining()) {
+                    flushBuffer();
+                }
+                this.buffer.put((byte) c);
+                i++;
+            } else {
+                int start = i;
+                while (i < end && (!this.ascii || str.charAt(i) >= 0x80)) {
+                    i++;
+                }
+                encode(CharBuffer.wrap(str, start, i));
+            }
+        }
+    }
+
+    /**
+     * Writes every buffered byte to the channel.
+     *
+     * @throws IOException if the writer is closed or an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+    }
+
+    /**
+     * Writes every buffered byte and closes the channel.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        try {
+            flushBuffer();
+        } finally {
+            this.closed = true;
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Encodes characters into the buffer, writing the buffer to the channel whenever it fills.
+     *
+     * @param chars the characters to encode
+     * @throws IOException if an I/O error occurs
+     */
+    private void encode(CharBuffer chars) throws IOException {
+        this.encoder.reset();
+        while (true) {
+            CoderResult result = this.encoder.encode(chars, this.buffer, true);
+            if (result.isOverflow()) {
+                flushBuffer();
+            } else {
+                break;
+            }
+        }
+        while (this.encoder.flush(this.buffer).isOverflow()) {
+            flushBuffer();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the channel and empties the buffer.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void flushBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Checks that the writer has not been closed.
+     *
+     * @throws IOException if the writer is closed
+     */
+    private void ensureOpen() throws IOException {
+        if (this.closed) {
+            throw new IOException("Writer is closed");
+        }
+    }
+}
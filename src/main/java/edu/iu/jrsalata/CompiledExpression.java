@@ -0,0 +1,520 @@
+package edu.iu.jrsalata;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CompiledExpression class holds an operand expression that has been parsed once
+ * so that it can be evaluated any number of times without parsing it again.
+ *
+ * Expressions follow SIC/XE operand syntax: decimal numbers, symbols, the operators
+ * +, -, *, and /, parentheses, and * as the current location counter when it is used
+ * where an operand is expected. Each symbol becomes a slot, which is bound to the value
+ * of the symbol when the expression is evaluated. The expression is compiled into a
+ * postfix program that is evaluated with integer math, so 24 bit values and division
+ * give exact whole numbers.
+ *
+ * Every term is tracked as relative or absolute: relative terms are added or subtracted,
+ * so an expression like BUFEND-BUFFER is absolute while BUFFER+3 is relative.
+ *
+ * A CompiledExpression never changes after it is created and can be shared between threads.
+ *
+ * @see ExpressionCache
+ */
+public final class CompiledExpression {
+
+    /**
+     * Instruction that pushes the constant that follows it
+     */
+    private static final int PUSH_CONSTANT = 0;
+
+    /**
+     * Instruction that pushes the value of the slot that follows it
+     */
+    private static final int PUSH_SLOT = 1;
+
+    /**
+     * Instruction that pushes the location counter
+     */
+    private static final int PUSH_LOCATION = 2;
+
+    /**
+     * Instruction that adds the top two values
+     */
+    private static final int ADD = 3;
+
+    /**
+     * Instruction that subtracts the top value from the one below it
+     */
+    private static final int SUBTRACT = 4;
+
+    /**
+     * Instruction that multiplies the top two values
+     */
+    private static final int MULTIPLY = 5;
+
+    /**
+     * Instruction that divides the value below the top by the top value
+     */
+    private static final int DIVIDE = 6;
+
+    /**
+     * Instruction that negates the top value
+     */
+    private static final int NEGATE = 7;
+
+    /**
+     * Marks an open parenthesis on the operator stack while compiling
+     */
+    private static final int OPEN = -1;
+
+    /**
+     * The text the expression was compiled from
+     */
+    private final String source;
+
+    /**
+     * Text of each symbol, in the order they appear
+     */
+    private final String[] operands;
+
+    /**
+     * Packed SymbolKey of each symbol
+     */
+    private final long[] keys;
+
+    /**
+     * Sign each symbol is added to the result with, used for modification records
+     */
+    private final char[] signs;
+
+    /**
+     * Postfix program of the expression, null if the expression is not valid
+     */
+    private final int[] program;
+
+    /**
+     * Largest number of values on the stack while running the program
+     */
+    private final int depth;
+
+    /**
+     * true if the expression has at least one operator or uses the location counter
+     */
+    private final boolean expression;
+
+    /**
+     * Reason the expression is not valid, null if it is valid
+     */
+    private final String error;
+
+    /**
+     * Compiles the given expression.
+     * The expression is never rejected here; if it is not valid,
+     * the error is reported when it is evaluated.
+     *
+     * @param source the expression to compile
+     */
+    public CompiledExpression(String source) {
+        this.source = source;
+
+        List<String> names = new ArrayList<>();
+        List<Long> packed = new ArrayList<>();
+        StringBuilder symbolSigns = new StringBuilder();
+
+        // shunting-yard over the characters of the source
+        int[] output = new int[source.length() * 2 + 2];
+        int outputSize = 0;
+        int[] operators = new int[source.length() + 1];
+        int operatorSize = 0;
+
+        // sign of the innermost parentheses and of the next term, for modification records
+        int[] parenSigns = new int[source.length() + 1];
+        int parenSize = 0;
+        int parenSign = 1;
+        int termSign = 1;
+
+        boolean expectOperand = true;
+        boolean hasOperator = false;
+        String reason = null;
+        int i = 0;
+        while (i < source.length() && reason == null) {
+            char c = source.charAt(i);
+            if (c <= ' ') {
+                i++;
+            } else if (c == '(') {
+                if (!expectOperand) {
+                    reason = "Missing operator before '('";
+                    break;
+                }
+                parenSigns[parenSize++] = parenSign;
+                parenSign = termSign;
+                operators[operatorSize++] = OPEN;
+                i++;
+            } else if (c == ')') {
+                if (expectOperand) {
+                    reason = "Missing operand before ')'";
+                    break;
+                }
+                while (operatorSize > 0 && operators[operatorSize - 1] != OPEN) {
+                    output[outputSize++] = operators[--operatorSize];
+                }
+                if (operatorSize == 0) {
+                    reason = "Unbalanced ')'";
+                    break;
+                }
+                operatorSize--;
+                parenSign = parenSigns[--parenSize];
+                i++;
+            } else if (expectOperand && (c == '+' || c == '-')) {
+                // unary sign, + is ignored
+                hasOperator = true;
+                if (c == '-') {
+                    operators[operatorSize++] = NEGATE;
+                    termSign = -termSign;
+                }
+                i++;
+            } else if (expectOperand && c == '*') {
+                // * in place of an operand is the location counter
+                output[outputSize++] = PUSH_LOCATION;
+                expectOperand = false;
+                i++;
+            } else if (c == '+' || c == '-' || c == '*' || c == '/') {
+                if (expectOperand) {
+                    reason = "Missing operand before '" + c + "'";
+                    break;
+                }
+                hasOperator = true;
+                int operator = switch (c) {
+                    case '+' -> ADD;
+                    case '-' -> SUBTRACT;
+                    case '*' -> MULTIPLY;
+                    default -> DIVIDE;
+                };
+
+                // pop operators that bind at least as tightly, since these are left associative
+                while (operatorSize > 0 && operators[operatorSize - 1] != OPEN
+                        && precedence(operators[operatorSize - 1]) >= precedence(operator)) {
+                    output[outputSize++] = operators[--operatorSize];
+                }
+                operators[operatorSize++] = operator;
+
+                // terms that are multiplied or divided are not added with a sign of their own
+                termSign = c == '-' ? -parenSign : parenSign;
+                expectOperand = true;
+                i++;
+            } else {
+                if (!expectOperand) {
+                    reason = "Missing operator before '" + c + "'";
+                    break;
+                }
+
+                // an operand runs until the next operator, parenthesis, or whitespace
+                int start = i;
+                while (i < source.length() && !isDelimiter(source.charAt(i))) {
+                    i++;
+                }
+                if (isDigit(c)) {
+                    int value = parseNumber(source, start, i);
+                    if (value < 0) {
+                        reason = "Invalid number '" + source.substring(start, i) + "'";
+                        break;
+                    }
+                    output[outputSize++] = PUSH_CONSTANT;
+                    output[outputSize++] = value;
+                } else {
+                    output[outputSize++] = PUSH_SLOT;
+                    output[outputSize++] = names.size();
+                    names.add(source.substring(start, i));
+                    packed.add(SymbolKey.pack(source, start, i));
+                    symbolSigns.append(termSign < 0 ? '-' : '+');
+                }
+                expectOperand = false;
+            }
+        }
+
+        if (reason == null && expectOperand) {
+            reason = source.isBlank() ? "Empty expression" : "Missing operand at end of expression";
+        }
+        while (reason == null && operatorSize > 0) {
+            int operator = operators[--operatorSize];
+            if (operator == OPEN) {
+                reason = "Unbalanced '('";
+            }
+            output[outputSize++] = operator;
+        }
+
+        this.operands = names.toArray(new String[0]);
+        this.keys = new long[packed.size()];
+        for (int k = 0; k < this.keys.length; k++) {
+            this.keys[k] = packed.get(k);
+        }
+        this.signs = symbolSigns.toString().toCharArray();
+        this.expression = hasOperator || source.indexOf('*') >= 0;
+        this.error = reason;
+
+        if (reason == null) {
+            this.program = new int[outputSize];
+            System.arraycopy(output, 0, this.program, 0, outputSize);
+            this.depth = stackDepth(this.program);
+        } else {
+            this.program = null;
+            this.depth = 0;
+        }
+    }
+
+    /**
+     * Retrieves the text the expression was compiled from.
+     *
+     * @return the source of the expression
+     */
+    public String getSource() {
+        return this.source;
+    }
+
+    /**
+     * Checks if the source is an expression that needs to be evaluated,
+     * meaning it has an operator or uses the location counter.
+     * A lone symbol or number is not an expression.
+     *
+     * @return true if the source is an expression
+     */
+    public boolean isExpression() {
+        return this.expression;
+    }
+
+    /**
+     * Checks if the expression follows the operand syntax.
+     *
+     * @return true if the expression is valid
+     */
+    public boolean isValid() {
+        return this.error == null;
+    }
+
+    /**
+     * Retrieves the reason the expression is not valid.
+     *
+     * @return the reason the expression is not valid, or null if it is valid
+     */
+    public String getError() {
+        return this.error;
+    }
+
+    /**
+     * Retrieves the number of symbols in the expression.
+     *
+     * @return the number of slots
+     */
+    public int getOperandCount() {
+        return this.operands.length;
+    }
+
+    /**
+     * Retrieves the text of a symbol.
+     *
+     * @param index the index of the slot
+     * @return the symbol without surrounding whitespace
+     */
+    public String getOperand(int index) {
+        return this.operands[index];
+    }
+
+    /**
+     * Retrieves the packed SymbolKey of a symbol.
+     *
+     * @param index the index of the slot
+     * @return the key of the symbol
+     */
+    public long getKey(int index) {
+        return this.keys[index];
+    }
+
+    /**
+     * Retrieves the sign a symbol is added to the result with.
+     * Symbols that are multiplied or divided are treated as added.
+     *
+     * @param index the index of the slot
+     * @return '-' if the symbol is subtracted, '+' otherwise
+     */
+    public char getSign(int index) {
+        return this.signs[index];
+    }
+
+    /**
+     * Evaluates the expression with integer math.
+     *
+     * @param values the value of each slot
+     * @param locctr the value of the location counter
+     * @return the result of the expression
+     * @throws IllegalStateException if the expression is not valid
+     * @throws ArithmeticException if the expression divides by zero
+     */
+    public int evaluate(int[] values, int locctr) {
+        checkValid();
+        int[] stack = new int[this.depth];
+        int size = 0;
+        int[] code = this.program;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case PUSH_CONSTANT -> stack[size++] = code[++pc];
+                case PUSH_SLOT -> stack[size++] = values[code[++pc]];
+                case PUSH_LOCATION -> stack[size++] = locctr;
+                case NEGATE -> stack[size - 1] = -stack[size - 1];
+                case ADD -> {
+                    size--;
+                    stack[size - 1] += stack[size];
+                }
+                case SUBTRACT -> {
+                    size--;
+                    stack[size - 1] -= stack[size];
+                }
+                case MULTIPLY -> {
+                    size--;
+                    stack[size - 1] *= stack[size];
+                }
+                default -> {
+                    size--;
+                    stack[size - 1] /= stack[size];
+                }
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Checks if the result of the expression is absolute.
+     *
+     * Relative terms count as +1 when added and -1 when subtracted, so the result is absolute
+     * when they cancel out. A relative term that is multiplied or divided
+     * makes the result relative. The location counter is always relative.
+     *
+     * @param relative true for each slot whose symbol is relative
+     * @return true if the expression is absolute, false if it is relative
+     * @throws IllegalStateException if the expression is not valid
+     */
+    public boolean isAbsolute(boolean[] relative) {
+        checkValid();
+        int[] stack = new int[this.depth];
+        int size = 0;
+        int[] code = this.program;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case PUSH_CONSTANT -> {
+                    pc++;
+                    stack[size++] = 0;
+                }
+                case PUSH_SLOT -> stack[size++] = relative[code[++pc]] ? 1 : 0;
+                case PUSH_LOCATION -> stack[size++] = 1;
+                case NEGATE -> stack[size - 1] = -stack[size - 1];
+                case ADD -> {
+                    size--;
+                    stack[size - 1] += stack[size];
+                }
+                case SUBTRACT -> {
+                    size--;
+                    stack[size - 1] -= stack[size];
+                }
+                default -> {
+                    size--;
+                    stack[size - 1] = stack[size - 1] != 0 || stack[size] != 0 ? 1 : 0;
+                }
+            }
+        }
+        return stack[0] == 0;
+    }
+
+    /**
+     * Throws an exception if the expression is not valid.
+     *
+     * @throws IllegalStateException if the expression is not valid
+     */
+    private void checkValid() {
+        if (this.error != null) {
+            throw new IllegalStateException(this.error);
+        }
+    }
+
+    /**
+     * Finds the largest number of values on the stack while running a program.
+     *
+     * @param code the postfix program
+     * @return the depth of the stack
+     */
+    private static int stackDepth(int[] code) {
+        int size = 0;
+        int max = 1;
+        for (int pc = 0; pc < code.length; pc++) {
+            switch (code[pc]) {
+                case PUSH_CONSTANT, PUSH_SLOT -> {
+                    pc++;
+                    size++;
+                }
+                case PUSH_LOCATION -> size++;
+                case NEGATE -> {
+                    // replaces the top value
+                }
+                default -> size--;
+            }
+            max = Math.max(max, size);
+        }
+        return max;
+    }
+
+    /**
+     * Retrieves how tightly an operator binds.
+     *
+     * @param operator the operator instruction
+     * @return a higher number for operators that are applied first
+     */
+    private static int precedence(int operator) {
+        return switch (operator) {
+            case NEGATE -> 3;
+            case MULTIPLY, DIVIDE -> 2;
+            default -> 1;
+        };
+    }
+
+    /**
+     * Parses a decimal number.
+     *
+     * @param source the text holding the number
+     * @param start the index of the first digit
+     * @param end the index after the last digit
+     * @return the value of the number, or -1 if it is not a valid number
+     */
+    private static int parseNumber(String source, int start, int end) {
+        long value = 0;
+        for (int k = start; k < end; k++) {
+            char c = source.charAt(k);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * Checks if a character ends an operand.
+     *
+     * @param c the character to check
+     * @return true if c is whitespace, an operator, or a parenthesis
+     */
+    private static boolean isDelimiter(char c) {
+        return c <= ' ' || c == '+' || c == '-' || c == '*' || c == '/' || c == '(' || c == ')';
+    }
+
+    /**
+     * Checks if a character is a decimal digit.
+     *
+     * @param c the character to check
+     * @return true if c is between 0 and 9
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -22,18 +22,18 @@ public class DirectiveStatement extends Statement {
     protected String directive;
 
     /**
-     * the object code this statement generates, if any
+     * the object code given by setObjCode as hex, held until the statement is assembled
      */
-    protected String objectCode;
+    protected String hexCode;
 
     /**
      * Constructs a new DirectiveStatement with default values.
-     * Initializes the directive and objectCode fields to empty strings.
+     * Initializes the directive and object code to empty strings.
      */
     public DirectiveStatement() {
         super();
         this.directive = "";
-        this.objectCode = "";
+        this.hexCode = "";
     }
 
     /**
@@ -44,7 +44,7 @@ public class DirectiveStatement extends Statement {
     public DirectiveStatement(String directive) {
         super();
         this.directive = directive;
-        this.objectCode = "";
+        this.hexCode = "";
     }
 
     /**
@@ -56,7 +56,7 @@ public class DirectiveStatement extends Statement {
     public DirectiveStatement(HexNum size, String directive) {
         super(size);
         this.directive = directive;
-        this.objectCode = "";
+        this.hexCode = "";
     }
 
     /**
@@ -92,7 +92,8 @@ public class DirectiveStatement extends Statement {
      * @param code the object code to set
      */
     public void setObjCode(String code) {
-        this.objectCode = code;
+        this.hexCode = code;
+        this.codeOffset = -1;
     }
 
     /**
@@ -102,7 +103,19 @@ public class DirectiveStatement extends Statement {
      */
     @Override
     public String assemble() {
-        return this.objectCode;
+        if (!isAssembled()) {
+            generateObjectCode();
+        }
+        return getObjectCode();
+    }
+
+    /**
+     * Moves the object code given by setObjCode into the code buffer.
+     */
+    @Override
+    protected void generateObjectCode() {
+        emitCode(this.hexCode);
+        this.hexCode = null;
     }
 
     /**
@@ -0,0 +1,201 @@
+package edu.iu.jrsalata;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ExpressionCache class holds recently used CompiledExpressions by their source text
+ * so that an expression is only parsed the first time it is seen.
+ *
+ * Each {@link SymbolContext} has its own cache, which is read by every section of its assembly
+ * at the same time, so the cache takes no lock. The expressions are held in a concurrent map,
+ * and each one is stamped with the time it was last used, counted in expressions added.
+ * When the cache is full, the expressions that were used least recently are removed,
+ * an eighth of the cache at a time, and never more than that even when many share a stamp. Two threads can add the same expression at the same time,
+ * so the eviction is approximate.
+ *
+ * @see CompiledExpression
+ */
+public class ExpressionCache {
+
+    /**
+     * The number of expressions each SymbolContext holds
+     */
+    static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The maximum number of expressions this cache holds
+     */
+    private final int capacity;
+
+    /**
+     * Maps the source of each expression to its compiled form and when it was last used
+     */
+    private final ConcurrentHashMap<String, Entry> cache;
+
+    /**
+     * Counts the expressions added to the cache, which is the time each expression is stamped with
+     */
+    private final AtomicLong clock;
+
+    /**
+     * Whether a thread is removing expressions, so only one thread does it at a time
+     */
+    private final AtomicBoolean evicting;
+
+    /**
+     * The Entry class holds a compiled expression and when it was last used.
+     *
+     * An expression added at a time is stamped with twice the time, and an expression used
+     * at a time with one more, so a use counts after the expression that was added at the same time.
+     */
+    private static final class Entry {
+
+        /**
+         * The compiled expression
+         */
+        private final CompiledExpression compiled;
+
+        /**
+         * When the expression was last used
+         */
+        private volatile long used;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param compiled the compiled expression
+         * @param used when the expression was added
+         */
+        private Entry(CompiledExpression compiled, long used) {
+            this.compiled = compiled;
+            this.used = used;
+        }
+    }
+
+    /**
+     * Constructs a new ExpressionCache.
+     *
+     * @param capacity the maximum number of expressions to hold
+     */
+    public ExpressionCache(int capacity) {
+        this.capacity = capacity;
+        this.cache = new ConcurrentHashMap<>();
+        this.clock = new AtomicLong();
+        this.evicting = new AtomicBoolean();
+    }
+
+    /**
+     * Retrieves the compiled form of the given expression, compiling it if it is not cached.
+     *
+     * @param source the expression to look up
+     * @return the CompiledExpression of the source
+     */
+    public CompiledExpression get(String source) {
+        Entry entry = this.cache.get(source);
+        if (entry != null) {
+            // the stamp is only written when it changes, so a busy expression is not written by every thread
+            long used = this.clock.get() * 2 + 1;
+            if (entry.used != used) {
+                entry.used = used;
+            }
+            return entry.compiled;
+        }
+
+        Entry added = new Entry(new CompiledExpression(source), this.clock.incrementAndGet() * 2);
+        entry = this.cache.putIfAbsent(source, added);
+        if (entry != null) {
+            return entry.compiled;
+        }
+        if (this.cache.size() > this.capacity) {
+            evict();
+        }
+        return added.compiled;
+    }
+
+    /**
+     * Removes the least recently used expressions until the cache holds seven eighths of its capacity.
+     * If another thread is already removing expressions, nothing is done, and that thread checks
+     * the size again once it is done, so expressions added in the meantime are not missed.
+     */
+    private void evict() {
+        do {
+            if (!this.evicting.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                // the stamps keep changing while they are read, so the oldest ones are found in a copy
+                long[] stamps = new long[this.cache.size()];
+                int count = 0;
+                for (Entry entry : this.cache.values()) {
+                    if (count == stamps.length) {
+                        break;
+                    }
+                    stamps[count++] = entry.used;
+                }
+                int excess = count - (this.capacity - this.capacity / 8);
+                if (excess > 0) {
+                    Arrays.sort(stamps, 0, count);
+                    removeOldest(stamps[excess - 1], excess);
+                }
+            } finally {
+                this.evicting.set(false);
+            }
+        } while (this.cache.size() > this.capacity);
+    }
+
+    /**
+     * Removes up to the given number of expressions, starting with the ones used before the cutoff.
+     * Every expression used between two additions has the same stamp, so many expressions can be
+     * stamped with the cutoff itself, and only as many of them are removed as are still needed.
+     * An expression that is used while this runs gets a newer stamp and is kept.
+     *
+     * @param cutoff the stamp of the newest expression to remove
+     * @param excess the number of expressions to remove
+     */
+    private void removeOldest(long cutoff, int excess) {
+        int remaining = excess;
+        Iterator<Entry> entries = this.cache.values().iterator();
+        while (remaining > 0 && entries.hasNext()) {
+            if (entries.next().used < cutoff) {
+                entries.remove();
+                remaining--;
+            }
+        }
+        entries = this.cache.values().iterator();
+        while (remaining > 0 && entries.hasNext()) {
+            if (entries.next().used == cutoff) {
+                entries.remove();
+                remaining--;
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of expressions in the cache.
+     *
+     * @return the number of cached expressions
+     */
+    public int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * Retrieves the maximum number of expressions in the cache.
+     *
+     * @return the capacity of the cache
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Removes every expression from the cache.
+     */
+    public void clear() {
+        this.cache.clear();
+    }
+}
@@ -0,0 +1,49 @@
+package edu.iu.jrsalata;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The ExpressionEvent class is the JDK Flight Recorder event for evaluating one expression,
+ * including compiling it if it was not cached and finding the value of its symbols.
+ *
+ * Operands that are not expressions, like a single symbol or constant, are not recorded, and
+ * only expressions that take longer than the threshold are recorded by default.
+ */
+@Name("edu.iu.jrsalata.Expression")
+@Label("Assembler Expression")
+@Category({ "SIC/XE Assembler" })
+@Description("Evaluation of one expression")
+@StackTrace(false)
+@Threshold("100 us")
+class ExpressionEvent extends Event {
+
+    /**
+     * The name of the control section
+     */
+    @Label("Control Section")
+    String section;
+
+    /**
+     * The line number of the expression in its section
+     */
+    @Label("Line Number")
+    int line;
+
+    /**
+     * The source of the expression
+     */
+    @Label("Expression")
+    String expression;
+
+    /**
+     * The value of the expression
+     */
+    @Label("Result")
+    int result;
+}
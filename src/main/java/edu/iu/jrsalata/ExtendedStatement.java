@@ -23,7 +23,7 @@ package edu.iu.jrsalata;
  * </ul>
  * 
  * 
- * Note: This class relies on the SymTable class for symbol table lookups and
+ * Note: This class relies on its SymbolContext for symbol table lookups and
  * the HexNum class for handling hexadecimal numbers.
  */
 public class ExtendedStatement extends BaseStatement {
@@ -87,7 +87,7 @@ public class ExtendedStatement extends BaseStatement {
         super();
         this.args = "000";
         this.format = 3;
-        this.size.set(this.format);
+        this.size = new HexNum(this.format);
         this.base = "";
     }
 
@@ -103,7 +103,7 @@ public class ExtendedStatement extends BaseStatement {
         super(location, opcode);
         this.args = args;
         this.format = 3;
-        this.size.set(this.format);
+        this.size = new HexNum(this.format);
         this.base = "";
     }
 
@@ -208,25 +208,55 @@ public class ExtendedStatement extends BaseStatement {
     }
 
     /**
-     * Assembles the statement into its object code representation.
+     * Checks if the target of the statement, and its base register if it has one, are defined.
+     * Targets that are not symbols, like numbers and external references, are always resolved.
+     *
+     * @return true if the statement can be assembled now
+     */
+    @Override
+    public boolean isResolved() {
+        String target = this.args.isEmpty() ? "000" : this.args;
+        if (target.toUpperCase().replace(" ", "").contains(",X")) {
+            target = target.toUpperCase().replace(" ", "").replace(",X", "");
+        }
+        if (!target.isEmpty() && (target.charAt(0) == '#' || target.charAt(0) == '@')) {
+            target = target.substring(1);
+        }
+
+        boolean targetKnown = this.hasExternalSymbol || Utility.isNumeric(target)
+                || this.symbols.getSharedSymbol(target, this.controlSection) != null;
+        return targetKnown && (this.base.isEmpty() || this.symbols.getSharedSymbol(this.base, this.controlSection) != null);
+    }
+
+    /**
+     * Assembles the statement into its object code.
+     * The object code is generated into the code buffer the first time this is called.
+     *
+     * @return the object code of the statement
+     * @throws InvalidAssemblyFileException if there is an error in the assembly process
+     */
+    @Override
+    public String assemble() throws InvalidAssemblyFileException {
+        if (!isAssembled()) {
+            generateObjectCode();
+        }
+        return getObjectCode();
+    }
+
+    /**
+     * Generates the object code of the statement, setting its flags and modification record.
      *
-     * @return The assembled object code as a string.
      * @throws InvalidAssemblyFileException If there is an error in the assembly
      *                                      process.
      */
     @Override
-    public String assemble() throws InvalidAssemblyFileException {
+    protected void generateObjectCode() throws InvalidAssemblyFileException {
 
         /**
          * creates a copy of the args to handle easier
          */
         String processedArgs = this.args;
 
-        /**
-         * stores the entire assembled object code
-         */
-        String assembled;
-
         /**
          * stores the calculated target address
          */
@@ -264,13 +294,13 @@ public class ExtendedStatement extends BaseStatement {
         }
 
         // process the arguments and see if there is another value
-        if (SymTable.containsSymbol(processedArgs, this.controlSection)) {
-            targetAddress = SymTable.getSymbol(processedArgs, this.controlSection);
-            targetAddress = this.calculateDisp(targetAddress);
+        HexNum symbolAddress = this.symbols.getSharedSymbol(processedArgs, this.controlSection);
+        if (symbolAddress != null) {
+            targetAddress = this.calculateDisp(symbolAddress);
         } else if (!this.hasExternalSymbol) {
             targetAddress = new HexNum(processedArgs, NumSystem.DEC);
         } else {
-            targetAddress = new HexNum("0", NumSystem.DEC);
+            targetAddress = new HexNum(0);
         }
 
         // Get the values of each individual flag
@@ -285,16 +315,15 @@ public class ExtendedStatement extends BaseStatement {
         int argSize = this.eFlag ? 5 : 3;
 
         // since n and i are part of the opcode bit, we will add them here
-        HexNum first = this.opcode.add(n + i);
-
-        // set the 3rd hex number to x, b, p, e
-        HexNum third = new HexNum(x + b + p + e);
-        assembled = first.toString(2) + third.toString(1) + targetAddress.toString(argSize);
+        // then set the 3rd hex number to x, b, p, e
+        int argBits = argSize * 4;
+        long objectCode = (long) ((this.opcode.getDec() + n + i) & 0xFF) << (argBits + 4)
+                | (long) ((x + b + p + e) & 0xF) << argBits
+                | (targetAddress.getDec() & ((1L << argBits) - 1));
+        emitCode(objectCode, 3 + argSize);
 
         // handle any necessary modifications, if any exist
-        handleModificationRecords(processedArgs, new HexNum(argSize));
-
-        return assembled;
+        handleModificationRecords(processedArgs, argSize);
     }
 
     /**
@@ -309,18 +338,18 @@ public class ExtendedStatement extends BaseStatement {
 
         // if we are in F4, then keep the target address the same
         // otherwise assume pc relative first, then base relative
-        HexNum disp = new HexNum();
+        HexNum disp = HexNum.valueOf(0);
         if (this.eFlag) {
             disp = targetAddress;
         } else {
 
             // try to do pc relative first
             // it is easier to convert each value to decimal and compare
-            int pc = this.location.add(this.getSize()).getDec();
+            int pc = this.location.getDec() + this.getSize().getDec();
             int pcRelative = targetAddress.getDec() - pc;
             if (pcRelative >= -2048 && pcRelative <= 2047) {
                 this.setPFlag();
-                disp = new HexNum(pcRelative);
+                disp = HexNum.valueOf(pcRelative);
             } else {
 
                 if(this.base.isEmpty()){
@@ -328,11 +357,11 @@ public class ExtendedStatement extends BaseStatement {
                 }
                 
                 // if pc relative is not possible, try base relative
-                int baseInt = SymTable.getSymbol(this.base, this.controlSection).getDec();
+                int baseInt = this.symbols.getSharedSymbol(this.base, this.controlSection).getDec();
                 int baseRelative = targetAddress.getDec() - baseInt;
                 if (baseRelative >= 0 && baseRelative <= 4095) {
                     this.setBFlag();
-                    disp = new HexNum(baseRelative);
+                    disp = HexNum.valueOf(baseRelative);
                 }
             }
         }
@@ -355,17 +384,17 @@ public class ExtendedStatement extends BaseStatement {
      * symbol (columns 11-16)
      * 
      * @param processedArgs The processed arguments for the instruction.
-     * @param argSize       The size of the argument.
+     * @param argSize       The size of the argument in half-bytes.
      */
-    private void handleModificationRecords(String processedArgs, HexNum argSize) {
+    private void handleModificationRecords(String processedArgs, int argSize) {
         // check if we need to create a modification record
         // we need to create a modification record if it is using direct addressing
         // meaning that we are not using base or pc relative addressing
         if (!this.bFlag && !this.pFlag && this.iFlag && this.nFlag && !processedArgs.equals("000")) {
             StringBuilder modificationBuilder = new StringBuilder();
             modificationBuilder.append("M");
-            modificationBuilder.append(this.location.add(1).toString(6));
-            modificationBuilder.append(argSize.toString(2));
+            HexNum.appendHex(modificationBuilder, this.location.getDec() + 1, 6);
+            HexNum.appendHex(modificationBuilder, argSize, 2);
 
             // if the args is defined in an external symbol, we need to specify that here
             if (this.hasExternalSymbol) {
@@ -8,44 +8,115 @@ package edu.iu.jrsalata;
 public class HexNum {
 
     /**
-     * Holds the hex representation of this number
+     * Values from 0 up to this limit (exclusive) are shared through {@link #valueOf(int)}
+     * This covers every displacement and symbol location that is only read while a statement is assembled
      */
-    protected String value;
+    static final int CACHE_SIZE = 4096;
 
     /**
-     * Constructs a new HexNum object with a default value of "0".
+     * Digits used when rendering upper case hex
+     */
+    private static final char[] UPPER_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Digits used when rendering lower case hex
+     */
+    private static final char[] LOWER_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Shared instances of the most common values
+     */
+    private static final HexNum[] CACHE = new HexNum[CACHE_SIZE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            CACHE[i] = new HexNum(i);
+            CACHE[i].shared = true;
+        }
+    }
+
+    /**
+     * Holds the numeric value of this number
+     * The hex representation is only rendered when it is requested
+     */
+    protected int value;
+
+    /**
+     * true if this number was read from upper case hex digits
+     * Keeps rendering consistent with the digits the number was given in
+     */
+    protected boolean upperCase;
+
+    /**
+     * The number of digits this number was read from, up to 8, or 0 if it was not read from hex.
+     * Leading zeros of the hex input are kept when the number is rendered with {@link #toString()}
+     */
+    protected int width;
+
+    /**
+     * true if this instance is held in the shared cache and can not be changed
+     */
+    private boolean shared;
+
+    /**
+     * Constructs a new HexNum object with a default value of 0.
      */
     public HexNum() {
-        this.value = "0";
+        this.value = 0;
     }
 
     /**
-     * Constructs a HexNum object by converting an integer value to its hexadecimal string representation.
+     * Constructs a HexNum object holding the given integer value.
      *
-     * @param value the integer value to be converted to hexadecimal
+     * @param value the integer value this number represents
      */
     public HexNum(int value) {
-        this.value = Integer.toHexString(value);
+        this.value = value;
     }
 
     /**
-     * Constructs a HexNum object by converting the given value from the specified number system to hexadecimal.
+     * Constructs a HexNum object by converting the given value from the specified number system.
      *
-     * @param value the value to be converted to hexadecimal
+     * @param value the value to be converted
      * @param numSystem the number system enum of the given value (e.g., binary, decimal)
      */
     public HexNum(String value, NumSystem numSystem) {
-        this.value = convertToHex(value, numSystem);
+        this.value = parse(value, numSystem);
+        this.upperCase = isUpperCase(value, numSystem);
+        this.width = numSystem == NumSystem.HEX ? Math.min(value.length(), 8) : 0;
+    }
+
+    /**
+     * Returns a HexNum holding the given value.
+     * Common values are served from a shared cache, so the returned instance
+     * must be treated as read only and can not be changed with set.
+     * It is only used for values that are read and dropped inside this package. A shared value
+     * must never be stored where a public method returns it, such as the size or location of a
+     * statement, since callers may set those.
+     *
+     * @param value the integer value the number represents
+     * @return a HexNum representing the given value
+     */
+    static HexNum valueOf(int value) {
+        if (value >= 0 && value < CACHE_SIZE) {
+            return CACHE[value];
+        }
+        return new HexNum(value);
     }
 
     /**
      * Returns a string representation of the hexadecimal number.
+     * A number read from hex keeps the leading zeros it was given with.
      *
      * @return the string representation of this hexadecimal number.
      */
     @Override
     public String toString() {
-        return this.value;
+        String hex = Integer.toHexString(this.value);
+        if (this.width > hex.length()) {
+            return toString(this.width);
+        }
+        return this.upperCase ? hex.toUpperCase() : hex;
     }
 
     /**
@@ -57,18 +128,90 @@ public class HexNum {
      * @return the string representation of the hexadecimal number with the specified number of digits
      */
     public String toString(int digits) {
-        if (this.value.length() < digits) {
-            StringBuilder sb = new StringBuilder();
-            for (int i = 0; i < digits - this.value.length(); i++) {
-                sb.append("0");
-            }
-            sb.append(this.value);
-            return sb.toString();
-        } else if (this.value.length() > digits) {
-            return this.value.substring(this.value.length() - digits);
-        } else {
-            return this.value;
+        char[] chars = new char[digits];
+        writeHex(chars, 0, this.value, digits, this.upperCase ? UPPER_DIGITS : LOWER_DIGITS);
+        return new String(chars);
+    }
+
+    /**
+     * Appends this number to the given StringBuilder as upper case hex with a fixed number of digits.
+     * Padding and truncation follow the same rules as {@link #toString(int)}.
+     *
+     * @param sb the StringBuilder to append to
+     * @param digits the number of digits to append
+     * @return the given StringBuilder
+     */
+    public StringBuilder appendTo(StringBuilder sb, int digits) {
+        return appendHex(sb, this.value, digits);
+    }
+
+    /**
+     * Writes this number into the given char array as upper case hex with a fixed number of digits.
+     *
+     * @param dest the array to write into
+     * @param offset the index of the first digit
+     * @param digits the number of digits to write
+     * @return the index after the last written digit
+     */
+    public int writeTo(char[] dest, int offset, int digits) {
+        return writeHex(dest, offset, this.value, digits);
+    }
+
+    /**
+     * Writes this number into the given byte array as upper case ASCII hex with a fixed number of digits.
+     *
+     * @param dest the array to write into
+     * @param offset the index of the first digit
+     * @param digits the number of digits to write
+     * @return the index after the last written digit
+     */
+    public int writeTo(byte[] dest, int offset, int digits) {
+        return writeHex(dest, offset, this.value, digits);
+    }
+
+    /**
+     * Appends the given value to a StringBuilder as upper case hex with a fixed number of digits.
+     * Values shorter than digits are padded with leading zeros, and longer values keep only their lowest digits.
+     *
+     * @param sb the StringBuilder to append to
+     * @param value the value to append
+     * @param digits the number of digits to append
+     * @return the given StringBuilder
+     */
+    public static StringBuilder appendHex(StringBuilder sb, int value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            sb.append(UPPER_DIGITS[nibble(value, i)]);
+        }
+        return sb;
+    }
+
+    /**
+     * Writes the given value into a char array as upper case hex with a fixed number of digits.
+     *
+     * @param dest the array to write into
+     * @param offset the index of the first digit
+     * @param value the value to write
+     * @param digits the number of digits to write
+     * @return the index after the last written digit
+     */
+    public static int writeHex(char[] dest, int offset, int value, int digits) {
+        return writeHex(dest, offset, value, digits, UPPER_DIGITS);
+    }
+
+    /**
+     * Writes the given value into a byte array as upper case ASCII hex with a fixed number of digits.
+     *
+     * @param dest the array to write into
+     * @param offset the index of the first digit
+     * @param value the value to write
+     * @param digits the number of digits to write
+     * @return the index after the last written digit
+     */
+    public static int writeHex(byte[] dest, int offset, int value, int digits) {
+        for (int i = digits - 1; i >= 0; i--) {
+            dest[offset++] = (byte) UPPER_DIGITS[nibble(value, i)];
         }
+        return offset;
     }
 
     /**
@@ -78,8 +221,7 @@ public class HexNum {
      * @return a new HexNum object representing the sum of the current value and the specified integer value.
      */
     public HexNum add(int value) {
-        int newVal = this.convertToDec(this.value, NumSystem.HEX) + value;
-        return new HexNum(newVal);
+        return new HexNum(this.value + value);
     }
 
     /**
@@ -89,9 +231,7 @@ public class HexNum {
      * @return a new HexNum representing the sum of this HexNum and the given value
      */
     public HexNum add(HexNum value) {
-        int newVal = this.convertToDec(value.toString(), NumSystem.HEX);
-        newVal += this.convertToDec(this.value, NumSystem.HEX);
-        return new HexNum(newVal);
+        return new HexNum(this.value + value.value);
     }
 
     /**
@@ -101,8 +241,7 @@ public class HexNum {
      * @return a new HexNum object representing the result of the subtraction.
      */
     public HexNum subtract(int value) {
-        int newVal = this.convertToDec(this.value, NumSystem.HEX) - value;
-        return new HexNum(newVal);
+        return new HexNum(this.value - value);
     }
 
     /**
@@ -112,38 +251,43 @@ public class HexNum {
      * @return a new HexNum representing the result of the subtraction
      */
     public HexNum subtract(HexNum value) {
-        int newVal = this.convertToDec(this.value, NumSystem.HEX);
-        newVal -= this.convertToDec(value.toString(), NumSystem.HEX);
-        return new HexNum(newVal);
+        return new HexNum(this.value - value.value);
     }
 
     /**
-     * Sets the value of this HexNum object by converting the given decimal integer
-     * to its hexadecimal representation.
+     * Sets the value of this HexNum object to the given decimal integer.
      *
-     * @param value the decimal integer to be converted and set as the value
+     * @param value the decimal integer to be set as the value
+     * @throws UnsupportedOperationException if this instance came from the shared cache
      */
     public void set(int value) {
-        this.value = this.convertToHex(Integer.toString(value), NumSystem.DEC);
+        checkNotShared();
+        this.value = value;
+        this.upperCase = false;
+        this.width = 0;
     }
 
     /**
-     * Sets the value of this HexNum object by converting the given value from the specified number system to hexadecimal.
+     * Sets the value of this HexNum object by converting the given value from the specified number system.
      *
      * @param value the value to be converted and set
      * @param numSystem the number system of the given value (e.g., binary, decimal)
+     * @throws UnsupportedOperationException if this instance came from the shared cache
      */
     public void set(String value, NumSystem numSystem) {
-        this.value = this.convertToHex(value, numSystem);
+        checkNotShared();
+        this.value = parse(value, numSystem);
+        this.upperCase = isUpperCase(value, numSystem);
+        this.width = numSystem == NumSystem.HEX ? Math.min(value.length(), 8) : 0;
     }
 
     /**
-     * Converts the hexadecimal value of this object to its decimal equivalent.
+     * Returns the decimal value of this number.
      *
      * @return the decimal equivalent of the hexadecimal value.
      */
     public int getDec() {
-        return this.convertToDec(this.value, NumSystem.HEX);
+        return this.value;
     }
 
     /**
@@ -152,7 +296,7 @@ public class HexNum {
      * @return A string representing the binary equivalent of the hexadecimal number.
      */
     public String getBin() {
-        return Integer.toBinaryString(this.getDec());
+        return Integer.toBinaryString(this.value);
     }
 
     /**
@@ -163,7 +307,7 @@ public class HexNum {
      * @return the binary representation of the hexadecimal number as a string
      */
     public String getBin(int digits) {
-        String binary = Integer.toBinaryString(this.getDec());
+        String binary = Integer.toBinaryString(this.value);
         if (binary.length() < digits) {
             StringBuilder sb = new StringBuilder();
             for (int i = 0; i < digits - binary.length(); i++) {
@@ -176,40 +320,102 @@ public class HexNum {
         }
     }
 
-    
     /**
-     * Converts a given string value from a specified numerical system to its hexadecimal representation.
+     * Converts a string representation of a number from a specified numeral system to its integer value.
+     * Hex values of 8 digits are read as 32 bit two's complement, so the output of {@link #toString()} can always
+     * be parsed back, and wider values are rejected. An empty hex value is treated as 0 since it renders as padded zeros.
      *
-     * @param value the string representation of the number to be converted
-     * @param numSystem the numerical system of the input value (HEX, DEC, or BIN)
-     * @return the hexadecimal representation of the input value
+     * @param value the string representation of the number to be converted.
+     * @param numSystem the numeral system of the input value. It can be HEX (hexadecimal), DEC (decimal), or BIN (binary).
+     * @return the integer value of the input.
+     * @throws NumberFormatException if the input value is not a valid number in the specified numeral system,
+     *         or a hex value does not fit in 32 bits.
      */
-    private String convertToHex(String value, NumSystem numSystem) {
-
-        String returnVal = "";
+    private static int parse(String value, NumSystem numSystem) {
+        int returnVal = 0;
         switch (numSystem) {
-            case HEX -> returnVal = value;
-            case DEC -> returnVal = Integer.toHexString(Integer.parseInt(value));
-            case BIN -> returnVal = Integer.toHexString(Integer.parseInt(value, 2));
+            case HEX -> returnVal = parseHex(value);
+            case DEC -> returnVal = Integer.parseInt(value);
+            case BIN -> returnVal = Integer.parseInt(value, 2);
         }
         return returnVal;
     }
 
     /**
-     * Converts a string representation of a number from a specified numeral system to its decimal (base 10) equivalent.
+     * Reads a hex value that fits in 32 bits, taking values from 80000000 to FFFFFFFF as negative.
      *
-     * @param value the string representation of the number to be converted.
-     * @param numSystem the numeral system of the input value. It can be HEX (hexadecimal), DEC (decimal), or BIN (binary).
-     * @return the decimal (base 10) equivalent of the input value.
-     * @throws NumberFormatException if the input value is not a valid number in the specified numeral system.
+     * @param value the hex digits, with an optional sign
+     * @return the integer value of the input
+     * @throws NumberFormatException if the value is not hex or does not fit in 32 bits
      */
-    private int convertToDec(String value, NumSystem numSystem) {
-        int returnVal = 0;
-        switch (numSystem) {
-            case HEX -> returnVal = Integer.parseInt(value, 16);
-            case DEC -> returnVal = Integer.parseInt(value);
-            case BIN -> returnVal = Integer.parseInt(value, 2);
+    private static int parseHex(String value) {
+        if (value.isEmpty()) {
+            return 0;
         }
-        return returnVal;
+        long parsed = Long.parseLong(value, 16);
+        if (parsed < Integer.MIN_VALUE || parsed > 0xFFFFFFFFL) {
+            throw new NumberFormatException("Hex value does not fit in 32 bits: \"" + value + "\"");
+        }
+        return (int) parsed;
+    }
+
+    /**
+     * Checks if the given hex string is written with upper case digits.
+     *
+     * @param value the string representation of the number
+     * @param numSystem the numeral system of the input value
+     * @return true if the value is hex and contains an upper case digit, false otherwise
+     */
+    private static boolean isUpperCase(String value, NumSystem numSystem) {
+        if (numSystem != NumSystem.HEX) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 'A' && c <= 'F') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ensures this instance is not one of the shared cached values before it is changed.
+     *
+     * @throws UnsupportedOperationException if this instance came from the shared cache
+     */
+    private void checkNotShared() {
+        if (this.shared) {
+            throw new UnsupportedOperationException("Shared HexNum values can not be changed");
+        }
+    }
+
+    /**
+     * Returns the hex digit at the given position of a value.
+     * Positions past the 8 digits of an int are always 0.
+     *
+     * @param value the value to read from
+     * @param position the position of the digit, 0 being the lowest
+     * @return the digit at the given position
+     */
+    private static int nibble(int value, int position) {
+        return position < 8 ? (value >>> (position * 4)) & 0xF : 0;
+    }
+
+    /**
+     * Writes the given value into a char array as hex using the given digits.
+     *
+     * @param dest the array to write into
+     * @param offset the index of the first digit
+     * @param value the value to write
+     * @param digits the number of digits to write
+     * @param table the digit characters to use
+     * @return the index after the last written digit
+     */
+    private static int writeHex(char[] dest, int offset, int value, int digits, char[] table) {
+        for (int i = digits - 1; i >= 0; i--) {
+            dest[offset++] = table[nibble(value, i)];
+        }
+        return offset;
     }
 }
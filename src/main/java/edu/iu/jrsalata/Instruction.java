@@ -0,0 +1,92 @@
+package edu.iu.jrsalata;
+
+/**
+ * The Instruction class describes a single mnemonic of the instruction set.
+ * It holds the opcode, format, and size of the mnemonic so that all of them
+ * can be found with a single lookup.
+ *
+ * Instructions are immutable and shared between every builder.
+ *
+ * @see InstructionSet
+ * @see Format
+ */
+public final class Instruction {
+
+    /**
+     * name of the mnemonic
+     */
+    private final String mnemonic;
+
+    /**
+     * operation code of the mnemonic
+     */
+    private final HexNum opcode;
+
+    /**
+     * format of the mnemonic
+     */
+    private final Format format;
+
+    /**
+     * number of bytes a statement of this mnemonic takes
+     * 0 for assembler directives since their size depends on their args
+     */
+    private final int size;
+
+    /**
+     * Constructs a new Instruction.
+     *
+     * @param mnemonic the name of the mnemonic
+     * @param opcode the operation code of the mnemonic
+     * @param format the format of the mnemonic
+     */
+    public Instruction(String mnemonic, HexNum opcode, Format format) {
+        this.mnemonic = mnemonic;
+        this.opcode = opcode;
+        this.format = format;
+        this.size = switch (format) {
+            case ONE -> 1;
+            case TWO -> 2;
+            case THREE, SIC -> 3;
+            case ASM -> 0;
+        };
+    }
+
+    /**
+     * Retrieves the name of the mnemonic.
+     *
+     * @return the mnemonic as a String
+     */
+    public String getMnemonic() {
+        return this.mnemonic;
+    }
+
+    /**
+     * Retrieves the operation code of the mnemonic.
+     * The returned HexNum is shared and must not be changed.
+     *
+     * @return the opcode as a HexNum
+     */
+    public HexNum getOpcode() {
+        return this.opcode;
+    }
+
+    /**
+     * Retrieves the format of the mnemonic.
+     *
+     * @return the Format of the mnemonic
+     */
+    public Format getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Retrieves the number of bytes a statement of this mnemonic takes.
+     * Format 3 instructions take one more byte when they are extended to format 4.
+     *
+     * @return the size in bytes, or 0 for assembler directives
+     */
+    public int getSize() {
+        return this.size;
+    }
+}
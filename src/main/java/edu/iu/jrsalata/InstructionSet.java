@@ -0,0 +1,210 @@
+package edu.iu.jrsalata;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The InstructionSet class holds every mnemonic and register of the SIC/XE machine.
+ *
+ * The tables are loaded from instructions.txt and registers.txt the first time
+ * {@link #getInstance()} is called and are never changed afterwards, so a single
+ * instance is shared by every builder and thread in the JVM.
+ *
+ * Since every mnemonic fits in SymTable.MAX_LEN characters, mnemonics are looked up by
+ * their packed {@link SymbolKey} in a {@link SymbolMap}, which returns the full
+ * {@link Instruction} with one probe and without creating any strings.
+ */
+public final class InstructionSet {
+
+    /**
+     * Standard logger for info and error messages
+     */
+    static final Logger logger = Logger.getLogger(InstructionSet.class.getName());
+
+    /**
+     * Every instruction, in the order they were loaded
+     */
+    private final Instruction[] instructions;
+
+    /**
+     * Maps the packed key of each mnemonic to its index in instructions
+     */
+    private final SymbolMap instructionIndex;
+
+    /**
+     * registerTable holds each valid register by name
+     */
+    private final Map<String, HexNum> registerTable;
+
+    /**
+     * Holds the shared instance so that it is only loaded when it is first used
+     */
+    private static final class Holder {
+        private static final InstructionSet INSTANCE = new InstructionSet("/instructions.txt", "/registers.txt");
+    }
+
+    /**
+     * Loads the instruction set from the given resources.
+     *
+     * @param instructionFile the resource containing the instruction set
+     * @param registerFile the resource containing the registers
+     */
+    private InstructionSet(String instructionFile, String registerFile) {
+        List<Instruction> loaded = loadInstructions(instructionFile);
+        this.instructions = loaded.toArray(new Instruction[0]);
+        this.instructionIndex = new SymbolMap(this.instructions.length);
+        for (int i = 0; i < this.instructions.length; i++) {
+            this.instructionIndex.put(SymbolKey.pack(this.instructions[i].getMnemonic()), i);
+        }
+
+        this.registerTable = Collections.unmodifiableMap(loadRegisters(registerFile));
+    }
+
+    /**
+     * Retrieves the shared instruction set, loading it the first time it is used.
+     *
+     * @return the shared InstructionSet
+     */
+    public static InstructionSet getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Finds the instruction for the given mnemonic.
+     *
+     * @param mnemonic the mnemonic to look up, without a leading '+'
+     * @return the Instruction of the mnemonic, or null if it is not part of the instruction set
+     */
+    public Instruction getInstruction(String mnemonic) {
+        return getInstruction(mnemonic, 0, mnemonic.length());
+    }
+
+    /**
+     * Finds the instruction for the mnemonic held in part of the given characters.
+     *
+     * @param mnemonic the characters holding the mnemonic
+     * @param start the index of the first character of the mnemonic
+     * @param end the index after the last character of the mnemonic
+     * @return the Instruction of the mnemonic, or null if it is not part of the instruction set
+     */
+    public Instruction getInstruction(CharSequence mnemonic, int start, int end) {
+        int index = this.instructionIndex.get(SymbolKey.pack(mnemonic, start, end), -1);
+        if (index < 0) {
+            return null;
+        }
+
+        // the key ignores case and anything past MAX_LEN, so make sure it is an exact match
+        Instruction instruction = this.instructions[index];
+        String name = instruction.getMnemonic();
+        if (name.length() != end - start) {
+            return null;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != mnemonic.charAt(start + i)) {
+                return null;
+            }
+        }
+        return instruction;
+    }
+
+    /**
+     * Finds the number of the given register.
+     *
+     * @param register the name of the register
+     * @return the register number as a HexNum, or null if it is not a valid register
+     */
+    public HexNum getRegister(String register) {
+        return this.registerTable.get(register);
+    }
+
+    /**
+     * Retrieves every register by name.
+     *
+     * @return an unmodifiable map of register names to their numbers
+     */
+    public Map<String, HexNum> getRegisters() {
+        return this.registerTable;
+    }
+
+    /**
+     * Loads the instruction set from the specified resource.
+     * <p>
+     * The file should contain lines in the format: Mnemonic, Format, Opcode.
+     * Each line is split into parts where the first part is the mnemonic, the second
+     * part is the format, and the third part is the opcode.
+     * <p>
+     * If an unexpected format is encountered, it defaults to {@link Format#ASM} and logs a warning.
+     * If the file cannot be found or read, it logs a warning with the filename.
+     *
+     * @param filename the name of the resource containing the instruction set
+     * @return each loaded instruction
+     */
+    private static List<Instruction> loadInstructions(String filename) {
+        List<Instruction> loaded = new ArrayList<>();
+        try {
+
+            // Credit to https://github.com/cppcoders/SIC-XE-Assembler for the convenient
+            // txt file
+            // Format is: Mnemonic, Format, Opcode
+            // Credit to
+            // https://stackoverflow.com/questions/20389255/reading-a-resource-file-from-within-jar
+            // for reading files within a jar
+            InputStream file = InstructionSet.class.getResourceAsStream(filename);
+
+            try (Scanner sc = new Scanner(file)) {
+                while (sc.hasNextLine()) {
+                    String[] parts = sc.nextLine().split("\\s+");
+
+                    Format newFormat;
+                    switch (parts[1]) {
+                        case "1" -> newFormat = Format.ONE;
+                        case "2" -> newFormat = Format.TWO;
+                        case "3" -> newFormat = Format.THREE;
+                        case "SIC" -> newFormat = Format.SIC;
+                        case "ASM" -> newFormat = Format.ASM;
+                        default -> {
+                            newFormat = Format.ASM;
+                            logger.log(Level.WARNING, "Error: Unexpected format ''{0}'' in instructions.txt", parts[1]);
+                        }
+                    }
+
+                    loaded.add(new Instruction(parts[0], new HexNum(parts[2], NumSystem.HEX), newFormat));
+                }
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Error: Could not find {0}", filename);
+            logger.warning(e.getMessage());
+        }
+        return loaded;
+    }
+
+    /**
+     * Loads the registers from the specified resource.
+     * The file is expected to be in the format: Register letter, Hex Value
+     *
+     * @param filename the name of the resource containing the register data
+     * @return each register mapped to its number
+     */
+    private static Map<String, HexNum> loadRegisters(String filename) {
+        Map<String, HexNum> registers = new HashMap<>();
+        InputStream file = InstructionSet.class.getResourceAsStream(filename);
+
+        try (Scanner sc = new Scanner(file)) {
+            while (sc.hasNextLine()) {
+                String[] parts = sc.nextLine().split("\\s+");
+                registers.put(parts[0], new HexNum(parts[1], NumSystem.HEX));
+            }
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Error: Could not find {0}", filename);
+            logger.warning(e.getMessage());
+        }
+        return registers;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.iu.jrsalata;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The MacroEvent class is the JDK Flight Recorder event for expanding one macro invocation,
+ * from replacing its parameters to processing every line of the expansion, so a recording
+ * shows which macros are expensive.
+ *
+ * Only expansions that take longer than the threshold are recorded by default.
+ */
+@Name("edu.iu.jrsalata.MacroExpansion")
+@Label("Macro Expansion")
+@Category({ "SIC/XE Assembler" })
+@Description("Expansion of one macro invocation and processing of its lines")
+@StackTrace(false)
+@Threshold("100 us")
+class MacroEvent extends Event {
+
+    /**
+     * The name of the control section
+     */
+    @Label("Control Section")
+    String section;
+
+    /**
+     * The line number of the invocation in its section
+     */
+    @Label("Line Number")
+    int line;
+
+    /**
+     * The name of the macro
+     */
+    @Label("Macro")
+    String macro;
+
+    /**
+     * The number of arguments given to the macro
+     */
+    @Label("Arguments")
+    int arguments;
+
+    /**
+     * The number of lines the macro expanded into
+     */
+    @Label("Lines")
+    int lines;
+}
@@ -0,0 +1,135 @@
+package edu.iu.jrsalata;
+
+/**
+ * The MacroLine class holds a line of an expanded macro together with its fields and instruction,
+ * which were found when the macro was defined, so the line is neither lexed nor looked up again.
+ *
+ * A line whose fields could not be bound only holds its text, and has to be processed like a line
+ * of the source file.
+ *
+ * @see MacroProcessorInterface#getStatements(String[])
+ */
+public class MacroLine {
+
+    /**
+     * The expanded line of assembly
+     */
+    private final String line;
+
+    /**
+     * The label of the line, or an empty string if it has none
+     */
+    private final String label;
+
+    /**
+     * The mnemonic of the line without a leading '+', or null if the line has to be lexed
+     */
+    private final String mnemonic;
+
+    /**
+     * true if the mnemonic was written with a leading '+'
+     */
+    private final boolean extended;
+
+    /**
+     * The operand of the line, or an empty string if it has none
+     */
+    private final String args;
+
+    /**
+     * The instruction of the mnemonic, or null if it was not found when the macro was defined
+     */
+    private final Instruction instruction;
+
+    /**
+     * Constructs a new MacroLine that has to be lexed.
+     *
+     * @param line the expanded line of assembly
+     */
+    public MacroLine(String line) {
+        this(line, "", null, false, "", null);
+    }
+
+    /**
+     * Constructs a new MacroLine with its fields.
+     *
+     * @param line the expanded line of assembly
+     * @param label the label of the line, or an empty string if it has none
+     * @param mnemonic the mnemonic of the line without a leading '+'
+     * @param extended true if the mnemonic was written with a leading '+'
+     * @param args the operand of the line, or an empty string if it has none
+     * @param instruction the instruction of the mnemonic, or null if it has to be looked up
+     */
+    public MacroLine(String line, String label, String mnemonic, boolean extended, String args,
+            Instruction instruction) {
+        this.line = line;
+        this.label = label;
+        this.mnemonic = mnemonic;
+        this.extended = extended;
+        this.args = args;
+        this.instruction = instruction;
+    }
+
+    /**
+     * Retrieves the expanded line of assembly.
+     *
+     * @return the line
+     */
+    public String getLine() {
+        return this.line;
+    }
+
+    /**
+     * Checks if the fields of the line are known.
+     *
+     * @return true if the fields are known, false if the line has to be lexed
+     */
+    public boolean isBound() {
+        return this.mnemonic != null;
+    }
+
+    /**
+     * Retrieves the label of the line.
+     *
+     * @return the label, or an empty string if it has none
+     */
+    public String getLabel() {
+        return this.label;
+    }
+
+    /**
+     * Retrieves the mnemonic of the line.
+     *
+     * @return the mnemonic without a leading '+', or null if the line has to be lexed
+     */
+    public String getMnemonic() {
+        return this.mnemonic;
+    }
+
+    /**
+     * Checks if the mnemonic was written with a leading '+', meaning the statement is format 4.
+     *
+     * @return true if the mnemonic had a leading '+'
+     */
+    public boolean isExtended() {
+        return this.extended;
+    }
+
+    /**
+     * Retrieves the operand of the line.
+     *
+     * @return the operand, or an empty string if it has none
+     */
+    public String getArgs() {
+        return this.args;
+    }
+
+    /**
+     * Retrieves the instruction of the mnemonic.
+     *
+     * @return the instruction, or null if it was not found when the macro was defined
+     */
+    public Instruction getInstruction() {
+        return this.instruction;
+    }
+}
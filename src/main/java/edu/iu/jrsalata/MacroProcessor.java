@@ -1,13 +1,22 @@
 package edu.iu.jrsalata;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Queue;
 
 /**
  * The MacroProcessor class is responsible for processing macros in assembly language.
  * It implements the MacroProcessorInterface and provides methods to add lines to a macro,
  * set a label for a macro, and retrieve the processed lines with arguments.
+ *
+ * Each line of the definition is compiled once, when it is added, into the literal text between
+ * its parameters and the index of each parameter, so expanding the macro builds every line in
+ * a single pass instead of searching it for every parameter. The line is also lexed once into
+ * its label, mnemonic, and operand, each compiled the same way, and its instruction is looked up
+ * unless the mnemonic is a parameter. An invocation only puts its arguments into those fields,
+ * so the builder neither lexes the expanded lines nor looks their mnemonics up again.
  */
 public class MacroProcessor implements MacroProcessorInterface {
 
@@ -17,9 +26,21 @@ public class MacroProcessor implements MacroProcessorInterface {
     private final String[] parameters;
 
     /**
-     * Holds each line of assembly in an ArrayList for flexibility
+     * Holds each compiled line of assembly in an ArrayList for flexibility,
+     * and in an unmodifiable List once the definition is finished
      */
-    private final ArrayList<String> definition;
+    private List<Template> definition;
+
+    /**
+     * Holds the compiled fields of each line of the definition, in the same order,
+     * or null for a line that has to be lexed when it is expanded
+     */
+    private List<Fields> fields;
+
+    /**
+     * Lexes each line of the definition into its fields, or null once the definition is finished
+     */
+    private SourceLine source;
 
     /**
      * Holds the name of the given macro
@@ -35,6 +56,8 @@ public class MacroProcessor implements MacroProcessorInterface {
         this.label = "";
         this.parameters = new String[0];
         this.definition = new ArrayList<>();
+        this.fields = new ArrayList<>();
+        this.source = new SourceLine();
     }
 
     /**
@@ -46,38 +69,125 @@ public class MacroProcessor implements MacroProcessorInterface {
         this.label = "";
         this.parameters = parameters;
         this.definition = new ArrayList<>();
+        this.fields = new ArrayList<>();
+        this.source = new SourceLine();
     }
 
     /**
      * Adds a line to the macro's definition after preprocessing it.
      * 
      * The preprocessing involves:
-     * 1. Replacing each parameter in the line with its respective position placeholder.
-     *    The placeholders are in the format of {i}, where i is the index of the parameter.
+     * 1. Splitting the line at each occurrence of each parameter, in the order the parameters
+     *    were defined, leaving the literal text around them and a slot holding the index of the parameter.
      * 2. If a label is available, it is prepended to the line followed by three spaces.
      *    The label is then reset to an empty string to ensure it is only used once.
+     * 3. Lexing the line into its fields, with the label as the first field if there is one,
+     *    and splitting each field at its parameters the same way.
      * 
      * @param line The line to be added to the macro's definition.
+     * @throws IllegalStateException if the definition is finished
      */
     @Override
     public void addLine(String line) {
-
-        for (int i = 0; i < this.parameters.length; i++) {
-            line = line.replace(this.parameters[i], "{" + Integer.toString(i) + "}");
-        }
+        checkDefining();
 
         // if there is an available label, add it here
+        String prefix = "";
         if (!this.label.isEmpty()) {
-            StringBuilder builder = new StringBuilder();
-            builder.append(this.label);
-            builder.append("   ");
-            builder.append(line);
-            line = builder.toString();
+            prefix = this.label + "   ";
             this.label = "";
         }
 
         // once preprocessing is done, add it to this macro's definition
-        this.definition.add(line);
+        this.definition.add(compile(prefix, line));
+
+        // then classify it by its fields, so it is not lexed when it is expanded
+        this.fields.add(classify(prefix.strip(), line));
+    }
+
+    /**
+     * Lexes a line of the definition into its label, mnemonic, and operand, and compiles each of them.
+     * The fields are read the way the builder reads a line, so a line with more than 3 fields is left
+     * to the builder, which reports it when the macro is expanded.
+     *
+     * @param label the label given to the line, or an empty string if there is none
+     * @param line the line to classify
+     * @return the fields of the line, or null if the line has to be lexed when it is expanded
+     */
+    private Fields classify(String label, String line) {
+        this.source.lex(line);
+        int count = this.source.getFieldCount() + (label.isEmpty() ? 0 : 1);
+        if (count > 3) {
+            return null;
+        }
+
+        // the fields are read like splitStatement reads them, with the given label as the first field
+        String[] lineFields = new String[count];
+        int offset = 0;
+        if (!label.isEmpty()) {
+            lineFields[offset++] = label;
+        }
+        for (int i = 0; i < this.source.getFieldCount(); i++) {
+            lineFields[offset + i] = this.source.getField(i);
+        }
+        String[] parts = switch (count) {
+            case 0 -> new String[] { "", "", "" };
+            case 1 -> new String[] { "", lineFields[0], "" };
+            case 2 -> new String[] { "", lineFields[0], lineFields[1] };
+            default -> lineFields;
+        };
+
+        // the '+' of format 4 is taken off once, and the instruction is found unless it is a parameter
+        String mnemonic = parts[1];
+        boolean extended = !mnemonic.isEmpty() && mnemonic.charAt(0) == '+';
+        if (extended) {
+            mnemonic = mnemonic.substring(1);
+        }
+        Template compiledMnemonic = compile("", mnemonic);
+        Instruction instruction = null;
+        if (compiledMnemonic.slots.length == 0 && !mnemonic.isEmpty()) {
+            instruction = InstructionSet.getInstance().getInstruction(mnemonic);
+        }
+        return new Fields(compile("", parts[0]), compiledMnemonic, extended, compile("", parts[2]), instruction);
+    }
+
+    /**
+     * Compiles a line into its literal text and parameter slots.
+     *
+     * @param prefix the text to put before the line, which is never searched for parameters
+     * @param line the line to compile
+     * @return the compiled line
+     */
+    private Template compile(String prefix, String line) {
+        List<String> texts = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        texts.add(line);
+
+        // split every piece of literal text at each parameter in turn, so an earlier
+        // parameter is found first, just like replacing the parameters one after another
+        for (int i = 0; i < this.parameters.length; i++) {
+            String parameter = this.parameters[i];
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            for (int j = 0; j < texts.size(); j++) {
+                String text = texts.get(j);
+                int found = text.indexOf(parameter);
+                if (found < 0) {
+                    continue;
+                }
+                texts.set(j, text.substring(0, found));
+                texts.add(j + 1, text.substring(found + parameter.length()));
+                slots.add(j, i);
+            }
+        }
+
+        texts.set(0, prefix + texts.get(0));
+        int[] slotArray = new int[slots.size()];
+        for (int i = 0; i < slotArray.length; i++) {
+            slotArray[i] = slots.get(i);
+        }
+        return new Template(texts.toArray(new String[0]), slotArray);
     }
 
     /**
@@ -85,12 +195,39 @@ public class MacroProcessor implements MacroProcessorInterface {
      * Note: This method must be called before adding any lines using addLine(String line).
      * 
      * @param label the label to set
+     * @throws IllegalStateException if the definition is finished
      */
     @Override
     public void setLabel(String label) {
+        checkDefining();
         this.label = label;
     }
 
+    /**
+     * Finishes the definition. The compiled lines are made unmodifiable, so the macro
+     * can then be expanded by several threads at once.
+     */
+    @Override
+    public void finish() {
+        if (this.source == null) {
+            return;
+        }
+        this.definition = List.copyOf(this.definition);
+        this.fields = Collections.unmodifiableList(new ArrayList<>(this.fields));
+        this.source = null;
+    }
+
+    /**
+     * Checks that the definition is not finished.
+     *
+     * @throws IllegalStateException if the definition is finished
+     */
+    private void checkDefining() {
+        if (this.source == null) {
+            throw new IllegalStateException("MACRO ERROR: The definition is already finished");
+        }
+    }
+
     /**
      * Processes the macro definition by replacing placeholders with the provided arguments.
      * 
@@ -100,8 +237,59 @@ public class MacroProcessor implements MacroProcessorInterface {
      */
     @Override
     public Queue<String> getLines(String[] args) throws InvalidAssemblyFileException {
-        Queue<String> returnQueue = new LinkedList<>();
+        checkArguments(args);
+        Queue<String> returnQueue = new ArrayDeque<>(this.definition.size());
 
+        StringBuilder builder = new StringBuilder();
+        for (Template line : this.definition) {
+            returnQueue.add(line.expand(args, builder));
+        }
+
+        return returnQueue;
+    }
+
+    /**
+     * Processes the macro definition like getLines, and also gives the fields and instruction of each line.
+     * 
+     * The fields are found when the line is defined, and only the arguments are put into them.
+     * If an argument would be lexed differently as part of the line, which happens when it is empty
+     * or holds whitespace, a quote, or a '.', the lines only hold their text and have to be lexed.
+     * 
+     * @param args An array of strings representing the arguments to replace the placeholders in the macro definition.
+     * @return A Queue of MacroLines holding each line from the macro definition and its fields, with placeholders replaced by the corresponding arguments.
+     * @throws InvalidAssemblyFileException If the number of provided arguments does not match the number of parameters in the macro definition.
+     */
+    @Override
+    public Queue<MacroLine> getStatements(String[] args) throws InvalidAssemblyFileException {
+        checkArguments(args);
+        Queue<MacroLine> returnQueue = new ArrayDeque<>(this.definition.size());
+
+        boolean bound = true;
+        for (String arg : args) {
+            bound &= isField(arg);
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < this.definition.size(); i++) {
+            String line = this.definition.get(i).expand(args, builder);
+            Fields lineFields = this.fields.get(i);
+            if (bound && lineFields != null) {
+                returnQueue.add(lineFields.bind(line, args, builder));
+            } else {
+                returnQueue.add(new MacroLine(line));
+            }
+        }
+
+        return returnQueue;
+    }
+
+    /**
+     * Checks that an invocation gives an argument for every parameter.
+     * 
+     * @param args the arguments of the invocation
+     * @throws InvalidAssemblyFileException If the number of provided arguments does not match the number of parameters in the macro definition.
+     */
+    private void checkArguments(String[] args) throws InvalidAssemblyFileException {
         if (this.parameters.length != args.length) {
             StringBuilder message = new StringBuilder();
             message.append("MACRO ERROR: Expected ");
@@ -110,14 +298,145 @@ public class MacroProcessor implements MacroProcessorInterface {
             message.append(args.length);
             throw new InvalidAssemblyFileException(-1, message.toString());
         }
+    }
 
-        for (String line : this.definition) {
-            for (int i = 0; i < this.parameters.length; i++) {
-                line = line.replace("{" + Integer.toString(i) + "}", args[i]);
+    /**
+     * Checks if an argument stays part of the field it is put in when the line is lexed.
+     * 
+     * @param arg the argument to check
+     * @return true if the argument is not empty and has no whitespace, quote, or '.'
+     */
+    private static boolean isField(String arg) {
+        if (arg.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < arg.length(); i++) {
+            char c = arg.charAt(i);
+            if (SourceLine.isWhitespace(c) || c == '\'' || c == '.') {
+                return false;
             }
-            returnQueue.add(line);
         }
+        return true;
+    }
 
-        return returnQueue;
+    /**
+     * The Fields class holds the label, mnemonic, and operand of a line of a macro definition,
+     * each compiled into its text and parameter slots, and the instruction of the mnemonic
+     * when it is not a parameter.
+     */
+    private static final class Fields {
+
+        /**
+         * The label of the line, which is empty if it has none
+         */
+        private final Template label;
+
+        /**
+         * The mnemonic of the line without a leading '+'
+         */
+        private final Template mnemonic;
+
+        /**
+         * true if the mnemonic is written with a leading '+'
+         */
+        private final boolean extended;
+
+        /**
+         * The operand of the line, which is empty if it has none
+         */
+        private final Template args;
+
+        /**
+         * The instruction of the mnemonic, or null if it is a parameter or not an instruction
+         */
+        private final Instruction instruction;
+
+        /**
+         * Constructs a new Fields.
+         *
+         * @param label the label of the line
+         * @param mnemonic the mnemonic of the line without a leading '+'
+         * @param extended true if the mnemonic is written with a leading '+'
+         * @param args the operand of the line
+         * @param instruction the instruction of the mnemonic, or null if it has to be looked up
+         */
+        private Fields(Template label, Template mnemonic, boolean extended, Template args, Instruction instruction) {
+            this.label = label;
+            this.mnemonic = mnemonic;
+            this.extended = extended;
+            this.args = args;
+            this.instruction = instruction;
+        }
+
+        /**
+         * Puts the arguments of an invocation into the fields.
+         *
+         * @param line the expanded line
+         * @param args the arguments of the macro invocation
+         * @param builder a StringBuilder to build each field in
+         * @return the expanded line with its fields
+         */
+        private MacroLine bind(String line, String[] args, StringBuilder builder) {
+            String boundMnemonic = this.mnemonic.expand(args, builder);
+            boolean boundExtended = this.extended;
+
+            // an argument used as the mnemonic can hold the '+' itself
+            if (!boundExtended && !boundMnemonic.isEmpty() && boundMnemonic.charAt(0) == '+') {
+                boundExtended = true;
+                boundMnemonic = boundMnemonic.substring(1);
+            }
+            return new MacroLine(line, this.label.expand(args, builder), boundMnemonic, boundExtended,
+                    this.args.expand(args, builder), this.instruction);
+        }
+    }
+
+    /**
+     * The Template class holds a compiled line of a macro definition:
+     * the literal text of the line with a slot for each parameter between the pieces of text.
+     */
+    private static final class Template {
+
+        /**
+         * Literal text of the line, with one more piece than there are slots
+         */
+        private final String[] texts;
+
+        /**
+         * Index of the parameter that goes after each piece of text
+         */
+        private final int[] slots;
+
+        /**
+         * Constructs a new Template.
+         *
+         * @param texts the literal text of the line, with one more piece than there are slots
+         * @param slots the index of the parameter that goes after each piece of text
+         */
+        private Template(String[] texts, int[] slots) {
+            this.texts = texts;
+            this.slots = slots;
+        }
+
+        /**
+         * Builds the line with each slot replaced by its argument.
+         *
+         * @param args the arguments of the macro invocation
+         * @param builder a StringBuilder to build the line in
+         * @return the expanded line
+         */
+        private String expand(String[] args, StringBuilder builder) {
+
+            // a line without parameters is the same for every invocation
+            if (this.slots.length == 0) {
+                return this.texts[0];
+            }
+
+            builder.setLength(0);
+            for (int i = 0; i < this.slots.length; i++) {
+                builder.append(this.texts[i]).append(args[this.slots[i]]);
+            }
+            builder.append(this.texts[this.slots.length]);
+            return builder.toString();
+        }
     }
 }
@@ -21,6 +21,12 @@ public interface MacroProcessorInterface {
      */
     public void setLabel(String label);
 
+    /**
+     * Finishes the definition, after which no lines or labels can be added
+     * and the macro can be expanded by several threads at once.
+     */
+    public void finish();
+
     /**
      * Retrieves the processed lines of macro assembly code, substituting any macro arguments.
      *
@@ -29,4 +35,14 @@ public interface MacroProcessorInterface {
      * @throws InvalidAssemblyFileException if the assembly file is invalid
      */
     public Queue<String> getLines(String[] args) throws InvalidAssemblyFileException;
+
+    /**
+     * Retrieves the processed lines of macro assembly code with the fields of each line,
+     * substituting any macro arguments.
+     *
+     * @param args the arguments to be substituted in the macro
+     * @return a queue of processed lines of code and their fields
+     * @throws InvalidAssemblyFileException if the assembly file is invalid
+     */
+    public Queue<MacroLine> getStatements(String[] args) throws InvalidAssemblyFileException;
 }
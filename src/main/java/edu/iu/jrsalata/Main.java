@@ -1,7 +1,9 @@
 package edu.iu.jrsalata;
 
 import java.io.IOException;
-import java.util.Queue;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Logger;
 
 import javax.script.ScriptException;
@@ -12,35 +14,39 @@ class Main {
     
     public static void main(String[] args) {
 
+        // a daemon assembles the requests of other processes until it is stopped
+        int daemon = Arrays.asList(args).indexOf("--daemon");
+        if (daemon >= 0) {
+            boolean hasAddress = daemon + 1 < args.length && !args[daemon + 1].startsWith("--");
+            runDaemon(hasAddress ? args[daemon + 1] : AssemblerDaemon.DEFAULT_ADDRESS);
+            return;
+        }
+
+        // control sections are assembled and written on their own threads
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
         try {
-            // Create an instance of the AbstractStatementBuilder
-            String inputFile = "input.asm";
-            String outputFile = "output.obj";
-            // create a new builderBuilder to handle all file IO and building
-            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder();
-            builderBuilder.setInputFile(inputFile);
-
-            // execute the builderBuilder
-            builderBuilder.execute();
-
-            // grab each of the builder queues
-            Queue<AbstractStatementBuilder> queue = builderBuilder.getBuilders();
-
-            // handle the writer here
-            ObjectWriterInterface writer = new ObjectWriter();
-            writer.setFileName(outputFile);
-
-            // go through the queue of builders and write the object files
-            AbstractStatementBuilder builder;
-            while (!queue.isEmpty()) {
-                builder = queue.poll();
-                writer.setBuilder(builder);
-                writer.setQueue(builder.getStatements());
-                // write the object file
-                writer.execute();
-                logger.info("Object file successfully created");
+            // input.asm is assembled into output.obj
+            Assembly assembly = new Assembly();
+
+            // the listing is only written when asked for
+            assembly.setListing(Arrays.asList(args).contains("--listing"));
+
+            // the binary object format is written to its own file
+            if (Arrays.asList(args).contains("--binary")) {
+                assembly.setFormat(ObjectFormat.BINARY);
+                assembly.setOutputFile("output.sobj");
             }
 
+            // text records can be written while each section is read, holding only forward references
+            assembly.setStreaming(Arrays.asList(args).contains("--stream"));
+
+            // the time and allocation of each phase of each section are measured when asked for
+            assembly.setMetrics(Arrays.asList(args).contains("--metrics"));
+
+            assembly.execute(executor);
+            logger.info("Object file successfully created");
+
         } catch (InvalidAssemblyFileException e) {
             // informative error message from our StatementFactory
             logger.severe("===========");
@@ -59,7 +65,34 @@ class Main {
             logger.severe("Something went wrong...");
             logger.severe(e.getMessage());
         } finally {
+            executor.shutdownNow();
             logger.info("Shutting down...");
         }
     }
+
+    /**
+     * Runs an assembler daemon until the JVM is stopped.
+     *
+     * @param address the TCP port on the loopback address or the path of a Unix domain socket
+     */
+    private static void runDaemon(String address) {
+        AssemblerDaemon daemon = new AssemblerDaemon(AssemblerDaemon.parseAddress(address));
+
+        // the socket file is removed when the daemon is stopped
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                daemon.close();
+            } catch (IOException e) {
+                logger.warning(e.getMessage());
+            }
+        }));
+
+        try {
+            logger.info("Listening on " + daemon.bind());
+            daemon.serve();
+        } catch (IOException e) {
+            logger.severe("Could not listen on " + address);
+            logger.severe(e.toString());
+        }
+    }
 }
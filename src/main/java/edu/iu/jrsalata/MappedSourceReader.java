@@ -0,0 +1,341 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * The MappedSourceReader class reads an assembly source file by mapping it into memory.
+ *
+ * Lines are found by scanning the mapped bytes for line breaks, and each line is decoded
+ * straight into a reusable char array that is lexed by a {@link SourceLine}, so reading a
+ * line does not create a String. Plain ASCII lines are decoded without the charset; lines with
+ * other bytes are decoded with it, replacing anything that is not valid.
+ *
+ * Large files are mapped one window at a time, so files larger than 2GB can be read.
+ * Only charsets that encode line breaks as single ASCII bytes can be scanned this way;
+ * {@link #open(Path, Charset)} falls back to a {@link BufferedSourceReader} for anything else.
+ *
+ * @see SourceReader
+ */
+public class MappedSourceReader implements SourceReader {
+
+    /**
+     * The number of bytes mapped at a time
+     */
+    static final int WINDOW_SIZE = 64 << 20;
+
+    /**
+     * The channel of the mapped file
+     */
+    private final FileChannel channel;
+
+    /**
+     * Size of the file in bytes
+     */
+    private final long size;
+
+    /**
+     * Charset the file is decoded with
+     */
+    private final Charset charset;
+
+    /**
+     * true if bytes above 127 are decoded as the char with the same value
+     */
+    private final boolean latin1;
+
+    /**
+     * Currently mapped part of the file, null before the first window is mapped
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * Offset in the file of the first byte of the window
+     */
+    private long windowStart;
+
+    /**
+     * Position of the next line in the window
+     */
+    private int position;
+
+    /**
+     * Number of bytes mapped in the next window, which grows if a line does not fit
+     */
+    private int windowSize;
+
+    /**
+     * Holds the characters of the current line
+     */
+    private char[] chars;
+
+    /**
+     * Number of lines read so far
+     */
+    private int lineNumber;
+
+    /**
+     * Constructs a new MappedSourceReader that reads the given file with the default charset.
+     *
+     * @param file the path of the source file
+     * @throws IOException if the file cannot be opened
+     */
+    public MappedSourceReader(Path file) throws IOException {
+        this(file, Charset.defaultCharset());
+    }
+
+    /**
+     * Constructs a new MappedSourceReader that reads the given file with the given charset.
+     *
+     * @param file the path of the source file
+     * @param charset the charset of the file, which must encode line breaks as single ASCII bytes
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the charset cannot be scanned for line breaks
+     */
+    public MappedSourceReader(Path file, Charset charset) throws IOException {
+        this(file, charset, WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a new MappedSourceReader that maps the given number of bytes at a time.
+     *
+     * @param file the path of the source file
+     * @param charset the charset of the file, which must encode line breaks as single ASCII bytes
+     * @param windowSize the number of bytes to map at a time
+     * @throws IOException if the file cannot be opened
+     */
+    MappedSourceReader(Path file, Charset charset, int windowSize) throws IOException {
+        if (!isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("Cannot map a source encoded in " + charset.name());
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.charset = charset;
+        this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        this.windowSize = windowSize;
+        this.chars = new char[256];
+    }
+
+    /**
+     * Opens a reader for the given file, mapping it into memory if the charset allows it
+     * and streaming it through a BufferedSourceReader otherwise.
+     *
+     * @param file the path of the source file
+     * @param charset the charset of the file
+     * @return a SourceReader for the file
+     * @throws IOException if the file cannot be opened
+     */
+    public static SourceReader open(Path file, Charset charset) throws IOException {
+        if (isAsciiCompatible(charset)) {
+            return new MappedSourceReader(file, charset);
+        }
+        return new BufferedSourceReader(Files.newBufferedReader(file, charset));
+    }
+
+    /**
+     * Reads the next line of the source.
+     *
+     * @return the next line, or null if the end of the source has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public String readLine() throws IOException {
+        int length = nextLine();
+        return length < 0 ? null : new String(this.chars, 0, length);
+    }
+
+    /**
+     * Reads the next line of the source and lexes it into the given SourceLine
+     * without creating a String.
+     *
+     * @param line the SourceLine to lex the next line into
+     * @return true if a line was read, false if the end of the source has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public boolean readLine(SourceLine line) throws IOException {
+        int length = nextLine();
+        if (length < 0) {
+            return false;
+        }
+        line.lex(this.chars, 0, length);
+        return true;
+    }
+
+    /**
+     * Retrieves the number of lines that have been read so far.
+     *
+     * @return the number of lines read
+     */
+    @Override
+    public int getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+     * Closes the channel of the file.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        this.window = null;
+        this.channel.close();
+    }
+
+    /**
+     * Finds the next line in the mapped file and decodes it into chars.
+     * Lines end with \n, \r, or \r\n, like BufferedReader.
+     *
+     * @return the number of characters in the line, or -1 at the end of the file
+     * @throws IOException if the file cannot be mapped
+     */
+    private int nextLine() throws IOException {
+        if (this.window == null) {
+            if (this.size == 0) {
+                return -1;
+            }
+            map(0);
+        }
+
+        // find the end of the line, mapping the next window if it runs past this one
+        int end = findLineEnd();
+        while (end < 0) {
+            if (this.windowStart + this.window.limit() >= this.size) {
+                end = this.window.limit();
+            } else if (this.position == 0) {
+                // the line is longer than a whole window
+                this.windowSize = (int) Math.min(Integer.MAX_VALUE, this.windowSize * 2L);
+                map(this.windowStart);
+                end = findLineEnd();
+            } else {
+                map(this.windowStart + this.position);
+                end = findLineEnd();
+            }
+        }
+
+        // at the end of the file there are no more lines
+        if (end == this.position && end == this.window.limit()
+                && this.windowStart + end >= this.size) {
+            return -1;
+        }
+
+        int length = decode(this.position, end);
+
+        // skip the line break, treating \r\n as one break
+        int next = end;
+        if (next < this.window.limit()) {
+            if (this.window.get(next) == '\r') {
+                next++;
+                if (next == this.window.limit() && this.windowStart + next < this.size) {
+                    // the \n of a \r\n may be in the next window
+                    map(this.windowStart + next);
+                    next = 0;
+                }
+                if (next < this.window.limit() && this.window.get(next) == '\n') {
+                    next++;
+                }
+            } else {
+                next++;
+            }
+        }
+        this.position = next;
+        this.lineNumber++;
+        return length;
+    }
+
+    /**
+     * Finds the next line break in the window, starting at the current position.
+     *
+     * @return the index of the line break, or -1 if there is none in the window
+     */
+    private int findLineEnd() {
+        MappedByteBuffer buffer = this.window;
+        int limit = buffer.limit();
+        for (int i = this.position; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Decodes part of the window into chars.
+     *
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @return the number of characters decoded
+     */
+    private int decode(int start, int end) {
+        int length = end - start;
+        if (this.chars.length < length) {
+            this.chars = new char[Math.max(length, this.chars.length * 2)];
+        }
+
+        // most lines are plain ASCII, which every supported charset decodes the same way
+        MappedByteBuffer buffer = this.window;
+        for (int i = 0; i < length; i++) {
+            byte b = buffer.get(start + i);
+            if (b < 0 && !this.latin1) {
+                return decodeWithCharset(start, end);
+            }
+            this.chars[i] = (char) (b & 0xFF);
+        }
+        return length;
+    }
+
+    /**
+     * Decodes part of the window into chars with the charset of the file.
+     *
+     * @param start the index of the first byte of the line
+     * @param end the index after the last byte of the line
+     * @return the number of characters decoded
+     */
+    private int decodeWithCharset(int start, int end) {
+        ByteBuffer bytes = this.window.duplicate();
+        bytes.position(start).limit(end);
+        CharBuffer decoded = this.charset.decode(bytes);
+        int length = decoded.remaining();
+        if (this.chars.length < length) {
+            this.chars = new char[length];
+        }
+        decoded.get(this.chars, 0, length);
+        return length;
+    }
+
+    /**
+     * Maps the window starting at the given offset of the file.
+     *
+     * @param start the offset of the first byte to map
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(long start) throws IOException {
+        long length = Math.min(this.windowSize, this.size - start);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        this.windowStart = start;
+        this.position = 0;
+    }
+
+    /**
+     * Checks if a charset encodes ASCII characters, including line breaks, as single ASCII bytes.
+     *
+     * @param charset the charset to check
+     * @return true if the mapped bytes can be scanned for line breaks
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        String sample = "\n\r .'AZaz09";
+        return charset.canEncode()
+                && Arrays.equals(sample.getBytes(charset), sample.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -1,6 +1,6 @@
 package edu.iu.jrsalata;
 
-import java.util.LinkedList;
+import java.util.ArrayDeque;
 import java.util.Queue;
 
 /**
@@ -21,10 +21,10 @@ public class ModificationVisitor implements VisitorInterface {
 
     /**
      * Constructs a new ModificationVisitor instance.
-     * Initializes the modifications list as a LinkedList.
+     * Initializes the modifications queue as an ArrayDeque.
      */
     public ModificationVisitor() {
-        this.modifications = new LinkedList<>();
+        this.modifications = new ArrayDeque<>();
     }
     
     /** 
@@ -0,0 +1,193 @@
+package edu.iu.jrsalata;
+
+/**
+ * The ObjectCodeBuffer class holds the object code of many statements as raw bytes
+ * in a single growable array.
+ *
+ * Each statement's code is appended once and located by its offset in the buffer and its
+ * length in half-bytes, since object code such as X'F1F' does not always fill whole bytes.
+ * Code is stored left aligned, so an odd length leaves the low half of its last byte empty.
+ * Hex text is only created when the code is written out.
+ *
+ * Every builder owns one buffer for the statements of its control section.
+ * An ObjectCodeBuffer is not thread safe.
+ *
+ * @see Statement
+ */
+public class ObjectCodeBuffer {
+
+    /**
+     * The number of bytes a buffer holds before it grows
+     */
+    static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * Hex digits used when writing code as text
+     */
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Holds the code of every statement
+     */
+    private byte[] bytes;
+
+    /**
+     * Number of bytes in use
+     */
+    private int size;
+
+    /**
+     * Constructs a new, empty ObjectCodeBuffer with the default capacity.
+     */
+    public ObjectCodeBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new, empty ObjectCodeBuffer.
+     *
+     * @param capacity the number of bytes to hold before growing
+     */
+    public ObjectCodeBuffer(int capacity) {
+        this.bytes = new byte[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    /**
+     * Appends a value as a fixed number of half-bytes.
+     * Like {@link HexNum#appendHex(StringBuilder, int, int)}, only the lowest digits of the value are kept.
+     *
+     * @param value the value to append
+     * @param nibbles the number of half-bytes to append, at most 16
+     * @return the offset of the appended code
+     */
+    public int append(long value, int nibbles) {
+        int offset = this.size;
+        int count = (nibbles + 1) / 2;
+        ensureCapacity(count);
+
+        // shift an odd number of digits up by one so the code is left aligned
+        long aligned = (nibbles & 1) == 0 ? value : value << 4;
+        for (int i = count - 1; i >= 0; i--) {
+            this.bytes[offset + i] = (byte) aligned;
+            aligned >>>= 8;
+        }
+        this.size += count;
+        return offset;
+    }
+
+    /**
+     * Appends the code written as hex digits.
+     *
+     * @param hex the hex digits to append, in either case
+     * @return the offset of the appended code
+     * @throws NumberFormatException if hex contains a character that is not a hex digit
+     */
+    public int appendHex(CharSequence hex) {
+        int offset = this.size;
+        int nibbles = hex.length();
+        ensureCapacity((nibbles + 1) / 2);
+
+        for (int i = 0; i < nibbles; i++) {
+            int digit = Character.digit(hex.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex digit '" + hex.charAt(i) + "' in " + hex);
+            }
+            if ((i & 1) == 0) {
+                this.bytes[offset + i / 2] = (byte) (digit << 4);
+            } else {
+                this.bytes[offset + i / 2] |= (byte) digit;
+            }
+        }
+        this.size += (nibbles + 1) / 2;
+        return offset;
+    }
+
+    /**
+     * Retrieves a single half-byte of code.
+     *
+     * @param offset the offset of the code
+     * @param index the index of the half-byte within the code
+     * @return the value of the half-byte, from 0 to 15
+     */
+    public int getNibble(int offset, int index) {
+        int b = this.bytes[offset + index / 2];
+        return (index & 1) == 0 ? (b >>> 4) & 0xF : b & 0xF;
+    }
+
+    /**
+     * Retrieves a byte of the buffer.
+     *
+     * @param index the index of the byte
+     * @return the byte at the index
+     */
+    public byte getByte(int index) {
+        return this.bytes[index];
+    }
+
+    /**
+     * Appends code to a StringBuilder as upper case hex.
+     *
+     * @param sb the StringBuilder to append to
+     * @param offset the offset of the code
+     * @param nibbles the length of the code in half-bytes
+     * @return the given StringBuilder
+     */
+    public StringBuilder appendHexTo(StringBuilder sb, int offset, int nibbles) {
+        for (int i = 0; i < nibbles; i++) {
+            sb.append(DIGITS[getNibble(offset, i)]);
+        }
+        return sb;
+    }
+
+    /**
+     * Writes code into a char array as upper case hex.
+     *
+     * @param dest the array to write into
+     * @param destOffset the index of the first digit in dest
+     * @param offset the offset of the code
+     * @param nibbles the length of the code in half-bytes
+     * @return the index after the last written digit
+     */
+    public int writeHexTo(char[] dest, int destOffset, int offset, int nibbles) {
+        for (int i = 0; i < nibbles; i++) {
+            dest[destOffset++] = DIGITS[getNibble(offset, i)];
+        }
+        return destOffset;
+    }
+
+    /**
+     * Creates the upper case hex text of some code.
+     *
+     * @param offset the offset of the code
+     * @param nibbles the length of the code in half-bytes
+     * @return the code as hex
+     */
+    public String toHex(int offset, int nibbles) {
+        char[] chars = new char[nibbles];
+        writeHexTo(chars, 0, offset, nibbles);
+        return new String(chars);
+    }
+
+    /**
+     * Retrieves the number of bytes in use.
+     *
+     * @return the size of the buffer in bytes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Grows the array so that the given number of bytes can be appended.
+     *
+     * @param count the number of bytes about to be appended
+     */
+    private void ensureCapacity(int count) {
+        if (this.size + count > this.bytes.length) {
+            byte[] grown = new byte[Math.max(this.size + count, this.bytes.length * 2)];
+            System.arraycopy(this.bytes, 0, grown, 0, this.size);
+            this.bytes = grown;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package edu.iu.jrsalata;
+
+/**
+ * The ObjectFormat enum lists the formats an ObjectWriter can write the object file in.
+ *
+ * @see ObjectWriterInterface#setFormat(ObjectFormat)
+ */
+public enum ObjectFormat {
+
+    /**
+     * H, D, R, T, M, and E records written as hex text, one record per line
+     */
+    TEXT,
+
+    /**
+     * The same records in the compact binary form described by {@link BinaryObjectEncoder}
+     */
+    BINARY
+}
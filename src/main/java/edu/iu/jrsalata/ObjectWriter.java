@@ -1,20 +1,55 @@
 package edu.iu.jrsalata;
 
-import java.io.FileWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * The ObjectWriter class is responsible for writing object files based on the
  * provided statements and builder. It implements the ObjectWriterInterface.
  * This class supports writing various records such as header, define, refer,
  * text, and end records to the object file.
+ *
+ * Control sections can also be written all at once with
+ * {@link #execute(Queue, ExecutorService)}, which writes each section on its own thread
+ * and then links them into the files in source order.
+ *
+ * The object file and listing are opened once, by the first section that is written, and stay
+ * open until the writer is closed. Records are built in a reusable buffer and written through a
+ * {@link ChannelWriter}, which only writes to the file in large chunks.
+ *
+ * The listing, which shows the address, object code, and source of every statement, is only
+ * written when it is turned on with {@link #setListing(boolean)}. It is written to the file by
+ * an {@link AsyncWriter}, so writing the text records never waits on the listing.
+ *
+ * The object file can also be written in a binary format with {@link #setFormat(ObjectFormat)},
+ * in which case each record is given to a {@link BinaryObjectEncoder} from the builder and
+ * the code buffers of the statements, without writing it as text first.
+ * The records can also be written to any Writer with {@link #setOutput(Writer)}, which keeps
+ * them in the text format.
  */
 public class ObjectWriter implements ObjectWriterInterface {
 
+    /**
+     * Length a define record can reach before no more symbols are added to it
+     */
+    static final int MAX_DEFINE_LENGTH = 60;
+
+    /**
+     * Length a refer record has to stay under for another symbol to be added to it
+     */
+    static final int MAX_REFER_LENGTH = 66;
+
     /**
      * stores the name of the output file
      */
@@ -37,15 +72,50 @@ public class ObjectWriter implements ObjectWriterInterface {
      */
     protected boolean previouslyUsed;
 
+    /**
+     * the open object file, or null if it has not been opened yet
+     */
+    protected Writer objectOutput;
+
+    /**
+     * the open binary object file, or null if it has not been opened yet or the object file is text
+     */
+    protected BinaryObjectEncoder binaryOutput;
+
+    /**
+     * the open listing file, or null if it has not been opened yet or is not written
+     */
+    protected Writer listingOutput;
+
+    /**
+     * true if the listing file is written along with the object file
+     */
+    protected boolean listing;
+
+    /**
+     * the format the object file is written in
+     */
+    protected ObjectFormat format = ObjectFormat.TEXT;
+
+    /**
+     * holds each record while it is built, reused for every record
+     */
+    protected final StringBuilder record = new StringBuilder(80);
+
+    /**
+     * holds each record as upper case characters while it is written
+     */
+    private char[] recordChars = new char[81];
+
     /**
      * Constructs an ObjectWriter with default settings.
      * Initializes the fileName to "output.obj", creates a new StatementBuilder,
-     * initializes the queue as a LinkedList, and sets previouslyUsed to false.
+     * initializes the queue as an ArrayDeque, and sets previouslyUsed to false.
      */
     public ObjectWriter() {
         this.fileName = "output.obj";
         this.builder = new StatementBuilder();
-        this.queue = new LinkedList<>();
+        this.queue = new ArrayDeque<>();
         this.previouslyUsed = false;
     }
 
@@ -70,9 +140,50 @@ public class ObjectWriter implements ObjectWriterInterface {
      */
     @Override
     public void setFileName(String fileName) {
+        if (!fileName.equals(this.fileName)) {
+            closeOutputs();
+        }
         this.fileName = fileName;
     }
 
+    /**
+     * Sets whether the listing file is written along with the object file.
+     *
+     * @param listing true to write the listing
+     */
+    @Override
+    public void setListing(boolean listing) {
+        if (listing != this.listing) {
+            closeOutputs();
+        }
+        this.listing = listing;
+    }
+
+    /**
+     * Sets the format the object file is written in.
+     *
+     * @param format the format of the object file
+     */
+    @Override
+    public void setFormat(ObjectFormat format) {
+        if (format != this.format) {
+            closeOutputs();
+        }
+        this.format = format;
+    }
+
+    /**
+     * Sets the Writer the object file is written to instead of the file.
+     * Any open files are closed first, and the Writer is closed along with this writer.
+     *
+     * @param output the Writer to write the object code to
+     */
+    @Override
+    public void setOutput(Writer output) {
+        closeOutputs();
+        this.objectOutput = output;
+    }
+
     /**
      * Sets the builder for this ObjectWriter.
      *
@@ -96,7 +207,8 @@ public class ObjectWriter implements ObjectWriterInterface {
     /**
      * Executes the process of writing an object file. This method writes various
      * sections of the object file including the header, define, refer, text, and
-     * end records. It uses a FileWriter to write to the specified file.
+     * end records. The files are opened the first time this is called and flushed
+     * after every control section, but only closed by {@link #close()}.
      *
      * @throws InvalidAssemblyFileException if the assembly file is invalid.
      * @throws IOException if an I/O error occurs while writing to the file.
@@ -104,46 +216,250 @@ public class ObjectWriter implements ObjectWriterInterface {
     @Override
     public void execute() throws InvalidAssemblyFileException, IOException {
 
-        try (FileWriter fileWriter = new FileWriter(this.fileName, this.previouslyUsed)) {
-            try (FileWriter debugWriter = new FileWriter(this.fileName + ".txt", this.previouslyUsed)) {
-                writeHeaderRecord(fileWriter, this.builder);
-                writeDefineRecord(fileWriter, this.builder);
-                writeReferRecords(fileWriter, this.builder);
-                writeTextRecords(fileWriter, this.queue, this.builder, debugWriter);
-                writeEndRecord(fileWriter, this.builder);
+        try {
+            openOutputs();
+            if (this.binaryOutput != null) {
+                writeBinary(this.binaryOutput, this.listingOutput);
+            } else {
+                write(this.objectOutput, this.listingOutput);
+            }
+
+            // the records are written to the file as they are built, so only the flush is measured
+            SectionMetrics metrics = this.builder.getMetrics();
+            if (metrics != null) {
+                metrics.start(Phase.IO);
+            }
+            try {
+                flushOutputs();
+            } finally {
+                if (metrics != null) {
+                    metrics.stop(Phase.IO, 0);
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException("Error writing to file: " + this.fileName);
+        }
+    }
+
+    /**
+     * Writes the object file of every control section in the queue.
+     *
+     * Sections only refer to each other through their define and refer records, so each
+     * section is relocated and written into memory on the executor. The sections are then
+     * linked by appending them to the object file and listing in source order, which gives
+     * the same output as writing them one at a time.
+     *
+     * @param builders the builders of each control section, in source order
+     * @param executor the executor that writes each section
+     * @throws InvalidAssemblyFileException if the assembly file is invalid.
+     * @throws IOException if an I/O error occurs while writing to the file.
+     */
+    @Override
+    public void execute(Queue<AbstractStatementBuilder> builders, ExecutorService executor)
+            throws InvalidAssemblyFileException, IOException {
+
+        // only the first section written by this writer has a starting address in its end record
+        boolean binary = this.objectOutput == null && this.format == ObjectFormat.BINARY;
+        List<Future<SectionOutput>> sections = new ArrayList<>();
+        List<SectionMetrics> metrics = new ArrayList<>();
+        boolean first = !this.previouslyUsed;
+        while (!builders.isEmpty()) {
+            ObjectWriter section = new ObjectWriter(this.fileName, builders.poll(), null);
+            metrics.add(section.builder.getMetrics());
+            section.previouslyUsed = !first;
+            section.listing = this.listing;
+            first = false;
+            sections.add(executor.submit(() -> {
+                SectionOutput output = new SectionOutput();
+                StringWriter listing = section.listing ? new StringWriter() : null;
+                section.setQueue(section.builder.getStatements());
+                if (binary) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    section.writeBinary(new BinaryObjectEncoder(bytes, false), listing);
+                    output.binary = bytes.toByteArray();
+                } else {
+                    StringWriter objectCode = new StringWriter();
+                    section.write(objectCode, listing);
+                    output.text = objectCode.toString();
+                }
+                output.listing = listing == null ? null : listing.toString();
+                return output;
+            }));
+        }
 
-                // set previously used to true to indicate we want to append in the future
+        try {
+            openOutputs();
+            for (int i = 0; i < sections.size(); i++) {
+                SectionOutput output = sections.get(i).get();
+
+                // linking a section is its I/O, and the last section also flushes the files
+                SectionMetrics sectionMetrics = metrics.get(i);
+                if (sectionMetrics != null) {
+                    sectionMetrics.start(Phase.IO);
+                }
+                if (output.binary != null) {
+                    this.binaryOutput.writeSections(output.binary);
+                } else {
+                    this.objectOutput.write(output.text);
+                }
+                if (this.listingOutput != null) {
+                    this.listingOutput.write(output.listing);
+                }
+                if (i == sections.size() - 1) {
+                    flushOutputs();
+                }
+                if (sectionMetrics != null) {
+                    sectionMetrics.stop(Phase.IO, output.binary != null ? output.binary.length : output.text.length());
+                }
                 this.previouslyUsed = true;
             }
+            if (sections.isEmpty()) {
+                flushOutputs();
+            }
+        } catch (InterruptedException e) {
+            sections.forEach(section -> section.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing to file: " + this.fileName);
+        } catch (ExecutionException e) {
+            sections.forEach(section -> section.cancel(true));
+            Throwable cause = e.getCause();
+            if (cause instanceof InvalidAssemblyFileException invalid) {
+                throw invalid;
+            } else if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            } else if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IOException("Error writing to file: " + this.fileName, cause);
         } catch (IOException e) {
             throw new IOException("Error writing to file: " + this.fileName);
         }
     }
 
     /**
-     * Writes a header record to the specified FileWriter.
+     * Writes every record of the current builder to the given writers.
+     *
+     * @param fileWriter the Writer to write the object code to
+     * @param debugWriter the Writer to write the listing to, or null to skip the listing
+     * @throws InvalidAssemblyFileException if the assembly file is invalid.
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(Writer fileWriter, Writer debugWriter) throws InvalidAssemblyFileException, IOException {
+        writeHeaderRecord(fileWriter, this.builder);
+        writeDefineRecord(fileWriter, this.builder);
+        writeReferRecords(fileWriter, this.builder);
+        writeTextRecords(fileWriter, this.queue, this.builder, debugWriter);
+        writeEndRecord(fileWriter, this.builder);
+
+        // set previously used to true to indicate we want to append in the future
+        this.previouslyUsed = true;
+    }
+
+    /**
+     * Gives every record of the current builder to a binary encoder. The records are grouped
+     * exactly like the text records, but are taken from the builder and the code buffers
+     * of the statements instead of being written as text.
+     *
+     * @param encoder the encoder to give the records to
+     * @param debugWriter the Writer to write the listing to, or null to skip the listing
+     * @throws InvalidAssemblyFileException if the assembly file is invalid.
+     * @throws IOException if an I/O error occurs
+     * @throws IllegalStateException if the builder already streamed its statements as text
+     */
+    public void writeBinary(BinaryObjectEncoder encoder, Writer debugWriter)
+            throws InvalidAssemblyFileException, IOException {
+        AbstractStatementBuilder section = this.builder;
+        if (section.getStreamedRecords() != null) {
+            throw new IllegalStateException("A streamed control section can only be written as text records");
+        }
+        encoder.startSection(section.getName(), section.getStart().getDec(), section.getTotalLength().getDec());
+
+        // define records, with as many symbols as writeDefineRecord puts in each
+        Queue<String> definitions = section.getExternalDefinitions();
+        while (!definitions.isEmpty()) {
+            List<String> names = new ArrayList<>();
+            int length = 1;
+            while (!definitions.isEmpty() && length <= MAX_DEFINE_LENGTH) {
+                String name = definitions.poll();
+                names.add(name);
+                length += name.length() + 6;
+            }
+            int[] addresses = new int[names.size()];
+            for (int i = 0; i < addresses.length; i++) {
+                addresses[i] = section.getSymbolContext().getSharedSymbol(names.get(i), section.getName()).getDec();
+            }
+            encoder.addDefine(names, addresses);
+        }
+
+        // refer records, with as many symbols as writeReferRecords puts in each
+        Queue<String> references = section.getExternalReferences();
+        while (!references.isEmpty()) {
+            List<String> names = new ArrayList<>();
+            int length = 1;
+            while (!references.isEmpty() && length < MAX_REFER_LENGTH) {
+                String name = references.poll();
+                names.add(name);
+                length += name.length();
+            }
+            encoder.addRefer(names);
+        }
+
+        // text records, grouped by the same TextRecordWriter as the text format
+        SectionMetrics metrics = section.getMetrics();
+        if (metrics != null) {
+            metrics.start(Phase.TEXT_RECORDS);
+        }
+        int written = 0;
+        TextRecordWriter records = new TextRecordWriter(section, encoder, debugWriter);
+        try {
+            while (!this.queue.isEmpty()) {
+                records.add(this.queue.poll());
+                written++;
+            }
+            records.finish();
+        } finally {
+            if (metrics != null) {
+                metrics.stop(Phase.TEXT_RECORDS, written);
+            }
+        }
+
+        // modification records of the statements, then of the builder
+        for (String modification : records.getModifications()) {
+            encoder.addModification(modification);
+        }
+        for (String modification : section.getReferenceModifications()) {
+            encoder.addModification(modification);
+        }
+
+        // only the first section has a starting address in its end record
+        encoder.endSection(!this.previouslyUsed, section.getStart().getDec());
+        this.previouslyUsed = true;
+    }
+
+    /**
+     * Writes a header record to the specified Writer.
      * The header record consists of:
      * - 'H' character at the beginning
      * - Program name (columns 2-7)
      * - Starting address (columns 8-13)
      * - Length of the program (columns 14-19)
      *
-     * @param fileWriter the FileWriter to write the header record to
+     * @param fileWriter the Writer to write the header record to
      * @param builder the AbstractStatementBuilder containing the program details
      * @throws IOException if an I/O error occurs
      */
-    public void writeHeaderRecord(FileWriter fileWriter, AbstractStatementBuilder builder) throws IOException {
-        StringBuilder headerRecord = new StringBuilder();
+    public void writeHeaderRecord(Writer fileWriter, AbstractStatementBuilder builder) throws IOException {
+        StringBuilder headerRecord = this.record;
+        headerRecord.setLength(0);
         headerRecord.append("H");
         headerRecord.append(builder.getName());
-        headerRecord.append(builder.getStart().toString(6));
-        headerRecord.append(builder.getTotalLength().toString(6));
-        fileWriter.write(headerRecord.toString().toUpperCase());
-        fileWriter.write('\n');
+        builder.getStart().appendTo(headerRecord, 6);
+        builder.getTotalLength().appendTo(headerRecord, 6);
+        writeRecord(fileWriter, headerRecord, builder);
     }
 
     /**
-     * Writes a define record to the specified FileWriter using the provided AbstractStatementBuilder.
+     * Writes a define record to the specified Writer using the provided AbstractStatementBuilder.
      * A define record starts with 'D' and contains pairs of external symbol names and their addresses.
      * Each name/address pair occupies 12 columns, and the total length of the define record is limited to 73 columns.
      * The define record consists of:
@@ -152,262 +468,289 @@ public class ObjectWriter implements ObjectWriterInterface {
      * - Symbol address (columns 8-13)
      * - repeat name and address until we reach column 73
      * 
-     * @param fileWriter the FileWriter to write the define record to
+     * @param fileWriter the Writer to write the define record to
      * @param builder the AbstractStatementBuilder that provides the external definitions
      * @throws IOException if an I/O error occurs
      */
-    public void writeDefineRecord(FileWriter fileWriter, AbstractStatementBuilder builder) throws IOException {
+    public void writeDefineRecord(Writer fileWriter, AbstractStatementBuilder builder) throws IOException {
 
         Queue<String> builderQueue = builder.getExternalDefinitions();
-        StringBuilder defineRecord;
+        StringBuilder defineRecord = this.record;
         String symbolName;
 
         while (!builderQueue.isEmpty()) {
             
-            defineRecord = new StringBuilder();
+            defineRecord.setLength(0);
             defineRecord.append("D");
-            while (!builderQueue.isEmpty() && defineRecord.length() <= 60) {
+            while (!builderQueue.isEmpty() && defineRecord.length() <= MAX_DEFINE_LENGTH) {
                 symbolName = builderQueue.poll();
                 defineRecord.append(symbolName);
-                defineRecord.append(SymTable.getSymbol(symbolName, builder.getName()).toString(6));
+                builder.getSymbolContext().getSharedSymbol(symbolName, builder.getName()).appendTo(defineRecord, 6);
             }
 
-            fileWriter.write(defineRecord.toString().toUpperCase());
-            fileWriter.write('\n');
-
-            // clear the StringBuilder to reset it for the next record
-            defineRecord.setLength(0);
+            writeRecord(fileWriter, defineRecord, builder);
         }
     }
 
     /**
-     * Writes the reference records to the specified file using the provided FileWriter.
+     * Writes the reference records to the specified file using the provided Writer.
      * The refer record consists of:
      * - 'R' character at the beginning
      * - Symbol name (columns 2-7)
      * - repeat names of symbols until we reach column 73
      *
-     * @param fileWriter the FileWriter to write the reference records to
+     * @param fileWriter the Writer to write the reference records to
      * @param builder the AbstractStatementBuilder that provides the external references
      * @throws IOException if an I/O error occurs
      */
-    public void writeReferRecords(FileWriter fileWriter, AbstractStatementBuilder builder) throws IOException {
+    public void writeReferRecords(Writer fileWriter, AbstractStatementBuilder builder) throws IOException {
 
         Queue<String> builderQueue = builder.getExternalReferences();
-        StringBuilder referRecord;
+        StringBuilder referRecord = this.record;
         String symbolName;
 
         while (!builderQueue.isEmpty()) {
 
-            referRecord = new StringBuilder();
+            referRecord.setLength(0);
             referRecord.append("R");
-            while (!builderQueue.isEmpty() && referRecord.length() < 66) {
+            while (!builderQueue.isEmpty() && referRecord.length() < MAX_REFER_LENGTH) {
                 symbolName = builderQueue.poll();
                 referRecord.append(symbolName);
             }
 
-            fileWriter.write(referRecord.toString().toUpperCase());
-            fileWriter.write('\n');
-
-            // clear the StringBuilder to reset it for the next record
-            referRecord.setLength(0);
+            writeRecord(fileWriter, referRecord, builder);
         }
     }
 
     /**
-     * Writes text records to the provided FileWriter based on the given queue of Statements.
-     * Each text record is constructed by assembling the statements and appending their byte code.
-     * The method also handles different program blocks and ensures that text records are correctly
-     * formatted and written to the file.
-     * The text record consists of:
-     * - 'T' character at the beginning
-     * - Starting address (columns 2-7)
-     * - Length (in bytes) (columns 8-9)
-     * - Object code (10-69)
+     * Writes text records to the provided Writer based on the given queue of Statements.
+     * Each text record is constructed by assembling the statements and appending their object code,
+     * which is only rendered as hex from the statements' code buffer here.
+     * The statements are grouped into records by a {@link TextRecordWriter}. If the builder
+     * streamed some of its statements while the section was read, the remaining statements are
+     * added to its records and everything it wrote is copied to the writers.
      *
-     * @param fileWriter the FileWriter to write the text records to
+     * @param fileWriter the Writer to write the text records to
      * @param queue the queue of Statements to be assembled and written
      * @param builder the AbstractStatementBuilder used to get starting addresses and other information
-     * @param debugWriter the FileWriter used to write the generated object code with the original line
+     * @param debugWriter the Writer used to write the address and object code of each statement
+     *                    with its original line, or null to skip the listing
      * @throws InvalidAssemblyFileException if there is an error in the assembly file
      * @throws IOException if an I/O error occurs
      */
-    public void writeTextRecords(FileWriter fileWriter, Queue<Statement> queue,
-            AbstractStatementBuilder builder, FileWriter debugWriter) throws InvalidAssemblyFileException, IOException {
-
-        // hold the length of the current assembled text record
-        int tempRecordLength;
-
-        // holds the length of an entire text record
-        int length;
-        
-        // Used to convert length to hex
-        HexNum size;
+    public void writeTextRecords(Writer fileWriter, Queue<Statement> queue,
+            AbstractStatementBuilder builder, Writer debugWriter) throws InvalidAssemblyFileException, IOException {
 
-        // Used to store the current program block
-        String currentBlock;
-
-        // Create the StringBuilder that will add each component
-        StringBuilder textRecord = new StringBuilder();
-
-        // assembledTextRecord will temporarily store the assembled byte code
-        // if none is produced, then we move on to the next block
-        StringBuilder assembledTextRecord = new StringBuilder();
-
-        // Statement that will be read from the queue
-        Statement statement;
-
-        // create the visitor that will collect modification records
-        VisitorInterface visitor = new ModificationVisitor();
-
-        // Create a hashmap to store the starting address of each block
-        // this is needed for each separate program block
-        // every time we switch blocks, we need to update the previous and current block
-        HashMap<String, HexNum> startTable = new HashMap<>();
-        startTable.put(AbstractStatementBuilder.DEFAULT_BLOCK,
-                builder.getStart(AbstractStatementBuilder.DEFAULT_BLOCK));
-        HexNum currentStartLocctr;
-
-        // in order to ensure that nothing is assembled after a blank space, we will use
-        // a boolean to track the current status of the blanks
-        // blankSpace recognizes when an assembled value has a size, but no generated
-        // object code
-        // when that happens, start a new line
-        boolean blankSpace;
-
-        while (!queue.isEmpty()) {
-
-            currentBlock = queue.peek().getBlock();
-            blankSpace = false;
-
-            // If the block is not in the start table, add it
-            startTable.putIfAbsent(currentBlock, builder.getStart(currentBlock));
-
-            // set the locctr
-            currentStartLocctr = startTable.get(currentBlock);
+        SectionMetrics metrics = builder.getMetrics();
+        if (metrics != null) {
+            metrics.start(Phase.TEXT_RECORDS);
+        }
+        int written = 0;
 
-            // Clear the text record
-            textRecord.setLength(0);
-            assembledTextRecord.setLength(0);
+        // continue the records the builder streamed, if it streamed any
+        TextRecordWriter records = builder.getStreamedRecords();
+        if (records == null) {
+            records = new TextRecordWriter(builder, fileWriter, debugWriter);
+        }
 
-            textRecord.append("T");
-            textRecord.append(currentStartLocctr.toString(6));
-            textRecord.append("--");
-            tempRecordLength = textRecord.length();
-            
-            // loop while
-            // 1) we have items left in the queue
-            // 2) there is room for the next assembled record
-            // 3) we are in the same program block
-            // 4) the previously assembled item was not a blank space
-            while (!queue.isEmpty() && (tempRecordLength + queue.peek().assemble().length() < 70)
-                    && queue.peek().getBlock().equals(currentBlock)
-                    && !blankSpace) {
-                statement = queue.poll();
-                assembledTextRecord.append(statement.assemble());
-                currentStartLocctr = currentStartLocctr.add(statement.getSize());
-                tempRecordLength = tempRecordLength + statement.getSize().getDec() * 2;
-                statement.accept(visitor);
-
-                // if the assembled value is a blank space and it generates some space, then we
-                // need to set the blankSpace flag to true
-                blankSpace = statement.assemble().equals("") && statement.getSize().getDec() > 0;
-
-                // we also need to write out every statement
-                debugWriter.write(statement.assemble());
-                debugWriter.write('\t');
-                debugWriter.write(statement.getLine());
-                debugWriter.write('\n');
+        try {
+            while (!queue.isEmpty()) {
+                records.add(queue.poll());
+                written++;
             }
-
-            // update the currentStartLocctr
-            startTable.put(currentBlock, currentStartLocctr);
-
-            if (assembledTextRecord.length() == 0) {
-                // if the assembledTextRecord is empty, then we need to skip this block
-                // and move on to the next block
-                continue;
+            records.finish();
+            builder.writeStreamedOutput(fileWriter, debugWriter);
+        } finally {
+            if (metrics != null) {
+                metrics.stop(Phase.TEXT_RECORDS, written);
             }
-
-            textRecord.append(assembledTextRecord);
-
-            // Update the length of the record
-            // since it is needed in bytes, we need to divide by 2 and round up
-            length = textRecord.length() - 9;
-            length = (int) Math.ceil(length / 2.0);
-            size = new HexNum(length);
-            textRecord.replace(7, 9, size.toString(2));
-
-            // Add the text record to the file
-            fileWriter.write(textRecord.toString().toUpperCase());
-            fileWriter.write('\n');
-
         }
 
         // after we are done writing the text records,
         // we need to write the modification records with our visitor here
-        writeModificationRecords(fileWriter, visitor.getStrings(), builder);
+        writeModificationRecords(fileWriter, records.getModifications(), builder);
     }
 
     /**
-     * Writes modification records to the provided FileWriter.
+     * Writes modification records to the provided Writer.
      * 
      * This method processes a queue of modification strings and writes each one to the
-     * FileWriter, followed by a newline character. After processing the queue, it writes
+     * Writer, followed by a newline character. After processing the queue, it writes
      * any additional modification records stored in the provided AbstractStatementBuilder.
      * 
      * The definition of modification records can vary and is defined in the other methods that
      * define them
      * 
-     * @param fileWriter the FileWriter to write the modification records to
+     * @param fileWriter the Writer to write the modification records to
      * @param modifications a queue of modification strings to be written
      * @param builder an AbstractStatementBuilder containing additional modification records
      * @throws IOException if an I/O error occurs
      */
-    public void writeModificationRecords(FileWriter fileWriter, Queue<String> modifications,
+    public void writeModificationRecords(Writer fileWriter, Queue<String> modifications,
             AbstractStatementBuilder builder) throws IOException {
         // loop through each modification and write it
         while (!modifications.isEmpty()) {
 
-            fileWriter.write(modifications.poll().toUpperCase());
-            fileWriter.write('\n');
+            writeRecord(fileWriter, modifications.poll(), builder);
 
         }
 
         // write any modification records that were stored in the builder
         List<String> modificationRecords = builder.getReferenceModifications();
         for (String records : modificationRecords) {
-            fileWriter.write(records.toUpperCase());
-            fileWriter.write('\n');
+            writeRecord(fileWriter, records, builder);
         }
     }
 
     /**
-     * Writes the end record to the specified FileWriter.
+     * Writes the end record to the specified Writer.
      * The end record consists of the character 'E' followed by the starting address
      * if this is the first output. All other outputs are just 'E'
      *
-     * @param fileWriter the FileWriter to write the end record to
+     * @param fileWriter the Writer to write the end record to
      * @param builder the AbstractStatementBuilder containing the starting address
      * @throws IOException if an I/O error occurs
      */
-    public void writeEndRecord(FileWriter fileWriter, AbstractStatementBuilder builder) throws IOException {
+    public void writeEndRecord(Writer fileWriter, AbstractStatementBuilder builder) throws IOException {
 
         // Create the StringBuilder that will add each component
-        StringBuilder endRecord = new StringBuilder();
+        StringBuilder endRecord = this.record;
+        endRecord.setLength(0);
         endRecord.append("E");
 
         // only write starting address if this is the first output
         // since everything else depends on the first
         if (!this.previouslyUsed) {
 
-            endRecord.append(builder.getStart().toString(6));
+            builder.getStart().appendTo(endRecord, 6);
 
         }
 
         // write the final string to the header file
-        fileWriter.write(endRecord.toString().toUpperCase());
-        fileWriter.write('\n');
+        writeRecord(fileWriter, endRecord, builder);
+    }
+
+    /**
+     * Writes a record in upper case followed by a newline with a single write.
+     * A {@link RecordEvent} is committed for it when the flight recorder records one.
+     *
+     * @param fileWriter the Writer to write the record to
+     * @param record the record to write
+     * @param builder the builder of the section the record belongs to
+     * @throws IOException if an I/O error occurs
+     */
+    protected void writeRecord(Writer fileWriter, CharSequence record, AbstractStatementBuilder builder)
+            throws IOException {
+        RecordEvent event = new RecordEvent();
+        event.begin();
+        int length = record.length();
+        if (this.recordChars.length <= length) {
+            this.recordChars = new char[length + 1];
+        }
+        char[] chars = this.recordChars;
+        for (int i = 0; i < length; i++) {
+            char c = record.charAt(i);
+            chars[i] = c >= 'a' && c <= 'z' ? (char) (c - ('a' - 'A')) : Character.toUpperCase(c);
+        }
+        chars[length] = '\n';
+        fileWriter.write(chars, 0, length + 1);
+        event.commit(builder, record, length, 0);
+    }
+
+    /**
+     * Writes anything that is buffered for the object file and the listing.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    protected void flushOutputs() throws IOException {
+        if (this.binaryOutput != null) {
+            this.binaryOutput.flush();
+        } else {
+            this.objectOutput.flush();
+        }
+        if (this.listingOutput != null) {
+            this.listingOutput.flush();
+        }
+    }
+
+    /**
+     * Opens the object file, and the listing if it is written, if they are not already open.
+     * They are replaced the first time, and appended to if this writer was used before they were closed.
+     *
+     * @throws IOException if a file cannot be opened
+     */
+    protected void openOutputs() throws IOException {
+        if (this.objectOutput == null && this.binaryOutput == null) {
+            if (this.format == ObjectFormat.BINARY) {
+                this.binaryOutput = BinaryObjectEncoder.open(Path.of(this.fileName), this.previouslyUsed);
+            } else {
+                this.objectOutput = ChannelWriter.open(Path.of(this.fileName), this.previouslyUsed);
+            }
+        }
+        if (this.listing && this.listingOutput == null) {
+            Writer listingFile = ChannelWriter.open(Path.of(this.fileName + ".txt"), this.previouslyUsed);
+            this.listingOutput = new AsyncWriter(listingFile, "listing-writer");
+        }
     }
 
+    /**
+     * Closes the object file and listing, writing anything that is still buffered.
+     *
+     * @throws IOException if an I/O error occurs while writing to the files
+     */
+    @Override
+    public void close() throws IOException {
+        Writer objectFile = this.objectOutput;
+        BinaryObjectEncoder binaryFile = this.binaryOutput;
+        Writer listingFile = this.listingOutput;
+        this.objectOutput = null;
+        this.binaryOutput = null;
+        this.listingOutput = null;
+        try {
+            if (objectFile != null) {
+                objectFile.close();
+            }
+            if (binaryFile != null) {
+                binaryFile.close();
+            }
+        } finally {
+            if (listingFile != null) {
+                listingFile.close();
+            }
+        }
+    }
+
+    /**
+     * Closes the current files before the writer moves on to new ones.
+     * Everything was already flushed when it was written, so errors are ignored.
+     */
+    private void closeOutputs() {
+        try {
+            close();
+        } catch (IOException e) {
+            // the files were flushed after every section, so there is nothing left to report
+        }
+    }
+
+    /**
+     * The SectionOutput class holds what a control section wrote on its own thread
+     * until it is linked into the files.
+     */
+    private static final class SectionOutput {
+
+        /**
+         * The text records of the section, or null if it was encoded
+         */
+        private String text;
+
+        /**
+         * The encoded section, or null if it was written as text
+         */
+        private byte[] binary;
+
+        /**
+         * The listing of the section, or null if there is no listing
+         */
+        private String listing;
+    }
 }
@@ -1,14 +1,18 @@
 package edu.iu.jrsalata;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Queue;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The ObjectWriterInterface defines the contract for writing objects to a file.
  * Implementations of this interface are responsible for setting the file name,
  * the statement builder, the queue of statements, and executing the writing process.
+ * Output files stay open between executions until the writer is closed.
  */
-public interface ObjectWriterInterface {
+public interface ObjectWriterInterface extends Closeable {
 
     /**
      * Sets the name of the output file.
@@ -17,6 +21,31 @@ public interface ObjectWriterInterface {
      */
     public void setFileName(String fileName);
 
+    /**
+     * Sets whether a listing file, named after the output file with ".txt" added,
+     * is written along with the object file. It is not written by default.
+     *
+     * @param listing true to write the listing
+     */
+    public void setListing(boolean listing);
+
+    /**
+     * Sets the format the object file is written in. Text records are written by default.
+     *
+     * @param format the format of the object file
+     */
+    public void setFormat(ObjectFormat format);
+
+    /**
+     * Sets the Writer the object file is written to instead of the output file,
+     * such as a StringWriter to keep the object file in memory. The records are written as text,
+     * and the Writer is closed when this writer is. Changing the file name, listing, or format
+     * afterwards goes back to writing the output file.
+     *
+     * @param output the Writer to write the object code to
+     */
+    public void setOutput(Writer output);
+
     /**
      * Sets the builder to be used for constructing statements.
      *
@@ -38,4 +67,16 @@ public interface ObjectWriterInterface {
      * @throws IOException if an I/O error occurs during the writing process.
      */
     public void execute() throws InvalidAssemblyFileException, IOException;
+
+    /**
+     * Writes the output object file for every control section in the queue, in order,
+     * using the executor to write the sections at the same time.
+     *
+     * @param builders the builders of each control section, in source order
+     * @param executor the executor that writes each section
+     * @throws InvalidAssemblyFileException if the assembly file is invalid.
+     * @throws IOException if an I/O error occurs during the writing process.
+     */
+    public void execute(Queue<AbstractStatementBuilder> builders, ExecutorService executor)
+            throws InvalidAssemblyFileException, IOException;
 }
@@ -0,0 +1,63 @@
+package edu.iu.jrsalata;
+
+/**
+ * The Phase enum lists the phases of assembling a control section that are measured by
+ * {@link SectionMetrics}. Each phase counts the items it handled, which are described below.
+ */
+public enum Phase {
+
+    /**
+     * Reading each line from the input and splitting it into fields, counted in lines
+     */
+    LEX("lex"),
+
+    /**
+     * Processing each statement in the first pass, counted in lines given to the builder
+     */
+    PASS_ONE("passOne"),
+
+    /**
+     * Placing the literals of each literal pool, counted in literals
+     */
+    LITERALS("literals"),
+
+    /**
+     * Moving every symbol from the start of its program block to the start of the program,
+     * counted in symbols
+     */
+    RELOCATION("relocation"),
+
+    /**
+     * Assembling statements and grouping their object code into text records, counted in statements
+     */
+    TEXT_RECORDS("textRecords"),
+
+    /**
+     * Writing the records of the section to the object file, counted in the characters
+     * of the section when the sections are linked into the file
+     */
+    IO("io");
+
+    /**
+     * The name of the phase in reports
+     */
+    private final String label;
+
+    /**
+     * Constructs a new Phase.
+     *
+     * @param label the name of the phase in reports
+     */
+    Phase(String label) {
+        this.label = label;
+    }
+
+    /**
+     * Retrieves the name of the phase used in reports.
+     *
+     * @return the name of the phase
+     */
+    public String getLabel() {
+        return this.label;
+    }
+}
@@ -0,0 +1,55 @@
+package edu.iu.jrsalata;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * The PhaseEvent class is the JDK Flight Recorder event with the totals of one phase of one
+ * control section. One event is committed for every phase of every section when an assembly
+ * with metrics finishes, so a recording shows which phases of which sections were slow.
+ *
+ * @see AssemblyMetrics#finish()
+ */
+@Name("edu.iu.jrsalata.Phase")
+@Label("Assembly Phase")
+@Category({ "SIC/XE Assembler" })
+@Description("Time, allocation, and items of one phase of assembling a control section")
+class PhaseEvent extends Event {
+
+    /**
+     * The name of the control section
+     */
+    @Label("Control Section")
+    String section;
+
+    /**
+     * The name of the phase
+     */
+    @Label("Phase")
+    String phase;
+
+    /**
+     * The number of items the phase handled
+     */
+    @Label("Count")
+    long count;
+
+    /**
+     * The time spent in the phase
+     */
+    @Label("Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long time;
+
+    /**
+     * The bytes allocated in the phase
+     */
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+}
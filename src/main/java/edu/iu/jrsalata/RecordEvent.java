@@ -0,0 +1,70 @@
+package edu.iu.jrsalata;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The RecordEvent class is the JDK Flight Recorder event for writing one record of the object
+ * file, so a recording shows how much time each type of record takes.
+ *
+ * The time of a text record also covers assembling the statements in it. Only records that take
+ * longer than the threshold are recorded by default.
+ *
+ * @see ObjectWriter#writeRecord(java.io.Writer, CharSequence, AbstractStatementBuilder)
+ * @see TextRecordWriter
+ */
+@Name("edu.iu.jrsalata.Record")
+@Label("Object Record")
+@Category({ "SIC/XE Assembler" })
+@Description("Writing of one record of the object file")
+@StackTrace(false)
+@Threshold("100 us")
+class RecordEvent extends Event {
+
+    /**
+     * The name of the control section
+     */
+    @Label("Control Section")
+    String section;
+
+    /**
+     * The type of the record: H, D, R, T, M, or E
+     */
+    @Label("Record Type")
+    String type;
+
+    /**
+     * The number of characters in the record, not counting the newline
+     */
+    @Label("Length")
+    int length;
+
+    /**
+     * The number of statements in a text record, or 0 for every other record
+     */
+    @Label("Statements")
+    int statements;
+
+    /**
+     * Commits the event for a record if it is recorded.
+     *
+     * @param builder the builder of the section the record belongs to
+     * @param record the record, starting with its type
+     * @param length the number of characters in the record, not counting the newline
+     * @param statements the number of statements in a text record, or 0 for every other record
+     */
+    void commit(AbstractStatementBuilder builder, CharSequence record, int length, int statements) {
+        if (shouldCommit()) {
+            this.section = builder.getName().trim();
+            this.type = String.valueOf(record.charAt(0));
+            this.length = length;
+            this.statements = statements;
+            commit();
+        }
+    }
+}
@@ -20,7 +20,7 @@ public class RegisterStatement extends BaseStatement {
     public RegisterStatement() {
         super();
         this.format = 2;
-        this.size.set(this.format);
+        this.size = new HexNum(this.format);
         this.reg1 = new HexNum(0);
         this.reg2 = new HexNum(0);
     }
@@ -35,7 +35,7 @@ public class RegisterStatement extends BaseStatement {
     public RegisterStatement(HexNum location, HexNum opcode, HexNum reg1) {
         super(location, opcode);
         this.format = 2;
-        this.size.set(this.format);
+        this.size = new HexNum(this.format);
         this.reg1 = reg1;
         this.reg2 = new HexNum(0);
     }
@@ -51,7 +51,7 @@ public class RegisterStatement extends BaseStatement {
     public RegisterStatement(HexNum location, HexNum opcode, HexNum reg1, HexNum reg2) {
         super(location, opcode);
         this.format = 2;
-        this.size.set(this.format);
+        this.size = new HexNum(this.format);
         this.reg1 = reg1;
         this.reg2 = reg2;
     }
@@ -88,13 +88,28 @@ public class RegisterStatement extends BaseStatement {
     }
 
     /**
-     * Assembles the opcode and register values into a hex string representation.
-     * 
-     * @return A hex string representation of the opcode and register values.
+     * Assembles the statement into its object code.
+     * The object code is generated into the code buffer the first time this is called.
+     *
+     * @return the object code of the statement
      */
     @Override
     public String assemble() {
-        return this.opcode.toString(2) + this.reg1.toString(1) + this.reg2.toString(1);
+        if (!isAssembled()) {
+            generateObjectCode();
+        }
+        return getObjectCode();
+    }
+
+    /**
+     * Generates the object code from the opcode and a half-byte for each register.
+     */
+    @Override
+    protected void generateObjectCode() {
+        int code = (this.opcode.getDec() & 0xFF) << 8
+                | (this.reg1.getDec() & 0xF) << 4
+                | (this.reg2.getDec() & 0xF);
+        emitCode(code, 4);
     }
 
     /**
@@ -0,0 +1,193 @@
+package edu.iu.jrsalata;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * The SectionMetrics class measures the time, allocated bytes, and number of items
+ * of each {@link Phase} of assembling one control section.
+ *
+ * A phase is measured between {@link #start(Phase)} and {@link #stop(Phase, long)}. Phases can
+ * be nested, like the literals placed while a statement is processed, in which case the outer
+ * phase is paused while the inner one runs, so every nanosecond and byte is counted once.
+ *
+ * A section is worked on by one thread at a time, like the thread reading it and then the thread
+ * writing it, so a SectionMetrics is not thread safe. Allocated bytes are read from the current
+ * thread, and are 0 when the JVM cannot measure them.
+ *
+ * @see AssemblyMetrics
+ */
+public class SectionMetrics {
+
+    /**
+     * Measures the bytes allocated by each thread, or null if the JVM cannot
+     */
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationBean();
+
+    /**
+     * The builder of the section, which knows its name
+     */
+    private final AbstractStatementBuilder builder;
+
+    /**
+     * Number of items handled by each phase, by ordinal
+     */
+    private final long[] counts = new long[Phase.values().length];
+
+    /**
+     * Nanoseconds spent in each phase, by ordinal
+     */
+    private final long[] nanos = new long[Phase.values().length];
+
+    /**
+     * Bytes allocated in each phase, by ordinal
+     */
+    private final long[] bytes = new long[Phase.values().length];
+
+    /**
+     * The phases that are running, innermost last
+     */
+    private Phase[] running = new Phase[4];
+
+    /**
+     * Number of phases that are running
+     */
+    private int depth;
+
+    /**
+     * Time the innermost phase was started or resumed
+     */
+    private long markNanos;
+
+    /**
+     * Allocated bytes of the thread when the innermost phase was started or resumed
+     */
+    private long markBytes;
+
+    /**
+     * Constructs a new SectionMetrics for the section of the given builder.
+     *
+     * @param builder the builder of the section
+     */
+    public SectionMetrics(AbstractStatementBuilder builder) {
+        this.builder = builder;
+    }
+
+    /**
+     * Starts measuring a phase, pausing the phase that is running.
+     *
+     * @param phase the phase to measure
+     */
+    public void start(Phase phase) {
+        long now = System.nanoTime();
+        long allocated = allocatedBytes();
+        if (this.depth > 0) {
+            charge(this.running[this.depth - 1], now, allocated);
+        }
+        if (this.depth == this.running.length) {
+            Phase[] grown = new Phase[this.depth * 2];
+            System.arraycopy(this.running, 0, grown, 0, this.depth);
+            this.running = grown;
+        }
+        this.running[this.depth++] = phase;
+        this.markNanos = now;
+        this.markBytes = allocated;
+    }
+
+    /**
+     * Stops measuring the innermost phase and resumes the phase it paused.
+     *
+     * @param phase the phase to stop, which must be the innermost one
+     * @param count the number of items the phase handled
+     * @throws IllegalStateException if the phase is not the innermost one
+     */
+    public void stop(Phase phase, long count) {
+        if (this.depth == 0 || this.running[this.depth - 1] != phase) {
+            throw new IllegalStateException("Phase " + phase + " is not running");
+        }
+        long now = System.nanoTime();
+        long allocated = allocatedBytes();
+        charge(phase, now, allocated);
+        this.counts[phase.ordinal()] += count;
+        this.depth--;
+        this.markNanos = now;
+        this.markBytes = allocated;
+    }
+
+    /**
+     * Adds the time and bytes since the last mark to a phase.
+     *
+     * @param phase the phase to add to
+     * @param now the current time
+     * @param allocated the current allocated bytes of the thread
+     */
+    private void charge(Phase phase, long now, long allocated) {
+        this.nanos[phase.ordinal()] += now - this.markNanos;
+        this.bytes[phase.ordinal()] += allocated - this.markBytes;
+    }
+
+    /**
+     * Retrieves the name of the section.
+     *
+     * @return the name of the section without padding
+     */
+    public String getName() {
+        return this.builder.getName().trim();
+    }
+
+    /**
+     * Retrieves the number of items a phase handled.
+     *
+     * @param phase the phase
+     * @return the number of items
+     */
+    public long getCount(Phase phase) {
+        return this.counts[phase.ordinal()];
+    }
+
+    /**
+     * Retrieves the time spent in a phase, not counting the phases nested in it.
+     *
+     * @param phase the phase
+     * @return the time in nanoseconds
+     */
+    public long getNanos(Phase phase) {
+        return this.nanos[phase.ordinal()];
+    }
+
+    /**
+     * Retrieves the bytes allocated in a phase, not counting the phases nested in it.
+     *
+     * @param phase the phase
+     * @return the allocated bytes, or 0 if the JVM cannot measure them
+     */
+    public long getAllocatedBytes(Phase phase) {
+        return this.bytes[phase.ordinal()];
+    }
+
+    /**
+     * Reads the bytes the current thread has allocated so far.
+     *
+     * @return the allocated bytes, or 0 if the JVM cannot measure them
+     */
+    static long allocatedBytes() {
+        return ALLOCATIONS == null ? 0 : ALLOCATIONS.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Finds the bean that measures allocated bytes, turning the measurement on if needed.
+     *
+     * @return the bean, or null if the JVM does not support it
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean allocations
+                && allocations.isThreadAllocatedMemorySupported()) {
+            if (!allocations.isThreadAllocatedMemoryEnabled()) {
+                allocations.setThreadAllocatedMemoryEnabled(true);
+            }
+            return allocations;
+        }
+        return null;
+    }
+}
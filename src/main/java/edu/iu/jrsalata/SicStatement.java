@@ -28,7 +28,7 @@ public class SicStatement extends BaseStatement {
         super();
         this.args = "000";
         this.format = 3;
-        this.size.set(this.format);
+        this.size = new HexNum(this.format);
     }
 
     /**
@@ -46,7 +46,7 @@ public class SicStatement extends BaseStatement {
             this.args = args;
         }
         this.format = 3;
-        this.size.set(this.format);
+        this.size = new HexNum(this.format);
     }
 
     /**
@@ -69,17 +69,47 @@ public class SicStatement extends BaseStatement {
     }
 
     /**
-     * Assembles the SIC statement into its machine code representation.
+     * Checks if the target of the statement is defined.
+     * Targets that are numbers are always resolved.
+     *
+     * @return true if the statement can be assembled now
+     */
+    @Override
+    public boolean isResolved() {
+        String target = this.args;
+        if (target.toUpperCase().replace(" ", "").contains(",X")) {
+            target = target.toUpperCase().replace(" ", "").replace(",X", "");
+        }
+        if (!target.isEmpty() && (target.charAt(0) == '#' || target.charAt(0) == '@')) {
+            target = target.substring(1);
+        }
+        return Utility.isNumeric(target) || this.symbols.getSharedSymbol(target, this.controlSection) != null;
+    }
+
+    /**
+     * Assembles the statement into its object code.
+     * The object code is generated into the code buffer the first time this is called.
+     *
+     * @return the object code of the statement
+     */
+    @Override
+    public String assemble() {
+        if (!isAssembled()) {
+            generateObjectCode();
+        }
+        return getObjectCode();
+    }
+
+    /**
+     * Generates the machine code of the SIC statement.
      * 
      * This method processes the arguments to determine the addressing mode and 
      * checks for the X flag. It then looks up the argument value in the symbol table or 
      * interprets it as a hexadecimal number. If the X flag is set, it adjusts 
      * the argument value to reflect indexed addressing.
-     * 
-     * @return A string representing the machine code of the SIC statement.
      */
     @Override
-    public String assemble() {
+    protected void generateObjectCode() {
         // check for the X flag
         // if the X flag exists, remove it from the args
         if (this.args.toUpperCase().replace(" ", "").contains(",X")) {
@@ -89,7 +119,8 @@ public class SicStatement extends BaseStatement {
 
         // check the addressing mode of the args
         if (this.args.isEmpty()) {
-            return this.opcode.toString(2) + "0000";
+            emitCode((this.opcode.getDec() & 0xFF) << 16, 6);
+            return;
         } else if (this.args.charAt(0) == '#') {
             this.args = this.args.substring(1);
         } else if (this.args.charAt(0) == '@') {
@@ -97,20 +128,18 @@ public class SicStatement extends BaseStatement {
         }
 
         // If an argument is given, find it in the symbol table
-        HexNum argValue;
-        if (SymTable.containsSymbol(this.args, this.controlSection)) {
-            argValue = SymTable.getSymbol(this.args, this.controlSection);
-        } else {
+        HexNum argValue = this.symbols.getSharedSymbol(this.args, this.controlSection);
+        if (argValue == null) {
             argValue = new HexNum(this.args, NumSystem.HEX);
         }
 
         // addresses are 15 bits with the 16th representing X
         // so we need to add a 1 to the front of the string
         if (this.xFlag) {
-            argValue = argValue.add(new HexNum("8000", NumSystem.HEX));
+            argValue = HexNum.valueOf(argValue.getDec() + 0x8000);
         }
 
-        return this.opcode.toString(2) + argValue.toString(4);
+        emitCode((this.opcode.getDec() & 0xFF) << 16 | (argValue.getDec() & 0xFFFF), 6);
     }
 
     /**
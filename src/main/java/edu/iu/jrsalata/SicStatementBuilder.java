@@ -26,6 +26,15 @@ public class SicStatementBuilder extends AbstractStatementBuilder {
         super();
     }
 
+    /**
+     * Constructs a new SicStatementBuilder object that stores symbols in the given context.
+     *
+     * @param symbols the symbol context to define and resolve symbols in
+     */
+    public SicStatementBuilder(SymbolContext symbols) {
+        super(symbols);
+    }
+
     /**
      * Processes a given assembly statement.
      * 
@@ -39,13 +48,13 @@ public class SicStatementBuilder extends AbstractStatementBuilder {
             return;
         }
         Statement newStatement;
+
+        // the event costs next to nothing unless the flight recorder is recording it
+        StatementEvent event = new StatementEvent();
+        event.begin();
         lineNum++;
         this.line = statement;
 
-        // replace each * with the current locctr
-        // since this can be used anywhere
-        statement = statement.replace("*", Integer.toString(this.getLocctr(this.block).getDec()));
-
         // get the parts of the statement
         String[] parts = splitStatement(statement);
         String mnemonic = parts[0];
@@ -57,31 +66,46 @@ public class SicStatementBuilder extends AbstractStatementBuilder {
             return;
         }
 
+        // find the opcode and format of the mnemonic with a single lookup
+        Instruction instruction = this.instructionSet.getInstruction(mnemonic);
+        if (instruction == null) {
+            throw mnemonicNotFound(mnemonic);
+        }
+        Format format = instruction.getFormat();
+
         // generate a new statement based on its format
-        switch (this.formatTable.get(mnemonic)) {
-            case SIC -> newStatement = createSicStatement(mnemonic, args);
+        // SIC/XE instructions are not part of the SIC instruction set
+        switch (format) {
+            case SIC -> newStatement = createSicStatement(instruction, args);
             case ASM -> newStatement = handleAsmStatement(mnemonic, args);
-            default -> {
-                StringBuilder msg = new StringBuilder("SIC Mnemonic '");
-                msg.append(mnemonic);
-                msg.append("' not found");
-                throw new InvalidAssemblyFileException(lineNum, msg.toString());
-            }
+            default -> throw mnemonicNotFound(mnemonic);
         }
         this.addLocctr(newStatement.getSize());
         this.addStatement(newStatement);
+        commitStatement(event, mnemonic, format);
+    }
+
+    /**
+     * Creates the exception for a mnemonic that is not part of the SIC instruction set.
+     *
+     * @param mnemonic the mnemonic that was not found.
+     * @return the exception to throw for the current line.
+     */
+    private InvalidAssemblyFileException mnemonicNotFound(String mnemonic) {
+        StringBuilder msg = new StringBuilder("SIC Mnemonic '");
+        msg.append(mnemonic);
+        msg.append("' not found");
+        return new InvalidAssemblyFileException(lineNum, msg.toString());
     }
 
     /**
      * Creates a SIC statement using the provided mnemonic and arguments.
      *
-     * @param mnemonic the mnemonic representing the operation code.
+     * @param instruction the instruction representing the operation code.
      * @param args the arguments for the SIC statement.
      * @return a new SicStatement object containing the location counter, opcode, and arguments.
      */
-    private SicStatement createSicStatement(String mnemonic, String args) {
-
-        HexNum opcode = this.instructionTable.get(mnemonic);
-        return new SicStatement(this.getLocctr(), opcode, args);
+    private SicStatement createSicStatement(Instruction instruction, String args) {
+        return new SicStatement(this.getLocctr(), instruction.getOpcode(), args);
     }
 }
@@ -31,13 +31,25 @@ public class SingleStatement extends BaseStatement {
     }
 
     /**
-     * Assembles the opcode into its hex string representation.
+     * Assembles the statement into its object code.
+     * The object code is generated into the code buffer the first time this is called.
      *
-     * @return A hex string representation of the opcode.
+     * @return the object code of the statement
      */
     @Override
     public String assemble() {
-        return this.opcode.toString(2);
+        if (!isAssembled()) {
+            generateObjectCode();
+        }
+        return getObjectCode();
+    }
+
+    /**
+     * Generates the object code, which is only the opcode.
+     */
+    @Override
+    protected void generateObjectCode() {
+        emitCode(this.opcode.getDec() & 0xFF, 2);
     }
 
     /**
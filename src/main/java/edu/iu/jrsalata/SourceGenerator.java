@@ -0,0 +1,572 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The SourceGenerator class writes valid SIC/XE programs of any size for scale and stress testing.
+ *
+ * A program is generated from a seed, so the same seed and settings always give the same program.
+ * The settings are the number of instruction lines, data labels, control sections, USE blocks
+ * besides the default block, literal operands, macro definitions, and EXTREF symbols of each
+ * control section.
+ *
+ * Instructions are grouped into chunks of {@link #CHUNK_LINES} lines. A chunk starts with a label,
+ * is followed by the data labels it was given, and stays in one program block, so a format 3
+ * instruction only refers to its own chunk and is always in reach of PC relative addressing.
+ * Anything else, like data labels of other chunks, literals, and external references,
+ * is reached with format 4. Chunks take turns between the program blocks, and control sections
+ * export words for the EXTREF symbols of the other control sections.
+ *
+ * Generated names are a letter followed by a number in base 36, so they stay within
+ * {@link SymTable#MAX_LEN} characters.
+ */
+public class SourceGenerator {
+
+    /**
+     * The number of instruction lines in each chunk
+     */
+    public static final int CHUNK_LINES = 8;
+
+    /**
+     * The number of data labels at the start of a chunk that its format 3 instructions refer to,
+     * which keeps them in reach however many labels the chunk has
+     */
+    static final int NEAR_LABELS = 64;
+
+    /**
+     * Mnemonics of format 2 instructions with their registers
+     */
+    private static final String[] REGISTER_INSTRUCTIONS = {
+        "CLEAR\tX", "CLEAR\tA", "CLEAR\tS", "COMPR\tA,S", "TIXR\tT", "ADDR\tS,A",
+    };
+
+    /**
+     * Mnemonics of instructions that take a memory operand
+     */
+    private static final String[] MEMORY_INSTRUCTIONS = { "LDA", "STA", "ADD", "SUB", "COMP", "LDX", "STX", "LDT" };
+
+    /**
+     * Mnemonics of instructions that take an immediate operand
+     */
+    private static final String[] IMMEDIATE_INSTRUCTIONS = { "LDA", "ADD", "COMP", "LDT", "LDX" };
+
+    /**
+     * Constants used for literals, so the same literal is often used more than once
+     */
+    private static final String[] LITERALS = { "C'EOF'", "X'05'", "X'F1'", "C'A'", "X'0F'", "C'SICXE'" };
+
+    /**
+     * Lines a macro body is made from
+     */
+    private static final String[] MACRO_LINES = { "LDA\t&A", "ADD\t&B", "COMP\t&A", "CLEAR\tX", "TIXR\tT", "LDT\t&B" };
+
+    /**
+     * The seed of the random choices
+     */
+    private long seed;
+
+    /**
+     * The number of instruction lines
+     */
+    private int lines = 1000;
+
+    /**
+     * The number of data labels
+     */
+    private int labels = 100;
+
+    /**
+     * The number of control sections
+     */
+    private int sections = 1;
+
+    /**
+     * The number of USE blocks besides the default block in each control section
+     */
+    private int blocks;
+
+    /**
+     * The number of literal operands
+     */
+    private int literals;
+
+    /**
+     * The number of macro definitions
+     */
+    private int macros;
+
+    /**
+     * The number of EXTREF symbols of each control section
+     */
+    private int externalReferences;
+
+    /**
+     * Sets the seed of the random choices.
+     *
+     * @param seed the seed
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the number of instruction lines, not counting directives, data, or macro bodies.
+     * The lines are rounded up to whole chunks, with at least one chunk in each control section.
+     *
+     * @param lines the number of instruction lines
+     */
+    public void setLines(int lines) {
+        this.lines = requireCount(lines, "lines");
+    }
+
+    /**
+     * Sets the number of data labels, each of which is a WORD, RESW, or BYTE.
+     *
+     * @param labels the number of data labels
+     */
+    public void setLabels(int labels) {
+        this.labels = requireCount(labels, "labels");
+    }
+
+    /**
+     * Sets the number of control sections.
+     *
+     * @param sections the number of control sections, at least 1
+     */
+    public void setSections(int sections) {
+        if (sections < 1) {
+            throw new IllegalArgumentException("sections must be at least 1");
+        }
+        this.sections = sections;
+    }
+
+    /**
+     * Sets the number of USE blocks besides the default block in each control section.
+     *
+     * @param blocks the number of USE blocks
+     */
+    public void setBlocks(int blocks) {
+        this.blocks = requireCount(blocks, "blocks");
+    }
+
+    /**
+     * Sets the number of literal operands. Literals are reused, so the pools can be smaller.
+     * There are never more literals than instruction lines.
+     *
+     * @param literals the number of literal operands
+     */
+    public void setLiterals(int literals) {
+        this.literals = requireCount(literals, "literals");
+    }
+
+    /**
+     * Sets the number of macro definitions.
+     *
+     * @param macros the number of macro definitions
+     */
+    public void setMacros(int macros) {
+        this.macros = requireCount(macros, "macros");
+    }
+
+    /**
+     * Sets the number of EXTREF symbols of each control section.
+     * A program with a single control section has nothing to refer to, so this is then ignored.
+     *
+     * @param externalReferences the number of EXTREF symbols of each control section
+     */
+    public void setExternalReferences(int externalReferences) {
+        this.externalReferences = requireCount(externalReferences, "externalReferences");
+    }
+
+    /**
+     * Generates the program.
+     *
+     * @return the source of the program
+     */
+    public String generate() {
+        StringBuilder source = new StringBuilder(this.lines * 16);
+        try {
+            generate(source);
+        } catch (IOException e) {
+            // a StringBuilder never throws
+            throw new IllegalStateException(e);
+        }
+        return source.toString();
+    }
+
+    /**
+     * Generates the program one line at a time.
+     *
+     * @param out where to write the source of the program
+     * @throws IOException if the program cannot be written
+     */
+    public void generate(Appendable out) throws IOException {
+        Random random = new Random(this.seed);
+        int chunks = Math.max(this.sections, (this.lines + CHUNK_LINES - 1) / CHUNK_LINES);
+        int references = this.sections > 1 ? this.externalReferences : 0;
+        int literalCount = Math.min(this.literals, chunks * CHUNK_LINES);
+
+        int chunk = 0;
+        int label = 0;
+        for (int section = 0; section < this.sections; section++) {
+
+            // every section gets an even share of the chunks, labels, and literals
+            int sectionChunks = share(chunks, section);
+            int sectionLabels = share(this.labels, section);
+            int sectionLiterals = share(literalCount, section);
+
+            if (section == 0) {
+                line(out, "PROG", "START", "0");
+                writeMacros(out, random);
+            } else {
+                line(out, "S" + name(section), "CSECT", "");
+            }
+            List<String> refers = new ArrayList<>();
+            if (references > 0) {
+                line(out, "", "EXTDEF", exports(section, references));
+                for (int i = 0; refers.size() < references; i++) {
+                    int other = (section + 1 + i % (this.sections - 1)) % this.sections;
+                    refers.add(export(other, i / (this.sections - 1) % references));
+                }
+                line(out, "", "EXTREF", String.join(",", refers));
+            }
+
+            Section current = new Section(random, chunk, label, sectionLabels, sectionLiterals,
+                    sectionChunks * CHUNK_LINES, refers);
+            int block = 0;
+            for (int i = 0; i < sectionChunks; i++) {
+
+                // chunks take turns between the program blocks
+                int chunkBlock = i % (this.blocks + 1);
+                if (chunkBlock != block) {
+                    line(out, "", "USE", chunkBlock == 0 ? "" : "B" + name(chunkBlock));
+                    block = chunkBlock;
+                }
+                int firstLabel = label + share(sectionLabels, i, sectionChunks, true);
+                int labelCount = share(sectionLabels, i, sectionChunks, false);
+                current.writeChunk(out, chunk + i, firstLabel, labelCount);
+            }
+            if (block != 0) {
+                line(out, "", "USE", "");
+            }
+
+            // the words the other sections refer to, then the literal pool
+            for (int i = 0; i < references; i++) {
+                line(out, export(section, i), "WORD", Integer.toString(i));
+            }
+            line(out, "", "LTORG", "");
+
+            chunk += sectionChunks;
+            label += sectionLabels;
+        }
+        line(out, "", "END", "PROG");
+    }
+
+    /**
+     * Writes the macro definitions. Each macro has two parameters, &A and &B,
+     * which are given a label of the current chunk or an immediate value.
+     *
+     * @param out where to write the definitions
+     * @param random the random choices
+     * @throws IOException if the definitions cannot be written
+     */
+    private void writeMacros(Appendable out, Random random) throws IOException {
+        for (int i = 0; i < this.macros; i++) {
+            line(out, "M" + name(i), "MACRO", "&A,&B");
+            int bodyLines = 2 + random.nextInt(4);
+            for (int j = 0; j < bodyLines; j++) {
+                out.append('\t').append(MACRO_LINES[random.nextInt(MACRO_LINES.length)]).append('\n');
+            }
+            line(out, "", "MEND", "");
+        }
+    }
+
+    /**
+     * The Section class generates the chunks of one control section.
+     */
+    private final class Section {
+
+        /**
+         * The random choices
+         */
+        private final Random random;
+
+        /**
+         * The first chunk of the section
+         */
+        private final int firstChunk;
+
+        /**
+         * The first data label of the section
+         */
+        private final int firstLabel;
+
+        /**
+         * The number of data labels of the section
+         */
+        private final int labelCount;
+
+        /**
+         * The literals that still have to be used
+         */
+        private int literalsLeft;
+
+        /**
+         * The instruction lines that are still to be written
+         */
+        private int linesLeft;
+
+        /**
+         * The EXTREF symbols of the section
+         */
+        private final List<String> refers;
+
+        /**
+         * Constructs a new Section.
+         *
+         * @param random the random choices
+         * @param firstChunk the first chunk of the section
+         * @param firstLabel the first data label of the section
+         * @param labelCount the number of data labels of the section
+         * @param literals the number of literals of the section
+         * @param lines the number of instruction lines of the section
+         * @param refers the EXTREF symbols of the section
+         */
+        private Section(Random random, int firstChunk, int firstLabel, int labelCount, int literals, int lines,
+                List<String> refers) {
+            this.random = random;
+            this.firstChunk = firstChunk;
+            this.firstLabel = firstLabel;
+            this.labelCount = labelCount;
+            this.literalsLeft = literals;
+            this.linesLeft = lines;
+            this.refers = refers;
+        }
+
+        /**
+         * Writes a chunk: its instructions followed by its data labels.
+         *
+         * @param out where to write the chunk
+         * @param chunk the number of the chunk
+         * @param chunkLabel the first data label of the chunk
+         * @param chunkLabels the number of data labels of the chunk
+         * @throws IOException if the chunk cannot be written
+         */
+        private void writeChunk(Appendable out, int chunk, int chunkLabel, int chunkLabels) throws IOException {
+            for (int i = 0; i < CHUNK_LINES; i++) {
+                String label = i == 0 ? "C" + name(chunk) : "";
+                writeInstruction(out, label, chunk, chunkLabel, chunkLabels);
+                this.linesLeft--;
+            }
+            for (int i = 0; i < chunkLabels; i++) {
+                String label = "D" + name(chunkLabel + i);
+                switch (this.random.nextInt(4)) {
+                    case 0 -> line(out, label, "RESW", Integer.toString(1 + this.random.nextInt(3)));
+                    case 1 -> line(out, label, "BYTE", "C'" + name(this.random.nextInt(1 << 20)) + "'");
+                    default -> line(out, label, "WORD", Integer.toString(this.random.nextInt(1 << 20)));
+                }
+            }
+        }
+
+        /**
+         * Writes a single instruction line.
+         *
+         * @param out where to write the instruction
+         * @param label the label of the line, or an empty string
+         * @param chunk the number of the chunk
+         * @param chunkLabel the first data label of the chunk
+         * @param chunkLabels the number of data labels of the chunk
+         * @throws IOException if the instruction cannot be written
+         */
+        private void writeInstruction(Appendable out, String label, int chunk, int chunkLabel, int chunkLabels)
+                throws IOException {
+
+            // literals are spread out so that exactly the asked for number is used
+            if (this.literalsLeft > 0 && this.random.nextInt(this.linesLeft) < this.literalsLeft) {
+                this.literalsLeft--;
+                String operand = this.random.nextInt(3) == 0
+                        ? "=X'" + hex(this.random.nextInt(256)) + "'"
+                        : "=" + LITERALS[this.random.nextInt(LITERALS.length)];
+                line(out, label, this.random.nextBoolean() ? "+LDA" : "+COMP", operand);
+                return;
+            }
+
+            int choice = this.random.nextInt(10);
+
+            // a macro invocation never has a label, since the label would not be kept
+            if (choice == 9 && macros > 0 && label.isEmpty()) {
+                String macro = "M" + name(this.random.nextInt(macros));
+                line(out, "", macro, near(chunkLabel, chunkLabels) + "," + near(chunkLabel, chunkLabels));
+                return;
+            }
+            if (choice == 8 && !this.refers.isEmpty()) {
+                String refer = this.refers.get(this.random.nextInt(this.refers.size()));
+                line(out, label, this.random.nextBoolean() ? "+JSUB" : "+LDA", refer);
+                return;
+            }
+            switch (choice) {
+                case 0, 1 -> {
+                    String[] parts = REGISTER_INSTRUCTIONS[this.random.nextInt(REGISTER_INSTRUCTIONS.length)].split("\t");
+                    line(out, label, parts[0], parts[1]);
+                }
+                case 2, 3, 4 -> {
+                    String mnemonic = MEMORY_INSTRUCTIONS[this.random.nextInt(MEMORY_INSTRUCTIONS.length)];
+                    if (chunkLabels == 0) {
+                        line(out, label, "LDA", immediate());
+                    } else {
+                        String operand = "D" + name(chunkLabel + this.random.nextInt(Math.min(chunkLabels, NEAR_LABELS)));
+                        line(out, label, mnemonic, this.random.nextInt(4) == 0 ? operand + ",X" : operand);
+                    }
+                }
+                case 5 -> {
+                    if (this.labelCount == 0) {
+                        line(out, label, "+LDA", "#" + this.random.nextInt(1 << 20));
+                    } else {
+                        String operand = "D" + name(this.firstLabel + this.random.nextInt(this.labelCount));
+                        line(out, label, this.random.nextBoolean() ? "+LDA" : "+STA", operand);
+                    }
+                }
+                case 6 -> line(out, label, this.random.nextBoolean() ? "JLT" : "JEQ", "C" + name(chunk));
+                default -> {
+                    String mnemonic = IMMEDIATE_INSTRUCTIONS[this.random.nextInt(IMMEDIATE_INSTRUCTIONS.length)];
+                    line(out, label, mnemonic, immediate());
+                }
+            }
+        }
+
+        /**
+         * Chooses an operand that is in reach of a format 3 instruction of the chunk.
+         *
+         * @param chunkLabel the first data label of the chunk
+         * @param chunkLabels the number of data labels of the chunk
+         * @return a data label of the chunk, or an immediate value
+         */
+        private String near(int chunkLabel, int chunkLabels) {
+            if (chunkLabels == 0 || this.random.nextBoolean()) {
+                return immediate();
+            }
+            return "D" + name(chunkLabel + this.random.nextInt(Math.min(chunkLabels, NEAR_LABELS)));
+        }
+
+        /**
+         * Chooses an immediate operand that fits in a format 3 instruction.
+         *
+         * @return the operand
+         */
+        private String immediate() {
+            return "#" + this.random.nextInt(4096);
+        }
+    }
+
+    /**
+     * Writes a line of assembly with its fields separated by tabs.
+     *
+     * @param out where to write the line
+     * @param label the label, or an empty string
+     * @param mnemonic the mnemonic or directive
+     * @param operand the operand, or an empty string
+     * @throws IOException if the line cannot be written
+     */
+    private static void line(Appendable out, String label, String mnemonic, String operand) throws IOException {
+        out.append(label).append('\t').append(mnemonic);
+        if (!operand.isEmpty()) {
+            out.append('\t').append(operand);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Lists the words a control section exports.
+     *
+     * @param section the control section
+     * @param count the number of words
+     * @return the names of the words separated by commas
+     */
+    private static String exports(int section, int count) {
+        StringBuilder names = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                names.append(',');
+            }
+            names.append(export(section, i));
+        }
+        return names.toString();
+    }
+
+    /**
+     * Names a word that a control section exports.
+     *
+     * @param section the control section
+     * @param index the index of the word in the section
+     * @return the name of the word
+     */
+    private static String export(int section, int index) {
+        return "E" + name(section) + "N" + name(index);
+    }
+
+    /**
+     * Writes a number in base 36 for a generated name.
+     *
+     * @param number the number
+     * @return the number in upper case base 36
+     */
+    private static String name(int number) {
+        return Integer.toString(number, 36).toUpperCase();
+    }
+
+    /**
+     * Writes a byte as two hex digits.
+     *
+     * @param value the byte
+     * @return the hex digits
+     */
+    private static String hex(int value) {
+        return HexNum.appendHex(new StringBuilder(2), value, 2).toString();
+    }
+
+    /**
+     * Splits a count evenly between the control sections.
+     *
+     * @param count the count to split
+     * @param section the control section
+     * @return the share of the control section
+     */
+    private int share(int count, int section) {
+        return share(count, section, this.sections, false);
+    }
+
+    /**
+     * Splits a count evenly into parts, giving the first parts one more if it does not divide evenly.
+     *
+     * @param count the count to split
+     * @param part the part
+     * @param parts the number of parts
+     * @param offset true for the sum of the parts before this one, false for the size of this part
+     * @return the size of the part, or where it starts
+     */
+    private static int share(int count, int part, int parts, boolean offset) {
+        int base = count / parts;
+        int extra = count % parts;
+        if (offset) {
+            return part * base + Math.min(part, extra);
+        }
+        return base + (part < extra ? 1 : 0);
+    }
+
+    /**
+     * Checks that a setting is not negative.
+     *
+     * @param count the setting
+     * @param name the name of the setting
+     * @return the setting
+     */
+    private static int requireCount(int count, String name) {
+        if (count < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return count;
+    }
+}
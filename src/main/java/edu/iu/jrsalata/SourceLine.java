@@ -0,0 +1,417 @@
+package edu.iu.jrsalata;
+
+/**
+ * The SourceLine class splits a line of assembly into its fields in a single pass.
+ *
+ * The characters of the line are copied into a buffer that is reused for every line,
+ * and each field is recorded as a start and end index into that buffer, so lexing a
+ * line does not create any strings. Strings are only created when a field is asked for.
+ *
+ * A line is cleaned the same way as {@link Utility#cleanLine(String)}: everything from the
+ * first '.' is a comment and surrounding whitespace is removed. The rest is split into fields
+ * on whitespace, except inside quotes, so that constants like C'EOF' stay in one field.
+ * Like the builders, fields are read by position: one field is a mnemonic, two fields are
+ * a mnemonic and its operand, and three fields are a label, mnemonic, and operand.
+ *
+ * A SourceLine is not thread safe; each builder uses its own.
+ */
+public class SourceLine {
+
+    /**
+     * The number of fields a line can have before the arrays grow
+     */
+    private static final int DEFAULT_FIELDS = 4;
+
+    /**
+     * Holds the characters of the current line
+     */
+    private char[] buffer;
+
+    /**
+     * Number of characters of the current line in the buffer
+     */
+    private int length;
+
+    /**
+     * Start of each field in the buffer
+     */
+    private int[] starts;
+
+    /**
+     * End of each field in the buffer
+     */
+    private int[] ends;
+
+    /**
+     * Number of fields in the current line
+     */
+    private int fieldCount;
+
+    /**
+     * Start of the cleaned line in the buffer
+     */
+    private int contentStart;
+
+    /**
+     * End of the cleaned line in the buffer
+     */
+    private int contentEnd;
+
+    /**
+     * Index of the '.' that starts the comment, or -1 if there is no comment
+     */
+    private int commentStart;
+
+    /**
+     * The line that was last lexed, kept so the same line is not lexed twice
+     */
+    private String input;
+
+    /**
+     * The cleaned line, created the first time it is asked for
+     */
+    private String content;
+
+    /**
+     * Constructs a new SourceLine with no fields.
+     */
+    public SourceLine() {
+        this.buffer = new char[128];
+        this.starts = new int[DEFAULT_FIELDS];
+        this.ends = new int[DEFAULT_FIELDS];
+        this.commentStart = -1;
+        this.content = "";
+    }
+
+    /**
+     * Lexes the given line, replacing the previous one.
+     * If the line is the one that was last lexed, or the cleaned line returned by
+     * {@link #getContent()}, nothing is done. This includes the content of a line lexed
+     * from a character array, so a line read by a {@link SourceReader} is only lexed once.
+     *
+     * @param line the line to lex
+     * @return this SourceLine
+     */
+    public SourceLine lex(String line) {
+        if (line == this.input || line == this.content) {
+            return this;
+        }
+        this.input = line;
+        this.content = null;
+
+        this.length = line.length();
+        if (this.buffer.length < this.length) {
+            this.buffer = new char[Math.max(this.length, this.buffer.length * 2)];
+        }
+        line.getChars(0, this.length, this.buffer, 0);
+        scan();
+        return this;
+    }
+
+    /**
+     * Lexes part of a character array, replacing the previous line.
+     *
+     * @param chars the characters holding the line
+     * @param offset the index of the first character of the line
+     * @param count the number of characters in the line
+     * @return this SourceLine
+     */
+    public SourceLine lex(char[] chars, int offset, int count) {
+        this.input = null;
+        this.content = null;
+
+        this.length = count;
+        if (this.buffer.length < count) {
+            this.buffer = new char[Math.max(count, this.buffer.length * 2)];
+        }
+        System.arraycopy(chars, offset, this.buffer, 0, count);
+        scan();
+        return this;
+    }
+
+    /**
+     * Checks if the line has no statement, meaning it is blank or only a comment.
+     *
+     * @return true if there are no fields
+     */
+    public boolean isEmpty() {
+        return this.fieldCount == 0;
+    }
+
+    /**
+     * Retrieves the number of fields in the line.
+     *
+     * @return the number of fields
+     */
+    public int getFieldCount() {
+        return this.fieldCount;
+    }
+
+    /**
+     * Retrieves the start of a field in the buffer.
+     *
+     * @param index the index of the field
+     * @return the index of the first character of the field
+     */
+    public int getFieldStart(int index) {
+        return this.starts[index];
+    }
+
+    /**
+     * Retrieves the end of a field in the buffer.
+     *
+     * @param index the index of the field
+     * @return the index after the last character of the field
+     */
+    public int getFieldEnd(int index) {
+        return this.ends[index];
+    }
+
+    /**
+     * Retrieves the buffer holding the current line.
+     * The buffer is reused for the next line, so it should not be kept.
+     *
+     * @return the characters of the current line
+     */
+    public char[] getBuffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Retrieves a field as a String.
+     *
+     * @param index the index of the field
+     * @return the text of the field
+     */
+    public String getField(int index) {
+        return new String(this.buffer, this.starts[index], this.ends[index] - this.starts[index]);
+    }
+
+    /**
+     * Retrieves every field as a String.
+     *
+     * @return an array holding each field in order
+     */
+    public String[] getFields() {
+        String[] fields = new String[this.fieldCount];
+        for (int i = 0; i < this.fieldCount; i++) {
+            fields[i] = getField(i);
+        }
+        return fields;
+    }
+
+    /**
+     * Checks if a field is exactly the given text.
+     *
+     * @param index the index of the field
+     * @param text the text to compare with
+     * @return true if the field exists and matches the text
+     */
+    public boolean fieldEquals(int index, String text) {
+        if (index >= this.fieldCount) {
+            return false;
+        }
+        int start = this.starts[index];
+        if (this.ends[index] - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (this.buffer[start + i] != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the line is the given directive, either on its own or after a label.
+     * This is used for lines like CSECT and MACRO that may have a label but no operand.
+     *
+     * @param directive the directive to look for
+     * @return true if the first or second field is the directive
+     */
+    public boolean isDirective(String directive) {
+        return fieldEquals(0, directive) || fieldEquals(1, directive);
+    }
+
+    /**
+     * Retrieves the index of the label field.
+     *
+     * @return the index of the label, or -1 if the line does not have a label
+     */
+    public int getLabelIndex() {
+        return this.fieldCount == 3 ? 0 : -1;
+    }
+
+    /**
+     * Retrieves the index of the mnemonic field.
+     *
+     * @return the index of the mnemonic, or -1 if the line does not have a mnemonic
+     */
+    public int getMnemonicIndex() {
+        return switch (this.fieldCount) {
+            case 1, 2 -> 0;
+            case 3 -> 1;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Retrieves the index of the operand field.
+     *
+     * @return the index of the operand, or -1 if the line does not have an operand
+     */
+    public int getOperandIndex() {
+        return switch (this.fieldCount) {
+            case 2 -> 1;
+            case 3 -> 2;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Retrieves the label of the line.
+     *
+     * @return the label, or an empty string if there is none
+     */
+    public String getLabel() {
+        int index = getLabelIndex();
+        return index < 0 ? "" : getField(index);
+    }
+
+    /**
+     * Retrieves the mnemonic of the line.
+     *
+     * @return the mnemonic, or an empty string if there is none
+     */
+    public String getMnemonic() {
+        int index = getMnemonicIndex();
+        return index < 0 ? "" : getField(index);
+    }
+
+    /**
+     * Retrieves the operand of the line.
+     *
+     * @return the operand, or an empty string if there is none
+     */
+    public String getOperand() {
+        int index = getOperandIndex();
+        return index < 0 ? "" : getField(index);
+    }
+
+    /**
+     * Retrieves the comment of the line.
+     *
+     * @return the comment including its leading '.', or an empty string if there is none
+     */
+    public String getComment() {
+        if (this.commentStart < 0) {
+            return "";
+        }
+        int end = this.length;
+        while (end > this.commentStart && isWhitespace(this.buffer[end - 1])) {
+            end--;
+        }
+        return new String(this.buffer, this.commentStart, end - this.commentStart);
+    }
+
+    /**
+     * Retrieves the line without its comment or surrounding whitespace.
+     * If the line was already clean, the original String is returned.
+     *
+     * @return the cleaned line
+     */
+    public String getContent() {
+        if (this.content == null) {
+            if (this.input != null && this.contentStart == 0 && this.contentEnd == this.length) {
+                this.content = this.input;
+            } else {
+                this.content = new String(this.buffer, this.contentStart, this.contentEnd - this.contentStart);
+            }
+        }
+        return this.content;
+    }
+
+    /**
+     * Finds the fields, content, and comment of the line in the buffer in a single pass.
+     */
+    private void scan() {
+        this.fieldCount = 0;
+        this.commentStart = -1;
+        this.contentStart = 0;
+        this.contentEnd = 0;
+
+        boolean quoted = false;
+        int fieldStart = -1;
+        int i = 0;
+        for (; i < this.length; i++) {
+            char c = this.buffer[i];
+            if (quoted) {
+                if (c == '\'') {
+                    quoted = false;
+                }
+                continue;
+            }
+            if (c == '.') {
+                this.commentStart = i;
+                break;
+            }
+            if (isWhitespace(c)) {
+                if (fieldStart >= 0) {
+                    addField(fieldStart, i);
+                    fieldStart = -1;
+                }
+            } else {
+                if (fieldStart < 0) {
+                    fieldStart = i;
+                }
+                if (c == '\'') {
+                    quoted = true;
+                }
+            }
+        }
+        if (fieldStart >= 0) {
+            // a field that is still open either ends the line or a quote was never closed
+            int end = i;
+            while (end > fieldStart && isWhitespace(this.buffer[end - 1])) {
+                end--;
+            }
+            addField(fieldStart, end);
+        }
+
+        if (this.fieldCount > 0) {
+            this.contentStart = this.starts[0];
+            this.contentEnd = this.ends[this.fieldCount - 1];
+        }
+    }
+
+    /**
+     * Records a field, growing the arrays if needed.
+     *
+     * @param start the index of the first character of the field
+     * @param end the index after the last character of the field
+     */
+    private void addField(int start, int end) {
+        if (this.fieldCount == this.starts.length) {
+            int[] newStarts = new int[this.starts.length * 2];
+            int[] newEnds = new int[this.ends.length * 2];
+            System.arraycopy(this.starts, 0, newStarts, 0, this.fieldCount);
+            System.arraycopy(this.ends, 0, newEnds, 0, this.fieldCount);
+            this.starts = newStarts;
+            this.ends = newEnds;
+        }
+        this.starts[this.fieldCount] = start;
+        this.ends[this.fieldCount] = end;
+        this.fieldCount++;
+    }
+
+    /**
+     * Checks if a character separates fields, matching the \s character class.
+     *
+     * @param c the character to check
+     * @return true if c is a space, tab, line break, or form feed
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+}
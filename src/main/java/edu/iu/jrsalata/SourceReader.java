@@ -0,0 +1,46 @@
+package edu.iu.jrsalata;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface for reading the lines of an assembly source once, from start to end.
+ *
+ * Readers never rewind, so the input only has to be read a single time
+ * no matter how large it is.
+ */
+public interface SourceReader extends Closeable {
+
+    /**
+     * Reads the next line of the source, without its line terminator.
+     *
+     * @return the next line, or null if the end of the source has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public String readLine() throws IOException;
+
+    /**
+     * Reads the next line of the source and lexes it into the given SourceLine.
+     * Readers that can decode a line straight into the SourceLine override this
+     * so that no String is created for the line.
+     *
+     * @param line the SourceLine to lex the next line into
+     * @return true if a line was read, false if the end of the source has been reached
+     * @throws IOException if an I/O error occurs
+     */
+    public default boolean readLine(SourceLine line) throws IOException {
+        String next = readLine();
+        if (next == null) {
+            return false;
+        }
+        line.lex(next);
+        return true;
+    }
+
+    /**
+     * Retrieves the number of lines that have been read so far.
+     *
+     * @return the number of lines read
+     */
+    public int getLineNumber();
+}
@@ -25,6 +25,28 @@ public abstract class Statement {
      */
     protected String line;
 
+    /**
+     * codeBuffer holds the raw bytes of the object code once the statement has been assembled
+     */
+    protected ObjectCodeBuffer codeBuffer;
+
+    /**
+     * codeOffset is where the object code starts in codeBuffer,
+     * or -1 if the statement has not been assembled yet
+     */
+    protected int codeOffset = -1;
+
+    /**
+     * codeLength is the length of the object code in half-bytes
+     */
+    protected int codeLength;
+
+    /**
+     * symbols is the symbol context the statement is resolved against
+     * Defaults to the shared context behind SymTable
+     */
+    protected SymbolContext symbols = SymTable.getContext();
+
     
     /**
      * Protected constructor for the Statement class.
@@ -95,6 +117,24 @@ public abstract class Statement {
         return this.line;
     }
 
+    /**
+     * Retrieves the symbol context this statement is resolved against.
+     *
+     * @return the SymbolContext of the statement
+     */
+    public SymbolContext getSymbolContext() {
+        return this.symbols;
+    }
+
+    /**
+     * Sets the symbol context this statement is resolved against.
+     *
+     * @param symbols the SymbolContext to set
+     */
+    public void setSymbolContext(SymbolContext symbols) {
+        this.symbols = symbols;
+    }
+
     /**
      * Sets the line of the statement.
      *
@@ -130,8 +170,151 @@ public abstract class Statement {
      */
     public abstract void accept(VisitorInterface visitor);
 
+    /**
+     * Checks if every symbol the statement needs in order to be assembled is defined.
+     * Statements that refer to a symbol defined later in the section are not resolved yet.
+     *
+     * @return true if the statement can be assembled now
+     */
+    public boolean isResolved() {
+        return true;
+    }
+
+    /**
+     * Checks if the object code of the statement has already been produced.
+     *
+     * @return true if the statement has been assembled
+     */
+    public boolean isAssembled() {
+        return this.codeOffset >= 0;
+    }
+
+    /**
+     * Sets the buffer the object code is written into.
+     * Builders give every statement of a control section the same buffer.
+     *
+     * @param codeBuffer the ObjectCodeBuffer to write into
+     */
+    public void setCodeBuffer(ObjectCodeBuffer codeBuffer) {
+        this.codeBuffer = codeBuffer;
+    }
+
+    /**
+     * Retrieves the buffer holding the object code.
+     *
+     * @return the ObjectCodeBuffer of the statement, or null if nothing has been written
+     */
+    public ObjectCodeBuffer getCodeBuffer() {
+        return this.codeBuffer;
+    }
+
+    /**
+     * Retrieves where the object code starts in the buffer.
+     *
+     * @return the offset of the object code, or -1 if the statement has not been assembled
+     */
+    public int getCodeOffset() {
+        return this.codeOffset;
+    }
+
+    /**
+     * Retrieves the length of the object code.
+     *
+     * @return the length of the object code in half-bytes, or 0 if the statement has not been assembled
+     */
+    public int getCodeLength() {
+        return this.codeLength;
+    }
+
+    /**
+     * Assembles the statement into its buffer if it has not been assembled yet.
+     *
+     * @return the length of the object code in half-bytes
+     * @throws InvalidAssemblyFileException if the assembly file is invalid or contains errors.
+     */
+    public int assembleCode() throws InvalidAssemblyFileException {
+        if (!isAssembled()) {
+            generateObjectCode();
+        }
+        return this.codeLength;
+    }
+
+    /**
+     * Appends the object code to a StringBuilder as upper case hex.
+     * The statement must already be assembled.
+     *
+     * @param sb the StringBuilder to append to
+     * @return the given StringBuilder
+     */
+    public StringBuilder appendObjectCode(StringBuilder sb) {
+        return this.codeBuffer.appendHexTo(sb, this.codeOffset, this.codeLength);
+    }
+
+    /**
+     * Writes the object code into a char array as upper case hex.
+     * The statement must already be assembled.
+     *
+     * @param dest the array to write into, which must have room for the code
+     * @param destOffset the index of the first digit
+     * @return the index after the last written digit
+     */
+    public int writeObjectCode(char[] dest, int destOffset) {
+        return this.codeBuffer.writeHexTo(dest, destOffset, this.codeOffset, this.codeLength);
+    }
+
+    /**
+     * Writes the object code into the buffer as a value with a fixed number of half-bytes.
+     *
+     * @param value the object code
+     * @param nibbles the length of the object code in half-bytes
+     */
+    protected void emitCode(long value, int nibbles) {
+        ensureCodeBuffer();
+        this.codeOffset = this.codeBuffer.append(value, nibbles);
+        this.codeLength = nibbles;
+    }
+
+    /**
+     * Writes object code given as hex digits into the buffer.
+     *
+     * @param hex the object code as hex
+     */
+    protected void emitCode(String hex) {
+        ensureCodeBuffer();
+        this.codeOffset = this.codeBuffer.appendHex(hex);
+        this.codeLength = hex.length();
+    }
+
+    /**
+     * Creates a buffer for a statement that was never given one, such as one made on its own.
+     */
+    private void ensureCodeBuffer() {
+        if (this.codeBuffer == null) {
+            this.codeBuffer = new ObjectCodeBuffer(8);
+        }
+    }
+
+    /**
+     * Retrieves the object code as upper case hex.
+     * The statement must already be assembled.
+     *
+     * @return the object code as hex
+     */
+    protected String getObjectCode() {
+        return this.codeBuffer.toHex(this.codeOffset, this.codeLength);
+    }
+
+    /**
+     * Writes the object code of the statement into its buffer with emitCode.
+     *
+     * @throws InvalidAssemblyFileException if the assembly file is invalid or contains errors.
+     */
+    protected abstract void generateObjectCode() throws InvalidAssemblyFileException;
+
     /**
      * Assembles the statement into its corresponding representation
+     * The object code is only produced the first time this is called and kept as raw bytes
+     * in the statement's buffer; the hex text is created from those bytes.
      *
      * @return A string representing the assembled statement.
      * @throws InvalidAssemblyFileException if the assembly file is invalid or contains errors.
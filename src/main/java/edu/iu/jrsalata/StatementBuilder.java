@@ -23,6 +23,15 @@ public class StatementBuilder extends AbstractStatementBuilder {
         super();
     }
 
+    /**
+     * Constructor for StatementBuilder that stores symbols in the given context.
+     *
+     * @param symbols the symbol context to define and resolve symbols in
+     */
+    public StatementBuilder(SymbolContext symbols) {
+        super(symbols);
+    }
+
     /**
      * Processes an assembly statement and generates a corresponding Statement object.
      * 
@@ -31,7 +40,10 @@ public class StatementBuilder extends AbstractStatementBuilder {
      */
     @Override
     public void processStatement(String statement) throws InvalidAssemblyFileException {
-        Statement newStatement;
+
+        // the event costs next to nothing unless the flight recorder is recording it
+        StatementEvent event = new StatementEvent();
+        event.begin();
 
         // to keep an accurate lineNum count, increment before any processing is done
         lineNum++;
@@ -39,19 +51,60 @@ public class StatementBuilder extends AbstractStatementBuilder {
         // ensure that we have the most up to date line
         this.line = statement;
 
-        // flag for format 4
-        boolean eFlag = false;
-
-        // replace each * with the current locctr
-        // since this can be used anywhere
-        statement = statement.replace("*", Integer.toString(this.getLocctr(this.block).getDec()));
-
         // note that we are checking if there is a valid expression for args
         // since *-n is a valid expression
         String[] parts = splitStatement(statement);
         String mnemonic = parts[0];
         String args = evaluateExpression(parts[1]);
-        String label = parts[2];
+
+        // since some mnemonics may contain '+' at the beginning, we want to remove it
+        // for comparisons sake, and flag the statement as format 4
+        boolean eFlag = false;
+        if (!mnemonic.isEmpty() && mnemonic.charAt(0) == '+') {
+            eFlag = true;
+            mnemonic = mnemonic.substring(1);
+        }
+
+        processFields(event, mnemonic, eFlag, args, null);
+    }
+
+    /**
+     * Processes a line of an expanded macro. The fields and instruction of the line were found
+     * when the macro was defined, so only its label and literal are handled before it is processed,
+     * and a line without fields is processed like a line of the source file.
+     *
+     * @param macroLine the line of the expanded macro
+     * @throws InvalidAssemblyFileException If the statement is invalid or contains errors.
+     */
+    protected void processMacroLine(MacroLine macroLine) throws InvalidAssemblyFileException {
+        if (!macroLine.isBound()) {
+            processStatement(macroLine.getLine());
+            return;
+        }
+
+        StatementEvent event = new StatementEvent();
+        event.begin();
+        lineNum++;
+        this.line = macroLine.getLine();
+
+        String args = bindFields(macroLine.getLabel(), macroLine.getMnemonic(), macroLine.getArgs());
+        args = evaluateExpression(args);
+        processFields(event, macroLine.getMnemonic(), macroLine.isExtended(), args, macroLine.getInstruction());
+    }
+
+    /**
+     * Generates the Statement of a line whose fields have been handled, or expands it if it is a macro.
+     *
+     * @param event the event started before the line was processed
+     * @param mnemonic the mnemonic of the statement without a leading '+'
+     * @param eFlag true if the statement is format 4
+     * @param args the evaluated operand of the statement
+     * @param instruction the instruction of the mnemonic if it is already known, or null to look it up
+     * @throws InvalidAssemblyFileException If the statement is invalid or contains errors.
+     */
+    private void processFields(StatementEvent event, String mnemonic, boolean eFlag, String args,
+            Instruction instruction) throws InvalidAssemblyFileException {
+        Statement newStatement;
 
         // check if mnemonic is empty
         // if so, return null since there is nothing to do
@@ -59,40 +112,56 @@ public class StatementBuilder extends AbstractStatementBuilder {
             return;
         }
 
-        // since some mnemonics may contain '+' at the beginning, we want to remove it
-        // for comparisons sake
-        if (mnemonic.charAt(0) == '+') {
-            eFlag = true;
-            mnemonic = mnemonic.substring(1);
-        }
-
         // check if it is a macro before looking for a mnemonic
-        if (SymTable.getMacroKeys().contains(mnemonic)) {
-
-            // get the MP
-            MacroProcessorInterface processor = SymTable.getMacro(mnemonic);
+        // the label of the invocation has already been defined, and the finished macro is never changed
+        MacroProcessorInterface processor = findMacro(mnemonic);
+        if (processor != null) {
 
-            // set the processor's label to the current label
-            processor.setLabel(label);
+            // the expansion is recorded as a whole instead of as a statement
+            MacroEvent macroEvent = new MacroEvent();
+            macroEvent.begin();
+            int macroLine = lineNum;
 
             // find each of the given arguments for the macro
             String[] argsArray = args.split(",");
-            Queue<String> queue = processor.getLines(argsArray);
+            Queue<MacroLine> queue = processor.getStatements(argsArray);
+            int expanded = queue.size();
 
-            // recursively call this method so it is as if the statements are part of the file
+            // process each line so it is as if the statements are part of the file
+            // the fields of each line were found when the macro was defined, so it is not lexed again
             while (!queue.isEmpty()) {
-                this.processStatement(queue.poll());
+                this.processMacroLine(queue.poll());
             }
 
+            if (macroEvent.shouldCommit()) {
+                macroEvent.section = getName().trim();
+                macroEvent.line = macroLine;
+                macroEvent.macro = mnemonic;
+                macroEvent.arguments = argsArray.length;
+                macroEvent.lines = expanded;
+                macroEvent.commit();
+            }
             return;
         }
 
+        // find the opcode and format of the mnemonic with a single lookup,
+        // unless it was found when the macro holding the line was defined
+        if (instruction == null) {
+            instruction = this.instructionSet.getInstruction(mnemonic);
+        }
+        if (instruction == null) {
+            StringBuilder msg = new StringBuilder("Mnemonic '");
+            msg.append(mnemonic);
+            msg.append("' not found");
+            throw new InvalidAssemblyFileException(lineNum, msg.toString());
+        }
+
         // generate a new statement based on its format
-        switch (this.formatTable.get(mnemonic)) {
-            case ONE -> newStatement = createStatement(mnemonic);
-            case TWO -> newStatement = createRegStatement(mnemonic, args);
-            case THREE -> newStatement = createExtStatement(mnemonic, args, eFlag);
-            case SIC -> newStatement = createExtStatement(mnemonic, args, eFlag);
+        switch (instruction.getFormat()) {
+            case ONE -> newStatement = createStatement(instruction);
+            case TWO -> newStatement = createRegStatement(instruction, args);
+            case THREE -> newStatement = createExtStatement(instruction, args, eFlag);
+            case SIC -> newStatement = createExtStatement(instruction, args, eFlag);
             case ASM -> newStatement = handleAsmStatement(mnemonic, args);
             default -> {
 
@@ -109,6 +178,7 @@ public class StatementBuilder extends AbstractStatementBuilder {
         // the statement
         this.addLocctr(newStatement.getSize());
         this.addStatement(newStatement);
+        commitStatement(event, mnemonic, instruction.getFormat());
     }
 
     /**
@@ -142,29 +212,25 @@ public class StatementBuilder extends AbstractStatementBuilder {
     /**
      * Creates a Statement object for format 1 instructions.
      * 
-     * @param mnemonic The mnemonic of the instruction.
+     * @param instruction The instruction of the statement.
      * @return The generated Statement object.
      */
-    private Statement createStatement(String mnemonic) {
-        HexNum opcode = this.instructionTable.get(mnemonic);
-        return new SingleStatement(this.getLocctr(), opcode);
+    private Statement createStatement(Instruction instruction) {
+        return new SingleStatement(this.getLocctr(), instruction.getOpcode());
     }
 
     /**
      * Creates a RegisterStatement object for format 2 instructions.
      * 
-     * @param mnemonic The mnemonic of the instruction.
+     * @param instruction The instruction of the statement.
      * @param args The arguments for the instruction.
      * @return The generated RegisterStatement object.
      * @throws InvalidAssemblyFileException If the instruction is invalid or contains errors.
      */
-    private RegisterStatement createRegStatement(String mnemonic, String args) throws InvalidAssemblyFileException {
+    private RegisterStatement createRegStatement(Instruction instruction, String args) throws InvalidAssemblyFileException {
         RegisterStatement returnVal = new RegisterStatement();
         returnVal.setLocation(this.getLocctr());
-
-        // find the opcode of the mnemonic
-        HexNum opcode = this.instructionTable.get(mnemonic);
-        returnVal.setOpcode(opcode);
+        returnVal.setOpcode(instruction.getOpcode());
 
         // find both of the registers in parts[1]
         String[] registers = args.split(",");
@@ -173,14 +239,14 @@ public class StatementBuilder extends AbstractStatementBuilder {
         }
 
         // find each of the registers in the registerTable
-        HexNum reg1 = this.registerTable.get(registers[0]);
+        HexNum reg1 = this.instructionSet.getRegister(registers[0]);
 
         // setters ensure a null value can not be set
         returnVal.setReg1(reg1);
 
         // if there is a second register, set it
         if (registers.length == 2) {
-            HexNum reg2 = this.registerTable.get(registers[1]);
+            HexNum reg2 = this.instructionSet.getRegister(registers[1]);
             returnVal.setReg2(reg2);
         }
 
@@ -190,17 +256,14 @@ public class StatementBuilder extends AbstractStatementBuilder {
     /**
      * Creates an ExtendedStatement object for format 3 and 4 instructions.
      * 
-     * @param mnemonic The mnemonic of the instruction.
+     * @param instruction The instruction of the statement.
      * @param args The arguments for the instruction.
      * @param eFlag A flag indicating if the instruction is format 4.
      * @return The generated ExtendedStatement object.
      */
-    private ExtendedStatement createExtStatement(String mnemonic, String args, boolean eFlag) {
-        // find the opcode of the mnemonic
-        HexNum opcode = this.instructionTable.get(mnemonic);
-
+    private ExtendedStatement createExtStatement(Instruction instruction, String args, boolean eFlag) {
         // create the ExtendedStatement
-        ExtendedStatement returnVal = new ExtendedStatement(this.getLocctr(), opcode, args);
+        ExtendedStatement returnVal = new ExtendedStatement(this.getLocctr(), instruction.getOpcode(), args);
 
         // if there is an eFlag, set it
         if (eFlag) {
@@ -208,7 +271,7 @@ public class StatementBuilder extends AbstractStatementBuilder {
         }
 
         // check if the args is in an external reference
-        if (this.externalReferences.contains(Utility.lengthCheck(args))) {
+        if (this.isExternalReference(Utility.lengthCheck(args))) {
             returnVal.setExternalSymbol();
         }
 
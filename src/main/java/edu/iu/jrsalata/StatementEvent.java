@@ -0,0 +1,58 @@
+package edu.iu.jrsalata;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * The StatementEvent class is the JDK Flight Recorder event for processing one statement in
+ * the first pass, so a recording shows which source lines are expensive to assemble.
+ *
+ * Only statements that take longer than the threshold are recorded by default. Lines that
+ * invoke a macro are recorded as a {@link MacroEvent} instead, and the lines of the expansion
+ * are recorded as statements of their own.
+ *
+ * @see AbstractStatementBuilder#commitStatement(StatementEvent, String, Format)
+ */
+@Name("edu.iu.jrsalata.Statement")
+@Label("Assembler Statement")
+@Category({ "SIC/XE Assembler" })
+@Description("Processing of one statement in the first pass")
+@StackTrace(false)
+@Threshold("100 us")
+class StatementEvent extends Event {
+
+    /**
+     * The name of the control section
+     */
+    @Label("Control Section")
+    String section;
+
+    /**
+     * The line number of the statement in its section
+     */
+    @Label("Line Number")
+    int line;
+
+    /**
+     * The source of the statement
+     */
+    @Label("Source")
+    String source;
+
+    /**
+     * The mnemonic of the statement, without the '+' of format 4
+     */
+    @Label("Mnemonic")
+    String mnemonic;
+
+    /**
+     * The format of the instruction
+     */
+    @Label("Format")
+    String format;
+}
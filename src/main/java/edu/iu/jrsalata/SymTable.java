@@ -1,6 +1,5 @@
 package edu.iu.jrsalata;
 
-import java.util.HashMap;
 import java.util.Set;
 
 /**
@@ -8,6 +7,10 @@ import java.util.Set;
  * that can be used across other classes. It includes methods to add,
  * retrieve, and check symbols, blocks, and macros, as well as to clear the tables.
  * The symbol and block tables are organized by control sections.
+ *
+ * Every method delegates to a single shared {@link SymbolContext}. Builders, statements,
+ * and writers use this shared context unless they are given their own, so assemblies that
+ * need to run at the same time should each be given a separate SymbolContext instead.
  */
 public class SymTable {
 
@@ -18,22 +21,9 @@ public class SymTable {
     public static final int MAX_LEN = 6;
 
     /**
-     * Contains a separate symbolTable for each program block
-     * control section maps to a hashmap, which is then mapped to the symbol and its location as a HexNum
+     * The shared context used by every static method
      */
-    private static HashMap<String, HashMap<String, HexNum>> symbolTable;
-
-    /**
-     * Contains a separate blockTable for each program block
-     * control section maps to a hashmap, which is then mapped to the symbol name and its block
-     */ 
-    private static HashMap<String, HashMap<String, String>> blockTable;
-
-    /**
-     * Contains a separate macroTable for an entire program
-     * String maps to a MacroProcessorInterface, which contains the definition of the given macro
-     */
-    private static HashMap<String, MacroProcessorInterface> macroTable;
+    private static final SymbolContext context = new SymbolContext();
 
     /**
      * Private constructor for the SymTable class.
@@ -42,6 +32,15 @@ public class SymTable {
     private SymTable() {
     }
 
+    /**
+     * Retrieves the shared context that backs the static methods of this class.
+     *
+     * @return the shared SymbolContext
+     */
+    public static SymbolContext getContext() {
+        return context;
+    }
+
     /**
      * Adds a symbol to the symbol table with the specified location, block, and control section.
      * If the control section does not exist, it will be created.
@@ -52,10 +51,7 @@ public class SymTable {
      * @param controlSection the control section to which the symbol belongs
      */
     public static void addSymbol(String symbol, HexNum location, String block, String controlSection) {
-        createIfNotExists(controlSection);
-        symbol = Utility.lengthCheck(symbol);
-        symbolTable.get(controlSection).put(symbol, location);
-        SymTable.addBlock(symbol, block, controlSection);
+        context.addSymbol(symbol, location, block, controlSection);
     }
 
     /**
@@ -67,9 +63,7 @@ public class SymTable {
      * @param controlSection the control section where the block will be added
      */
     public static void addBlock(String symbol, String block, String controlSection) {
-        createIfNotExists(controlSection);
-        symbol = Utility.lengthCheck(symbol);
-        blockTable.get(controlSection).put(symbol, block);
+        context.addBlock(symbol, block, controlSection);
     }
 
     /**
@@ -79,8 +73,7 @@ public class SymTable {
      * @param processor the macro processor interface associated with the macro
      */
     public static void addMacro(String name, MacroProcessorInterface processor) {
-        createIfNotExists();
-        macroTable.put(name, processor);
+        context.addMacro(name, processor);
     }
 
     /**
@@ -90,8 +83,7 @@ public class SymTable {
      * @return the macro associated with the given name, or null if no such macro exists
      */
     public static MacroProcessorInterface getMacro(String name) {
-        createIfNotExists();
-        return macroTable.get(name);
+        return context.getMacro(name);
     }
 
     /**
@@ -100,8 +92,7 @@ public class SymTable {
      * @return a Set containing all the keys in the macro table.
      */
     public static Set<String> getMacroKeys() {
-        createIfNotExists();
-        return macroTable.keySet();
+        return context.getMacroKeys();
     }
 
     /**
@@ -113,9 +104,7 @@ public class SymTable {
      * @return the hexadecimal number associated with the symbol, or null if the symbol is not found
      */
     public static HexNum getSymbol(String symbol, String controlSection) {
-        createIfNotExists(controlSection);
-        symbol = Utility.lengthCheck(symbol);
-        return symbolTable.get(controlSection).get(symbol);
+        return context.getSymbol(symbol, controlSection);
     }
 
     /**
@@ -126,8 +115,7 @@ public class SymTable {
      * @return a set of keys from the symbol table for the specified control section
      */
     public static Set<String> getKeys(String controlSection) {
-        createIfNotExists(controlSection);
-        return symbolTable.get(controlSection).keySet();
+        return context.getKeys(controlSection);
     }
 
     /**
@@ -139,9 +127,7 @@ public class SymTable {
      * @return the block associated with the given symbol and control section
      */
     public static String getBlock(String symbol, String controlSection) {
-        createIfNotExists(controlSection);
-        symbol = Utility.lengthCheck(symbol);
-        return blockTable.get(controlSection).get(symbol);
+        return context.getBlock(symbol, controlSection);
     }
 
     /**
@@ -152,9 +138,7 @@ public class SymTable {
      * @return true if the symbol exists in the specified control section, false otherwise
      */
     public static boolean containsSymbol(String symbol, String controlSection) {
-        createIfNotExists(controlSection);
-        symbol = Utility.lengthCheck(symbol);
-        return symbolTable.get(controlSection).containsKey(symbol);
+        return context.containsSymbol(symbol, controlSection);
     }
 
     /**
@@ -165,48 +149,13 @@ public class SymTable {
      * @return true if the block table contains the symbol within the specified control section, false otherwise
      */
     public static boolean containsBlock(String symbol, String controlSection) {
-        createIfNotExists(controlSection);
-        symbol = Utility.lengthCheck(symbol);
-        return blockTable.get(controlSection).containsKey(symbol);
+        return context.containsBlock(symbol, controlSection);
     }
 
     /**
      * Clears all entries from the symbol table, block table, and macro table.
-     * This method ensures that the tables are created if they do not already exist
-     * before attempting to clear them.
      */
     public static void clear() {
-        createIfNotExists();
-        symbolTable.clear();
-        blockTable.clear();
-        macroTable.clear();
-    }
-
-    /**
-     * Initializes the symbolTable, blockTable, and macroTable if they are not already initialized.
-     * This method checks if each of the tables is null, and if so, creates a new HashMap for each.
-     */
-    private static void createIfNotExists() {
-        if (symbolTable == null) {
-            symbolTable = new HashMap<>();
-        }
-        if (blockTable == null) {
-            blockTable = new HashMap<>();
-        }
-        if (macroTable == null) {
-            macroTable = new HashMap<>();
-        }
-    }
-
-    /**
-     * Ensures that the specified control section exists in the symbol and block tables.
-     * If the control section does not exist, it is created and initialized with empty maps.
-     *
-     * @param controlSection the control section to check and create if it does not exist
-     */
-    private static void createIfNotExists(String controlSection) {
-        createIfNotExists();
-        symbolTable.putIfAbsent(controlSection, new HashMap<>());
-        blockTable.putIfAbsent(controlSection, new HashMap<>());
+        context.clear();
     }
 }
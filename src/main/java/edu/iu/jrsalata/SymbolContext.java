@@ -0,0 +1,393 @@
+package edu.iu.jrsalata;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The SymbolContext class holds the symbol table, block table, and macro table,
+ * and the cache of compiled expressions, for a single assembly. Each assembly can be given its own context so that
+ * several programs can be assembled at the same time in one JVM without sharing symbols.
+ *
+ * The symbol and block tables are backed by concurrent maps, and the macro table is copied
+ * whenever a macro is added, so a context can also be safely read and written from multiple threads.
+ * The symbol and block tables are organized by control sections.
+ *
+ * Symbols are stored by their packed {@link SymbolKey}, so every method that takes a symbol
+ * also has a version that takes the key directly. Locations are stored as plain ints
+ * and blocks by their index in a list of block names.
+ *
+ * @see SymTable
+ */
+public class SymbolContext {
+
+    /**
+     * Contains a separate symbolTable for each control section
+     * control section maps to a SymbolMap, which is then mapped from the symbol key to its location
+     */
+    private final ConcurrentHashMap<String, SymbolMap> symbolTable;
+
+    /**
+     * Contains a separate blockTable for each control section
+     * control section maps to a SymbolMap, which is then mapped from the symbol key to the index of its block
+     */
+    private final ConcurrentHashMap<String, SymbolMap> blockTable;
+
+    /**
+     * Maps each block name to its index in blockNames
+     */
+    private final ConcurrentHashMap<String, Integer> blockIds;
+
+    /**
+     * Holds the name of each block, in the order they were first seen
+     */
+    private final List<String> blockNames;
+
+    /**
+     * Contains the macroTable for an entire program
+     * String maps to a MacroProcessorInterface, which contains the definition of the given macro.
+     * The map is never changed; adding a macro replaces it with a copy, so a builder
+     * can keep the macros that were defined before its section while more are added.
+     */
+    private volatile Map<String, MacroProcessorInterface> macroTable;
+
+    /**
+     * Holds the compiled form of the expressions used by this assembly
+     */
+    private final ExpressionCache expressions;
+
+    /**
+     * Constructs a new SymbolContext with empty tables.
+     */
+    public SymbolContext() {
+        this.symbolTable = new ConcurrentHashMap<>();
+        this.blockTable = new ConcurrentHashMap<>();
+        this.blockIds = new ConcurrentHashMap<>();
+        this.blockNames = new ArrayList<>();
+        this.macroTable = Map.of();
+        this.expressions = new ExpressionCache(ExpressionCache.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Adds a symbol to the symbol table with the specified location, block, and control section.
+     * If the control section does not exist, it will be created.
+     *
+     * @param symbol the symbol to be added
+     * @param location the location of the symbol as a HexNum
+     * @param block the program block associated with the symbol
+     * @param controlSection the control section to which the symbol belongs
+     */
+    public void addSymbol(String symbol, HexNum location, String block, String controlSection) {
+        addSymbol(SymbolKey.pack(symbol), location.getDec(), block, controlSection);
+    }
+
+    /**
+     * Adds a block to the block table for a given control section.
+     * If the control section does not exist, it will be created.
+     *
+     * @param symbol the symbol to be added to the block table
+     * @param block the block associated with the symbol
+     * @param controlSection the control section where the block will be added
+     */
+    public void addBlock(String symbol, String block, String controlSection) {
+        addBlock(SymbolKey.pack(symbol), block, controlSection);
+    }
+
+    /**
+     * Adds a macro to the macro table.
+     *
+     * @param name the name of the macro to be added
+     * @param processor the macro processor interface associated with the macro
+     */
+    public synchronized void addMacro(String name, MacroProcessorInterface processor) {
+        Map<String, MacroProcessorInterface> macros = new HashMap<>(this.macroTable);
+        macros.put(name, processor);
+        this.macroTable = Collections.unmodifiableMap(macros);
+    }
+
+    /**
+     * Retrieves a macro from the macro table by its name.
+     *
+     * @param name the name of the macro to retrieve
+     * @return the macro associated with the given name, or null if no such macro exists
+     */
+    public MacroProcessorInterface getMacro(String name) {
+        return this.macroTable.get(name);
+    }
+
+    /**
+     * Retrieves every macro defined so far. The map does not change when more macros are added.
+     *
+     * @return an unmodifiable map from the name of each macro to its definition
+     */
+    public Map<String, MacroProcessorInterface> getMacros() {
+        return this.macroTable;
+    }
+
+    /**
+     * Retrieves the set of keys from the macro table.
+     *
+     * @return a Set containing all the keys in the macro table.
+     */
+    public Set<String> getMacroKeys() {
+        return this.macroTable.keySet();
+    }
+
+    /**
+     * Retrieves the cache of compiled expressions used by this assembly.
+     * Compiled expressions do not depend on the symbols, so the cache is not cleared with them.
+     *
+     * @return the ExpressionCache of this context
+     */
+    public ExpressionCache getExpressions() {
+        return this.expressions;
+    }
+
+    /**
+     * Retrieves the HexNum associated with the given symbol in the specified control section.
+     * If the control section does not exist, it will be created.
+     *
+     * @param symbol the symbol to look up
+     * @param controlSection the control section where the symbol is defined
+     * @return the hexadecimal number associated with the symbol, or null if the symbol is not found
+     */
+    public HexNum getSymbol(String symbol, String controlSection) {
+        return getSymbol(SymbolKey.pack(symbol), controlSection);
+    }
+
+    /**
+     * Retrieves the location of a symbol as a read only HexNum, which may be shared with other callers.
+     * The builders and statements of this package only read the locations they look up,
+     * so they use this instead of {@link #getSymbol(String, String)} to avoid a new HexNum for each lookup.
+     *
+     * @param symbol the symbol to look up
+     * @param controlSection the control section where the symbol is defined
+     * @return the location of the symbol, which must not be changed, or null if the symbol is not found
+     */
+    HexNum getSharedSymbol(String symbol, String controlSection) {
+        return getSharedSymbol(SymbolKey.pack(symbol), controlSection);
+    }
+
+    /**
+     * Retrieves the set of keys from the symbol table for the specified control section.
+     * If the control section does not exist, it will be created.
+     *
+     * @param controlSection the control section whose keys are to be retrieved
+     * @return a copy of the keys from the symbol table for the specified control section,
+     *         each padded to SymTable.MAX_LEN characters
+     */
+    public Set<String> getKeys(String controlSection) {
+        SymbolMap symbols = getSymbols(controlSection);
+        long[] keys;
+        synchronized (symbols) {
+            keys = symbols.keys();
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        for (long key : keys) {
+            result.add(SymbolKey.unpack(key));
+        }
+        return result;
+    }
+
+    /**
+     * Retrieves the block associated with the given symbol and control section.
+     * If the control section does not exist, it will be created.
+     *
+     * @param symbol the symbol whose block is to be retrieved
+     * @param controlSection the control section in which to look for the symbol
+     * @return the block associated with the given symbol and control section
+     */
+    public String getBlock(String symbol, String controlSection) {
+        return getBlock(SymbolKey.pack(symbol), controlSection);
+    }
+
+    /**
+     * Checks if the specified symbol exists in the symbol table for the given control section.
+     *
+     * @param symbol the symbol to check for existence
+     * @param controlSection the control section in which to check for the symbol
+     * @return true if the symbol exists in the specified control section, false otherwise
+     */
+    public boolean containsSymbol(String symbol, String controlSection) {
+        return containsSymbol(SymbolKey.pack(symbol), controlSection);
+    }
+
+    /**
+     * Checks if the block table contains the specified symbol within the given control section.
+     *
+     * @param symbol the symbol to check for in the block table
+     * @param controlSection the control section in which to check for the symbol
+     * @return true if the block table contains the symbol within the specified control section, false otherwise
+     */
+    public boolean containsBlock(String symbol, String controlSection) {
+        return containsBlock(SymbolKey.pack(symbol), controlSection);
+    }
+
+    /**
+     * Adds a symbol to the symbol table by its packed key.
+     * If the control section does not exist, it will be created.
+     *
+     * @param key the packed key of the symbol
+     * @param location the location of the symbol
+     * @param block the program block associated with the symbol
+     * @param controlSection the control section to which the symbol belongs
+     */
+    public void addSymbol(long key, int location, String block, String controlSection) {
+        SymbolMap symbols = getSymbols(controlSection);
+        synchronized (symbols) {
+            symbols.put(key, location);
+        }
+        addBlock(key, block, controlSection);
+    }
+
+    /**
+     * Adds a block to the block table by the packed key of its symbol.
+     * If the control section does not exist, it will be created.
+     *
+     * @param key the packed key of the symbol
+     * @param block the block associated with the symbol
+     * @param controlSection the control section where the block will be added
+     */
+    public void addBlock(long key, String block, String controlSection) {
+        int blockId = getBlockId(block);
+        SymbolMap blocks = getBlocks(controlSection);
+        synchronized (blocks) {
+            blocks.put(key, blockId);
+        }
+    }
+
+    /**
+     * Retrieves the location of a symbol by its packed key.
+     *
+     * @param key the packed key of the symbol
+     * @param controlSection the control section where the symbol is defined
+     * @return the location of the symbol as a HexNum, or null if the symbol is not found
+     */
+    public HexNum getSymbol(long key, String controlSection) {
+        HexNum location = getSharedSymbol(key, controlSection);
+        return location == null ? null : new HexNum(location.getDec());
+    }
+
+    /**
+     * Retrieves the location of a symbol by its packed key as a read only HexNum,
+     * which may be shared with other callers.
+     *
+     * @param key the packed key of the symbol
+     * @param controlSection the control section where the symbol is defined
+     * @return the location of the symbol, which must not be changed, or null if the symbol is not found
+     */
+    HexNum getSharedSymbol(long key, String controlSection) {
+        SymbolMap symbols = getSymbols(controlSection);
+        synchronized (symbols) {
+            // only probe a second time when the value could be the missing marker
+            int location = symbols.get(key, Integer.MIN_VALUE);
+            if (location == Integer.MIN_VALUE && !symbols.containsKey(key)) {
+                return null;
+            }
+            return HexNum.valueOf(location);
+        }
+    }
+
+    /**
+     * Retrieves the block of a symbol by its packed key.
+     *
+     * @param key the packed key of the symbol
+     * @param controlSection the control section in which to look for the symbol
+     * @return the block associated with the symbol, or null if the symbol has no block
+     */
+    public String getBlock(long key, String controlSection) {
+        SymbolMap blocks = getBlocks(controlSection);
+        int blockId;
+        synchronized (blocks) {
+            blockId = blocks.get(key, -1);
+        }
+        if (blockId < 0) {
+            return null;
+        }
+        synchronized (this.blockNames) {
+            return this.blockNames.get(blockId);
+        }
+    }
+
+    /**
+     * Checks if a symbol exists in the symbol table by its packed key.
+     *
+     * @param key the packed key of the symbol
+     * @param controlSection the control section in which to check for the symbol
+     * @return true if the symbol exists in the specified control section, false otherwise
+     */
+    public boolean containsSymbol(long key, String controlSection) {
+        SymbolMap symbols = getSymbols(controlSection);
+        synchronized (symbols) {
+            return symbols.containsKey(key);
+        }
+    }
+
+    /**
+     * Checks if the block table contains a symbol by its packed key.
+     *
+     * @param key the packed key of the symbol
+     * @param controlSection the control section in which to check for the symbol
+     * @return true if the block table contains the symbol within the specified control section, false otherwise
+     */
+    public boolean containsBlock(long key, String controlSection) {
+        SymbolMap blocks = getBlocks(controlSection);
+        synchronized (blocks) {
+            return blocks.containsKey(key);
+        }
+    }
+
+    /**
+     * Clears all entries from the symbol table, block table, and macro table.
+     */
+    public void clear() {
+        this.symbolTable.clear();
+        this.blockTable.clear();
+        this.macroTable = Map.of();
+    }
+
+    /**
+     * Retrieves the symbols of a control section, creating the table if it does not exist.
+     * Statements that were never given a control section use the unnamed section.
+     *
+     * @param controlSection the control section to look up
+     * @return the map of symbol keys to locations for the control section
+     */
+    private SymbolMap getSymbols(String controlSection) {
+        return this.symbolTable.computeIfAbsent(controlSection == null ? "" : controlSection,
+                key -> new SymbolMap());
+    }
+
+    /**
+     * Retrieves the blocks of a control section, creating the table if it does not exist.
+     * Statements that were never given a control section use the unnamed section.
+     *
+     * @param controlSection the control section to look up
+     * @return the map of symbol keys to block indexes for the control section
+     */
+    private SymbolMap getBlocks(String controlSection) {
+        return this.blockTable.computeIfAbsent(controlSection == null ? "" : controlSection,
+                key -> new SymbolMap());
+    }
+
+    /**
+     * Retrieves the index of a block name, giving it the next index if it has not been seen yet.
+     *
+     * @param block the name of the block
+     * @return the index of the block in blockNames
+     */
+    private int getBlockId(String block) {
+        return this.blockIds.computeIfAbsent(block, name -> {
+            synchronized (this.blockNames) {
+                this.blockNames.add(name);
+                return this.blockNames.size() - 1;
+            }
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package edu.iu.jrsalata;
+
+/**
+ * The SymbolKey class packs a symbol name into a single long so that symbols can be
+ * compared and hashed without creating any strings.
+ *
+ * A key is normalized the same way as {@link Utility#lengthCheck(String)}: surrounding
+ * whitespace is removed, the name is cut to {@link SymTable#MAX_LEN} characters, and it is
+ * converted to upper case. Each of the six characters is stored in one byte, so names are
+ * expected to be ASCII or Latin-1. Whitespace inside a name is stored as 0, which is also
+ * used for padding, so the empty symbol is the key 0.
+ *
+ * This class is not meant to be instantiated.
+ */
+public final class SymbolKey {
+
+    /**
+     * The key of the empty symbol
+     */
+    public static final long EMPTY = 0L;
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private SymbolKey() {
+    }
+
+    /**
+     * Packs the given symbol into a key.
+     *
+     * @param symbol the symbol to pack
+     * @return the packed key of the symbol
+     */
+    public static long pack(CharSequence symbol) {
+        return pack(symbol, 0, symbol.length());
+    }
+
+    /**
+     * Packs part of the given characters into a key.
+     *
+     * @param symbol the characters holding the symbol
+     * @param start the index of the first character of the symbol
+     * @param end the index after the last character of the symbol
+     * @return the packed key of the symbol
+     */
+    public static long pack(CharSequence symbol, int start, int end) {
+
+        // skip any surrounding whitespace
+        while (start < end && symbol.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && symbol.charAt(end - 1) <= ' ') {
+            end--;
+        }
+
+        // place each character in its own byte, starting from the highest byte
+        long key = 0;
+        int length = Math.min(end - start, SymTable.MAX_LEN);
+        for (int i = 0; i < length; i++) {
+            key = (key << 8) | encode(symbol.charAt(start + i));
+        }
+        return key << (8 * (SymTable.MAX_LEN - length));
+    }
+
+    /**
+     * Packs part of the given character array into a key.
+     *
+     * @param symbol the array holding the symbol
+     * @param start the index of the first character of the symbol
+     * @param end the index after the last character of the symbol
+     * @return the packed key of the symbol
+     */
+    public static long pack(char[] symbol, int start, int end) {
+        while (start < end && symbol[start] <= ' ') {
+            start++;
+        }
+        while (end > start && symbol[end - 1] <= ' ') {
+            end--;
+        }
+
+        long key = 0;
+        int length = Math.min(end - start, SymTable.MAX_LEN);
+        for (int i = 0; i < length; i++) {
+            key = (key << 8) | encode(symbol[start + i]);
+        }
+        return key << (8 * (SymTable.MAX_LEN - length));
+    }
+
+    /**
+     * Converts a key back into its symbol.
+     * The result matches {@link Utility#lengthCheck(String)} of the original symbol.
+     *
+     * @param key the key to convert
+     * @return the symbol padded to SymTable.MAX_LEN characters, or an empty string for the empty key
+     */
+    public static String unpack(long key) {
+        if (key == EMPTY) {
+            return "";
+        }
+        char[] chars = new char[SymTable.MAX_LEN];
+        for (int i = 0; i < SymTable.MAX_LEN; i++) {
+            int c = (int) (key >>> (8 * (SymTable.MAX_LEN - 1 - i))) & 0xFF;
+            chars[i] = c == 0 ? ' ' : (char) c;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Converts a single character into the byte stored in a key.
+     *
+     * @param c the character to convert
+     * @return the upper case value of the character, 0 for whitespace, or '?' if it does not fit in a byte
+     */
+    private static int encode(char c) {
+        if (c <= ' ') {
+            return 0;
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - ('a' - 'A');
+        }
+        if (c < 0x80) {
+            return c;
+        }
+        char upper = Character.toUpperCase(c);
+        if (upper <= 0xFF) {
+            return upper;
+        }
+        return c <= 0xFF ? c : '?';
+    }
+}
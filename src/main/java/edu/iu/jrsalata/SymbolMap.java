@@ -0,0 +1,204 @@
+package edu.iu.jrsalata;
+
+import java.util.Arrays;
+
+/**
+ * The SymbolMap class is an open-addressing hash map from packed symbol keys to int values.
+ * Keys and values are stored in primitive arrays, so lookups do not create any objects.
+ *
+ * Collisions are handled with linear probing and the table doubles in size when it is
+ * more than half full. The empty key is stored outside of the table since 0 marks a free slot.
+ *
+ * This class is not thread safe. Callers that share a map between threads must synchronize on it.
+ *
+ * @see SymbolKey
+ */
+public class SymbolMap {
+
+    /**
+     * The default number of slots in a new map
+     */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /**
+     * Holds the key of each slot, 0 if the slot is free
+     */
+    private long[] keys;
+
+    /**
+     * Holds the value of each slot
+     */
+    private int[] values;
+
+    /**
+     * Number of keys stored in the table, not counting the empty key
+     */
+    private int size;
+
+    /**
+     * true if the empty key has a value
+     */
+    private boolean hasEmptyKey;
+
+    /**
+     * The value of the empty key, if it has one
+     */
+    private int emptyKeyValue;
+
+    /**
+     * Constructs a new SymbolMap with the default capacity.
+     */
+    public SymbolMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new SymbolMap that can hold the given number of keys before it grows.
+     *
+     * @param expectedSize the number of keys expected in the map
+     */
+    public SymbolMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+    }
+
+    /**
+     * Associates the given value with the given key, replacing any previous value.
+     *
+     * @param key the packed key
+     * @param value the value to store
+     */
+    public void put(long key, int value) {
+        if (key == SymbolKey.EMPTY) {
+            this.hasEmptyKey = true;
+            this.emptyKeyValue = value;
+            return;
+        }
+
+        int slot = findSlot(this.keys, key);
+        if (this.keys[slot] == key) {
+            this.values[slot] = value;
+            return;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.size++;
+
+        // keep the table at most half full so probe sequences stay short
+        if (this.size * 2 > this.keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Retrieves the value associated with the given key.
+     *
+     * @param key the packed key
+     * @param missing the value to return if the key is not in the map
+     * @return the value of the key, or missing if the key is not in the map
+     */
+    public int get(long key, int missing) {
+        if (key == SymbolKey.EMPTY) {
+            return this.hasEmptyKey ? this.emptyKeyValue : missing;
+        }
+        int slot = findSlot(this.keys, key);
+        return this.keys[slot] == key ? this.values[slot] : missing;
+    }
+
+    /**
+     * Checks if the given key is in the map.
+     *
+     * @param key the packed key
+     * @return true if the key is in the map, false otherwise
+     */
+    public boolean containsKey(long key) {
+        if (key == SymbolKey.EMPTY) {
+            return this.hasEmptyKey;
+        }
+        return this.keys[findSlot(this.keys, key)] == key;
+    }
+
+    /**
+     * Returns the number of keys in the map.
+     *
+     * @return the number of keys in the map
+     */
+    public int size() {
+        return this.hasEmptyKey ? this.size + 1 : this.size;
+    }
+
+    /**
+     * Returns a copy of every key in the map.
+     *
+     * @return an array containing each key in the map
+     */
+    public long[] keys() {
+        long[] result = new long[size()];
+        int index = 0;
+        if (this.hasEmptyKey) {
+            result[index++] = SymbolKey.EMPTY;
+        }
+        for (long key : this.keys) {
+            if (key != SymbolKey.EMPTY) {
+                result[index++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes every key from the map.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, SymbolKey.EMPTY);
+        this.size = 0;
+        this.hasEmptyKey = false;
+    }
+
+    /**
+     * Doubles the size of the table and moves every key into it.
+     */
+    private void grow() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.keys = new long[oldKeys.length * 2];
+        this.values = new int[oldKeys.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != SymbolKey.EMPTY) {
+                int slot = findSlot(this.keys, oldKeys[i]);
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the slot that holds the given key, or the free slot where it would be placed.
+     *
+     * @param table the table of keys to search
+     * @param key the non-empty key to find
+     * @return the index of the slot
+     */
+    private static int findSlot(long[] table, long key) {
+        int mask = table.length - 1;
+        int slot = hash(key) & mask;
+        while (table[slot] != SymbolKey.EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Spreads the bits of a key so that similar symbols land in different slots.
+     *
+     * @param key the key to hash
+     * @return the hash of the key
+     */
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,308 @@
+package edu.iu.jrsalata;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * The TextRecordWriter class groups statements into text records one statement at a time.
+ *
+ * Statements are added in source order. Each one is assembled and its object code is added to
+ * the current record, which is written once the next statement does not fit in it, is in another
+ * program block, or follows a statement that reserved space without producing any code.
+ * This lets text records be written while the rest of the section is still being read,
+ * and gives the same records as writing every statement at once.
+ *
+ * The records can also be given to a {@link BinaryObjectEncoder} instead of a Writer,
+ * which copies the object code of the statements of each record without rendering it as hex.
+ *
+ * The text record consists of:
+ * - 'T' character at the beginning
+ * - Starting address (columns 2-7)
+ * - Length (in bytes) (columns 8-9)
+ * - Object code (10-69)
+ *
+ * @see ObjectWriter#writeTextRecords(Writer, Queue, AbstractStatementBuilder, Writer)
+ */
+public class TextRecordWriter {
+
+    /**
+     * Column after the last one a text record can use
+     */
+    static final int MAX_RECORD_LENGTH = 70;
+
+    /**
+     * Length of a text record before its object code
+     */
+    static final int HEADER_LENGTH = 9;
+
+    /**
+     * The Writer the text records are written to, or null if they are encoded
+     */
+    private final Writer fileWriter;
+
+    /**
+     * The encoder the text records are given to, or null if they are written as text
+     */
+    private final BinaryObjectEncoder encoder;
+
+    /**
+     * The Writer each statement is listed to, or null if there is no listing
+     */
+    private final Writer debugWriter;
+
+    /**
+     * The builder of the section, used to find the start of each program block
+     */
+    private final AbstractStatementBuilder builder;
+
+    /**
+     * Collects the modification records of the assembled statements
+     */
+    private final VisitorInterface visitor;
+
+    /**
+     * Holds the location counter of each program block that has been written
+     * Every time we switch blocks, we continue from where that block left off
+     */
+    private final HashMap<String, HexNum> startTable;
+
+    /**
+     * Holds the object code of the current record as hex, when the records are written as text
+     */
+    private final StringBuilder assembledTextRecord;
+
+    /**
+     * Holds the statements of the current record, when the records are encoded
+     */
+    private final List<Statement> recordStatements;
+
+    /**
+     * Length of the object code of the current record in half-bytes
+     */
+    private int recordNibbles;
+
+    /**
+     * Holds each record and each line of the listing while it is built
+     */
+    private final StringBuilder record;
+
+    /**
+     * true while there is a current record
+     */
+    private boolean open;
+
+    /**
+     * Program block of the current record
+     */
+    private String currentBlock;
+
+    /**
+     * Starting address of the current record
+     */
+    private HexNum recordStart;
+
+    /**
+     * Address of the next statement in the current record
+     */
+    private HexNum currentStartLocctr;
+
+    /**
+     * Length the current record would have, counting the space that statements reserve
+     */
+    private int tempRecordLength;
+
+    /**
+     * true if the last statement reserved space without producing object code,
+     * which means the next statement has to start a new record
+     */
+    private boolean blankSpace;
+
+    /**
+     * Times the current record for the flight recorder
+     */
+    private RecordEvent event;
+
+    /**
+     * Number of statements added to the current record
+     */
+    private int statements;
+
+    /**
+     * Constructs a new TextRecordWriter.
+     *
+     * @param builder the builder of the section, used to find the start of each program block
+     * @param fileWriter the Writer to write the text records to
+     * @param debugWriter the Writer to list each statement to, or null to skip the listing
+     */
+    public TextRecordWriter(AbstractStatementBuilder builder, Writer fileWriter, Writer debugWriter) {
+        this(builder, fileWriter, null, debugWriter);
+    }
+
+    /**
+     * Constructs a new TextRecordWriter that gives each record to a binary encoder.
+     *
+     * @param builder the builder of the section, used to find the start of each program block
+     * @param encoder the encoder to give the text records to
+     * @param debugWriter the Writer to list each statement to, or null to skip the listing
+     */
+    public TextRecordWriter(AbstractStatementBuilder builder, BinaryObjectEncoder encoder, Writer debugWriter) {
+        this(builder, null, encoder, debugWriter);
+    }
+
+    /**
+     * Constructs a new TextRecordWriter with either a Writer or an encoder.
+     *
+     * @param builder the builder of the section
+     * @param fileWriter the Writer to write the text records to, or null
+     * @param encoder the encoder to give the text records to, or null
+     * @param debugWriter the Writer to list each statement to, or null
+     */
+    private TextRecordWriter(AbstractStatementBuilder builder, Writer fileWriter, BinaryObjectEncoder encoder,
+            Writer debugWriter) {
+        this.builder = builder;
+        this.fileWriter = fileWriter;
+        this.encoder = encoder;
+        this.debugWriter = debugWriter;
+        this.visitor = new ModificationVisitor();
+        this.startTable = new HashMap<>();
+        this.assembledTextRecord = new StringBuilder();
+        this.recordStatements = new ArrayList<>();
+        this.record = new StringBuilder(80);
+        this.open = false;
+    }
+
+    /**
+     * Assembles the next statement and adds it to the text records.
+     *
+     * @param statement the next statement of the section
+     * @throws InvalidAssemblyFileException if the statement cannot be assembled
+     * @throws IOException if an I/O error occurs
+     */
+    public void add(Statement statement) throws InvalidAssemblyFileException, IOException {
+        int codeLength = statement.assembleCode();
+
+        // the statement goes into the current record while
+        // 1) there is room for it
+        // 2) it is in the same program block
+        // 3) the previously assembled item was not a blank space
+        if (this.open && !(this.tempRecordLength + codeLength < MAX_RECORD_LENGTH
+                && statement.getBlock().equals(this.currentBlock)
+                && !this.blankSpace)) {
+            closeRecord();
+        }
+        if (!this.open) {
+            openRecord(statement.getBlock());
+        }
+
+        HexNum size = statement.getSize();
+
+        // list the statement at its address with its object code and source
+        if (this.debugWriter != null) {
+            this.record.setLength(0);
+            this.currentStartLocctr.appendTo(this.record, 6);
+            this.record.append('\t');
+            statement.appendObjectCode(this.record);
+            this.record.append('\t').append(statement.getLine()).append('\n');
+            this.debugWriter.append(this.record);
+        }
+
+        if (this.encoder == null) {
+            statement.appendObjectCode(this.assembledTextRecord);
+        } else {
+            this.recordStatements.add(statement);
+        }
+        this.recordNibbles += codeLength;
+        this.statements++;
+        this.currentStartLocctr = HexNum.valueOf(this.currentStartLocctr.getDec() + size.getDec());
+        this.tempRecordLength = this.tempRecordLength + size.getDec() * 2;
+        statement.accept(this.visitor);
+
+        // if the assembled value is a blank space and it generates some space, then we
+        // need to set the blankSpace flag to true
+        this.blankSpace = codeLength == 0 && size.getDec() > 0;
+    }
+
+    /**
+     * Writes the last text record.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void finish() throws IOException {
+        if (this.open) {
+            closeRecord();
+        }
+    }
+
+    /**
+     * Retrieves the modification records of every statement added so far.
+     *
+     * @return a queue of modification records
+     */
+    public Queue<String> getModifications() {
+        return this.visitor.getStrings();
+    }
+
+    /**
+     * Starts a new record at the current location of a program block.
+     *
+     * @param block the program block of the record
+     */
+    private void openRecord(String block) {
+        this.currentBlock = block;
+
+        // If the block is not in the start table, add it
+        this.startTable.putIfAbsent(block, this.builder.getStart(block));
+        this.currentStartLocctr = this.startTable.get(block);
+        this.recordStart = this.currentStartLocctr;
+
+        this.assembledTextRecord.setLength(0);
+        this.recordStatements.clear();
+        this.recordNibbles = 0;
+        this.tempRecordLength = HEADER_LENGTH;
+        this.blankSpace = false;
+        this.open = true;
+        this.statements = 0;
+        this.event = new RecordEvent();
+        this.event.begin();
+    }
+
+    /**
+     * Ends the current record, writing it if it holds any object code.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    private void closeRecord() throws IOException {
+        this.open = false;
+
+        // update where the block continues from
+        this.startTable.put(this.currentBlock, this.currentStartLocctr);
+
+        // if there is no object code, there is nothing to write
+        if (this.recordNibbles == 0) {
+            return;
+        }
+
+        // an encoded record is copied from the code buffers, and only its event is described as text
+        if (this.encoder != null) {
+            this.encoder.addText(this.recordStart.getDec(), this.recordStatements, this.recordNibbles);
+            this.event.commit(this.builder, "T", HEADER_LENGTH + this.recordNibbles, this.statements);
+            return;
+        }
+
+        // since the length is needed in bytes, we need to divide by 2 and round up
+        int length = (this.recordNibbles + 1) / 2;
+        this.record.setLength(0);
+        this.record.append('T');
+        this.recordStart.appendTo(this.record, 6);
+        HexNum.appendHex(this.record, length, 2);
+        this.record.append(this.assembledTextRecord).append('\n');
+
+        // the object code is rendered as upper case hex from its bytes, so there is nothing to convert
+        this.fileWriter.append(this.record);
+        this.event.commit(this.builder, this.record, this.record.length() - 1, this.statements);
+    }
+}
@@ -6,6 +6,12 @@ package edu.iu.jrsalata;
  */
 public class Utility {
 
+    /**
+     * The SourceLine each thread lexes lines with in {@link #cleanLine(String)} and {@link #splitLine(String)},
+     * so its buffer is reused instead of allocated on every call
+     */
+    private static final ThreadLocal<SourceLine> SOURCE_LINE = ThreadLocal.withInitial(SourceLine::new);
+
     /**
      * Ensures the given symbol string is exactly SymTable.MAX_LEN characters long.
      * If the symbol is longer, it is truncated. If it is shorter, it is padded with spaces.
@@ -31,28 +37,28 @@ public class Utility {
         }
     }
 
+    /**
+     * Checks if an operand is a number rather than a symbol.
+     * Symbols never start with a digit, so only the first character needs to be checked.
+     *
+     * @param operand the operand to check
+     * @return true if the operand starts with a digit, or with '-' followed by a digit
+     */
+    public static boolean isNumeric(String operand) {
+        int start = operand.startsWith("-") ? 1 : 0;
+        return operand.length() > start && Character.isDigit(operand.charAt(start));
+    }
+
     /**
      * Cleans the given line by stripping unnecessary whitespace and removing comments.
      * If the line is empty or is just a comment, an empty string is returned.
      *
      * @param line the input string to be cleaned
      * @return the cleaned string without comments and unnecessary whitespace
+     * @see SourceLine#getContent()
      */
     public static String cleanLine(String line) {
-        // First strip any unnecessary whitespace
-        line = line.strip();
-
-        // if the line is empty or is just a comment, return null
-        if (line.equals("") || line.charAt(0) == '.') {
-            return "";
-        }
-        // find the comment character
-        // since there is the possibility of no comment existing, check if the comment
-        // character exists
-        // if not, then set it to the length of the string
-        int period = line.indexOf('.') == -1 ? line.length() : line.indexOf('.');
-        return line.substring(0, period).strip();
-
+        return SOURCE_LINE.get().lex(line).getContent();
     }
 
     /**
@@ -61,20 +67,18 @@ public class Utility {
      *
      * @param line the input string to be split
      * @return an array of strings split by spaces or tabs
+     * @see SourceLine#getFields()
      */
     public static String[] splitLine(String line) {
 
-        // clean up the line with the above method
-        line = cleanLine(line);
+        // lex the line in a single pass instead of cleaning and splitting it with a regex
+        SourceLine source = SOURCE_LINE.get().lex(line);
 
-        // if the line is empty or is just a comment, return null
-        if (line.equals("") || line.charAt(0) == '.') {
+        // if the line is empty or is just a comment, return two empty parts
+        if (source.isEmpty()) {
             return new String[] { "", "" };
         }
-
-        // now we are going to split the string up into the different parts based on
-        // space or tabs
-        return line.split("\\s+");
+        return source.getFields();
     }
 
 }
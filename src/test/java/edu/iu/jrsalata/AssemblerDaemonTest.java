@@ -0,0 +1,180 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class AssemblerDaemonTest {
+
+    private String resource(String name) throws IOException {
+        try (InputStream file = getClass().getResourceAsStream(name)) {
+            return new String(file.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // compare object files like ObjectWriterTest, ignoring case and the spaces around each line
+    private String normalize(String objectFile) {
+        StringBuilder lines = new StringBuilder();
+        for (String line : objectFile.split("\n")) {
+            lines.append(line.trim().toLowerCase()).append('\n');
+        }
+        return lines.toString();
+    }
+
+    // send a request and read the whole answer
+    private String send(SocketAddress address, String request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            Channels.newOutputStream(channel).write(request.getBytes(StandardCharsets.UTF_8));
+            channel.shutdownOutput();
+            return new String(Channels.newInputStream(channel).readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // run a daemon on its own thread until it is closed
+    private SocketAddress start(AssemblerDaemon daemon, ExecutorService server) throws IOException {
+        SocketAddress address = daemon.bind();
+        server.submit(() -> {
+            daemon.serve();
+            return null;
+        });
+        return address;
+    }
+
+    @Test
+    public void testConcurrentRequests() throws IOException, InterruptedException, ExecutionException {
+        Path directory = Files.createTempDirectory("daemon");
+        Path socket = directory.resolve("assembler.sock");
+        ExecutorService server = Executors.newSingleThreadExecutor();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try (AssemblerDaemon daemon = new AssemblerDaemon(UnixDomainSocketAddress.of(socket))) {
+            SocketAddress address = start(daemon, server);
+            assertTrue(Files.exists(socket));
+
+            // every bundled program is assembled several times at once, each with its own symbols
+            List<Future<String>> answers = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 24; i++) {
+                String program = "/testAsm" + (i % 6 + 1);
+                String request = (i % 2 == 0 ? "" : "stream\n") + "\n" + resource(program + ".asm");
+                answers.add(clients.submit(() -> send(address, request)));
+                expected.add(normalize("OK\n" + resource(program + ".obj")));
+            }
+            for (int i = 0; i < answers.size(); i++) {
+                assertEquals(expected.get(i), normalize(answers.get(i).get()));
+            }
+        } finally {
+            clients.shutdown();
+            server.shutdown();
+        }
+
+        // closing the daemon removes its socket
+        assertFalse(Files.exists(socket));
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testFilesOnUnixSocket() throws IOException {
+        Path directory = Files.createTempDirectory("daemon");
+        Path socket = directory.resolve("assembler.sock");
+        Path input = directory.resolve("input.asm");
+        Path output = directory.resolve("output.obj");
+        Files.writeString(input, resource("/testAsm5.asm"));
+        ExecutorService server = Executors.newSingleThreadExecutor();
+        try (AssemblerDaemon daemon = new AssemblerDaemon(UnixDomainSocketAddress.of(socket))) {
+            SocketAddress address = start(daemon, server);
+
+            // only the owner of the socket can connect to it
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(socket));
+
+            String request = "input " + input + "\noutput " + output + "\nlisting\n\n";
+            assertEquals("OK\n", send(address, request));
+            assertEquals(normalize(resource("/testAsm5.obj")), normalize(Files.readString(output)));
+            assertTrue(Files.size(directory.resolve("output.obj.txt")) > 0);
+
+            // the metrics report is written next to the output file
+            assertEquals("OK\n", send(address, "input " + input + "\noutput " + output + "\nmetrics\n\n"));
+            assertTrue(Files.size(directory.resolve("output.obj.metrics.json")) > 0);
+
+            String answer = send(address, "input " + directory.resolve("missing.asm") + "\n\n");
+            assertTrue(answer, answer.startsWith("ERROR java.nio.file.NoSuchFileException"));
+        } finally {
+            server.shutdown();
+        }
+
+        Files.delete(directory.resolve("output.obj.metrics.json"));
+        Files.delete(directory.resolve("output.obj.txt"));
+        Files.delete(output);
+        Files.delete(input);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testNoFilesOnLoopback() throws IOException {
+        Path directory = Files.createTempDirectory("daemon");
+        Path input = directory.resolve("input.asm");
+        Path output = directory.resolve("output.obj");
+        Files.writeString(input, resource("/testAsm1.asm"));
+        ExecutorService server = Executors.newSingleThreadExecutor();
+        try (AssemblerDaemon daemon = new AssemblerDaemon(AssemblerDaemon.parseAddress("0"))) {
+            SocketAddress address = start(daemon, server);
+            assertTrue(((InetSocketAddress) address).getAddress().isLoopbackAddress());
+
+            // any user can connect to the port, so it can not be used to read or write files
+            String refused = "ERROR Files can only be given over a Unix domain socket\n";
+            assertEquals(refused, send(address, "input " + input + "\n\n"));
+            assertEquals(refused, send(address, "output " + output + "\n\n" + resource("/testAsm1.asm")));
+            assertFalse(Files.exists(output));
+
+            // the source can still be sent and the object file returned
+            assertEquals(normalize("OK\n" + resource("/testAsm1.obj")),
+                    normalize(send(address, "stream\n\n" + resource("/testAsm1.asm"))));
+        } finally {
+            server.shutdown();
+        }
+
+        Files.delete(input);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testDiagnostics() throws IOException {
+        ExecutorService server = Executors.newSingleThreadExecutor();
+        try (AssemblerDaemon daemon = new AssemblerDaemon(AssemblerDaemon.parseAddress("0"))) {
+            SocketAddress address = start(daemon, server);
+
+            String answer = send(address, "\nCOPY\tSTART\t0\n\tBOGUS\tX\n\tEND\tCOPY\n");
+            assertEquals("ERROR Error on line 2: Mnemonic 'BOGUS' not found\n", answer);
+
+            assertEquals("ERROR Unknown option 'verbose'\n", send(address, "verbose\n\n"));
+            String needsFile = "ERROR The listing, binary format, and metrics need an output file\n";
+            assertEquals(needsFile, send(address, "binary\n\n"));
+            assertEquals(needsFile, send(address, "metrics\n\n" + resource("/testAsm1.asm")));
+
+            // the daemon keeps answering after a failed request
+            assertEquals(normalize("OK\n" + resource("/testAsm1.obj")),
+                    normalize(send(address, "\n" + resource("/testAsm1.asm"))));
+        } finally {
+            server.shutdown();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.script.ScriptException;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+public class AssemblyMetricsTest {
+
+    // assemble testAsm5, which has three control sections, and return its metrics
+    private AssemblyMetrics assemble(boolean streaming, boolean parallel)
+            throws InvalidAssemblyFileException, ScriptException, IOException {
+        AssemblyMetrics metrics = new AssemblyMetrics();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (InputStream file = getClass().getResourceAsStream("/testAsm5.asm")) {
+            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+            builderBuilder.setStreaming(streaming, false);
+            builderBuilder.setExecutor(parallel ? executor : null);
+            builderBuilder.setMetrics(metrics);
+            builderBuilder.execute(file);
+
+            try (ObjectWriterInterface writer = new ObjectWriter()) {
+                writer.setFileName("test-metrics.obj");
+                writer.execute(builderBuilder.getBuilders(), executor);
+            }
+        } finally {
+            executor.shutdown();
+        }
+        new File("test-metrics.obj").delete();
+        metrics.finish();
+        return metrics;
+    }
+
+    private void checkSections(AssemblyMetrics metrics) throws IOException {
+        List<SectionMetrics> sections = metrics.getSections();
+        assertEquals(3, sections.size());
+        assertEquals("COPY", sections.get(0).getName());
+        assertEquals("RDREC", sections.get(1).getName());
+        assertEquals("WRREC", sections.get(2).getName());
+
+        // every line after the first, which chooses the builder, is lexed
+        String source;
+        try (InputStream file = getClass().getResourceAsStream("/testAsm5.asm")) {
+            source = new String(file.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertEquals(source.split("\n").length - 1, metrics.getTotal(Phase.LEX, SectionMetrics::getCount));
+
+        // =C'EOF' is placed in the first section and =X'05' in the last one
+        assertEquals(1, sections.get(0).getCount(Phase.LITERALS));
+        assertEquals(0, sections.get(1).getCount(Phase.LITERALS));
+        assertEquals(1, sections.get(2).getCount(Phase.LITERALS));
+
+        long measured = 0;
+        for (SectionMetrics section : sections) {
+            assertTrue(section.getCount(Phase.PASS_ONE) > 0);
+            assertTrue(section.getCount(Phase.RELOCATION) > 0);
+            assertTrue(section.getCount(Phase.TEXT_RECORDS) > 0);
+            assertTrue(section.getCount(Phase.IO) > 0);
+            for (Phase phase : Phase.values()) {
+                assertTrue(section.getNanos(phase) >= 0);
+                measured += section.getNanos(phase);
+            }
+        }
+
+        assertTrue(metrics.getTotalNanos() > 0);
+        assertTrue(measured > 0);
+    }
+
+    @Test
+    public void testSectionsAreMeasured() throws InvalidAssemblyFileException, ScriptException, IOException {
+        checkSections(assemble(false, false));
+    }
+
+    @Test
+    public void testStreamingSectionsAreMeasured() throws InvalidAssemblyFileException, ScriptException, IOException {
+        checkSections(assemble(true, false));
+    }
+
+    @Test
+    public void testParallelSectionsAreMeasured() throws InvalidAssemblyFileException, ScriptException, IOException {
+        checkSections(assemble(false, true));
+    }
+
+    @Test
+    public void testNestedPhasesAreCountedOnce() {
+        SectionMetrics metrics = new SectionMetrics(new StatementBuilder(new SymbolContext()));
+        metrics.start(Phase.PASS_ONE);
+        metrics.start(Phase.LITERALS);
+        metrics.stop(Phase.LITERALS, 2);
+        metrics.stop(Phase.PASS_ONE, 1);
+        assertEquals(1, metrics.getCount(Phase.PASS_ONE));
+        assertEquals(2, metrics.getCount(Phase.LITERALS));
+
+        // only the innermost phase can be stopped
+        metrics.start(Phase.PASS_ONE);
+        metrics.start(Phase.LITERALS);
+        try {
+            metrics.stop(Phase.PASS_ONE, 1);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("PASS_ONE"));
+        }
+    }
+
+    @Test
+    public void testJsonReport() throws InvalidAssemblyFileException, ScriptException, IOException {
+        AssemblyMetrics metrics = assemble(false, false);
+        Path report = Path.of("test-metrics.json");
+        metrics.writeJson(report);
+        String json = Files.readString(report);
+        Files.delete(report);
+
+        assertEquals(metrics.toJson(), json);
+        assertTrue(json.startsWith("{\n  \"nanos\": " + metrics.getTotalNanos() + ",\n"));
+        assertTrue(json.contains("\"name\": \"RDREC\""));
+        assertTrue(json.contains("\"literals\": { \"count\": 2, \"nanos\": "));
+        for (Phase phase : Phase.values()) {
+            // once for each section and once in the totals
+            assertEquals(4, json.split("\"" + phase.getLabel() + "\": \\{ \"count\": ", -1).length - 1);
+        }
+    }
+
+    @Test
+    public void testStatisticsArePublished() throws InvalidAssemblyFileException, ScriptException, IOException,
+            JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        AssemblyStatistics statistics = AssemblyStatistics.getInstance();
+        long assemblies = statistics.getAssemblies();
+
+        AssemblyMetrics metrics = assemble(false, false);
+        ObjectName name = new ObjectName(AssemblyStatistics.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertTrue((Long) server.getAttribute(name, "Assemblies") > assemblies);
+        assertTrue(statistics.getPhaseCounts().get("passOne") > 0);
+
+        // finishing again does not count the assembly twice
+        long after = statistics.getAssemblies();
+        metrics.finish();
+        assertEquals(after, statistics.getAssemblies());
+    }
+
+    @Test
+    public void testPhaseEventsAreRecorded() throws InvalidAssemblyFileException, ScriptException, IOException {
+        Path dump = Path.of("test-metrics.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("edu.iu.jrsalata.Phase");
+            recording.start();
+            assemble(false, false);
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Set<String> recorded = new HashSet<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            recorded.add(event.getString("section") + " " + event.getString("phase"));
+        }
+        Files.delete(dump);
+
+        for (String section : new String[] { "COPY", "RDREC", "WRREC" }) {
+            for (Phase phase : Phase.values()) {
+                assertTrue(recorded.contains(section + " " + phase.getLabel()));
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+
+public class AsyncWriterTest {
+
+    @Test
+    public void testWritesInOrder() throws IOException {
+        // a small queue makes the writer wait on the background thread
+        StringWriter out = new StringWriter();
+        StringBuilder expected = new StringBuilder();
+        try (Writer writer = new AsyncWriter(out, "test-writer", 1)) {
+            for (int i = 0; i < 5000; i++) {
+                String line = String.format("%06X\t141033\tFIRST STL RETADR%n", i * 3);
+                writer.write(line);
+                writer.append('.');
+                writer.write(line.toCharArray(), 0, 6);
+                expected.append(line).append('.').append(line, 0, 6);
+                if (i % 1000 == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        assertEquals(expected.toString(), out.toString());
+    }
+
+    @Test
+    public void testFailureIsReported() {
+        Writer failing = new Writer() {
+            @Override
+            public void write(char[] chars, int offset, int length) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        try (Writer writer = new AsyncWriter(failing, "test-writer", 1)) {
+            writer.write("E\n");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+            return;
+        }
+        fail("The error from the background thread was not reported");
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws IOException {
+        Writer writer = new AsyncWriter(new StringWriter(), "test-writer");
+        writer.close();
+        writer.write("E\n");
+    }
+}
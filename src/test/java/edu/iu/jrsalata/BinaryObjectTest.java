@@ -0,0 +1,169 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.script.ScriptException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+@RunWith(Parameterized.class)
+public class BinaryObjectTest {
+    String assemblyFile;
+
+    public BinaryObjectTest(String assemblyFile) {
+        this.assemblyFile = assemblyFile;
+    }
+
+    // assemble the file and write every control section in the given format
+    private String writeObject(ObjectFormat format, String fileName) throws InvalidAssemblyFileException,
+            IOException, ScriptException {
+        InputStream file = getClass().getResourceAsStream(assemblyFile);
+        AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+        builderBuilder.execute(file);
+        Queue<AbstractStatementBuilder> queue = builderBuilder.getBuilders();
+
+        try (ObjectWriterInterface writer = new ObjectWriter()) {
+            writer.setFormat(format);
+            writer.setFileName(fileName);
+            while (!queue.isEmpty()) {
+                AbstractStatementBuilder builder = queue.poll();
+                writer.setBuilder(builder);
+                writer.setQueue(builder.getStatements());
+                writer.execute();
+            }
+        }
+        return fileName;
+    }
+
+    // assemble the given source and write it in the given format
+    private void writeSource(String source, ObjectFormat format, String fileName)
+            throws InvalidAssemblyFileException, IOException, ScriptException {
+        AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+        builderBuilder.execute(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+        Queue<AbstractStatementBuilder> queue = builderBuilder.getBuilders();
+
+        try (ObjectWriterInterface writer = new ObjectWriter()) {
+            writer.setFormat(format);
+            writer.setFileName(fileName);
+            while (!queue.isEmpty()) {
+                AbstractStatementBuilder builder = queue.poll();
+                writer.setBuilder(builder);
+                writer.setQueue(builder.getStatements());
+                writer.execute();
+            }
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Path text = Path.of("test-text.obj");
+        Path binary = Path.of("test-binary.sobj");
+        try {
+            writeObject(ObjectFormat.TEXT, text.toString());
+            writeObject(ObjectFormat.BINARY, binary.toString());
+
+            // reading the binary file back gives the same records as the text file
+            StringWriter records = new StringWriter();
+            BinaryObjectReader.open(binary).writeText(records);
+            assertEquals(Files.readString(text), records.toString());
+            assertTrue(Files.size(binary) < Files.size(text));
+
+        } catch (InvalidAssemblyFileException | IOException | ScriptException e) {
+            fail(e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(text);
+                Files.deleteIfExists(binary);
+            } catch (IOException e) {
+                fail(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testOddLengthCode() throws InvalidAssemblyFileException, IOException, ScriptException {
+        // code that does not fill its last byte is packed against the code after it
+        String source = "ODD\tSTART\t0\n"
+                + "\tEXTREF\tEXT\n"
+                + "\tBYTE\tX'F1F'\n"
+                + "\t+JSUB\tEXT\n"
+                + "\tBYTE\tX'A'\n"
+                + "\tEND\tODD\n";
+        Path text = Path.of("test-odd.obj");
+        Path binary = Path.of("test-odd.sobj");
+        try {
+            writeSource(source, ObjectFormat.TEXT, text.toString());
+            writeSource(source, ObjectFormat.BINARY, binary.toString());
+
+            StringWriter records = new StringWriter();
+            BinaryObjectReader.open(binary).writeText(records);
+            assertEquals(Files.readString(text), records.toString());
+            assertTrue(records.toString(), records.toString().contains("F1F4B100000A"));
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    @Test
+    public void testParallelSections() throws InvalidAssemblyFileException, IOException, ScriptException {
+        // sections encoded on their own threads are linked into the same file
+        Path text = Path.of("test-parallel-text.obj");
+        Path binary = Path.of("test-parallel-binary.sobj");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            writeObject(ObjectFormat.TEXT, text.toString());
+            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+            builderBuilder.setExecutor(executor);
+            builderBuilder.execute(getClass().getResourceAsStream(assemblyFile));
+            try (ObjectWriterInterface writer = new ObjectWriter()) {
+                writer.setFormat(ObjectFormat.BINARY);
+                writer.setFileName(binary.toString());
+                writer.execute(builderBuilder.getBuilders(), executor);
+            }
+
+            StringWriter records = new StringWriter();
+            BinaryObjectReader.open(binary).writeText(records);
+            assertEquals(Files.readString(text), records.toString());
+        } finally {
+            executor.shutdown();
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotBinary() throws IOException {
+        new BinaryObjectReader(ByteBuffer.wrap("HCOPY  000000001033\n".getBytes()));
+    }
+
+    @Parameterized.Parameters()
+    public static Collection<String[]> files() {
+        return Arrays.asList(new String[][] {
+                { "/testAsm1.asm" },
+                { "/testAsm2.asm" },
+                { "/testAsm3.asm" },
+                { "/testAsm4.asm" },
+                { "/testAsm5.asm" },
+                { "/testAsm6.asm" },
+        });
+    }
+}
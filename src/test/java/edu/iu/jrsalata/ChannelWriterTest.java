@@ -0,0 +1,92 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChannelWriterTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("channel", ".obj");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    private Writer open(int bufferSize) throws IOException {
+        FileChannel channel = FileChannel.open(this.file, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        return new ChannelWriter(channel, StandardCharsets.UTF_8, bufferSize);
+    }
+
+    @Test
+    public void testWriteAcrossBuffers() throws IOException {
+        // a tiny buffer forces the records to be written in many pieces
+        StringBuilder expected = new StringBuilder();
+        try (Writer writer = open(8)) {
+            for (int i = 0; i < 100; i++) {
+                String record = "T00" + i + "03" + "4B1036\n";
+                writer.write(record);
+                writer.write(record.toCharArray(), 0, 4);
+                writer.write('\n');
+                expected.append(record).append(record, 0, 4).append('\n');
+            }
+        }
+        assertEquals(expected.toString(), Files.readString(this.file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteNonAscii() throws IOException {
+        String line = "ÄBC\tLDA  ZERO . größe ✓\n";
+        try (Writer writer = open(4)) {
+            writer.write(line);
+            writer.write(line.toCharArray());
+            writer.write('é');
+        }
+        assertEquals(line + line + "é", Files.readString(this.file, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testFlushKeepsWriterOpen() throws IOException {
+        try (Writer writer = open(ChannelWriter.DEFAULT_BUFFER_SIZE)) {
+            writer.write("HCOPY \n");
+            writer.flush();
+            assertEquals("HCOPY \n", Files.readString(this.file));
+            writer.write("E\n");
+        }
+        assertEquals("HCOPY \nE\n", Files.readString(this.file));
+    }
+
+    @Test
+    public void testAppend() throws IOException {
+        try (Writer writer = ChannelWriter.open(this.file, false)) {
+            writer.write("HCOPY \n");
+        }
+        try (Writer writer = ChannelWriter.open(this.file, true)) {
+            writer.write("E\n");
+        }
+        assertEquals("HCOPY \nE\n", Files.readString(this.file));
+    }
+
+    @Test(expected = IOException.class)
+    public void testWriteAfterClose() throws IOException {
+        Writer writer = open(ChannelWriter.DEFAULT_BUFFER_SIZE);
+        writer.close();
+        writer.write("E\n");
+    }
+}
@@ -0,0 +1,94 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class CompiledExpressionTest {
+
+    @Test
+    public void testSymbolSlots() {
+        CompiledExpression compiled = new CompiledExpression("BUFEND-BUFFER+3");
+        assertEquals(2, compiled.getOperandCount());
+        assertEquals("BUFEND", compiled.getOperand(0));
+        assertEquals(SymbolKey.pack("BUFFER"), compiled.getKey(1));
+        assertEquals('+', compiled.getSign(0));
+        assertEquals('-', compiled.getSign(1));
+        assertEquals(4099, compiled.evaluate(new int[] { 4196, 100 }, 0));
+    }
+
+    @Test
+    public void testSignsThroughParentheses() {
+        CompiledExpression compiled = new CompiledExpression("A-(B+C)-(-D)");
+        assertEquals('+', compiled.getSign(0));
+        assertEquals('-', compiled.getSign(1));
+        assertEquals('-', compiled.getSign(2));
+        assertEquals('+', compiled.getSign(3));
+        assertEquals(10 - (2 + 3) + 4, compiled.evaluate(new int[] { 10, 2, 3, 4 }, 0));
+    }
+
+    @Test
+    public void testPrecedenceAndIntegerDivision() {
+        assertEquals(14, new CompiledExpression("2+3*4").evaluate(new int[0], 0));
+        assertEquals(20, new CompiledExpression("(2+3)*4").evaluate(new int[0], 0));
+        assertEquals(3, new CompiledExpression("7/2").evaluate(new int[0], 0));
+        assertEquals(-3, new CompiledExpression("-7/2").evaluate(new int[0], 0));
+        assertEquals(0xFFFFFF, new CompiledExpression("16777214+1").evaluate(new int[0], 0));
+        assertEquals(1, new CompiledExpression("10-4-5").evaluate(new int[0], 0));
+    }
+
+    @Test
+    public void testLocationCounter() {
+        assertEquals(4093, new CompiledExpression("*-3").evaluate(new int[0], 4096));
+        assertEquals(4096, new CompiledExpression("*").evaluate(new int[0], 4096));
+        assertEquals(8192, new CompiledExpression("* * 2").evaluate(new int[0], 4096));
+        assertEquals(40, new CompiledExpression("A*2").evaluate(new int[] { 20 }, 4096));
+        assertTrue(new CompiledExpression("*").isExpression());
+        assertFalse(new CompiledExpression("BUFFER").isExpression());
+        assertFalse(new CompiledExpression("4096").isExpression());
+    }
+
+    @Test
+    public void testRelativeAndAbsolute() {
+        CompiledExpression difference = new CompiledExpression("BUFEND-BUFFER");
+        assertTrue(difference.isAbsolute(new boolean[] { true, true }));
+        assertFalse(difference.isAbsolute(new boolean[] { true, false }));
+
+        assertFalse(new CompiledExpression("BUFFER+3").isAbsolute(new boolean[] { true }));
+        assertTrue(new CompiledExpression("MAXLEN*2").isAbsolute(new boolean[] { false }));
+        assertFalse(new CompiledExpression("BUFFER*2").isAbsolute(new boolean[] { true }));
+        assertTrue(new CompiledExpression("4096").isAbsolute(new boolean[0]));
+        assertFalse(new CompiledExpression("*-3").isAbsolute(new boolean[0]));
+        assertTrue(new CompiledExpression("*-FIRST").isAbsolute(new boolean[] { true }));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        String[] sources = { "", "3+4+", "(A+B", "A+B)", "3X+1", "A B", "/4", "2(3)" };
+        for (String source : sources) {
+            assertFalse(source, new CompiledExpression(source).isValid());
+        }
+    }
+
+    @Test
+    public void testMatchesExp4j() {
+        String[] sources = { "BUFEND-BUFFER", "A+B*C-D*2", "(A+B)*(C-D)", "-A+B", "*-14", "A/B*C", "A-B-C",
+                "* * 2", "(A - 4) * B", "-(A+*)" };
+        int[] values = { 4196, 4096, 6, 3 };
+        for (String source : sources) {
+            CompiledExpression compiled = new CompiledExpression(source);
+            int[] bound = new int[compiled.getOperandCount()];
+            System.arraycopy(values, 0, bound, 0, bound.length);
+            assertEquals(source, new Exp4jExpression(compiled).evaluate(bound, 4096), compiled.evaluate(bound, 4096));
+        }
+    }
+
+    @Test
+    public void testDivisionIsExact() {
+        // exp4j divides with doubles and only truncates the final result
+        CompiledExpression compiled = new CompiledExpression("A-B/2");
+        assertEquals(99, compiled.evaluate(new int[] { 100, 3 }, 0));
+        assertEquals(98, new Exp4jExpression(compiled).evaluate(new int[] { 100, 3 }, 0));
+    }
+}
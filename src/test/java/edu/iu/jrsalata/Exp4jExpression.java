@@ -0,0 +1,96 @@
+package edu.iu.jrsalata;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+
+/**
+ * Evaluates a CompiledExpression with exp4j, the way expressions were evaluated before the
+ * native evaluator, so the two can be compared. Each symbol becomes the variable s followed
+ * by the index of its slot, and * in place of an operand becomes the variable loc.
+ */
+final class Exp4jExpression {
+
+    /**
+     * Parsed exp4j version of the expression, copied for every evaluation
+     */
+    private final Expression template;
+
+    /**
+     * The number of slots in the expression
+     */
+    private final int operandCount;
+
+    /**
+     * Parses the source of a valid expression with exp4j.
+     *
+     * @param compiled the expression to parse
+     */
+    Exp4jExpression(CompiledExpression compiled) {
+        this.operandCount = compiled.getOperandCount();
+        String[] variables = new String[this.operandCount + 1];
+        for (int k = 0; k < this.operandCount; k++) {
+            variables[k] = "s" + k;
+        }
+        variables[this.operandCount] = "loc";
+        this.template = new ExpressionBuilder(toExp4j(compiled.getSource())).variables(variables)
+                .implicitMultiplication(false).build();
+    }
+
+    /**
+     * Evaluates the expression with exp4j, which uses doubles and truncates the result.
+     *
+     * @param values the value of each slot
+     * @param locctr the value of the location counter
+     * @return the result of the expression, cast to a whole number
+     */
+    int evaluate(int[] values, int locctr) {
+        // the template is kept, so bind the values to a copy of it
+        Expression copy = new Expression(this.template);
+        for (int k = 0; k < this.operandCount; k++) {
+            copy.setVariable("s" + k, values[k]);
+        }
+        copy.setVariable("loc", locctr);
+        return (int) copy.evaluate();
+    }
+
+    /**
+     * Replaces each symbol of an expression with the variable of its slot,
+     * numbering the symbols in order like CompiledExpression does.
+     *
+     * @param source the expression
+     * @return the expression with exp4j variables
+     */
+    private static String toExp4j(String source) {
+        StringBuilder exp4j = new StringBuilder(source.length() + 8);
+        boolean expectOperand = true;
+        int slot = 0;
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c <= ' ' || c == '(' || (expectOperand && (c == '+' || c == '-'))) {
+                exp4j.append(c);
+                i++;
+            } else if (expectOperand && c == '*') {
+                exp4j.append("loc");
+                expectOperand = false;
+                i++;
+            } else if (c == ')' || c == '+' || c == '-' || c == '*' || c == '/') {
+                exp4j.append(c);
+                expectOperand = c != ')';
+                i++;
+            } else {
+                int start = i;
+                while (i < source.length() && source.charAt(i) > ' ' && "+-*/()".indexOf(source.charAt(i)) < 0) {
+                    i++;
+                }
+                if (c >= '0' && c <= '9') {
+                    exp4j.append(source, start, i);
+                } else {
+                    exp4j.append('s').append(slot++);
+                }
+                expectOperand = false;
+            }
+        }
+        return exp4j.toString();
+    }
+}
@@ -0,0 +1,98 @@
+package edu.iu.jrsalata;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ExpressionCacheTest {
+
+    @Test
+    public void testCacheReturnsSameExpression() {
+        ExpressionCache cache = new ExpressionCache(4);
+        CompiledExpression compiled = cache.get("A+B");
+        assertSame(compiled, cache.get("A+B"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        ExpressionCache cache = new ExpressionCache(2);
+        CompiledExpression first = cache.get("A+1");
+        cache.get("B+1");
+
+        // use the first expression so the second one is the eldest
+        cache.get("A+1");
+        cache.get("C+1");
+
+        assertEquals(2, cache.size());
+        assertSame(first, cache.get("A+1"));
+        assertEquals(2, cache.size());
+        assertNotSame(cache.get("B+1"), cache.get("C+1"));
+    }
+
+    @Test
+    public void testOnlyAnEighthIsEvicted() {
+        ExpressionCache cache = new ExpressionCache(64);
+        for (int i = 0; i < 64; i++) {
+            cache.get("A+" + i);
+        }
+
+        // every expression is used between the same two additions, so they share a stamp
+        for (int i = 0; i < 64; i++) {
+            cache.get("A+" + i);
+        }
+        CompiledExpression added = cache.get("B+1");
+
+        // an eighth of the cache is removed, and the newest expression is kept
+        assertEquals(56, cache.size());
+        assertSame(added, cache.get("B+1"));
+    }
+
+    @Test
+    public void testConcurrentUseStaysBounded() throws Exception {
+        ExpressionCache cache = new ExpressionCache(64);
+        CompiledExpression shared = cache.get("BUFEND-BUFFER");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // every thread keeps using the shared expression while adding its own
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                int thread = i;
+                results.add(executor.submit(() -> {
+                    boolean same = true;
+                    for (int j = 0; j < 1000; j++) {
+                        cache.get("T" + thread + "+" + j);
+                        same &= cache.get("BUFEND-BUFFER") == shared;
+                    }
+                    return same;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // the expression in use was never removed, and the cache did not grow past its capacity
+        assertTrue(cache.size() <= cache.getCapacity());
+        assertSame(shared, cache.get("BUFEND-BUFFER"));
+    }
+
+    @Test
+    public void testEachContextHasItsOwnCache() {
+        SymbolContext first = new SymbolContext();
+        SymbolContext second = new SymbolContext();
+        assertNotSame(first.getExpressions(), second.getExpressions());
+        assertSame(first.getExpressions().get("A+1"), first.getExpressions().get("A+1"));
+        assertEquals(0, second.getExpressions().size());
+    }
+}
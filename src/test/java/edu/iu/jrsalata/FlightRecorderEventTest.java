@@ -0,0 +1,134 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.script.ScriptException;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+public class FlightRecorderEventTest {
+
+    // assemble a bundled program while recording the given event without its threshold
+    private List<RecordedEvent> record(String resource, String eventName)
+            throws InvalidAssemblyFileException, ScriptException, IOException {
+        Path dump = Path.of("test-events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withoutThreshold();
+            recording.start();
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try (InputStream file = getClass().getResourceAsStream(resource)) {
+                AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+                builderBuilder.execute(file);
+
+                try (ObjectWriterInterface writer = new ObjectWriter()) {
+                    writer.setFileName("test-events.obj");
+                    writer.execute(builderBuilder.getBuilders(), executor);
+                }
+            } finally {
+                executor.shutdown();
+            }
+            recording.stop();
+            recording.dump(dump);
+        }
+        new File("test-events.obj").delete();
+
+        List<RecordedEvent> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            if (event.getEventType().getName().equals(eventName)) {
+                events.add(event);
+            }
+        }
+        Files.delete(dump);
+        return events;
+    }
+
+    @Test
+    public void testStatementEventsAreRecorded() throws InvalidAssemblyFileException, ScriptException, IOException {
+        List<RecordedEvent> events = record("/testAsm6.asm", "edu.iu.jrsalata.Statement");
+        assertFalse(events.isEmpty());
+
+        Map<String, String> formats = new HashMap<>();
+        for (RecordedEvent event : events) {
+            assertEquals("COPY", event.getString("section"));
+            assertTrue(event.getInt("line") > 0);
+            formats.put(event.getString("mnemonic"), event.getString("format"));
+
+            // macro invocations are recorded as expansions instead
+            assertFalse(event.getString("mnemonic").endsWith("BUFF"));
+        }
+        assertEquals("TWO", formats.get("CLEAR"));
+        assertEquals("THREE", formats.get("LDT"));
+        assertEquals("ASM", formats.get("RESB"));
+    }
+
+    @Test
+    public void testMacroEventsAreRecorded() throws InvalidAssemblyFileException, ScriptException, IOException {
+        List<RecordedEvent> events = record("/testAsm6.asm", "edu.iu.jrsalata.MacroExpansion");
+
+        // RDBUFF is invoked once and WRBUFF twice
+        assertEquals(3, events.size());
+        assertEquals("RDBUFF", events.get(0).getString("macro"));
+        assertEquals("WRBUFF", events.get(1).getString("macro"));
+        assertEquals("WRBUFF", events.get(2).getString("macro"));
+        for (RecordedEvent event : events) {
+            assertEquals(3, event.getInt("arguments"));
+            assertTrue(event.getInt("lines") > 0);
+            assertTrue(event.getDuration().toNanos() > 0);
+        }
+    }
+
+    @Test
+    public void testExpressionEventsAreRecorded() throws InvalidAssemblyFileException, ScriptException, IOException {
+        Map<String, Integer> results = new HashMap<>();
+        for (RecordedEvent event : record("/testAsm5.asm", "edu.iu.jrsalata.Expression")) {
+            results.put(event.getString("section") + " " + event.getString("expression"), event.getInt("result"));
+        }
+        assertEquals(Integer.valueOf(4096), results.get("COPY BUFEND-BUFFER"));
+
+        // a single symbol is not an expression
+        assertFalse(results.containsKey("COPY RETADR"));
+    }
+
+    @Test
+    public void testRecordEventsAreRecorded() throws InvalidAssemblyFileException, ScriptException, IOException {
+        Map<String, Integer> recorded = new HashMap<>();
+        for (RecordedEvent event : record("/testAsm5.asm", "edu.iu.jrsalata.Record")) {
+            recorded.merge(event.getString("type"), 1, Integer::sum);
+            if (event.getString("type").equals("T")) {
+                assertTrue(event.getInt("statements") > 0);
+            } else {
+                assertEquals(0, event.getInt("statements"));
+            }
+        }
+
+        // there is one event for every record in the object file
+        Map<String, Integer> expected = new HashMap<>();
+        String object;
+        try (InputStream file = getClass().getResourceAsStream("/testAsm5.obj")) {
+            object = new String(file.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        for (String line : object.split("\n")) {
+            expected.merge(line.substring(0, 1), 1, Integer::sum);
+        }
+        assertEquals(expected, recorded);
+    }
+}
@@ -1,6 +1,12 @@
 package edu.iu.jrsalata;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
 public class HexNumTest {
@@ -119,4 +125,165 @@ public class HexNumTest {
         assertEquals("ff", hexNum2.toString(2));
         assertEquals("f", hexNum2.toString(1));
     }
+
+    @Test
+    public void testHexNumNegativeValues() {
+
+        // negative values are stored as two's complement and keep working with arithmetic
+        HexNum hexNum = new HexNum(3);
+        hexNum = hexNum.subtract(5);
+        assertEquals(-2, hexNum.getDec());
+        assertEquals("fffffffe", hexNum.toString());
+        assertEquals("fffe", hexNum.toString(4));
+
+        // the rendered hex string can be parsed back into the same value
+        HexNum hexNum2 = new HexNum(hexNum.toString(), NumSystem.HEX);
+        assertEquals(-2, hexNum2.getDec());
+        assertEquals(1, hexNum2.add(3).getDec());
+    }
+
+    @Test
+    public void testHexNumRange() {
+
+        // 8 digits are read as two's complement
+        assertEquals(-1, new HexNum("ffffffff", NumSystem.HEX).getDec());
+        assertEquals(Integer.MIN_VALUE, new HexNum("80000000", NumSystem.HEX).getDec());
+
+        // leading zeros do not count against the width
+        assertEquals(16, new HexNum("000000010", NumSystem.HEX).getDec());
+
+        // values wider than 32 bits are rejected instead of wrapping
+        try {
+            new HexNum("100000000", NumSystem.HEX);
+            fail("parsing should have failed on 9 significant digits");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+        HexNum hexNum = new HexNum(1);
+        try {
+            hexNum.set("fffffffff", NumSystem.HEX);
+            fail("set should have failed on 9 significant digits");
+        } catch (NumberFormatException e) {
+            assertEquals(1, hexNum.getDec());
+        }
+    }
+
+    @Test
+    public void testHexNumLeadingZeros() {
+
+        // hex input keeps its leading zeros when rendered
+        HexNum hexNum = new HexNum("0010", NumSystem.HEX);
+        assertEquals(16, hexNum.getDec());
+        assertEquals("0010", hexNum.toString());
+        assertEquals("10", hexNum.toString(2));
+        assertEquals("00B4", new HexNum("00B4", NumSystem.HEX).toString());
+
+        // arithmetic results and set values are rendered without padding
+        assertEquals("11", hexNum.add(1).toString());
+        hexNum.set(16);
+        assertEquals("10", hexNum.toString());
+        hexNum.set("0a", NumSystem.HEX);
+        assertEquals("0a", hexNum.toString());
+        hexNum.set("10", NumSystem.DEC);
+        assertEquals("a", hexNum.toString());
+    }
+
+    @Test
+    public void testHexNumUpperCaseInput() {
+
+        // upper case hex input keeps its case when rendered
+        HexNum hexNum = new HexNum("B4", NumSystem.HEX);
+        assertEquals(180, hexNum.getDec());
+        assertEquals("B4", hexNum.toString());
+        assertEquals("00B4", hexNum.toString(4));
+
+        // arithmetic results are rendered in lower case
+        assertEquals("b5", hexNum.add(1).toString());
+    }
+
+    @Test
+    public void testHexNumValueOf() {
+
+        // small values are shared between callers
+        assertSame(HexNum.valueOf(3), HexNum.valueOf(3));
+        assertNotSame(HexNum.valueOf(4095), HexNum.valueOf(4094).add(1));
+        assertEquals(4096, HexNum.valueOf(4096).getDec());
+        assertEquals(-1, HexNum.valueOf(-1).getDec());
+
+        // shared values can not be changed
+        try {
+            HexNum.valueOf(0).set(5);
+            fail("set should have failed on a shared value");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(0, HexNum.valueOf(0).getDec());
+        }
+    }
+
+    @Test
+    public void testPublicResultsCanBeSet() {
+
+        // arithmetic and symbol lookups give a new number whatever its value,
+        // so set works the same for values that are shared inside the package
+        SymbolContext symbols = new SymbolContext();
+        symbols.addSymbol("SMALL", new HexNum(5), "", "");
+        symbols.addSymbol("LARGE", new HexNum(5000), "", "");
+        HexNum[] results = {
+            new HexNum(4).add(1), new HexNum(4999).add(new HexNum(1)),
+            new HexNum(6).subtract(1), new HexNum(5001).subtract(new HexNum(1)),
+            symbols.getSymbol("SMALL", ""), symbols.getSymbol("LARGE", "")
+        };
+        for (HexNum result : results) {
+            result.set(42);
+            assertEquals(42, result.getDec());
+        }
+
+        // the symbol table and the shared values are left alone
+        assertEquals(5, symbols.getSymbol("SMALL", "").getDec());
+        assertEquals(5000, symbols.getSymbol("LARGE", "").getDec());
+        assertEquals(5, HexNum.valueOf(5).getDec());
+    }
+
+    @Test
+    public void testGettersCanBeSet() throws InvalidAssemblyFileException {
+
+        // the sizes, locations, starts and location counters a caller is given are never shared
+        StatementBuilder builder = new StatementBuilder(new SymbolContext());
+        builder.processStatement("COPY START 0");
+        builder.processStatement("FIRST LDA #3");
+        builder.processStatement("USE CDATA");
+        builder.processStatement("ALPHA WORD 5");
+
+        List<HexNum> results = new ArrayList<>(List.of(builder.getStart(), builder.getStart("CDATA"),
+                builder.getLocctr(), builder.getLocctr("DEFAULT"), builder.getTotalLength()));
+        for (Statement statement : builder.getStatements()) {
+            results.add(statement.getSize());
+            if (statement instanceof BaseStatement baseStatement) {
+                results.add(baseStatement.getLocation());
+            }
+        }
+        for (HexNum result : results) {
+            result.set(42);
+            assertEquals(42, result.getDec());
+        }
+        assertEquals(3, HexNum.valueOf(3).getDec());
+    }
+
+    @Test
+    public void testHexNumFixedWidthRendering() {
+
+        // rendering into a StringBuilder pads and truncates like toString(digits)
+        StringBuilder sb = new StringBuilder("T");
+        HexNum.appendHex(sb, 0x1a2b, 6);
+        new HexNum(0x3c).appendTo(sb, 1);
+        assertEquals("T001A2BC", sb.toString());
+
+        // rendering into arrays
+        char[] chars = new char[6];
+        assertEquals(6, new HexNum(-2).writeTo(chars, 2, 4));
+        assertEquals("FFFE", new String(chars, 2, 4));
+
+        byte[] bytes = new byte[10];
+        assertEquals(10, HexNum.writeHex(bytes, 0, 0xabc, 10));
+        assertEquals("0000000ABC", new String(bytes, java.nio.charset.StandardCharsets.US_ASCII));
+    }
 }
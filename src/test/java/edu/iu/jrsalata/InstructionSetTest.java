@@ -0,0 +1,50 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class InstructionSetTest {
+
+    @Test
+    public void testSharedInstance() {
+        assertSame(InstructionSet.getInstance(), InstructionSet.getInstance());
+    }
+
+    @Test
+    public void testGetInstruction() {
+        Instruction lda = InstructionSet.getInstance().getInstruction("LDA");
+        assertEquals("LDA", lda.getMnemonic());
+        assertEquals(Format.SIC, lda.getFormat());
+        assertEquals(0, lda.getOpcode().getDec());
+        assertEquals(3, lda.getSize());
+
+        Instruction clear = InstructionSet.getInstance().getInstruction("CLEAR");
+        assertEquals(Format.TWO, clear.getFormat());
+        assertEquals("B4", clear.getOpcode().toString());
+        assertEquals(2, clear.getSize());
+
+        assertEquals(Format.ASM, InstructionSet.getInstance().getInstruction("START").getFormat());
+    }
+
+    @Test
+    public void testGetInstructionSpan() {
+        String line = "FIRST   RSUB";
+        assertSame(InstructionSet.getInstance().getInstruction("RSUB"),
+                InstructionSet.getInstance().getInstruction(line, 8, 12));
+    }
+
+    @Test
+    public void testUnknownMnemonic() {
+        assertNull(InstructionSet.getInstance().getInstruction("NOPE"));
+        assertNull(InstructionSet.getInstance().getInstruction("lda"));
+        assertNull(InstructionSet.getInstance().getInstruction("LDAXYZW"));
+    }
+
+    @Test
+    public void testGetRegister() {
+        assertEquals(1, InstructionSet.getInstance().getRegister("X").getDec());
+        assertNull(InstructionSet.getInstance().getRegister("Q"));
+    }
+}
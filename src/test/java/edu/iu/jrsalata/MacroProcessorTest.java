@@ -3,6 +3,8 @@ package edu.iu.jrsalata;
 import java.util.Queue;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
@@ -70,4 +72,141 @@ public class MacroProcessorTest {
             fail(e.getMessage());
         }
     }
+
+    @Test
+    public void testMacroProcessorRepeatedParameters() {
+        String[] params = { "&X", "&Y" };
+        MacroProcessor processor = new MacroProcessor(params);
+        processor.addLine("LDA &X");
+        processor.addLine("ADD &Y,&X");
+        processor.addLine("RSUB");
+
+        try {
+            Queue<String> lines = processor.getLines(new String[] { "ONE", "TWO" });
+
+            assertEquals("LDA ONE", lines.poll());
+            assertEquals("ADD TWO,ONE", lines.poll());
+            assertEquals("RSUB", lines.poll());
+
+            // every invocation expands the same definition with its own arguments
+            lines = processor.getLines(new String[] { "A", "B" });
+
+            assertEquals("LDA A", lines.poll());
+            assertEquals("ADD B,A", lines.poll());
+            assertEquals("RSUB", lines.poll());
+
+        } catch (InvalidAssemblyFileException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMacroProcessorStatements() {
+        String[] params = { "&X", "&Y", "&OP" };
+        MacroProcessor processor = new MacroProcessor(params);
+        processor.setLabel("LOOP");
+        processor.addLine("+LDA\t&X");
+        processor.addLine("STA\t&Y,X");
+        processor.addLine("&OP\t=C'EOF'");
+
+        try {
+            Queue<MacroLine> lines = processor.getStatements(new String[] { "ONE", "TWO", "+JSUB" });
+
+            // the fields and instruction were found when the line was added
+            MacroLine line = lines.poll();
+            assertEquals("LOOP   +LDA\tONE", line.getLine());
+            assertTrue(line.isBound());
+            assertEquals("LOOP", line.getLabel());
+            assertEquals("LDA", line.getMnemonic());
+            assertTrue(line.isExtended());
+            assertEquals("ONE", line.getArgs());
+            assertEquals("LDA", line.getInstruction().getMnemonic());
+
+            line = lines.poll();
+            assertEquals("STA\tTWO,X", line.getLine());
+            assertEquals("", line.getLabel());
+            assertEquals("STA", line.getMnemonic());
+            assertFalse(line.isExtended());
+            assertEquals("TWO,X", line.getArgs());
+
+            // a mnemonic given as an argument is looked up by the builder
+            line = lines.poll();
+            assertEquals("JSUB", line.getMnemonic());
+            assertTrue(line.isExtended());
+            assertEquals("=C'EOF'", line.getArgs());
+            assertNull(line.getInstruction());
+
+            // an argument with a space would be lexed differently, so the lines are lexed instead
+            lines = processor.getStatements(new String[] { "C'A B'", "TWO", "RSUB" });
+            line = lines.poll();
+            assertFalse(line.isBound());
+            assertEquals("LOOP   +LDA\tC'A B'", line.getLine());
+
+        } catch (InvalidAssemblyFileException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testBoundLinesMatchLexedLines() throws InvalidAssemblyFileException {
+        // the same invocations give the same statements whether the lines are bound or lexed
+        String[] definition = { "LDA\t&X", "+STA\t&Y,X", "\tCOMPR\tA,S", "&OP\t#3", "JEQ\t*-3" };
+        MacroProcessor processor = new MacroProcessor(new String[] { "&X", "&Y", "&OP" });
+        processor.setLabel("LOOP");
+        for (String line : definition) {
+            processor.addLine(line);
+        }
+        processor.finish();
+
+        SymbolContext symbols = new SymbolContext();
+        symbols.addMacro("MAC", processor);
+        StatementBuilder bound = new StatementBuilder(symbols);
+        StatementBuilder lexed = new StatementBuilder(new SymbolContext());
+        bound.processStatement("COPY\tSTART\t0");
+        lexed.processStatement("COPY\tSTART\t0");
+        bound.processStatement("\tMAC\tALPHA,BETA,LDX");
+        for (String line : processor.getLines(new String[] { "ALPHA", "BETA", "LDX" })) {
+            lexed.processStatement(line);
+        }
+        bound.processStatement("ALPHA\tWORD\t1");
+        lexed.processStatement("ALPHA\tWORD\t1");
+        bound.processStatement("BETA\tWORD\t2");
+        lexed.processStatement("BETA\tWORD\t2");
+
+        Queue<Statement> expected = lexed.getStatements();
+        Queue<Statement> actual = bound.getStatements();
+        assertEquals(expected.size(), actual.size());
+        while (!expected.isEmpty()) {
+            Statement lexedStatement = expected.poll();
+            Statement boundStatement = actual.poll();
+            assertEquals(lexedStatement.getLine(), boundStatement.getLine());
+            assertEquals(lexedStatement.assemble(), boundStatement.assemble());
+        }
+        assertEquals(lexed.getSymbolContext().getKeys(lexed.getName()), bound.getSymbolContext().getKeys(bound.getName()));
+    }
+
+    @Test
+    public void testFinishedMacroCannotChange() throws InvalidAssemblyFileException {
+        MacroProcessor processor = new MacroProcessor(new String[] { "&X" });
+        processor.addLine("LDA\t&X");
+        processor.finish();
+
+        try {
+            processor.addLine("STA\t&X");
+            fail("A line was added to a finished macro");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        try {
+            processor.setLabel("LOOP");
+            fail("A label was set on a finished macro");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // the finished macro still expands to its definition
+        Queue<MacroLine> lines = processor.getStatements(new String[] { "ONE" });
+        assertEquals(1, lines.size());
+        assertEquals("LDA\tONE", lines.poll().getLine());
+    }
 }
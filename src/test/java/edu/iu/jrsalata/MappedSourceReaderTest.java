@@ -0,0 +1,150 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.script.ScriptException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedSourceReaderTest {
+
+    private Path file;
+
+    @Before
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("mapped", ".asm");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    private Path write(String source, Charset charset) throws IOException {
+        Files.write(this.file, source.getBytes(charset));
+        return this.file;
+    }
+
+    @Test
+    public void testReadLines() throws IOException {
+        write("COPY START 0\r\n\tRSUB\n\n\tEND", StandardCharsets.US_ASCII);
+        try (SourceReader reader = new MappedSourceReader(this.file, StandardCharsets.US_ASCII)) {
+            assertEquals("COPY START 0", reader.readLine());
+            assertEquals("\tRSUB", reader.readLine());
+            assertEquals("", reader.readLine());
+            assertEquals("\tEND", reader.readLine());
+            assertNull(reader.readLine());
+            assertEquals(4, reader.getLineNumber());
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        write("", StandardCharsets.US_ASCII);
+        try (SourceReader reader = new MappedSourceReader(this.file, StandardCharsets.US_ASCII)) {
+            assertNull(reader.readLine());
+            assertEquals(0, reader.getLineNumber());
+        }
+    }
+
+    @Test
+    public void testLinesAcrossWindows() throws IOException {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            source.append("LBL").append(i).append(" WORD ").append(i * 7).append(i % 2 == 0 ? "\r\n" : "\n");
+        }
+        write(source.toString(), StandardCharsets.US_ASCII);
+
+        // a tiny window makes lines, and \r\n pairs, fall across window boundaries
+        for (int windowSize = 1; windowSize <= 17; windowSize++) {
+            try (SourceReader reader = new MappedSourceReader(this.file, StandardCharsets.US_ASCII, windowSize)) {
+                for (int i = 0; i < 50; i++) {
+                    assertEquals("LBL" + i + " WORD " + (i * 7), reader.readLine());
+                }
+                assertNull(reader.readLine());
+            }
+        }
+    }
+
+    @Test
+    public void testReadIntoSourceLine() throws IOException {
+        write("FIRST STL RETADR . save the return address\n\tEND FIRST\n", StandardCharsets.US_ASCII);
+        SourceLine line = new SourceLine();
+        try (SourceReader reader = new MappedSourceReader(this.file, StandardCharsets.US_ASCII)) {
+            assertTrue(reader.readLine(line));
+            assertEquals("FIRST", line.getLabel());
+            assertEquals("RETADR", line.getOperand());
+            assertEquals("FIRST STL RETADR", line.getContent());
+
+            assertTrue(reader.readLine(line));
+            assertEquals("END", line.getMnemonic());
+            assertFalse(reader.readLine(line));
+        }
+    }
+
+    @Test
+    public void testMappedLineIsNotLexedAgain() throws IOException, InvalidAssemblyFileException, ScriptException {
+        write("COPY\tSTART\t0\n   LDA   BUFFER . load\n", StandardCharsets.US_ASCII);
+        StatementBuilder builder = new StatementBuilder(new SymbolContext());
+        SourceLine line = builder.getSourceLine();
+        try (SourceReader reader = new MappedSourceReader(this.file, StandardCharsets.US_ASCII)) {
+            assertTrue(reader.readLine(line));
+            builder.processStatement(line.getContent());
+
+            // fields lexed from the mapped line start after its indentation,
+            // while lexing its content again would start them at 0
+            assertTrue(reader.readLine(line));
+            String content = line.getContent();
+            assertEquals("LDA   BUFFER", content);
+            assertEquals(3, line.getFieldStart(0));
+            assertSame(line, line.lex(content));
+            assertEquals(3, line.getFieldStart(0));
+
+            builder.processStatement(content);
+            assertEquals(3, builder.getSourceLine().getFieldStart(0));
+            Statement last = null;
+            for (Statement statement : builder.getStatements()) {
+                last = statement;
+            }
+            assertEquals("LDA   BUFFER", last.getLine());
+        }
+    }
+
+    @Test
+    public void testNonAsciiCharacters() throws IOException {
+        String line = "MSG BYTE C'été'";
+        write(line + "\n\tEND\n", StandardCharsets.UTF_8);
+        try (SourceReader reader = new MappedSourceReader(this.file, StandardCharsets.UTF_8)) {
+            assertEquals(line, reader.readLine());
+            assertEquals("\tEND", reader.readLine());
+        }
+
+        write(line + "\n", StandardCharsets.ISO_8859_1);
+        try (SourceReader reader = new MappedSourceReader(this.file, StandardCharsets.ISO_8859_1)) {
+            assertEquals(line, reader.readLine());
+        }
+    }
+
+    @Test
+    public void testFallsBackForWideCharsets() throws IOException {
+        assertFalse(MappedSourceReader.isAsciiCompatible(StandardCharsets.UTF_16));
+        write("\tRSUB\n\tEND\n", StandardCharsets.UTF_16);
+        try (SourceReader reader = MappedSourceReader.open(this.file, StandardCharsets.UTF_16)) {
+            assertTrue(reader instanceof BufferedSourceReader);
+            assertEquals("\tRSUB", reader.readLine());
+            assertEquals("\tEND", reader.readLine());
+        }
+    }
+}
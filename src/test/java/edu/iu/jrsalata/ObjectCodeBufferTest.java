@@ -0,0 +1,65 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class ObjectCodeBufferTest {
+
+    @Test
+    public void testAppendValue() {
+        ObjectCodeBuffer buffer = new ObjectCodeBuffer();
+        int first = buffer.append(0x172027, 6);
+        int second = buffer.append(0x4B100000L, 8);
+        assertEquals(0, first);
+        assertEquals(3, second);
+        assertEquals(7, buffer.size());
+        assertEquals("172027", buffer.toHex(first, 6));
+        assertEquals("4B100000", buffer.toHex(second, 8));
+    }
+
+    @Test
+    public void testOnlyLowestDigitsAreKept() {
+        ObjectCodeBuffer buffer = new ObjectCodeBuffer();
+        int offset = buffer.append(-1, 3);
+        assertEquals("FFF", buffer.toHex(offset, 3));
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    public void testOddLengthHex() {
+        ObjectCodeBuffer buffer = new ObjectCodeBuffer();
+        int odd = buffer.appendHex("f1f");
+        int next = buffer.appendHex("05");
+        assertEquals("F1F", buffer.toHex(odd, 3));
+        assertEquals("05", buffer.toHex(next, 2));
+        assertEquals((byte) 0xF0, buffer.getByte(odd + 1));
+
+        StringBuilder record = new StringBuilder("T");
+        buffer.appendHexTo(record, odd, 3);
+        buffer.appendHexTo(record, next, 2);
+        assertEquals("TF1F05", record.toString());
+    }
+
+    @Test
+    public void testGrows() {
+        ObjectCodeBuffer buffer = new ObjectCodeBuffer(1);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 3, buffer.append(i, 6));
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, Integer.parseInt(buffer.toHex(i * 3, 6), 16));
+        }
+    }
+
+    @Test
+    public void testInvalidHex() {
+        try {
+            new ObjectCodeBuffer().appendHex("G1");
+            fail("Expected a NumberFormatException");
+        } catch (NumberFormatException e) {
+            // expected
+        }
+    }
+}
@@ -4,14 +4,20 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.script.ScriptException;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -50,7 +56,104 @@ public class ObjectWriterTest {
 
     }
 
-    
+    @Test
+    public void testAsmParallel() {
+        // every control section is assembled and written on its own thread
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            InputStream file = getClass().getResourceAsStream(assemblyFile);
+            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+            builderBuilder.setExecutor(executor);
+            builderBuilder.execute(file);
+
+            String fileName = "test-parallel.obj";
+            ObjectWriterInterface writer = new ObjectWriter();
+            writer.setFileName(fileName);
+            writer.execute(builderBuilder.getBuilders(), executor);
+            compareOutput(fileName);
+
+        } catch (InvalidAssemblyFileException | IOException | ScriptException e) {
+            fail(e.getMessage());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testAsmStreaming() {
+        // text records are written while each section is read, giving the same object file
+        try {
+            InputStream file = getClass().getResourceAsStream(assemblyFile);
+            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+            builderBuilder.setStreaming(true, false);
+            builderBuilder.execute(file);
+
+            try (ObjectWriterInterface writer = new ObjectWriter()) {
+                testAsm(writer, builderBuilder.getBuilders(), "test-streaming.obj");
+            }
+
+        } catch (InvalidAssemblyFileException | IOException | ScriptException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testListing() {
+        try {
+            InputStream file = getClass().getResourceAsStream(assemblyFile);
+            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+            builderBuilder.execute(file);
+
+            String fileName = "test-listing.obj";
+            File listingFile = new File(fileName + ".txt");
+            try (ObjectWriterInterface writer = new ObjectWriter()) {
+                writer.setListing(true);
+                writer.setFileName(fileName);
+                Queue<AbstractStatementBuilder> queue = builderBuilder.getBuilders();
+                while (!queue.isEmpty()) {
+                    AbstractStatementBuilder builder = queue.poll();
+                    writer.setBuilder(builder);
+                    writer.setQueue(builder.getStatements());
+                    writer.execute();
+                }
+            }
+
+            // every statement is listed with its address, object code, and source
+            List<String> lines = Files.readAllLines(listingFile.toPath());
+            assertFalse(lines.isEmpty());
+            for (String line : lines) {
+                assertTrue(line, line.matches("[0-9A-F]{6}\t[0-9A-F]*\t.*"));
+            }
+            compareOutput(fileName);
+
+        } catch (InvalidAssemblyFileException | IOException | ScriptException e) {
+            fail(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testNoListingByDefault() {
+        try {
+            InputStream file = getClass().getResourceAsStream(assemblyFile);
+            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+            builderBuilder.execute(file);
+
+            String fileName = "test-nolisting.obj";
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try (ObjectWriterInterface writer = new ObjectWriter()) {
+                writer.setFileName(fileName);
+                writer.execute(builderBuilder.getBuilders(), executor);
+            } finally {
+                executor.shutdown();
+            }
+            assertFalse(new File(fileName + ".txt").exists());
+            compareOutput(fileName);
+
+        } catch (InvalidAssemblyFileException | IOException | ScriptException e) {
+            fail(e.getMessage());
+        }
+    }
+
     public void testAsm(ObjectWriterInterface writer, Queue<AbstractStatementBuilder> queue, String fileName) {
 
         // lets first write the object file
@@ -70,6 +173,11 @@ public class ObjectWriterTest {
             }
         }
 
+        compareOutput(fileName);
+    }
+
+    public void compareOutput(String fileName) {
+
         // now compare the output between the two files
         try {
             // read the original compare file
@@ -1,6 +1,12 @@
 package edu.iu.jrsalata;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import javax.script.ScriptException;
+
 import org.junit.Test;
 
 public class SicStatementTest {
@@ -32,4 +38,34 @@ public class SicStatementTest {
         assertEquals(3, sicStatement.getSize().getDec());
         assertEquals("188020", sicStatement.assemble());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAssembledOnce() throws InvalidAssemblyFileException {
+        HexNum location = new HexNum(0);
+        HexNum opcode = new HexNum("18", NumSystem.HEX);
+        SicStatement sicStatement = new SicStatement(location, opcode, "#020, X");
+        assertFalse(sicStatement.isAssembled());
+
+        // the indexed flag and the '#' are only applied once, so every call sees the same object code
+        assertEquals("188020", sicStatement.assemble());
+        assertTrue(sicStatement.isAssembled());
+        assertEquals(6, sicStatement.assembleCode());
+        assertEquals("188020", sicStatement.assemble());
+    }
+
+    @Test
+    public void testBuilderRejectsUnknownMnemonics() throws ScriptException {
+        SicStatementBuilder builder = new SicStatementBuilder();
+
+        // mnemonics that are missing or only part of SIC/XE are rejected the same way
+        String[][] lines = { { "BOGUS", "BOGUS 5" }, { "CLEAR", "CLEAR A" }, { "+RSUB", "+RSUB" } };
+        for (String[] line : lines) {
+            try {
+                builder.processStatement(line[1]);
+                fail("'" + line[1] + "' should not be accepted by the SIC builder");
+            } catch (InvalidAssemblyFileException e) {
+                assertTrue(e.getMessage(), e.getMessage().endsWith("SIC Mnemonic '" + line[0] + "' not found"));
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.script.ScriptException;
+
+import org.junit.Test;
+
+public class SourceGeneratorTest {
+
+    // a single section with code in every program block, literals, and macros
+    private SourceGenerator blocks() {
+        SourceGenerator generator = new SourceGenerator();
+        generator.setSeed(1);
+        generator.setLines(64);
+        generator.setLabels(12);
+        generator.setBlocks(2);
+        generator.setLiterals(6);
+        generator.setMacros(2);
+        return generator;
+    }
+
+    // control sections that define and refer to each other's words
+    private SourceGenerator sections() {
+        SourceGenerator generator = new SourceGenerator();
+        generator.setSeed(2);
+        generator.setLines(48);
+        generator.setLabels(9);
+        generator.setSections(3);
+        generator.setBlocks(1);
+        generator.setLiterals(3);
+        generator.setMacros(1);
+        generator.setExternalReferences(2);
+        return generator;
+    }
+
+    // assemble the source and write the object file, returning its contents
+    private String assemble(String source, boolean streaming, boolean parallel)
+            throws InvalidAssemblyFileException, ScriptException, IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            return assemble(source, streaming, parallel ? executor : null, executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // sections are read on the builder executor, if there is one, and written on the writer executor
+    private String assemble(String source, boolean streaming, ExecutorService builderExecutor,
+            ExecutorService writerExecutor) throws InvalidAssemblyFileException, ScriptException, IOException {
+        InputStream file = new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8));
+        AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+        builderBuilder.setStreaming(streaming, false);
+        builderBuilder.setExecutor(builderExecutor);
+        builderBuilder.execute(file);
+
+        String fileName = "test-generated.obj";
+        try (ObjectWriterInterface writer = new ObjectWriter()) {
+            writer.setFileName(fileName);
+            writer.execute(builderBuilder.getBuilders(), writerExecutor);
+        }
+        File output = new File(fileName);
+        String result = Files.readString(output.toPath());
+        output.delete();
+        return result;
+    }
+
+    private String expected(String objectFile) throws IOException {
+        try (InputStream control = getClass().getResourceAsStream(objectFile)) {
+            return new String(control.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // count the lines that match a regular expression
+    private long count(String source, String regex) {
+        return Arrays.stream(source.split("\n")).filter(line -> line.matches(regex)).count();
+    }
+
+    @Test
+    public void testSameSeedSameProgram() {
+        assertEquals(sections().generate(), sections().generate());
+
+        SourceGenerator other = sections();
+        other.setSeed(3);
+        assertNotEquals(sections().generate(), other.generate());
+    }
+
+    @Test
+    public void testCounts() {
+        String source = sections().generate();
+
+        // 48 lines are 6 chunks of 8, shared between the 3 sections
+        assertEquals(6, count(source, "C\\w+\t.*"));
+        assertEquals(9, count(source, "D\\w+\t.*"));
+        assertEquals(2, count(source, "S\\w+\tCSECT"));
+        assertEquals(3, count(source, "\tEXTREF\t\\w+,\\w+"));
+        assertEquals(3, count(source, "\tUSE\tB1"));
+        assertEquals(1, count(source, "M\\w+\tMACRO\t&A,&B"));
+        assertEquals(3, count(source, ".*\t=.*"));
+        assertEquals(6, count(source, "E\\w+\tWORD\t\\d+"));
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        SourceGenerator generator = new SourceGenerator();
+        try {
+            generator.setSections(0);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("sections"));
+        }
+        try {
+            generator.setLines(-1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("lines"));
+        }
+    }
+
+    @Test
+    public void testBlocksObjectFile() throws InvalidAssemblyFileException, ScriptException, IOException {
+        String source = blocks().generate();
+        assertEquals(expected("/generated1.obj"), assemble(source, false, false));
+        assertEquals(expected("/generated1.obj"), assemble(source, true, false));
+    }
+
+    @Test
+    public void testSectionsObjectFile() throws InvalidAssemblyFileException, ScriptException, IOException {
+        String source = sections().generate();
+        assertEquals(expected("/generated2.obj"), assemble(source, false, false));
+        assertEquals(expected("/generated2.obj"), assemble(source, true, false));
+
+        // every section is read on its own thread, giving the same object file
+        assertEquals(expected("/generated2.obj"), assemble(source, false, true));
+    }
+
+    @Test
+    public void testDefinitionInSecondSection() throws InvalidAssemblyFileException, ScriptException, IOException {
+        // the symbols of a CSECT are stored under its padded name, which the D record looks them up by
+        String source = "PROGA\tSTART\t0\n"
+                + "\tEXTREF\tBVAL\n"
+                + "FIRST\t+LDA\tBVAL\n"
+                + "\tRSUB\n"
+                + "PROGB\tCSECT\n"
+                + "\tEXTDEF\tBVAL\n"
+                + "\tLDA\t#1\n"
+                + "BVAL\tWORD\t7\n"
+                + "\tEND\tFIRST\n";
+        String expected = "HPROGA 000000000007\n"
+                + "RBVAL  \n"
+                + "T00000007031000004F0000\n"
+                + "M00000105+BVAL\n"
+                + "E000000\n"
+                + "HPROGB 000000000006\n"
+                + "DBVAL  000003\n"
+                + "T00000006010001000007\n"
+                + "E\n";
+        assertEquals(expected, assemble(source, false, false));
+        assertEquals(expected, assemble(source, false, true));
+    }
+
+    @Test
+    public void testFormatThreeInUseBlock() throws InvalidAssemblyFileException, ScriptException, IOException {
+        // LDA BETA is at 9 once CDATA follows the default block, so BETA is 0 past its PC
+        String source = "COPY\tSTART\t0\n"
+                + "FIRST\tLDA\t#1\n"
+                + "\tJ\tNEXT\n"
+                + "\tUSE\tCDATA\n"
+                + "NEXT\tLDA\tBETA\n"
+                + "BETA\tWORD\t5\n"
+                + "\tUSE\n"
+                + "\tJ\tFIRST\n"
+                + "\tEND\tFIRST\n";
+        String expected = "HCOPY  00000000000F\n"
+                + "T000000060100013F2003\n"
+                + "T00000906032000000005\n"
+                + "T000006033F2FF7\n"
+                + "E000000\n";
+        assertEquals(expected, assemble(source, false, false));
+        assertEquals(expected, assemble(source, true, false));
+    }
+
+    @Test
+    public void testFormatThreeAfterStart() throws InvalidAssemblyFileException, ScriptException, IOException {
+        // the statements are moved to the START address like their symbols, so the displacements stay the same
+        String source = "COPY\tSTART\t1000\n"
+                + "FIRST\tLDA\tALPHA\n"
+                + "\tJ\tFIRST\n"
+                + "ALPHA\tWORD\t5\n"
+                + "\tEND\tFIRST\n";
+        String expected = "HCOPY  001000000009\n"
+                + "T001000090320033F2FFA000005\n"
+                + "E001000\n";
+        assertEquals(expected, assemble(source, false, false));
+        assertEquals(expected, assemble(source, true, false));
+    }
+
+    @Test
+    public void testLargeProgramAssembles() throws InvalidAssemblyFileException, ScriptException, IOException {
+        SourceGenerator generator = new SourceGenerator();
+        generator.setSeed(4);
+        generator.setLines(4000);
+        generator.setLabels(600);
+        generator.setSections(4);
+        generator.setBlocks(3);
+        generator.setLiterals(40);
+        generator.setMacros(4);
+        generator.setExternalReferences(8);
+        String source = generator.generate();
+
+        String batch = assemble(source, false, false);
+        assertEquals(4, batch.split("\nH", -1).length);
+        assertEquals(batch, assemble(source, true, false));
+        assertEquals(batch, assemble(source, false, true));
+    }
+}
@@ -0,0 +1,84 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SourceLineTest {
+
+    @Test
+    public void testPositionalFields() {
+        SourceLine source = new SourceLine();
+
+        source.lex("FIRST\tSTL\tRETADR\t.SAVE RETURN ADDRESS");
+        assertEquals("FIRST", source.getLabel());
+        assertEquals("STL", source.getMnemonic());
+        assertEquals("RETADR", source.getOperand());
+        assertEquals(".SAVE RETURN ADDRESS", source.getComment());
+
+        source.lex("\tLDA\tLENGTH");
+        assertEquals("", source.getLabel());
+        assertEquals("LDA", source.getMnemonic());
+        assertEquals("LENGTH", source.getOperand());
+
+        source.lex("  RSUB  ");
+        assertEquals("RSUB", source.getMnemonic());
+        assertEquals("", source.getOperand());
+    }
+
+    @Test
+    public void testMatchesCleanAndSplit() {
+        String[] lines = { "COPY\tSTART\t0", "   ", ". just a comment", "\tRSUB", "BUFEND\tEQU\t*\t.END",
+                "CLOOP  +JSUB RDREC", "A B C D", "" };
+        for (String line : lines) {
+            String cleaned = line.strip();
+            cleaned = cleaned.isEmpty() || cleaned.charAt(0) == '.' ? ""
+                    : cleaned.substring(0, cleaned.indexOf('.') < 0 ? cleaned.length() : cleaned.indexOf('.')).strip();
+            assertEquals(line, cleaned, Utility.cleanLine(line));
+
+            String[] expected = cleaned.isEmpty() ? new String[] { "", "" } : cleaned.split("\\s+");
+            assertArrayEquals(line, expected, Utility.splitLine(line));
+        }
+    }
+
+    @Test
+    public void testQuotedConstants() {
+        SourceLine source = new SourceLine().lex("MSG\tBYTE\tC'A B.C'\t. message");
+        assertEquals(3, source.getFieldCount());
+        assertEquals("C'A B.C'", source.getOperand());
+        assertEquals(". message", source.getComment());
+    }
+
+    @Test
+    public void testContentIsReused() {
+        SourceLine source = new SourceLine();
+        String clean = "LDA\tBUFFER";
+        assertSame(clean, source.lex(clean).getContent());
+
+        String content = source.lex("\tLDA BUFFER . load").getContent();
+        assertEquals("LDA BUFFER", content);
+        assertSame(content, source.lex(content).getContent());
+    }
+
+    @Test
+    public void testDirectives() {
+        SourceLine source = new SourceLine().lex("RDREC\tCSECT");
+        assertTrue(source.isDirective("CSECT"));
+        assertFalse(source.lex("\tLDA\tCSECTS").isDirective("CSECT"));
+        assertTrue(source.lex("\tMEND").isDirective("MEND"));
+        assertTrue(source.lex("RDBUFF\tMACRO\t&INDEV").isDirective("MACRO"));
+    }
+
+    @Test
+    public void testSpansIntoBuffer() {
+        char[] chars = "xxFIRST   STL   RETADRxx".toCharArray();
+        SourceLine source = new SourceLine().lex(chars, 2, chars.length - 4);
+        assertEquals(3, source.getFieldCount());
+        assertEquals(SymbolKey.pack("RETADR"),
+                SymbolKey.pack(source.getBuffer(), source.getFieldStart(2), source.getFieldEnd(2)));
+        assertTrue(source.fieldEquals(1, "STL"));
+    }
+}
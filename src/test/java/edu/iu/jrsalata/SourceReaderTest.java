@@ -0,0 +1,61 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+public class SourceReaderTest {
+
+    @Test
+    public void testReadLines() throws IOException {
+        try (SourceReader reader = new BufferedSourceReader(new StringReader("COPY START 0\r\n\tRSUB\n\n\tEND"))) {
+            assertEquals("COPY START 0", reader.readLine());
+            assertEquals("\tRSUB", reader.readLine());
+            assertEquals("", reader.readLine());
+            assertEquals("\tEND", reader.readLine());
+            assertNull(reader.readLine());
+            assertEquals(4, reader.getLineNumber());
+        }
+    }
+
+    @Test
+    public void testSicFlagWithoutRewinding() throws Exception {
+        String source = "!USE SIC\nCOPY START 1000\nFIRST LDA ZERO\nZERO WORD 0\n END FIRST\n";
+
+        // a stream that cannot be rewound, so the input must only be read once
+        InputStream stream = new FilterInputStream(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8))) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+
+            @Override
+            public synchronized void reset() throws IOException {
+                throw new IOException("reset is not supported");
+            }
+        };
+
+        AbstractStatementBuilderBuilder builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+        builderBuilder.execute(stream);
+
+        AbstractStatementBuilder builder = builderBuilder.getBuilders().poll();
+        assertTrue(builder instanceof SicStatementBuilder);
+        assertEquals("COPY  ", builder.getName());
+        int assembled = 0;
+        for (Statement statement : builder.getStatements()) {
+            if (!statement.assemble().isEmpty()) {
+                assembled++;
+            }
+        }
+        assertEquals(2, assembled);
+    }
+}
@@ -0,0 +1,65 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class StreamingTest {
+
+    // write the text records of every statement the builder still holds
+    private String writeRecords(AbstractStatementBuilder builder) throws InvalidAssemblyFileException, IOException {
+        StringWriter records = new StringWriter();
+        new ObjectWriter().writeTextRecords(records, builder.getStatements(), builder, null);
+        return records.toString();
+    }
+
+    @Test
+    public void testOnlyForwardReferencesAreHeld() throws InvalidAssemblyFileException, IOException {
+        StatementBuilder builder = new StatementBuilder(new SymbolContext());
+        builder.setStreaming(false);
+        builder.processStatement("COPY START 0");
+        builder.processStatement("FIRST LDA #3");
+        builder.processStatement("LOOP ADD #1");
+        builder.processStatement("J LOOP");
+
+        // every statement refers to something already defined, so nothing is held
+        assertEquals(0, builder.statements.size());
+
+        // a forward reference holds itself and everything after it until it is defined
+        builder.processStatement("J DONE");
+        builder.processStatement("ADD #2");
+        assertEquals(2, builder.statements.size());
+        builder.processStatement("DONE ADD #4");
+        assertEquals(0, builder.statements.size());
+
+        assertEquals("T000000120100031900013F2FFA3F2003190002190004\n", writeRecords(builder));
+    }
+
+    @Test
+    public void testBlocksAreHeldUntilTheEnd() throws InvalidAssemblyFileException, IOException {
+        String[] lines = {
+                "COPY START 0",
+                "FIRST LDA #3",
+                "USE CDATA",
+                "ALPHA WORD 5",
+                "USE",
+                "LDA ALPHA",
+                "J FIRST",
+                "END FIRST" };
+
+        StatementBuilder streamed = new StatementBuilder(new SymbolContext());
+        streamed.setStreaming(false);
+        StatementBuilder batch = new StatementBuilder(new SymbolContext());
+        for (String line : lines) {
+            streamed.processStatement(line);
+            batch.processStatement(line);
+        }
+
+        // once there is a second block, symbols move when the section ends, so the rest is held
+        assertEquals(6, streamed.statements.size());
+        assertEquals(writeRecords(batch), writeRecords(streamed));
+    }
+}
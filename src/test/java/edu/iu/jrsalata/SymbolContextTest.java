@@ -0,0 +1,184 @@
+package edu.iu.jrsalata;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.script.ScriptException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class SymbolContextTest {
+
+    @Test
+    public void testContextsAreIndependent() {
+        SymbolContext first = new SymbolContext();
+        SymbolContext second = new SymbolContext();
+
+        first.addSymbol("BUFFER", new HexNum(10), "DEFAULT", "COPY");
+        second.addSymbol("BUFFER", new HexNum(20), "CDATA", "COPY");
+
+        assertEquals(10, first.getSymbol("buffer", "COPY").getDec());
+        assertEquals(20, second.getSymbol("BUFFER", "COPY").getDec());
+        assertEquals("CDATA", second.getBlock("BUFFER", "COPY"));
+        assertFalse(first.containsSymbol("BUFFER", "RDREC"));
+
+        first.clear();
+        assertNull(first.getSymbol("BUFFER", "COPY"));
+        assertTrue(second.containsSymbol("BUFFER", "COPY"));
+    }
+
+    @Test
+    public void testParallelAssemblies() throws Exception {
+        String[] names = { "testAsm1", "testAsm2", "testAsm3", "testAsm4", "testAsm5", "testAsm6" };
+        ExecutorService executor = Executors.newFixedThreadPool(names.length);
+        try {
+            // assemble every file at the same time, each with its own context
+            List<Future<String>> results = new ArrayList<>();
+            for (String name : names) {
+                results.add(executor.submit(assemble(name)));
+            }
+
+            for (int i = 0; i < names.length; i++) {
+                InputStream control = getClass().getResourceAsStream("/" + names[i] + ".obj");
+                String expected = new String(control.readAllBytes(), StandardCharsets.UTF_8);
+                assertEquals(names[i], normalize(expected), normalize(results.get(i).get()));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMacroDefinedLaterIsRejectedInParallel() throws Exception {
+        // the first section invokes a macro that is only defined in the second section
+        String source = "COPY\tSTART\t0\n"
+                + "\tLOADA\tFIVE\n"
+                + "FIVE\tWORD\t5\n"
+                + "RDREC\tCSECT\n"
+                + "LOADA\tMACRO\t&V\n"
+                + "\tLDA\t&V\n"
+                + "\tMEND\n"
+                + "\tRSUB\n"
+                + "\tEND\tCOPY\n";
+
+        // a section on another thread fails just like it does when it is read in order
+        String sequential = assembleError(source, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                assertEquals(sequential, assembleError(source, executor));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(sequential, sequential.contains("LOADA"));
+    }
+
+    @Test
+    public void testMacroDefinedEarlierIsExpandedInParallel() throws Exception {
+        // a macro defined in the first section is invoked by both sections
+        String source = "COPY\tSTART\t0\n"
+                + "LOADA\tMACRO\t&V\n"
+                + "\tLDA\t&V\n"
+                + "\tMEND\n"
+                + "FIRST\tLOADA\tFIVE\n"
+                + "FIVE\tWORD\t5\n"
+                + "RDREC\tCSECT\n"
+                + "\tLOADA\t#3\n"
+                + "\tRSUB\n"
+                + "\tEND\tCOPY\n";
+
+        String sequential = assembleSource(source, null);
+        assertTrue(sequential, sequential.contains("032000"));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                assertEquals(sequential, assembleSource(source, executor));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // assembles the given source in a new context, on the executor if there is one,
+    // and returns the object file
+    private String assembleSource(String source, ExecutorService executor) throws Exception {
+        AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(new SymbolContext());
+        builderBuilder.setExecutor(executor);
+        builderBuilder.execute(new ByteArrayInputStream(source.getBytes(StandardCharsets.UTF_8)));
+
+        StringWriter output = new StringWriter();
+        ExecutorService writers = executor == null ? Executors.newSingleThreadExecutor() : executor;
+        try (ObjectWriterInterface writer = new ObjectWriter()) {
+            writer.setOutput(output);
+            writer.execute(builderBuilder.getBuilders(), writers);
+        } finally {
+            if (writers != executor) {
+                writers.shutdown();
+            }
+        }
+        return normalize(output.toString());
+    }
+
+    // assembles the given source, which is expected to fail, and returns the error
+    private String assembleError(String source, ExecutorService executor) throws Exception {
+        try {
+            assembleSource(source, executor);
+        } catch (InvalidAssemblyFileException | ScriptException e) {
+            return e.getMessage();
+        }
+        fail("The source was assembled");
+        return null;
+    }
+
+    // assembles the given resource in a new context and returns the written object file
+    private Callable<String> assemble(String name) {
+        return () -> {
+            SymbolContext context = new SymbolContext();
+            AbstractStatementBuilderBuilderInterface builderBuilder = new AbstractStatementBuilderBuilder(context);
+            builderBuilder.execute(getClass().getResourceAsStream("/" + name + ".asm"));
+            Queue<AbstractStatementBuilder> queue = builderBuilder.getBuilders();
+
+            String fileName = "parallel-" + name + ".obj";
+            ObjectWriterInterface writer = new ObjectWriter();
+            writer.setFileName(fileName);
+            while (!queue.isEmpty()) {
+                AbstractStatementBuilder builder = queue.poll();
+                writer.setBuilder(builder);
+                writer.setQueue(builder.getStatements());
+                writer.execute();
+            }
+
+            File file = new File(fileName);
+            String output = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+            file.delete();
+            new File(fileName + ".txt").delete();
+            return output;
+        };
+    }
+
+    // ignores case and trailing whitespace on each line like ObjectWriterTest
+    private static String normalize(String output) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : output.split("\n")) {
+            sb.append(line.trim().toLowerCase()).append('\n');
+        }
+        return sb.toString().trim();
+    }
+}
@@ -0,0 +1,32 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import org.junit.Test;
+
+public class SymbolKeyTest {
+
+    @Test
+    public void testPackMatchesLengthCheck() {
+        String[] symbols = { "BUFFER", "buffer", "  RDREC\t", "LENGTH2", "A B", "X'05'", "C'EOF'", "A", "", "   " };
+        for (String symbol : symbols) {
+            assertEquals(symbol, Utility.lengthCheck(symbol), SymbolKey.unpack(SymbolKey.pack(symbol)));
+        }
+    }
+
+    @Test
+    public void testEquivalentSymbolsShareAKey() {
+        assertEquals(SymbolKey.pack("RETADR"), SymbolKey.pack("retadr  "));
+        assertEquals(SymbolKey.pack("LENGTH"), SymbolKey.pack("\tLENGTHS"));
+        assertEquals(SymbolKey.EMPTY, SymbolKey.pack(" \t "));
+        assertNotEquals(SymbolKey.pack("BUF"), SymbolKey.pack("BUFFER"));
+    }
+
+    @Test
+    public void testPackSpans() {
+        String line = "FIRST   STL   RETADR";
+        char[] chars = line.toCharArray();
+        assertEquals(SymbolKey.pack("RETADR"), SymbolKey.pack(line, 14, 20));
+        assertEquals(SymbolKey.pack("STL"), SymbolKey.pack(chars, 5, 14));
+    }
+}
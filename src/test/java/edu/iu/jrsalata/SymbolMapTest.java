@@ -0,0 +1,50 @@
+package edu.iu.jrsalata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class SymbolMapTest {
+
+    @Test
+    public void testPutAndGet() {
+        SymbolMap map = new SymbolMap();
+        map.put(SymbolKey.pack("FIRST"), 0x1000);
+        map.put(SymbolKey.pack("CLOOP"), 0x1003);
+        map.put(SymbolKey.pack("FIRST"), 0x2000);
+
+        assertEquals(2, map.size());
+        assertEquals(0x2000, map.get(SymbolKey.pack("first"), -1));
+        assertEquals(0x1003, map.get(SymbolKey.pack("CLOOP"), -1));
+        assertEquals(-1, map.get(SymbolKey.pack("ENDFIL"), -1));
+        assertFalse(map.containsKey(SymbolKey.pack("ENDFIL")));
+    }
+
+    @Test
+    public void testEmptyKey() {
+        SymbolMap map = new SymbolMap();
+        assertFalse(map.containsKey(SymbolKey.EMPTY));
+        map.put(SymbolKey.EMPTY, 7);
+        assertTrue(map.containsKey(SymbolKey.EMPTY));
+        assertEquals(7, map.get(SymbolKey.EMPTY, -1));
+        assertEquals(1, map.keys().length);
+    }
+
+    @Test
+    public void testGrowWithManySymbols() {
+        SymbolMap map = new SymbolMap(4);
+        for (int i = 0; i < 5000; i++) {
+            map.put(SymbolKey.pack("L" + i), i);
+        }
+        assertEquals(5000, map.size());
+        assertEquals(5000, map.keys().length);
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, map.get(SymbolKey.pack("L" + i), -1));
+        }
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey(SymbolKey.pack("L1")));
+    }
+}